@@ -55,6 +55,7 @@ import org.opencms.json.JSONArray;
 import org.opencms.json.JSONException;
 import org.opencms.json.JSONObject;
 import org.opencms.jsp.CmsJspNavBuilder;
+import org.opencms.jsp.CmsJspNavCache;
 import org.opencms.jsp.CmsJspNavElement;
 import org.opencms.jsp.CmsJspTagLink;
 import org.opencms.jsp.util.CmsJspStandardContextBean;
@@ -89,6 +90,11 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
@@ -156,6 +162,12 @@ public class CmsADEManager {
     /** Default favorite list size constant. */
     public static final int DEFAULT_FAVORITE_LIST_SIZE = 10;
 
+    /** Default number of threads used to render container elements in parallel. */
+    public static final int DEFAULT_PARALLEL_RENDER_THREADS = 8;
+
+    /** Default time in milliseconds to wait for a container element rendered in parallel. */
+    public static final long DEFAULT_PARALLEL_RENDER_TIMEOUT = 10000;
+
     /** Default recent list size constant. */
     public static final int DEFAULT_RECENT_LIST_SIZE = 10;
 
@@ -171,6 +183,12 @@ public class CmsADEManager {
     /** Node name for the nav level type value. */
     public static final String N_TYPE = "Type";
 
+    /** ADE parameter for the number of threads used to render container elements in parallel, 0 disables parallel rendering. */
+    public static final String PARAM_PARALLEL_RENDER_THREADS = "container.parallel.threads";
+
+    /** ADE parameter for the time in milliseconds to wait for a container element rendered in parallel. */
+    public static final String PARAM_PARALLEL_RENDER_TIMEOUT = "container.parallel.timeout";
+
     /** The path to the sitemap editor JSP. */
     public static final String PATH_SITEMAP_EDITOR_JSP = "/system/modules/org.opencms.ade.sitemap/pages/sitemap.jsp";
 
@@ -195,6 +213,9 @@ public class CmsADEManager {
     /** The detail page finder. */
     private I_CmsDetailPageFinder m_detailPageFinder = new CmsSitemapDetailPageFinder();
 
+    /** The pool of threads used to render container elements in parallel. */
+    private ThreadPoolExecutor m_elementRenderExecutor;
+
     /** The element view configuration file type. */
     private I_CmsResourceType m_elementViewType;
 
@@ -219,6 +240,9 @@ public class CmsADEManager {
     /** The offline formatter bean cache. */
     private CmsFormatterConfigurationCache m_offlineFormatterCache;
 
+    /** The navigation cache for the Offline project. */
+    private CmsJspNavCache m_offlineNavCache;
+
     /** The offline cache instance. */
     private CmsConfigurationCache m_onlineCache;
 
@@ -234,6 +258,9 @@ public class CmsADEManager {
     /** The online formatter bean cache. */
     private CmsFormatterConfigurationCache m_onlineFormatterCache;
 
+    /** The navigation cache for the Online project. */
+    private CmsJspNavCache m_onlineNavCache;
+
     /** ADE parameters. */
     private Map<String, String> m_parameters;
 
@@ -418,6 +445,63 @@ public class CmsADEManager {
         return getCacheState(isOnline(cms)).getDetailPageTypes();
     }
 
+    /**
+     * Returns the pool of threads used to render container elements in parallel.<p>
+     * 
+     * The pool is created on first use. Its size is configured with the ADE parameter 
+     * {@link #PARAM_PARALLEL_RENDER_THREADS}. If the size is set to 0, parallel rendering is disabled 
+     * and <code>null</code> is returned.<p>
+     * 
+     * @return the pool of threads used to render container elements in parallel, or <code>null</code>
+     */
+    public synchronized ExecutorService getElementRenderExecutor() {
+
+        if (m_elementRenderExecutor == null) {
+            int threads = getIntParameter(PARAM_PARALLEL_RENDER_THREADS, DEFAULT_PARALLEL_RENDER_THREADS);
+            if (threads <= 0) {
+                return null;
+            }
+            ThreadFactory factory = new ThreadFactory() {
+
+                /** The number of created threads. */
+                private int m_count;
+
+                /**
+                 * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+                 */
+                public synchronized Thread newThread(Runnable r) {
+
+                    m_count++;
+                    Thread thread = new Thread(r, "OpenCms: Element render worker " + m_count);
+                    // workers rendering an element that timed out must not prevent a shutdown of the VM
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+            // the queue is bounded, elements that can not be queued are rendered by the request thread
+            m_elementRenderExecutor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(threads * 4),
+                factory);
+            m_elementRenderExecutor.allowCoreThreadTimeOut(true);
+        }
+        return m_elementRenderExecutor;
+    }
+
+    /**
+     * Returns the time in milliseconds to wait for a container element rendered in parallel,
+     * configured with the ADE parameter {@link #PARAM_PARALLEL_RENDER_TIMEOUT}.<p>
+     * 
+     * @return the time in milliseconds to wait for a container element rendered in parallel
+     */
+    public long getElementRenderTimeout() {
+
+        return getIntParameter(PARAM_PARALLEL_RENDER_TIMEOUT, (int)DEFAULT_PARALLEL_RENDER_TIMEOUT);
+    }
+
     /**
      * Returns the element settings for a given resource.<p>
      * 
@@ -572,6 +656,18 @@ public class CmsADEManager {
         return m_moduleConfigType;
     }
 
+    /**
+     * Gets the navigation cache for the Online or Offline projects.<p>
+     * 
+     * @param online if true, gets the Online project navigation cache
+     * 
+     * @return the navigation cache, or <code>null</code> if the ADE manager is not initialized yet 
+     */
+    public CmsJspNavCache getNavigationCache(boolean online) {
+
+        return online ? m_onlineNavCache : m_offlineNavCache;
+    }
+
     /**
      * Gets ADE parameters.<p>
      * 
@@ -862,6 +958,9 @@ public class CmsADEManager {
                 m_offlineDetailIdCache.initialize();
                 m_onlineDetailIdCache.initialize();
 
+                m_offlineNavCache = new CmsJspNavCache(m_offlineCms, "offline navigation");
+                m_onlineNavCache = new CmsJspNavCache(m_onlineCms, "online navigation");
+
                 CmsGlobalConfigurationCacheEventHandler handler = new CmsGlobalConfigurationCacheEventHandler(
                     m_onlineCms);
                 handler.addCache(m_offlineCache, m_onlineCache, "ADE configuration cache");
@@ -871,6 +970,7 @@ public class CmsADEManager {
                     "Inherited container cache");
                 handler.addCache(m_offlineFormatterCache, m_onlineFormatterCache, "formatter configuration cache");
                 handler.addCache(m_offlineDetailIdCache, m_onlineDetailIdCache, "Detail ID cache");
+                handler.addCache(m_offlineNavCache, m_onlineNavCache, "navigation cache");
                 OpenCms.getEventManager().addCmsEventListener(handler);
                 m_initStatus = Status.initialized;
             } catch (CmsException e) {
@@ -1060,7 +1160,12 @@ public class CmsADEManager {
      */
     public void shutdown() {
 
-        // do nothing 
+        synchronized (this) {
+            if (m_elementRenderExecutor != null) {
+                m_elementRenderExecutor.shutdownNow();
+                m_elementRenderExecutor = null;
+            }
+        }
     }
 
     /** 
@@ -1242,6 +1347,28 @@ public class CmsADEManager {
         return state.lookupConfiguration(rootPath);
     }
 
+    /**
+     * Returns the integer value of an ADE parameter.<p>
+     * 
+     * @param name the name of the parameter
+     * @param defaultValue the value to use if the parameter is not set or not a valid number
+     * 
+     * @return the integer value of the parameter
+     */
+    private int getIntParameter(String name, int defaultValue) {
+
+        String value = m_parameters.get(name);
+        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            return defaultValue;
+        }
+    }
+
     /** 
      * Returns true if the project set in the CmsObject is the Online project.<p>
      * 
@@ -164,6 +164,8 @@ public class CmsGlobalConfigurationCacheEventHandler implements I_CmsEventListen
             case I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED:
             case I_CmsEventListener.EVENT_RESOURCE_MODIFIED:
             case I_CmsEventListener.EVENT_RESOURCE_CREATED:
+            case I_CmsEventListener.EVENT_PROPERTY_MODIFIED:
+                // a single property written with CmsObject#writePropertyObject, e.g. the NavText
                 //System.out.print(getEventName(event.getType()));
                 Object change = event.getData().get(I_CmsEventListener.KEY_CHANGE);
                 if ((change != null) && irrelevantChangeTypes.contains(change)) {
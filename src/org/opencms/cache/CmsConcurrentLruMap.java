@@ -0,0 +1,243 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * A size limited map for concurrent access that evicts approximately the least recently used entries.<p>
+ * 
+ * In contrast to a synchronized {@link org.apache.commons.collections.map.LRUMap}, this map 
+ * does not serialize all reads on a single lock: the entries are distributed over several 
+ * segments that are locked independently, and reads do not need to lock at all. 
+ * The LRU order is only maintained within each segment, so the eviction order is approximate.<p>
+ * 
+ * The map counts hits, misses and evictions, see {@link #getHitCount()}, {@link #getMissCount()} 
+ * and {@link #getEvictionCount()}.<p>
+ * 
+ * Other than most map implementations, <code>null</code> keys and values are not stored:
+ * putting a <code>null</code> value removes the entry of the key.<p>
+ * 
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * 
+ * @since 8.5.0
+ */
+public class CmsConcurrentLruMap<K, V> extends AbstractMap<K, V> {
+
+    /** The default number of segments. */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /** The underlying cache. */
+    private Cache<K, V> m_cache;
+
+    /** The maximum number of entries. */
+    private int m_maxSize;
+
+    /**
+     * Creates a new map with the given maximum size and the default concurrency level.<p>
+     * 
+     * @param maxSize the maximum number of entries
+     */
+    public CmsConcurrentLruMap(int maxSize) {
+
+        this(maxSize, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new map with the given maximum size and concurrency level.<p>
+     * 
+     * @param maxSize the maximum number of entries
+     * @param concurrencyLevel the estimated number of concurrently updating threads
+     */
+    public CmsConcurrentLruMap(int maxSize, int concurrencyLevel) {
+
+        m_maxSize = maxSize;
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+        m_cache = builder.maximumSize(maxSize).concurrencyLevel(concurrencyLevel).recordStats().build();
+    }
+
+    /**
+     * @see java.util.AbstractMap#clear()
+     */
+    @Override
+    public void clear() {
+
+        m_cache.invalidateAll();
+    }
+
+    /**
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        return (key != null) && m_cache.asMap().containsKey(key);
+    }
+
+    /**
+     * @see java.util.AbstractMap#containsValue(java.lang.Object)
+     */
+    @Override
+    public boolean containsValue(Object value) {
+
+        return (value != null) && m_cache.asMap().containsValue(value);
+    }
+
+    /**
+     * @see java.util.AbstractMap#entrySet()
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+
+        return m_cache.asMap().entrySet();
+    }
+
+    /**
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    @Override
+    public V get(Object key) {
+
+        if (key == null) {
+            return null;
+        }
+        return m_cache.getIfPresent(key);
+    }
+
+    /**
+     * Returns the number of entries that were evicted because the map reached its maximum size.<p>
+     * 
+     * @return the number of evicted entries
+     */
+    public long getEvictionCount() {
+
+        return m_cache.stats().evictionCount();
+    }
+
+    /**
+     * Returns the number of successful lookups.<p>
+     * 
+     * @return the number of successful lookups
+     */
+    public long getHitCount() {
+
+        return m_cache.stats().hitCount();
+    }
+
+    /**
+     * Returns the maximum number of entries of this map.<p>
+     * 
+     * @return the maximum number of entries
+     */
+    public int getMaxSize() {
+
+        return m_maxSize;
+    }
+
+    /**
+     * Returns the number of lookups for keys not contained in the map.<p>
+     * 
+     * @return the number of failed lookups
+     */
+    public long getMissCount() {
+
+        return m_cache.stats().missCount();
+    }
+
+    /**
+     * Returns the statistics of this map.<p>
+     * 
+     * @return the statistics of this map
+     */
+    public CacheStats getStats() {
+
+        return m_cache.stats();
+    }
+
+    /**
+     * @see java.util.AbstractMap#keySet()
+     */
+    @Override
+    public Set<K> keySet() {
+
+        return m_cache.asMap().keySet();
+    }
+
+    /**
+     * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V put(K key, V value) {
+
+        if (key == null) {
+            return null;
+        }
+        if (value == null) {
+            return m_cache.asMap().remove(key);
+        }
+        return m_cache.asMap().put(key, value);
+    }
+
+    /**
+     * @see java.util.AbstractMap#remove(java.lang.Object)
+     */
+    @Override
+    public V remove(Object key) {
+
+        if (key == null) {
+            return null;
+        }
+        return m_cache.asMap().remove(key);
+    }
+
+    /**
+     * @see java.util.AbstractMap#size()
+     */
+    @Override
+    public int size() {
+
+        return (int)m_cache.size();
+    }
+
+    /**
+     * @see java.util.AbstractMap#values()
+     */
+    @Override
+    public Collection<V> values() {
+
+        return m_cache.asMap().values();
+    }
+}
@@ -42,6 +42,12 @@ import java.io.IOException;
  */
 public class CmsVfsDiskCache {
 
+    /** The prefix for temporary files written to a disk cache folder. */
+    public static final String TEMP_FILE_PREFIX = "~";
+
+    /** The suffix for temporary files written to a disk cache folder. */
+    public static final String TEMP_FILE_SUFFIX = ".tmp";
+
     /** The name of the cache base repository folder in the RFS. */
     private String m_rfsRepository;
 
@@ -62,6 +68,9 @@ public class CmsVfsDiskCache {
      * 
      * If the required parent folders do not exists, they are also created.<p>
      * 
+     * The content is first written to a temporary file in the same folder, which is then renamed 
+     * to the given name. This way concurrent readers never see a partially written file.<p>
+     * 
      * @param rfsName the RFS name of the file to save the content in
      * @param content the content of the file to save
      * 
@@ -77,10 +86,29 @@ public class CmsVfsDiskCache {
             // create parent folders
             p.mkdirs();
         }
-        // write file contents
-        FileOutputStream fs = new FileOutputStream(f);
-        fs.write(content);
-        fs.close();
+        // write file contents to a temporary file
+        File temp = File.createTempFile(TEMP_FILE_PREFIX + f.getName(), TEMP_FILE_SUFFIX, p);
+        try {
+            FileOutputStream fs = new FileOutputStream(temp);
+            try {
+                fs.write(content);
+            } finally {
+                fs.close();
+            }
+            if (!temp.renameTo(f)) {
+                // on some platforms a rename fails if the target file exists
+                f.delete();
+                if (!temp.renameTo(f)) {
+                    throw new IOException(Messages.get().getBundle().key(
+                        Messages.ERR_RENAME_CACHE_FILE_2,
+                        temp.getAbsolutePath(),
+                        f.getAbsolutePath()));
+                }
+            }
+        } finally {
+            // does nothing if the file has been renamed
+            temp.delete();
+        }
         return f;
     }
 
@@ -0,0 +1,371 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.cluster;
+
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.logging.Log;
+
+/**
+ * An OpenCms event in a form that can be transferred to the other nodes of a cluster.<p>
+ * 
+ * Only the cache flushing semantics of an event are transferred. Events which only flush caches are 
+ * transferred with their type, all other events are replaced by the event which flushes the affected caches:
+ * changes of users, groups and organizational units by {@link I_CmsEventListener#EVENT_CLEAR_PRINCIPAL_CACHES},
+ * changes of offline resources and their properties by {@link I_CmsEventListener#EVENT_CLEAR_OFFLINE_CACHES},
+ * and all other events, e.g. publishing, by {@link I_CmsEventListener#EVENT_CLEAR_CACHES}. This way, the 
+ * listeners with side effects like the static export or the search index are never triggered on the 
+ * other nodes.<p>
+ * 
+ * The event data is transferred as plain text, and only string and integer values are kept.<p>
+ * 
+ * @since 8.5.0
+ */
+public class CmsClusterEvent {
+
+    /** The event types which only flush caches, and are transferred unchanged. */
+    private static final List<Integer> FLUSH_EVENTS = Arrays.asList(new Integer[] {
+        new Integer(I_CmsEventListener.EVENT_ALIASES_MODIFIED),
+        new Integer(I_CmsEventListener.EVENT_CLEAR_CACHES),
+        new Integer(I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES),
+        new Integer(I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES),
+        new Integer(I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES),
+        new Integer(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR),
+        new Integer(I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY)});
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsClusterEvent.class);
+
+    /** The event types of offline resource changes. */
+    private static final List<Integer> OFFLINE_EVENTS = Arrays.asList(new Integer[] {
+        new Integer(I_CmsEventListener.EVENT_PROPERTY_MODIFIED),
+        new Integer(I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED),
+        new Integer(I_CmsEventListener.EVENT_RESOURCE_COPIED),
+        new Integer(I_CmsEventListener.EVENT_RESOURCE_CREATED),
+        new Integer(I_CmsEventListener.EVENT_RESOURCE_DELETED),
+        new Integer(I_CmsEventListener.EVENT_RESOURCE_MODIFIED),
+        new Integer(I_CmsEventListener.EVENT_RESOURCE_MOVED),
+        new Integer(I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED),
+        new Integer(I_CmsEventListener.EVENT_RESOURCES_MODIFIED)});
+
+    /** The event types of principal changes. */
+    private static final List<Integer> PRINCIPAL_EVENTS = Arrays.asList(new Integer[] {
+        new Integer(I_CmsEventListener.EVENT_GROUP_MODIFIED),
+        new Integer(I_CmsEventListener.EVENT_OU_MODIFIED),
+        new Integer(I_CmsEventListener.EVENT_USER_MODIFIED)});
+
+    /** The type prefix of integer values in the event data. */
+    private static final char TYPE_INTEGER = 'i';
+
+    /** The type prefix of string values in the event data. */
+    private static final char TYPE_STRING = 's';
+
+    /** The serialized event data. */
+    private byte[] m_data;
+
+    /** The unique id of this event. */
+    private CmsUUID m_id;
+
+    /** The id of the cluster node where the event was fired. */
+    private String m_nodeId;
+
+    /** The time when the event was fired. */
+    private long m_time;
+
+    /** The event type. */
+    private int m_type;
+
+    /**
+     * Creates a new cluster event.<p>
+     * 
+     * @param id the unique id of the event
+     * @param nodeId the id of the cluster node where the event was fired
+     * @param time the time when the event was fired
+     * @param type the event type
+     * @param data the serialized event data
+     */
+    public CmsClusterEvent(CmsUUID id, String nodeId, long time, int type, byte[] data) {
+
+        m_id = id;
+        m_nodeId = nodeId;
+        m_time = time;
+        m_type = type;
+        m_data = data;
+    }
+
+    /**
+     * Creates a cluster event for the given OpenCms event.<p>
+     * 
+     * The cluster event has the type of the event which flushes the caches affected by the given event, 
+     * see {@link #getFlushEventType(int)}. The event data is only kept if the event type is unchanged.<p>
+     * 
+     * @param nodeId the id of the local cluster node
+     * @param event the OpenCms event
+     * 
+     * @return the cluster event
+     */
+    public static CmsClusterEvent create(String nodeId, CmsEvent event) {
+
+        int type = getFlushEventType(event.getType());
+        Map<String, Object> data = new TreeMap<String, Object>();
+        if ((type == event.getType()) && (event.getData() != null)) {
+            for (Map.Entry<String, Object> entry : event.getData().entrySet()) {
+                Object value = entry.getValue();
+                if ((value instanceof String) || (value instanceof Integer)) {
+                    data.put(entry.getKey(), value);
+                }
+            }
+        }
+        return new CmsClusterEvent(new CmsUUID(), nodeId, System.currentTimeMillis(), type, serialize(data));
+    }
+
+    /**
+     * Returns the type of the event which flushes the caches affected by an event of the given type.<p>
+     * 
+     * @param type the event type
+     * 
+     * @return the type of the event which flushes the affected caches
+     */
+    public static int getFlushEventType(int type) {
+
+        Integer typeInteger = new Integer(type);
+        if (FLUSH_EVENTS.contains(typeInteger)) {
+            return type;
+        }
+        if (PRINCIPAL_EVENTS.contains(typeInteger)) {
+            return I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES;
+        }
+        if (OFFLINE_EVENTS.contains(typeInteger)) {
+            return I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES;
+        }
+        return I_CmsEventListener.EVENT_CLEAR_CACHES;
+    }
+
+    /**
+     * Checks if the given event type only flushes caches, so that events of this type can be fired 
+     * on the other cluster nodes.<p>
+     * 
+     * @param type the event type
+     * 
+     * @return <code>true</code> if the given event type only flushes caches
+     */
+    public static boolean isFlushEvent(int type) {
+
+        return FLUSH_EVENTS.contains(new Integer(type));
+    }
+
+    /**
+     * Reads the event data serialized by {@link #serialize(Map)}.<p>
+     * 
+     * @param data the serialized event data
+     * 
+     * @return the event data
+     * 
+     * @throws UnsupportedEncodingException if UTF-8 is not supported 
+     * @throws IllegalArgumentException if the data is malformed
+     */
+    private static Map<String, Object> deserialize(byte[] data) throws UnsupportedEncodingException {
+
+        Map<String, Object> result = new HashMap<String, Object>();
+        for (String line : CmsStringUtil.splitAsList(new String(data, CmsEncoder.ENCODING_UTF_8), '\n')) {
+            if (line.length() == 0) {
+                continue;
+            }
+            int pos = line.indexOf('=');
+            if ((pos < 1) || (pos == (line.length() - 1))) {
+                throw new IllegalArgumentException(line);
+            }
+            String key = CmsEncoder.decode(line.substring(0, pos), CmsEncoder.ENCODING_UTF_8);
+            String value = CmsEncoder.decode(line.substring(pos + 2), CmsEncoder.ENCODING_UTF_8);
+            switch (line.charAt(pos + 1)) {
+                case TYPE_INTEGER:
+                    result.put(key, Integer.valueOf(value));
+                    break;
+                case TYPE_STRING:
+                    result.put(key, value);
+                    break;
+                default:
+                    throw new IllegalArgumentException(line);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Serializes the given event data as plain text, with one line per value.<p>
+     * 
+     * The data is sorted by key, so that equal data is always serialized to equal bytes.<p>
+     * 
+     * @param data the event data, with only string and integer values
+     * 
+     * @return the serialized event data
+     */
+    private static byte[] serialize(Map<String, Object> data) {
+
+        StringBuffer result = new StringBuffer();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            result.append(CmsEncoder.encode(entry.getKey(), CmsEncoder.ENCODING_UTF_8));
+            result.append('=');
+            result.append((entry.getValue() instanceof Integer) ? TYPE_INTEGER : TYPE_STRING);
+            result.append(CmsEncoder.encode(entry.getValue().toString(), CmsEncoder.ENCODING_UTF_8));
+            result.append('\n');
+        }
+        try {
+            return result.toString().getBytes(CmsEncoder.ENCODING_UTF_8);
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is always supported
+            LOG.error(e.getLocalizedMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the serialized event data.<p>
+     * 
+     * @return the serialized event data
+     */
+    public byte[] getData() {
+
+        return m_data;
+    }
+
+    /**
+     * Returns a key that is equal for all events with the same type and data.<p>
+     * 
+     * This is used to remove duplicate events from a batch of events before sending it.<p>
+     * 
+     * @return a key that is equal for all events with the same type and data
+     */
+    public String getDeduplicationKey() {
+
+        StringBuffer result = new StringBuffer(48);
+        result.append(m_type);
+        result.append(':');
+        if (m_data != null) {
+            try {
+                result.append(Hex.encodeHex(MessageDigest.getInstance("MD5").digest(m_data)));
+            } catch (NoSuchAlgorithmException e) {
+                // MD5 is always available
+                result.append(m_id);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the unique id of this event.<p>
+     * 
+     * @return the unique id of this event
+     */
+    public CmsUUID getId() {
+
+        return m_id;
+    }
+
+    /**
+     * Returns the id of the cluster node where the event was fired.<p>
+     * 
+     * @return the id of the cluster node where the event was fired
+     */
+    public String getNodeId() {
+
+        return m_nodeId;
+    }
+
+    /**
+     * Returns the time when the event was fired.<p>
+     * 
+     * @return the time when the event was fired
+     */
+    public long getTime() {
+
+        return m_time;
+    }
+
+    /**
+     * Returns the event type.<p>
+     * 
+     * @return the event type
+     */
+    public int getType() {
+
+        return m_type;
+    }
+
+    /**
+     * Restores the OpenCms event from this cluster event.<p>
+     * 
+     * Only events which flush caches are restored, see {@link #isFlushEvent(int)}.<p>
+     * 
+     * @return the OpenCms event, or <code>null</code> if the event type is not accepted or the event data could not be read
+     */
+    public CmsEvent toCmsEvent() {
+
+        if (!isFlushEvent(m_type)) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_CLUSTER_EVENT_IGNORED_2, m_id, new Integer(m_type)));
+            return null;
+        }
+        Map<String, Object> data = new HashMap<String, Object>();
+        if (m_data != null) {
+            try {
+                data = deserialize(m_data);
+            } catch (Exception e) {
+                LOG.error(
+                    Messages.get().getBundle().key(Messages.LOG_CLUSTER_EVENT_READ_2, m_id, new Integer(m_type)),
+                    e);
+                return null;
+            }
+        }
+        return new CmsEvent(m_type, data);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "[" + m_id + ", node=" + m_nodeId + ", type=" + m_type + ", time=" + m_time + "]";
+    }
+}
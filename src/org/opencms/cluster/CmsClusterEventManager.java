@@ -0,0 +1,454 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.cluster;
+
+import org.opencms.configuration.CmsConfigurationException;
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.configuration.I_CmsConfigurationParameterHandler;
+import org.opencms.db.CmsDriverManager;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsEventManager;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Event manager that replicates selected events to the other nodes of an OpenCms cluster.<p>
+ * 
+ * All events are fired locally as usual. In addition, the events of the replicated types are 
+ * collected and periodically sent to the other nodes as one batch, where duplicate events are 
+ * only sent once. The events received from the other nodes are fired locally, but are not 
+ * sent again. This keeps the caches of all nodes working on the same database up to date.<p>
+ * 
+ * Only the cache flushing semantics of the events are replicated, see {@link CmsClusterEvent}, so that
+ * e.g. publishing a project flushes the caches of the other nodes, but does not run the static export
+ * or update the search indexes there again.<p>
+ * 
+ * The events are transported by an {@link I_CmsClusterEventTransport}, by default 
+ * the {@link CmsDbClusterEventTransport} which needs no additional infrastructure.<p>
+ * 
+ * To use this event manager, configure it in <code>opencms-system.xml</code>:
+ * <pre>
+ * &lt;events&gt;
+ *     &lt;eventmanager class="org.opencms.cluster.CmsClusterEventManager"&gt;
+ *         &lt;param name="nodeid"&gt;node1&lt;/param&gt;
+ *         &lt;param name="interval"&gt;5000&lt;/param&gt;
+ *     &lt;/eventmanager&gt;
+ * &lt;/events&gt;
+ * </pre>
+ * 
+ * The following configuration parameters are supported, all other parameters are 
+ * available to the transport:
+ * <ul>
+ * <li><code>{@value #PARAM_NODE_ID}</code>: the unique id of this node, default is a random id</li>
+ * <li><code>{@value #PARAM_INTERVAL}</code>: the synchronization interval in milliseconds, default is 5 seconds; 
+ * with 0 no background synchronization takes place, see {@link #synchronize()}</li>
+ * <li><code>{@value #PARAM_EVENTS}</code>: a comma separated list of the event types to replicate, 
+ * default are the cache relevant events</li>
+ * <li><code>{@value #PARAM_TRANSPORT}</code>: the class name of the transport</li>
+ * </ul>
+ * 
+ * @since 8.5.0
+ */
+public class CmsClusterEventManager extends CmsEventManager implements I_CmsConfigurationParameterHandler {
+
+    /** The event types replicated by default. */
+    public static final int[] DEFAULT_EVENTS = {
+        I_CmsEventListener.EVENT_ALIASES_MODIFIED,
+        I_CmsEventListener.EVENT_CLEAR_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES,
+        I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR,
+        I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY,
+        I_CmsEventListener.EVENT_GROUP_MODIFIED,
+        I_CmsEventListener.EVENT_OU_MODIFIED,
+        I_CmsEventListener.EVENT_PROJECT_MODIFIED,
+        I_CmsEventListener.EVENT_PROPERTY_DEFINITION_CREATED,
+        I_CmsEventListener.EVENT_PROPERTY_DEFINITION_MODIFIED,
+        I_CmsEventListener.EVENT_PROPERTY_MODIFIED,
+        I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+        I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
+        I_CmsEventListener.EVENT_RESOURCE_CREATED,
+        I_CmsEventListener.EVENT_RESOURCE_DELETED,
+        I_CmsEventListener.EVENT_RESOURCE_MODIFIED,
+        I_CmsEventListener.EVENT_RESOURCE_MOVED,
+        I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED,
+        I_CmsEventListener.EVENT_RESOURCES_MODIFIED,
+        I_CmsEventListener.EVENT_USER_MODIFIED};
+
+    /** The default synchronization interval. */
+    public static final int DEFAULT_INTERVAL = 5000;
+
+    /** The maximum number of queued events, if more events are queued they are replaced by a single "clear caches" event. */
+    public static final int MAX_QUEUE_SIZE = 10000;
+
+    /** Name of the parameter for the replicated event types. */
+    public static final String PARAM_EVENTS = "events";
+
+    /** Name of the parameter for the synchronization interval. */
+    public static final String PARAM_INTERVAL = "interval";
+
+    /** Name of the parameter for the node id. */
+    public static final String PARAM_NODE_ID = "nodeid";
+
+    /** Name of the parameter for the transport class. */
+    public static final String PARAM_TRANSPORT = "transport";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsClusterEventManager.class);
+
+    /** The configuration parameters. */
+    private CmsParameterConfiguration m_configuration;
+
+    /** The replicated event types. */
+    private Set<Integer> m_eventTypes;
+
+    /** The synchronization interval. */
+    private int m_interval;
+
+    /** The id of the local cluster node. */
+    private String m_nodeId;
+
+    /** The events to send with the next batch. */
+    private List<CmsClusterEvent> m_queue;
+
+    /** The thread currently firing received events, those events are not sent again. */
+    private volatile Thread m_replayThread;
+
+    /** The background thread that synchronizes the events periodically. */
+    private Thread m_synchronizer;
+
+    /** The transport. */
+    private I_CmsClusterEventTransport m_transport;
+
+    /** Indicates if the transport has been initialized. */
+    private boolean m_transportInitialized;
+
+    /**
+     * Creates a new cluster event manager.<p>
+     */
+    public CmsClusterEventManager() {
+
+        m_configuration = new CmsParameterConfiguration();
+        m_queue = new ArrayList<CmsClusterEvent>();
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#addConfigurationParameter(java.lang.String, java.lang.String)
+     */
+    public void addConfigurationParameter(String paramName, String paramValue) {
+
+        m_configuration.add(paramName, paramValue);
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#fireEvent(org.opencms.main.CmsEvent)
+     */
+    @Override
+    public void fireEvent(CmsEvent event) {
+
+        super.fireEvent(event);
+        if (isReplicated(event)) {
+            CmsClusterEvent clusterEvent = CmsClusterEvent.create(m_nodeId, event);
+            synchronized (m_queue) {
+                m_queue.add(clusterEvent);
+            }
+        }
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#getConfiguration()
+     */
+    public CmsParameterConfiguration getConfiguration() {
+
+        return m_configuration;
+    }
+
+    /**
+     * Returns the id of the local cluster node.<p>
+     * 
+     * @return the id of the local cluster node
+     */
+    public String getNodeId() {
+
+        return m_nodeId;
+    }
+
+    /**
+     * Returns the number of events waiting to be sent to the other cluster nodes.<p>
+     * 
+     * @return the number of events waiting to be sent
+     */
+    public int getQueueSize() {
+
+        synchronized (m_queue) {
+            return m_queue.size();
+        }
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#initConfiguration()
+     */
+    public void initConfiguration() throws CmsConfigurationException {
+
+        m_nodeId = m_configuration.getString(PARAM_NODE_ID, new CmsUUID().toString());
+        m_interval = m_configuration.getInteger(PARAM_INTERVAL, DEFAULT_INTERVAL);
+        m_eventTypes = new HashSet<Integer>();
+        String events = m_configuration.getString(PARAM_EVENTS, null);
+        if (events == null) {
+            for (int i = 0; i < DEFAULT_EVENTS.length; i++) {
+                m_eventTypes.add(new Integer(DEFAULT_EVENTS[i]));
+            }
+        } else {
+            for (String event : CmsStringUtil.splitAsList(events, ',', true)) {
+                try {
+                    m_eventTypes.add(Integer.valueOf(event));
+                } catch (NumberFormatException e) {
+                    throw new CmsConfigurationException(Messages.get().container(
+                        Messages.ERR_CLUSTER_INVALID_EVENT_TYPE_1,
+                        event), e);
+                }
+            }
+        }
+        String transport = m_configuration.getString(PARAM_TRANSPORT, CmsDbClusterEventTransport.class.getName());
+        try {
+            m_transport = (I_CmsClusterEventTransport)Class.forName(transport).newInstance();
+        } catch (Exception e) {
+            throw new CmsConfigurationException(Messages.get().container(
+                Messages.ERR_CLUSTER_INVALID_TRANSPORT_1,
+                transport), e);
+        }
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_CLUSTER_NODE_2, m_nodeId, transport));
+        }
+    }
+
+    /**
+     * Sends the queued events to the other cluster nodes, and fires the events received from them.<p>
+     * 
+     * This is called periodically by a background thread, unless the synchronization interval is 0.<p>
+     * 
+     * @throws CmsException if the transport fails
+     */
+    public synchronized void synchronize() throws CmsException {
+
+        if (!m_transportInitialized) {
+            m_transport.initialize(m_nodeId, m_configuration);
+            m_transportInitialized = true;
+        }
+        send();
+        replay(m_transport.receive());
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#initialize(org.opencms.main.CmsEventManager)
+     */
+    @Override
+    protected void initialize(CmsEventManager base) {
+
+        super.initialize(base);
+        if ((m_interval > 0) && (m_synchronizer == null)) {
+            m_synchronizer = new Thread(new Runnable() {
+
+                public void run() {
+
+                    runSynchronizer();
+                }
+            }, "OpenCms: Cluster event synchronizer");
+            m_synchronizer.setDaemon(true);
+            m_synchronizer.start();
+        }
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#shutDown()
+     */
+    @Override
+    protected void shutDown() {
+
+        Thread synchronizer = m_synchronizer;
+        m_synchronizer = null;
+        if (synchronizer != null) {
+            synchronizer.interrupt();
+        }
+        if (m_transportInitialized) {
+            try {
+                // send the remaining events
+                send();
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+            m_transport.shutDown();
+        }
+    }
+
+    /**
+     * Checks if the given event has to be sent to the other cluster nodes.<p>
+     * 
+     * @param event the event to check
+     * 
+     * @return <code>true</code> if the given event has to be sent to the other cluster nodes
+     */
+    private boolean isReplicated(CmsEvent event) {
+
+        if ((m_eventTypes == null) || !m_eventTypes.contains(event.getTypeInteger())) {
+            return false;
+        }
+        if (Thread.currentThread() == m_replayThread) {
+            // this event has been received from another node or was caused by such an event
+            return false;
+        }
+        Object change = (event.getData() != null) ? event.getData().get(I_CmsEventListener.KEY_CHANGE) : null;
+        // locking and unlocking is not relevant for the other nodes
+        return !new Integer(CmsDriverManager.NOTHING_CHANGED).equals(change);
+    }
+
+    /**
+     * Fires the events received from the other cluster nodes.<p>
+     * 
+     * @param events the received events
+     */
+    private void replay(List<CmsClusterEvent> events) {
+
+        if (events.isEmpty()) {
+            return;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_CLUSTER_EVENTS_RECEIVED_2,
+                new Integer(events.size()),
+                m_nodeId));
+        }
+        m_replayThread = Thread.currentThread();
+        try {
+            for (CmsClusterEvent clusterEvent : events) {
+                CmsEvent event = clusterEvent.toCmsEvent();
+                if (event == null) {
+                    continue;
+                }
+                try {
+                    super.fireEvent(event);
+                } catch (Throwable t) {
+                    LOG.error(
+                        Messages.get().getBundle().key(Messages.LOG_CLUSTER_EVENT_REPLAY_FAILED_1, clusterEvent),
+                        t);
+                }
+            }
+        } finally {
+            m_replayThread = null;
+        }
+    }
+
+    /**
+     * Synchronizes the events periodically until this event manager is shut down.<p>
+     */
+    private void runSynchronizer() {
+
+        while (m_synchronizer == Thread.currentThread()) {
+            try {
+                Thread.sleep(m_interval);
+            } catch (InterruptedException e) {
+                // shut down
+                return;
+            }
+            if (OpenCms.getRunLevel() <= OpenCms.RUNLEVEL_2_INITIALIZING) {
+                // the database is not available yet
+                continue;
+            }
+            try {
+                synchronize();
+            } catch (Throwable t) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_CLUSTER_SYNCHRONIZE_FAILED_1, m_nodeId), t);
+            }
+        }
+    }
+
+    /**
+     * Sends the queued events as one batch to the other cluster nodes, without duplicates.<p>
+     * 
+     * @throws CmsException if the transport fails, in this case the events stay queued
+     */
+    private void send() throws CmsException {
+
+        List<CmsClusterEvent> queue;
+        synchronized (m_queue) {
+            if (m_queue.isEmpty()) {
+                return;
+            }
+            queue = new ArrayList<CmsClusterEvent>(m_queue);
+            m_queue.clear();
+        }
+        List<CmsClusterEvent> batch;
+        if (queue.size() > MAX_QUEUE_SIZE) {
+            // too many events, let the other nodes clear all caches instead
+            batch = new ArrayList<CmsClusterEvent>();
+            batch.add(CmsClusterEvent.create(m_nodeId, new CmsEvent(
+                I_CmsEventListener.EVENT_CLEAR_CACHES,
+                new HashMap<String, Object>())));
+        } else {
+            // keep only the last of all equal events
+            Map<String, CmsClusterEvent> events = new LinkedHashMap<String, CmsClusterEvent>();
+            for (CmsClusterEvent event : queue) {
+                String key = event.getDeduplicationKey();
+                events.remove(key);
+                events.put(key, event);
+            }
+            batch = new ArrayList<CmsClusterEvent>(events.values());
+        }
+        try {
+            m_transport.send(batch);
+        } catch (CmsException e) {
+            synchronized (m_queue) {
+                m_queue.addAll(0, batch);
+            }
+            throw e;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_CLUSTER_EVENTS_SENT_3,
+                new Integer(batch.size()),
+                new Integer(queue.size()),
+                m_nodeId));
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.cluster;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsDbPool;
+import org.opencms.db.CmsDbSqlException;
+import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsInitException;
+import org.opencms.util.CmsUUID;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cluster event transport that uses the <code>CMS_CLUSTER_EVENTS</code> table of the 
+ * shared OpenCms database.<p>
+ * 
+ * Every node inserts the events it sends into the table and polls the table for the events 
+ * of the other nodes. The event times are taken from the clock of the sending node, so 
+ * every poll reads the events of a time window before the last poll, which has to be larger 
+ * than the clock difference between the nodes. Events already received in this window are skipped.<p>
+ * 
+ * Events older than the retention time are deleted by every node, so the table stays small.<p>
+ * 
+ * The following configuration parameters are supported:
+ * <ul>
+ * <li><code>{@value #PARAM_POOL}</code>: the database pool to use, default is <code>opencms:default</code></li>
+ * <li><code>{@value #PARAM_SQLMANAGER}</code>: the SQL manager class, default is the generic SQL manager</li>
+ * <li><code>{@value #PARAM_WINDOW}</code>: the time window in milliseconds, default is 60 seconds</li>
+ * <li><code>{@value #PARAM_RETENTION}</code>: the retention time in milliseconds, default is one hour</li>
+ * </ul>
+ * 
+ * @since 8.5.0
+ */
+public class CmsDbClusterEventTransport implements I_CmsClusterEventTransport {
+
+    /** The type ID of this transport for the SQL manager. */
+    public static final int DRIVER_TYPE_ID = 5;
+
+    /** Name of the parameter for the database pool. */
+    public static final String PARAM_POOL = "db.pool";
+
+    /** Name of the parameter for the retention time. */
+    public static final String PARAM_RETENTION = "db.retention";
+
+    /** Name of the parameter for the SQL manager class. */
+    public static final String PARAM_SQLMANAGER = "db.sqlmanager";
+
+    /** Name of the parameter for the time window. */
+    public static final String PARAM_WINDOW = "db.window";
+
+    /** The default retention time. */
+    private static final int DEFAULT_RETENTION = 60 * 60 * 1000;
+
+    /** The default time window. */
+    private static final int DEFAULT_WINDOW = 60 * 1000;
+
+    /** The time of the last deletion of old events. */
+    private long m_lastCleanup;
+
+    /** The time of the last poll. */
+    private long m_lastPoll;
+
+    /** The id of the local cluster node. */
+    private String m_nodeId;
+
+    /** The times of the events already received in the current time window, by event id. */
+    private Map<CmsUUID, Long> m_received;
+
+    /** The retention time. */
+    private long m_retention;
+
+    /** The SQL manager. */
+    private CmsSqlManager m_sqlManager;
+
+    /** The time window. */
+    private long m_window;
+
+    /**
+     * @see org.opencms.cluster.I_CmsClusterEventTransport#initialize(java.lang.String, org.opencms.configuration.CmsParameterConfiguration)
+     */
+    public void initialize(String nodeId, CmsParameterConfiguration configuration) throws CmsException {
+
+        m_nodeId = nodeId;
+        m_window = configuration.getInteger(PARAM_WINDOW, DEFAULT_WINDOW);
+        m_retention = Math.max(configuration.getInteger(PARAM_RETENTION, DEFAULT_RETENTION), 2 * m_window);
+        String sqlManager = configuration.getString(PARAM_SQLMANAGER, CmsSqlManager.class.getName());
+        m_sqlManager = CmsSqlManager.getInstance(sqlManager);
+        if (m_sqlManager == null) {
+            throw new CmsInitException(Messages.get().container(
+                Messages.ERR_CLUSTER_TRANSPORT_SQLMANAGER_1,
+                sqlManager));
+        }
+        m_sqlManager.init(
+            DRIVER_TYPE_ID,
+            configuration.getString(PARAM_POOL, CmsDbPool.OPENCMS_URL_PREFIX + CmsDbPool.getDefaultDbPoolName()));
+        m_received = new LinkedHashMap<CmsUUID, Long>();
+        m_lastPoll = System.currentTimeMillis();
+        m_lastCleanup = m_lastPoll;
+    }
+
+    /**
+     * @see org.opencms.cluster.I_CmsClusterEventTransport#receive()
+     */
+    public synchronized List<CmsClusterEvent> receive() throws CmsException {
+
+        long now = System.currentTimeMillis();
+        long from = m_lastPoll - m_window;
+        m_lastPoll = now;
+
+        // forget the events that are outside of the time window now
+        Iterator<Long> it = m_received.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().longValue() <= from) {
+                it.remove();
+            }
+        }
+
+        List<CmsClusterEvent> result = new ArrayList<CmsClusterEvent>();
+        CmsDbContext dbc = new CmsDbContext();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_CLUSTER_EVENTS_READ_2");
+            stmt.setLong(1, from);
+            stmt.setString(2, m_nodeId);
+            res = stmt.executeQuery();
+            while (res.next()) {
+                CmsUUID id = new CmsUUID(res.getString("EVENT_ID"));
+                long time = res.getLong("EVENT_TIME");
+                if (m_received.containsKey(id)) {
+                    continue;
+                }
+                m_received.put(id, new Long(time));
+                result.add(new CmsClusterEvent(
+                    id,
+                    res.getString("NODE_ID"),
+                    time,
+                    res.getInt("EVENT_TYPE"),
+                    m_sqlManager.getBytes(res, "EVENT_DATA")));
+            }
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+            res = null;
+            stmt = null;
+
+            if ((now - m_lastCleanup) > m_window) {
+                // delete the events no node is interested in any more
+                stmt = m_sqlManager.getPreparedStatement(conn, "C_CLUSTER_EVENTS_DELETE_1");
+                stmt.setLong(1, now - m_retention);
+                stmt.executeUpdate();
+                m_lastCleanup = now;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_CLUSTER_TRANSPORT_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return result;
+    }
+
+    /**
+     * @see org.opencms.cluster.I_CmsClusterEventTransport#send(java.util.List)
+     */
+    public void send(List<CmsClusterEvent> events) throws CmsException {
+
+        if (events.isEmpty()) {
+            return;
+        }
+        CmsDbContext dbc = new CmsDbContext();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_CLUSTER_EVENTS_WRITE_5");
+            for (CmsClusterEvent event : events) {
+                stmt.setString(1, event.getId().toString());
+                stmt.setString(2, event.getNodeId());
+                stmt.setLong(3, event.getTime());
+                stmt.setInt(4, event.getType());
+                m_sqlManager.setBytes(stmt, 5, event.getData());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_CLUSTER_TRANSPORT_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
+    /**
+     * @see org.opencms.cluster.I_CmsClusterEventTransport#shutDown()
+     */
+    public void shutDown() {
+
+        // nothing to release, the connections are returned to the pool after each operation
+    }
+}
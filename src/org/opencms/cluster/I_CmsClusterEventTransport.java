@@ -0,0 +1,77 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.cluster;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.main.CmsException;
+
+import java.util.List;
+
+/**
+ * Transports cluster events between the nodes of an OpenCms cluster.<p>
+ * 
+ * @since 8.5.0
+ * 
+ * @see org.opencms.cluster.CmsClusterEventManager
+ */
+public interface I_CmsClusterEventTransport {
+
+    /**
+     * Initializes the transport.<p>
+     * 
+     * @param nodeId the id of the local cluster node
+     * @param configuration the configuration parameters of the cluster event manager
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    void initialize(String nodeId, CmsParameterConfiguration configuration) throws CmsException;
+
+    /**
+     * Returns the events fired on other cluster nodes that have not yet been returned by this method.<p>
+     * 
+     * @return the new events of the other cluster nodes, in the order they were fired
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    List<CmsClusterEvent> receive() throws CmsException;
+
+    /**
+     * Sends the given events to the other cluster nodes.<p>
+     * 
+     * @param events the events to send
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    void send(List<CmsClusterEvent> events) throws CmsException;
+
+    /**
+     * Releases the resources used by the transport.<p>
+     */
+    void shutDown();
+}
@@ -253,6 +253,9 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export rendersettings node. */
     public static final String N_STATICEXPORT_RENDERSETTINGS = "rendersettings";
 
+    /**  The node name of the static export renderthreads node. */
+    public static final String N_STATICEXPORT_RENDERTHREADS = "renderthreads";
+
     /**  The node name of the static export requestheaders node. */
     public static final String N_STATICEXPORT_REQUESTHEADERS = "requestheaders";
 
@@ -489,6 +492,13 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
             + N_STATICEXPORT_RENDERSETTINGS
             + "/"
             + N_STATICEXPORT_PLAINOPTIMIZATION, "setPlainExportOptimization", 0);
+        // render threads rule
+        digester.addCallMethod("*/"
+            + N_STATICEXPORT
+            + "/"
+            + N_STATICEXPORT_RENDERSETTINGS
+            + "/"
+            + N_STATICEXPORT_RENDERTHREADS, "setRenderThreads", 0);
         // test resource rule
         digester.addCallMethod("*/"
             + N_STATICEXPORT
@@ -854,6 +864,12 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
         rendersettingsElement.addElement(N_STATICEXPORT_PLAINOPTIMIZATION).addText(
             m_staticExportManager.getPlainExportOptimization());
 
+        // <renderthreads> node
+        if (m_staticExportManager.getRenderThreads() > 0) {
+            rendersettingsElement.addElement(N_STATICEXPORT_RENDERTHREADS).addText(
+                String.valueOf(m_staticExportManager.getRenderThreads()));
+        }
+
         // <testresource> node
         Element testresourceElement = rendersettingsElement.addElement(N_STATICEXPORT_TESTRESOURCE);
         testresourceElement.addAttribute(A_URI, m_staticExportManager.getTestResource());
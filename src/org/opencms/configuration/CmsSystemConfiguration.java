@@ -176,6 +176,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the cache-enabled node. */
     public static final String N_CACHE_ENABLED = "cache-enabled";
 
+    /** The node name for the cache-implementation node. */
+    public static final String N_CACHE_IMPLEMENTATION = "cache-implementation";
+
     /** The node name for the cache-offline node. */
     public static final String N_CACHE_OFFLINE = "cache-offline";
 
@@ -341,6 +344,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the job parameters. */
     public static final String N_PARAMETERS = "parameters";
 
+    /** The node name for the parallel publish jobs node. */
+    public static final String N_PARALLELJOBS = "parallel-jobs";
+
     /** The node name for the password encoding. */
     public static final String N_PASSWORDENCODING = "encoding";
 
@@ -530,6 +536,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the workplace-server node. */
     public static final String N_WORKPLACE_SERVER = "workplace-server";
 
+    /** The node name for the XML content cache settings. */
+    public static final String N_XMLCONTENTS = "xmlcontents";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSystemConfiguration.class);
 
@@ -578,6 +587,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The configured OpenCms event manager. */
     private CmsEventManager m_eventManager;
 
+    /** The configuration parameters for the event manager. */
+    private CmsParameterConfiguration m_eventManagerParameters;
+
     /** Indicates if the version history is enabled. */
     private boolean m_historyEnabled;
 
@@ -689,6 +701,13 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
 
         try {
             m_eventManager = (CmsEventManager)Class.forName(clazz).newInstance();
+            if (m_eventManager instanceof I_CmsConfigurationParameterHandler) {
+                I_CmsConfigurationParameterHandler handler = (I_CmsConfigurationParameterHandler)m_eventManager;
+                for (Map.Entry<String, String> param : m_eventManagerParameters.entrySet()) {
+                    handler.addConfigurationParameter(param.getKey(), param.getValue());
+                }
+                handler.initConfiguration();
+            }
             if (CmsLog.INIT.isInfoEnabled()) {
                 CmsLog.INIT.info(Messages.get().getBundle().key(
                     Messages.INIT_EVENTMANAGER_CLASS_SUCCESS_1,
@@ -696,10 +715,25 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             }
         } catch (Throwable t) {
             LOG.error(Messages.get().getBundle().key(Messages.INIT_EVENTMANAGER_CLASS_INVALID_1, clazz), t);
+            m_eventManager = new CmsEventManager();
             return;
         }
     }
 
+    /**
+     * Adds a configuration parameter for the event manager.<p>
+     * 
+     * The parameters are passed to the event manager if it implements 
+     * {@link I_CmsConfigurationParameterHandler}.<p>
+     * 
+     * @param name the parameter name
+     * @param value the parameter value
+     */
+    public void addEventManagerParameter(String name, String value) {
+
+        m_eventManagerParameters.add(name, value);
+    }
+
     /**
      * Adds a new job description for the scheduler.<p>
      *
@@ -932,6 +966,17 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         // add event classes
         digester.addCallMethod("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER, "addEventManager", 1);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER, 0, A_CLASS);
+        String eventManagerParamPath = "*/"
+            + N_SYSTEM
+            + "/"
+            + N_EVENTS
+            + "/"
+            + N_EVENTMANAGER
+            + "/"
+            + I_CmsXmlConfiguration.N_PARAM;
+        digester.addCallMethod(eventManagerParamPath, "addEventManagerParameter", 2);
+        digester.addCallParam(eventManagerParamPath, 0, I_CmsXmlConfiguration.A_NAME);
+        digester.addCallParam(eventManagerParamPath, 1);
 
         // add resource init classes
         digester.addCallMethod(
@@ -1133,6 +1178,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_CONTAINERPAGE_ONLINE,
             "setContainerPageOnlineSize",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_CACHE_IMPLEMENTATION,
+            "setCacheImplementation",
+            2);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_CACHE_IMPLEMENTATION, 0, A_TYPE);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_CACHE_IMPLEMENTATION, 1);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_RESULTCACHE, "setCacheSettings");
 
         // set the notification time
@@ -1167,6 +1218,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_QUEUESHUTDOWNTIME,
             "setPublishQueueShutdowntime",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_PARALLELJOBS,
+            "setPublishParallelJobs",
+            0);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER, "setPublishManager");
 
         // add rule for session storage provider
@@ -1206,6 +1261,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_OFFLINE);
         digester.addCallMethod(adeCachePath + "/" + N_GROUPCONTAINERS, "setGroupContainerOnlineSize", 1);
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_ONLINE);
+        // XML content cache
+        digester.addCallMethod(adeCachePath + "/" + N_XMLCONTENTS, "setXmlContentOnlineSize", 1);
+        digester.addCallParam(adeCachePath + "/" + N_XMLCONTENTS, 0, A_ONLINE);
         // set the settings
         digester.addSetNext(adeCachePath, "setAdeCacheSettings");
 
@@ -1335,6 +1393,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         Element eventsElement = systemElement.addElement(N_EVENTS);
         Element eventManagerElement = eventsElement.addElement(N_EVENTMANAGER);
         eventManagerElement.addAttribute(A_CLASS, m_eventManager.getClass().getName());
+        if (m_eventManager instanceof I_CmsConfigurationParameterHandler) {
+            CmsParameterConfiguration eventManagerParameters = ((I_CmsConfigurationParameterHandler)m_eventManager).getConfiguration();
+            if (eventManagerParameters != null) {
+                eventManagerParameters.appendToXml(eventManagerElement);
+            }
+        }
 
         // version history
         Element historyElement = systemElement.addElement(N_VERSIONHISTORY);
@@ -1576,6 +1640,11 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         }
         cacheElement.addElement(N_SIZE_ACLS).setText(Integer.toString(m_cacheSettings.getAclCacheSize()));
         cacheElement.addElement(N_SIZE_PERMISSIONS).setText(Integer.toString(m_cacheSettings.getPermissionCacheSize()));
+        for (Map.Entry<String, String> entry : m_cacheSettings.getCacheImplementations().entrySet()) {
+            Element implementationElement = cacheElement.addElement(N_CACHE_IMPLEMENTATION);
+            implementationElement.addAttribute(A_TYPE, entry.getKey());
+            implementationElement.setText(entry.getValue());
+        }
 
         // content notification settings
         if ((m_notificationTime != null) || (m_notificationProject != null)) {
@@ -1603,6 +1672,8 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 String.valueOf(m_publishManager.isPublishQueuePersistanceEnabled()));
             pubHistElement.addElement(N_QUEUESHUTDOWNTIME).setText(
                 String.valueOf(m_publishManager.getPublishQueueShutdowntime()));
+            pubHistElement.addElement(N_PARALLELJOBS).setText(
+                String.valueOf(m_publishManager.getPublishParallelJobs()));
         }
 
         // session storage provider
@@ -1662,6 +1733,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 groupContainerCacheElem.addAttribute(A_OFFLINE, ""
                     + getAdeCacheSettings().getGroupContainerOfflineSize());
                 groupContainerCacheElem.addAttribute(A_ONLINE, "" + getAdeCacheSettings().getGroupContainerOnlineSize());
+                // XML content cache
+                Element xmlContentCacheElem = cacheElem.addElement(N_XMLCONTENTS);
+                xmlContentCacheElem.addAttribute(A_ONLINE, "" + getAdeCacheSettings().getXmlContentOnlineSize());
             }
         }
 
@@ -2735,6 +2809,7 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         m_configuredJobs = new ArrayList<CmsScheduledJobInfo>();
         m_runtimeProperties = new HashMap<String, String>();
         m_eventManager = new CmsEventManager();
+        m_eventManagerParameters = new CmsParameterConfiguration();
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_SYSTEM_CONFIG_INIT_0));
         }
@@ -36,8 +36,10 @@ import org.opencms.gwt.shared.alias.CmsAliasImportStatus;
 import org.opencms.gwt.shared.alias.CmsAliasMode;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.lock.CmsLock;
+import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsStringUtil;
@@ -51,10 +53,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 
@@ -63,8 +68,13 @@ import com.google.common.collect.Multimap;
 
 /**
  * The alias manager provides access to the aliases stored in the database.<p>
+ * 
+ * The aliases and the rewrite alias matchers are cached for each site, since they are needed for every request
+ * handled by the {@link org.opencms.main.CmsAliasResourceHandler}. The caches are cleared whenever the aliases 
+ * are changed, see {@link I_CmsEventListener#EVENT_ALIASES_MODIFIED}, and after each publish job, since publishing
+ * deletes the aliases of deleted resources.<p>
  */
-public class CmsAliasManager {
+public class CmsAliasManager implements I_CmsEventListener {
 
     /** The logger instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsAliasManager.class);
@@ -72,6 +82,15 @@ public class CmsAliasManager {
     /** The security manager for accessing the database. */
     protected CmsSecurityManager m_securityManager;
 
+    /** The cached aliases, by site root and alias path. */
+    private Map<String, Map<String, CmsAlias>> m_aliasesBySite = new ConcurrentHashMap<String, Map<String, CmsAlias>>();
+
+    /** Counts the cache clear operations, to prevent caching data that was read before the cache was cleared. */
+    private volatile long m_cacheGeneration;
+
+    /** The cached rewrite alias matchers, by site root. */
+    private Map<String, CmsRewriteAliasMatcher> m_rewriteAliasMatchers = new ConcurrentHashMap<String, CmsRewriteAliasMatcher>();
+
     /**
      * Creates a new alias manager instance.<p>
      *
@@ -80,6 +99,27 @@ public class CmsAliasManager {
     public CmsAliasManager(CmsSecurityManager securityManager) {
 
         m_securityManager = securityManager;
+        OpenCms.addCmsEventListener(this, new int[] {
+            I_CmsEventListener.EVENT_ALIASES_MODIFIED,
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT});
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_ALIASES_MODIFIED:
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                clearCaches();
+                break;
+            default:
+                // noop
+                break;
+        }
     }
 
     /**
@@ -98,7 +138,20 @@ public class CmsAliasManager {
      */
     public List<CmsAlias> getAliasesForPath(CmsObject cms, String siteRoot, String aliasPath) throws CmsException {
 
-        CmsAlias alias = m_securityManager.readAliasByPath(cms.getRequestContext(), siteRoot, aliasPath);
+        Map<String, CmsAlias> aliasesByPath = m_aliasesBySite.get(siteRoot);
+        if (aliasesByPath == null) {
+            long cacheGeneration = m_cacheGeneration;
+            aliasesByPath = new HashMap<String, CmsAlias>();
+            for (CmsAlias alias : m_securityManager.getAliasesForSite(cms.getRequestContext(), siteRoot)) {
+                aliasesByPath.put(alias.getAliasPath(), alias);
+            }
+            synchronized (m_aliasesBySite) {
+                if (cacheGeneration == m_cacheGeneration) {
+                    m_aliasesBySite.put(siteRoot, aliasesByPath);
+                }
+            }
+        }
+        CmsAlias alias = aliasesByPath.get(aliasPath);
         if (alias == null) {
             return Collections.emptyList();
         } else {
@@ -171,8 +224,18 @@ public class CmsAliasManager {
      */
     public CmsRewriteAliasMatcher getRewriteAliasMatcher(CmsObject cms, String siteRoot) throws CmsException {
 
-        List<CmsRewriteAlias> aliases = getRewriteAliases(cms, siteRoot);
-        return new CmsRewriteAliasMatcher(aliases);
+        CmsRewriteAliasMatcher matcher = m_rewriteAliasMatchers.get(siteRoot);
+        if (matcher == null) {
+            long cacheGeneration = m_cacheGeneration;
+            List<CmsRewriteAlias> aliases = getRewriteAliases(cms, siteRoot);
+            matcher = new CmsRewriteAliasMatcher(aliases);
+            synchronized (m_aliasesBySite) {
+                if (cacheGeneration == m_cacheGeneration) {
+                    m_rewriteAliasMatchers.put(siteRoot, matcher);
+                }
+            }
+        }
+        return matcher;
     }
 
     /**
@@ -358,8 +421,9 @@ public class CmsAliasManager {
                 locale,
                 aliasPath), aliasPath, vfsPath, mode);
         }
-        List<CmsAlias> maybeAlias = getAliasesForPath(cms, siteRoot, aliasPath);
-        if (maybeAlias.isEmpty()) {
+        // read the alias from the database, since the cache is cleared with every imported alias
+        CmsAlias existingAlias = m_securityManager.readAliasByPath(cms.getRequestContext(), siteRoot, aliasPath);
+        if (existingAlias == null) {
             CmsAlias newAlias = new CmsAlias(resource.getStructureId(), siteRoot, aliasPath, mode);
             m_securityManager.addAlias(cms.getRequestContext(), newAlias);
             touch(cms, resource);
@@ -370,7 +434,6 @@ public class CmsAliasManager {
                 vfsPath,
                 mode);
         } else {
-            CmsAlias existingAlias = maybeAlias.get(0);
             CmsAliasFilter deleteFilter = new CmsAliasFilter(
                 siteRoot,
                 existingAlias.getAliasPath(),
@@ -513,6 +576,18 @@ public class CmsAliasManager {
         }
     }
 
+    /**
+     * Clears the cached aliases and rewrite alias matchers of all sites.<p>
+     */
+    private void clearCaches() {
+
+        synchronized (m_aliasesBySite) {
+            m_cacheGeneration++;
+            m_aliasesBySite.clear();
+            m_rewriteAliasMatchers.clear();
+        }
+    }
+
     /**
      * Message accessor.<p>
      * 
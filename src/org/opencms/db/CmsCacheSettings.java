@@ -27,6 +27,10 @@
 
 package org.opencms.db;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
 /**
  * The settings of the OpenCms memory monitor.<p>
  * 
@@ -34,9 +38,18 @@ package org.opencms.db;
  */
 public class CmsCacheSettings {
 
+    /** Cache implementation using a size limited map for concurrent access, see {@link org.opencms.cache.CmsConcurrentLruMap}. */
+    public static final String CACHE_IMPLEMENTATION_CONCURRENT = "concurrent";
+
+    /** Cache implementation using a synchronized LRU map, this is the default. */
+    public static final String CACHE_IMPLEMENTATION_LRU = "lru";
+
     /** The size of the memory monitor's cache for ACLs. */
     private int m_aclCacheSize;
 
+    /** The configured cache implementations by cache type name. */
+    private Map<String, String> m_cacheImplementations = new TreeMap<String, String>();
+
     /** The name of the class to generate cache keys. */
     private String m_cacheKeyGenerator;
 
@@ -94,6 +107,29 @@ public class CmsCacheSettings {
         return m_aclCacheSize;
     }
 
+    /**
+     * Returns the implementation to use for the memory monitor's cache of the given type.<p>
+     * 
+     * @param cacheType the name of the cache type, see {@link org.opencms.monitor.CmsMemoryMonitor.CacheType}
+     * 
+     * @return the cache implementation, either {@link #CACHE_IMPLEMENTATION_LRU} or {@link #CACHE_IMPLEMENTATION_CONCURRENT}
+     */
+    public String getCacheImplementation(String cacheType) {
+
+        String result = m_cacheImplementations.get(cacheType);
+        return (result != null) ? result : CACHE_IMPLEMENTATION_LRU;
+    }
+
+    /**
+     * Returns the explicitly configured cache implementations by cache type name.<p>
+     * 
+     * @return the explicitly configured cache implementations
+     */
+    public Map<String, String> getCacheImplementations() {
+
+        return Collections.unmodifiableMap(m_cacheImplementations);
+    }
+
     /**
      * Returns the name of the class to generate cache keys.<p>
      *
@@ -294,6 +330,25 @@ public class CmsCacheSettings {
         m_aclCacheSize = getIntValue(size, 1024);
     }
 
+    /**
+     * Sets the implementation to use for the memory monitor's cache of the given type.<p>
+     * 
+     * Unknown implementation names are ignored, so the default {@link #CACHE_IMPLEMENTATION_LRU} is used.<p>
+     * 
+     * @param cacheType the name of the cache type, see {@link org.opencms.monitor.CmsMemoryMonitor.CacheType}
+     * @param implementation the cache implementation
+     */
+    public void setCacheImplementation(String cacheType, String implementation) {
+
+        if ((cacheType == null) || (implementation == null)) {
+            return;
+        }
+        implementation = implementation.trim();
+        if (CACHE_IMPLEMENTATION_CONCURRENT.equals(implementation) || CACHE_IMPLEMENTATION_LRU.equals(implementation)) {
+            m_cacheImplementations.put(cacheType.trim().toUpperCase(), implementation);
+        }
+    }
+
     /**
      * Sets the name of the class to generate cache keys.<p>
      *
@@ -0,0 +1,172 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Statistics about the file contents stored in the database, used to estimate the savings
+ * of storing every distinct content only once.<p>
+ *
+ * The statistics cover the offline, online and historical contents. Every content row is added
+ * with the hash of its content, or with a <code>null</code> hash if the content is too small to be
+ * worth a reference and is therefore always stored inline.<p>
+ *
+ * @since 8.5.0
+ */
+public class CmsContentStatistics {
+
+    /** The number of content rows. */
+    private long m_contentCount;
+
+    /** The total size of all contents in bytes. */
+    private long m_contentSize;
+
+    /** The sizes of the distinct contents by their hash. */
+    private Map<String, Integer> m_distinctContents;
+
+    /** The size of the contents which are stored inline in bytes. */
+    private long m_inlineSize;
+
+    /** The number of content rows which would be stored as references. */
+    private long m_referenceCount;
+
+    /** The length of a single reference in bytes. */
+    private int m_referenceLength;
+
+    /** The number of content rows which already are stored as references. */
+    private long m_storedReferenceCount;
+
+    /**
+     * Creates new, empty content statistics.<p>
+     *
+     * @param referenceLength the length of a single reference in bytes
+     */
+    public CmsContentStatistics(int referenceLength) {
+
+        m_referenceLength = referenceLength;
+        m_distinctContents = new HashMap<String, Integer>();
+    }
+
+    /**
+     * Adds a content row to the statistics.<p>
+     *
+     * @param hash the hash of the content, or <code>null</code> if the content is always stored inline
+     * @param size the size of the content in bytes
+     * @param isReference <code>true</code> if the row already is stored as reference
+     */
+    public void addContent(String hash, int size, boolean isReference) {
+
+        m_contentCount++;
+        m_contentSize += size;
+        if (hash == null) {
+            m_inlineSize += size;
+            return;
+        }
+        m_referenceCount++;
+        if (isReference) {
+            m_storedReferenceCount++;
+        }
+        m_distinctContents.put(hash, Integer.valueOf(size));
+    }
+
+    /**
+     * Returns the number of content rows.<p>
+     *
+     * @return the number of content rows
+     */
+    public long getContentCount() {
+
+        return m_contentCount;
+    }
+
+    /**
+     * Returns the total size of all contents in bytes, as if every row stored its own copy.<p>
+     *
+     * @return the total size of all contents in bytes
+     */
+    public long getContentSize() {
+
+        return m_contentSize;
+    }
+
+    /**
+     * Returns the number of distinct contents which would be kept in the content store.<p>
+     *
+     * @return the number of distinct contents
+     */
+    public long getDistinctCount() {
+
+        return m_distinctContents.size();
+    }
+
+    /**
+     * Returns the size of all contents in bytes if every distinct content is stored only once.<p>
+     *
+     * @return the estimated size of all contents in bytes
+     */
+    public long getEstimatedSize() {
+
+        long result = m_inlineSize + (m_referenceCount * m_referenceLength);
+        for (Integer size : m_distinctContents.values()) {
+            result += size.intValue();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of content rows which would be stored as references.<p>
+     *
+     * @return the number of content rows which would be stored as references
+     */
+    public long getReferenceCount() {
+
+        return m_referenceCount;
+    }
+
+    /**
+     * Returns the number of bytes saved if every distinct content is stored only once.<p>
+     *
+     * @return the number of bytes saved
+     */
+    public long getSavedSize() {
+
+        return m_contentSize - getEstimatedSize();
+    }
+
+    /**
+     * Returns the number of content rows which already are stored as references.<p>
+     *
+     * @return the number of content rows which already are stored as references
+     */
+    public long getStoredReferenceCount() {
+
+        return m_storedReferenceCount;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.main.CmsLog;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Holds the JDBC connections of a database context, so that all SQL driver calls made with the
+ * context use the same connection of a pool instead of borrowing a new one from the pool for each call.<p>
+ *
+ * The connections handed out by this cache ignore calls to <code>close()</code>, they are returned
+ * to the pool by {@link #release()}, which is called when the database context is cleared.
+ * Prepared statements are still closed after each call, re-preparing them on the same connection is
+ * handled by the statement pool of the connection pool (see the <code>db.statements.*</code> settings).<p>
+ *
+ * The cache also counts the connections borrowed from the pool, the time spent waiting for them
+ * and the number of calls served by an already borrowed connection.<p>
+ *
+ * @since 8.5.0
+ */
+public class CmsDbConnectionCache {
+
+    /**
+     * Invocation handler for a connection of the cache, which delegates all calls except <code>close()</code>.<p>
+     */
+    private static class CmsCachedConnectionHandler implements InvocationHandler {
+
+        /** The connection borrowed from the pool. */
+        final Connection m_connection;
+
+        /**
+         * Creates a new invocation handler.<p>
+         *
+         * @param connection the connection borrowed from the pool
+         */
+        CmsCachedConnectionHandler(Connection connection) {
+
+            m_connection = connection;
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            String name = method.getName();
+            if ("close".equals(name) && (method.getParameterTypes().length == 0)) {
+                // the connection is returned to the pool when the database context is cleared
+                return null;
+            }
+            if ("equals".equals(name) && (method.getParameterTypes().length == 1)) {
+                return Boolean.valueOf(proxy == args[0]);
+            }
+            if ("hashCode".equals(name) && (method.getParameterTypes().length == 0)) {
+                return new Integer(System.identityHashCode(proxy));
+            }
+            try {
+                return method.invoke(m_connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsDbConnectionCache.class);
+
+    /** The number of connections borrowed from the pools. */
+    private int m_borrowCount;
+
+    /** The time spent waiting for connections from the pools, in nanoseconds. */
+    private long m_borrowTime;
+
+    /** The cached connections, with the pool URL as key. */
+    private Map<String, Connection> m_connections;
+
+    /** The number of connection requests served by an already borrowed connection. */
+    private int m_reuseCount;
+
+    /**
+     * Returns the number of connections borrowed from the pools.<p>
+     *
+     * @return the number of connections borrowed from the pools
+     */
+    public synchronized int getBorrowCount() {
+
+        return m_borrowCount;
+    }
+
+    /**
+     * Returns the time spent waiting for connections from the pools, in milliseconds.<p>
+     *
+     * @return the time spent waiting for connections from the pools, in milliseconds
+     */
+    public synchronized long getBorrowTime() {
+
+        return m_borrowTime / 1000000L;
+    }
+
+    /**
+     * Returns a connection for the pool with the given URL.<p>
+     *
+     * The connection is borrowed from the pool with the given SQL manager at the first call for the pool,
+     * or if the cached connection has been closed by the pool in the meantime.<p>
+     *
+     * @param sqlManager the SQL manager used to borrow connections from the pool
+     * @param poolUrl the URL of the pool
+     *
+     * @return the connection
+     *
+     * @throws SQLException if no connection could be borrowed from the pool
+     */
+    public synchronized Connection getConnection(CmsSqlManager sqlManager, String poolUrl) throws SQLException {
+
+        if (m_connections == null) {
+            m_connections = new HashMap<String, Connection>(4);
+        }
+        Connection connection = m_connections.get(poolUrl);
+        if (connection != null) {
+            if (!getPooledConnection(connection).isClosed()) {
+                m_reuseCount++;
+                return connection;
+            }
+            m_connections.remove(poolUrl);
+        }
+        long start = System.nanoTime();
+        Connection pooledConnection = sqlManager.getConnectionByUrl(poolUrl);
+        m_borrowTime += System.nanoTime() - start;
+        m_borrowCount++;
+        connection = (Connection)Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class[] {Connection.class},
+            new CmsCachedConnectionHandler(pooledConnection));
+        m_connections.put(poolUrl, connection);
+        return connection;
+    }
+
+    /**
+     * Returns the number of connection requests served by an already borrowed connection.<p>
+     *
+     * @return the number of connection requests served by an already borrowed connection
+     */
+    public synchronized int getReuseCount() {
+
+        return m_reuseCount;
+    }
+
+    /**
+     * Returns all cached connections to their pools.<p>
+     *
+     * The cache can still be used after this call, connections are then borrowed from the pools again.<p>
+     */
+    public synchronized void release() {
+
+        if (m_connections == null) {
+            return;
+        }
+        for (Connection connection : m_connections.values()) {
+            try {
+                getPooledConnection(connection).close();
+            } catch (SQLException e) {
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+        }
+        m_connections = null;
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_DB_CONNECTIONS_RELEASED_3,
+                new Integer(m_borrowCount),
+                new Long(getBorrowTime()),
+                new Integer(m_reuseCount)));
+        }
+    }
+
+    /**
+     * Returns the pooled connection wrapped by the given cached connection.<p>
+     *
+     * @param connection the cached connection
+     *
+     * @return the pooled connection
+     */
+    private Connection getPooledConnection(Connection connection) {
+
+        return ((CmsCachedConnectionHandler)Proxy.getInvocationHandler(connection)).m_connection;
+    }
+}
@@ -52,6 +52,9 @@ public class CmsDbContext {
     /** Context attributes. */
     protected Map<String, Object> m_attributes;
 
+    /** The cache for the JDBC connections used with this context, or <code>null</code> if connections are not reused. */
+    protected CmsDbConnectionCache m_connectionCache;
+
     /** The current Flex request context info (if available). */
     protected CmsFlexRequestContextInfo m_flexRequestContextInfo;
 
@@ -91,6 +94,10 @@ public class CmsDbContext {
 
         m_requestContext = null;
         m_flexRequestContextInfo = null;
+        if (m_connectionCache != null) {
+            m_connectionCache.release();
+            m_connectionCache = null;
+        }
     }
 
     /**
@@ -128,6 +135,17 @@ public class CmsDbContext {
         return m_attributes.get(key);
     }
 
+    /**
+     * Returns the cache for the JDBC connections used with this context.<p>
+     * 
+     * @return the cache for the JDBC connections used with this context, 
+     *      or <code>null</code> if the connections are not reused
+     */
+    public CmsDbConnectionCache getConnectionCache() {
+
+        return m_connectionCache;
+    }
+
     /**
      * Returns the current Flex request context info.<p>
      * 
@@ -308,6 +326,18 @@ public class CmsDbContext {
         m_attributes.put(key, value);
     }
 
+    /**
+     * Sets the cache for the JDBC connections used with this context.<p>
+     * 
+     * The cached connections are returned to their pools when this context is cleared.<p>
+     * 
+     * @param connectionCache the connection cache, or <code>null</code> if the connections should not be reused
+     */
+    public void setConnectionCache(CmsDbConnectionCache connectionCache) {
+
+        m_connectionCache = connectionCache;
+    }
+
     /**
      * Sets the project id of the context.<p>
      *
@@ -27,6 +27,7 @@
 
 package org.opencms.db;
 
+import org.opencms.configuration.CmsParameterConfiguration;
 import org.opencms.file.CmsRequestContext;
 
 /**
@@ -36,12 +37,18 @@ import org.opencms.file.CmsRequestContext;
  */
 public class CmsDbContextFactory implements I_CmsDbContextFactory {
 
+    /** The configuration key to enable the reuse of JDBC connections for all calls made with a database context. */
+    public static final String KEY_REUSE_CONNECTIONS = CmsDbPool.KEY_DATABASE + "connections.reuse";
+
+    /** Indicates if the created database contexts reuse their JDBC connections. */
+    private boolean m_reuseConnections;
+
     /**
      * @see org.opencms.db.I_CmsDbContextFactory#getDbContext()
      */
     public CmsDbContext getDbContext() {
 
-        return new CmsDbContext();
+        return initDbContext(new CmsDbContext());
     }
 
     /**
@@ -49,7 +56,7 @@ public class CmsDbContextFactory implements I_CmsDbContextFactory {
      */
     public CmsDbContext getDbContext(CmsRequestContext context) {
 
-        return new CmsDbContext(context);
+        return initDbContext(new CmsDbContext(context));
     }
 
     /**
@@ -57,6 +64,22 @@ public class CmsDbContextFactory implements I_CmsDbContextFactory {
      */
     public void initialize(CmsDriverManager driverManager) {
 
-        // noop
+        CmsParameterConfiguration config = driverManager.getPropertyConfiguration();
+        m_reuseConnections = (config != null) && config.getBoolean(KEY_REUSE_CONNECTIONS, false);
+    }
+
+    /**
+     * Initializes a newly created database context.<p>
+     * 
+     * @param dbc the database context
+     * 
+     * @return the initialized database context
+     */
+    private CmsDbContext initDbContext(CmsDbContext dbc) {
+
+        if (m_reuseConnections) {
+            dbc.setConnectionCache(new CmsDbConnectionCache());
+        }
+        return dbc;
     }
 }
@@ -114,6 +114,8 @@ import org.opencms.util.CmsUUID;
 import org.opencms.util.PrintfFormat;
 import org.opencms.workplace.commons.CmsProgressThread;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -122,12 +124,15 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -135,6 +140,9 @@ import org.apache.commons.dbcp.PoolingDriver;
 import org.apache.commons.logging.Log;
 import org.apache.commons.pool.ObjectPool;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ArrayListMultimap;
 
 /**
@@ -333,6 +341,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The class used for cache key generation. */
     private I_CmsCacheKey m_keyGenerator;
 
+    /** The last publish tag handed out, to keep the tags of parallel publish jobs unique. */
+    private int m_lastPublishTag;
+
     /** The lock manager. */
     private CmsLockManager m_lockManager;
 
@@ -354,6 +365,20 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** Object used for synchronizing updates to the user publish list. */
     private Object m_publishListUpdateLock = new Object();
 
+    /** Object used for synchronizing the allocation of publish tags. */
+    private Object m_publishTagLock = new Object();
+
+    /** The locks serializing the creation of resources with the same path, by root path. */
+    private LoadingCache<String, Lock> m_resourceCreationLocks = CacheBuilder.newBuilder().weakValues().build(
+        new CacheLoader<String, Lock>() {
+
+            @Override
+            public Lock load(String rootPath) {
+
+                return new ReentrantLock();
+            }
+        });
+
     /** The security manager (for access checks). */
     private CmsSecurityManager m_securityManager;
 
@@ -552,6 +577,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         I_CmsVfsDriver vfsDriver = getVfsDriver(dbc);
         vfsDriver.insertAlias(dbc, project, alias);
+        OpenCms.fireCmsEvent(new CmsEvent(
+            I_CmsEventListener.EVENT_ALIASES_MODIFIED,
+            new HashMap<String, Object>()));
     }
 
     /**
@@ -1581,7 +1609,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
      *
      * @throws CmsException if something goes wrong
      */
-    public synchronized CmsResource createResource(
+    public CmsResource createResource(
         CmsDbContext dbc,
         String resourcePath,
         CmsResource resource,
@@ -1594,6 +1622,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
             resourcePath = CmsFileUtil.addTrailingSeparator(resourcePath);
         }
 
+        // prevent that resources with the same name are created concurrently
+        Lock creationLock = getResourceCreationLock(resourcePath);
+        creationLock.lock();
         try {
             // need to provide the parent folder id for resource creation
             String parentFolderName = CmsResource.getParentFolder(resourcePath);
@@ -1886,9 +1917,19 @@ public final class CmsDriverManager implements I_CmsEventListener {
                     new String[] {resource.getRootPath()}), false);
             }
         } finally {
-            // clear the internal caches
-            m_monitor.clearAccessControlListCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            try {
+                // clear the internal caches
+                m_monitor.flushCache(CmsMemoryMonitor.CacheType.ACL, CmsMemoryMonitor.CacheType.PERMISSION);
+                if (newResource != null) {
+                    m_monitor.uncacheResource(newResource);
+                    m_monitor.uncacheProperties(newResource);
+                } else {
+                    m_monitor.clearResourceCache();
+                    m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+                }
+            } finally {
+                creationLock.unlock();
+            }
 
             if (newResource != null) {
                 // fire an event that a new resource has been created
@@ -2179,6 +2220,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         I_CmsVfsDriver vfsDriver = getVfsDriver(dbc);
         vfsDriver.deleteAliases(dbc, project, filter);
+        OpenCms.fireCmsEvent(new CmsEvent(
+            I_CmsEventListener.EVENT_ALIASES_MODIFIED,
+            new HashMap<String, Object>()));
     }
 
     /**
@@ -2232,7 +2276,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         } finally {
             // clear the driver manager cache
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            if (resource != null) {
+                m_monitor.uncacheProperties(resource);
+            } else {
+                m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            }
 
             // fire an event that all properties of a resource have been deleted
             OpenCms.fireCmsEvent(new CmsEvent(
@@ -2356,10 +2404,16 @@ public final class CmsDriverManager implements I_CmsEventListener {
      *
      * if the <code>cleanUp</code> option is set, additionally versions of deleted resources will be removed.<p>
      *
+     * The resources are processed in chunks ordered by structure id, every chunk in its own transaction.
+     * After every chunk, the number of deleted versions per second and the last structure id are reported,
+     * so an interrupted deletion can be resumed after that structure id.<p>
+     *
      * @param dbc the current database context
      * @param versionsToKeep number of versions to keep, is ignored if negative
      * @param versionsDeleted number of versions to keep for deleted resources, is ignored if negative
      * @param timeDeleted deleted resources older than this will also be deleted, is ignored if negative
+     * @param startAfter the structure id to resume after, or <code>null</code> to start with the first resource
+     * @param chunkSize the maximal number of resources per chunk
      * @param report the report for output logging
      *
      * @throws CmsException if operation was not successful
@@ -2369,6 +2423,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
         int versionsToKeep,
         int versionsDeleted,
         long timeDeleted,
+        CmsUUID startAfter,
+        int chunkSize,
         I_CmsReport report) throws CmsException {
 
         report.println(Messages.get().container(Messages.RPT_START_DELETE_VERSIONS_0), I_CmsReport.FORMAT_HEADLINE);
@@ -2376,111 +2432,77 @@ public final class CmsDriverManager implements I_CmsEventListener {
             report.println(
                 Messages.get().container(Messages.RPT_START_DELETE_ACT_VERSIONS_1, new Integer(versionsToKeep)),
                 I_CmsReport.FORMAT_HEADLINE);
+        }
+        if (timeDeleted >= 0) {
+            report.println(
+                Messages.get().container(
+                    Messages.RPT_START_DELETE_DEL_VERSIONS_2,
+                    new Integer(versionsDeleted),
+                    new Date(timeDeleted)),
+                I_CmsReport.FORMAT_HEADLINE);
+        } else if (versionsDeleted >= 0) {
+            report.println(
+                Messages.get().container(Messages.RPT_START_DELETE_DEL_VERSIONS_1, new Integer(versionsDeleted)),
+                I_CmsReport.FORMAT_HEADLINE);
+        }
+        if (startAfter != null) {
+            report.println(
+                Messages.get().container(Messages.RPT_DELETE_VERSIONS_RESUME_1, startAfter),
+                I_CmsReport.FORMAT_NOTE);
+        }
 
-            List<I_CmsHistoryResource> resources = getHistoryDriver(dbc).getAllNotDeletedEntries(dbc);
-            if (resources.isEmpty()) {
-                report.println(Messages.get().container(Messages.RPT_DELETE_NOTHING_0), I_CmsReport.FORMAT_OK);
-            }
-            int n = resources.size();
-            int m = 1;
-            Iterator<I_CmsHistoryResource> itResources = resources.iterator();
-            while (itResources.hasNext()) {
-                I_CmsHistoryResource histResource = itResources.next();
-
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        String.valueOf(m),
-                        String.valueOf(n)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_ARGUMENT_1,
-                    dbc.removeSiteRoot(histResource.getRootPath())));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-
-                try {
-                    int deleted = getHistoryDriver(dbc).deleteEntries(dbc, histResource, versionsToKeep, -1);
-
-                    report.print(
-                        Messages.get().container(Messages.RPT_VERSION_DELETING_1, new Integer(deleted)),
-                        I_CmsReport.FORMAT_NOTE);
-                    report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } catch (CmsDataAccessException e) {
+        long start = System.currentTimeMillis();
+        int resources = 0;
+        long deleted = 0;
+        CmsUUID lastStructureId = startAfter;
+        while (true) {
+            CmsHistoryPurgeChunk chunk;
+            try {
+                chunk = getHistoryDriver(dbc).deleteEntries(
+                    dbc,
+                    lastStructureId,
+                    chunkSize,
+                    versionsToKeep,
+                    versionsDeleted,
+                    timeDeleted);
+            } catch (CmsDataAccessException e) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ERROR_0),
+                    I_CmsReport.FORMAT_ERROR);
+                if (lastStructureId != null) {
                     report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ERROR_0),
+                        Messages.get().container(Messages.RPT_DELETE_VERSIONS_INTERRUPTED_1, lastStructureId),
                         I_CmsReport.FORMAT_ERROR);
-
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug(e.getLocalizedMessage(), e);
-                    }
                 }
-
-                m++;
+                throw e;
+            }
+            if (chunk.isEmpty()) {
+                break;
             }
+            resources += chunk.getResourceCount();
+            deleted += chunk.getDeletedCount();
+            lastStructureId = chunk.getLastStructureId();
+            long duration = Math.max(System.currentTimeMillis() - start, 1);
+            report.println(
+                Messages.get().container(
+                    Messages.RPT_DELETE_VERSIONS_CHUNK_4,
+                    new Object[] {
+                        new Integer(resources),
+                        new Long(deleted),
+                        new Long((deleted * 1000) / duration),
+                        lastStructureId}),
+                I_CmsReport.FORMAT_NOTE);
+        }
+        if (resources == 0) {
+            report.println(Messages.get().container(Messages.RPT_DELETE_NOTHING_0), I_CmsReport.FORMAT_OK);
+        }
 
+        if (versionsToKeep >= 0) {
             report.println(
                 Messages.get().container(Messages.RPT_END_DELETE_ACT_VERSIONS_0),
                 I_CmsReport.FORMAT_HEADLINE);
         }
         if ((versionsDeleted >= 0) || (timeDeleted >= 0)) {
-            if (timeDeleted >= 0) {
-                report.println(
-                    Messages.get().container(
-                        Messages.RPT_START_DELETE_DEL_VERSIONS_2,
-                        new Integer(versionsDeleted),
-                        new Date(timeDeleted)),
-                    I_CmsReport.FORMAT_HEADLINE);
-            } else {
-                report.println(
-                    Messages.get().container(Messages.RPT_START_DELETE_DEL_VERSIONS_1, new Integer(versionsDeleted)),
-                    I_CmsReport.FORMAT_HEADLINE);
-            }
-            List<I_CmsHistoryResource> resources = getHistoryDriver(dbc).getAllDeletedEntries(dbc);
-            if (resources.isEmpty()) {
-                report.println(Messages.get().container(Messages.RPT_DELETE_NOTHING_0), I_CmsReport.FORMAT_OK);
-            }
-            int n = resources.size();
-            int m = 1;
-            Iterator<I_CmsHistoryResource> itResources = resources.iterator();
-            while (itResources.hasNext()) {
-                I_CmsHistoryResource histResource = itResources.next();
-
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        String.valueOf(m),
-                        String.valueOf(n)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_ARGUMENT_1,
-                    dbc.removeSiteRoot(histResource.getRootPath())));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-
-                try {
-                    int deleted = getHistoryDriver(dbc).deleteEntries(dbc, histResource, versionsDeleted, timeDeleted);
-
-                    report.print(
-                        Messages.get().container(Messages.RPT_VERSION_DELETING_1, new Integer(deleted)),
-                        I_CmsReport.FORMAT_NOTE);
-                    report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } catch (CmsDataAccessException e) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ERROR_0),
-                        I_CmsReport.FORMAT_ERROR);
-
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug(e.getLocalizedMessage(), e);
-                    }
-                }
-
-                m++;
-            }
             report.println(
                 Messages.get().container(Messages.RPT_END_DELETE_DEL_VERSIONS_0),
                 I_CmsReport.FORMAT_HEADLINE);
@@ -2956,6 +2978,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
                         dbc,
                         dbc.currentProject(),
                         new CmsAliasFilter(null, null, currentResource.getStructureId()));
+                    OpenCms.fireCmsEvent(new CmsEvent(
+                        I_CmsEventListener.EVENT_ALIASES_MODIFIED,
+                        new HashMap<String, Object>()));
                 } else {
                     // the resource exists online => mark the resource as deleted
                     // structure record is removed during next publish
@@ -2995,11 +3020,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         // flush all caches
-        m_monitor.clearAccessControlListCache();
         m_monitor.flushCache(
-            CmsMemoryMonitor.CacheType.PROPERTY,
-            CmsMemoryMonitor.CacheType.PROPERTY_LIST,
+            CmsMemoryMonitor.CacheType.ACL,
+            CmsMemoryMonitor.CacheType.PERMISSION,
             CmsMemoryMonitor.CacheType.PROJECT_RESOURCES);
+        for (CmsResource deletedResource : resources) {
+            m_monitor.uncacheResource(deletedResource);
+            m_monitor.uncacheProperties(deletedResource);
+        }
 
         OpenCms.fireCmsEvent(new CmsEvent(
             I_CmsEventListener.EVENT_RESOURCE_DELETED,
@@ -4098,13 +4126,23 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /**
      * Returns the next publish tag for the published historical resources.<p>
      *
+     * Every call returns a new tag, even if the publish job that got the previous tag 
+     * has not yet written it, since publish jobs may run in parallel.<p>
+     *
      * @param dbc the current database context
      *
      * @return the next available publish tag
      */
     public int getNextPublishTag(CmsDbContext dbc) {
 
-        return getHistoryDriver(dbc).readNextPublishTag(dbc);
+        synchronized (m_publishTagLock) {
+            int publishTag = getHistoryDriver(dbc).readNextPublishTag(dbc);
+            if (publishTag <= m_lastPublishTag) {
+                publishTag = m_lastPublishTag + 1;
+            }
+            m_lastPublishTag = publishTag;
+            return publishTag;
+        }
     }
 
     /**
@@ -4421,6 +4459,23 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return getVfsDriver(dbc).readRelations(dbc, projectId, resource, filter);
     }
 
+    /**
+     * Returns the lock which serializes the creation of resources with the given root path.<p>
+     *
+     * Files and folders with the same name share the same lock, so a folder can not be created 
+     * while a file with the same name is created and vice versa. Resources with different 
+     * paths can be created in parallel.<p>
+     *
+     * @param rootPath the root path of the resource to create
+     *
+     * @return the lock for the given root path
+     */
+    public Lock getResourceCreationLock(String rootPath) {
+
+        String key = "/".equals(rootPath) ? rootPath : CmsFileUtil.removeTrailingSeparator(rootPath);
+        return m_resourceCreationLocks.getUnchecked(key);
+    }
+
     /**
      * Returns the list of organizational units the given resource belongs to.<p>
      *
@@ -4956,6 +5011,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
         List<CmsRewriteAlias> aliases = new ArrayList<CmsRewriteAlias>();
         aliases.add(alias);
         getVfsDriver(dbc).insertRewriteAliases(dbc, aliases);
+        OpenCms.fireCmsEvent(new CmsEvent(
+            I_CmsEventListener.EVENT_ALIASES_MODIFIED,
+            new HashMap<String, Object>()));
         CmsAliasImportResult result = new CmsAliasImportResult(
             CmsAliasImportStatus.aliasNew,
             "OK",
@@ -5312,7 +5370,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public void lockResource(CmsDbContext dbc, CmsResource resource, CmsLockType type) throws CmsException {
 
         // update the resource cache
-        m_monitor.clearResourceCache();
+        m_monitor.uncacheResource(resource);
 
         CmsProject project = dbc.currentProject();
 
@@ -5371,7 +5429,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
         // prevent several entries for the same operation
         dbc.setAttribute(CmsLogEntry.ATTR_LOG_ENTRY, Boolean.TRUE);
         // keep it for later
-        m_log.add(logEntry);
+        synchronized (m_publishListUpdateLock) {
+            m_log.add(logEntry);
+        }
     }
 
     /**
@@ -5645,11 +5705,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
         m_lockManager.moveResource(source.getRootPath(), destRes.getRootPath());
 
         // flush all relevant caches
-        m_monitor.clearAccessControlListCache();
         m_monitor.flushCache(
-            CmsMemoryMonitor.CacheType.PROPERTY,
-            CmsMemoryMonitor.CacheType.PROPERTY_LIST,
+            CmsMemoryMonitor.CacheType.ACL,
+            CmsMemoryMonitor.CacheType.PERMISSION,
             CmsMemoryMonitor.CacheType.PROJECT_RESOURCES);
+        m_monitor.uncacheResource(source);
+        m_monitor.uncacheResource(destRes);
+        m_monitor.uncacheProperties(source);
+        m_monitor.uncacheProperties(destRes);
 
         List<CmsResource> resources = new ArrayList<CmsResource>(4);
         // source
@@ -6357,6 +6420,73 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return null;
     }
 
+    /**
+     * Reads the property objects of all child resources of a folder.<p>
+     *
+     * If the properties of any child are not cached, the properties of all children are read
+     * from the database with a single query, and are cached like the result of
+     * {@link #readPropertyObjects(CmsDbContext, CmsResource, boolean)} without search.<p>
+     *
+     * All properties in the result lists will be in frozen (read only) state.<p>
+     *
+     * @param dbc the current database context
+     * @param folder the parent folder
+     *
+     * @return the property objects of all child resources, by structure id
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readChildPropertyObjects(CmsResource)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readChildPropertyObjects(CmsDbContext dbc, CmsResource folder)
+    throws CmsException {
+
+        List<CmsResource> children = readChildResources(dbc, folder, CmsResourceFilter.ALL, true, true, false);
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>(children.size());
+
+        boolean cached = dbc.getProjectId().isNullUUID();
+        for (CmsResource child : children) {
+            if (!cached) {
+                break;
+            }
+            String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, child.getRootPath());
+            List<CmsProperty> properties = m_monitor.getCachedPropertyList(cacheKey);
+            if (properties == null) {
+                cached = false;
+            } else {
+                result.put(child.getStructureId(), new ArrayList<CmsProperty>(properties));
+            }
+        }
+        if (cached) {
+            return result;
+        }
+
+        // at least one child is not cached, so read the properties of all children at once
+        result.clear();
+        Map<CmsUUID, List<CmsProperty>> childProperties = getVfsDriver(dbc).readChildPropertyObjects(
+            dbc,
+            dbc.currentProject(),
+            folder);
+        for (CmsResource child : children) {
+            List<CmsProperty> properties = childProperties.get(child.getStructureId());
+            if (properties == null) {
+                properties = new ArrayList<CmsProperty>();
+            }
+            for (CmsProperty property : properties) {
+                property.setOrigin(child.getRootPath());
+            }
+            // set all properties in the result list as frozen
+            CmsProperty.setFrozen(properties);
+            if (dbc.getProjectId().isNullUUID()) {
+                String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, child.getRootPath());
+                m_monitor.cachePropertyList(cacheKey, child.getRootPath(), properties);
+            }
+            result.put(child.getStructureId(), new ArrayList<CmsProperty>(properties));
+        }
+        return result;
+    }
+
     /**
      * Returns the child resources of a resource, that is the resources
      * contained in a folder.<p>
@@ -6426,14 +6556,31 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
             // cache the sub resources
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResourceList(cacheKey, resourceList);
+                m_monitor.cacheResourceList(cacheKey, resource.getRootPath(), resourceList);
             }
         }
 
+        // new child resources will change the result
+        updateContextDependencies(dbc, resource.getRootPath(), true);
         // we must always apply the result filter and update the context dates
         return updateContextDates(dbc, resourceList, filter);
     }
 
+    /**
+     * Reads statistics about the offline, online and historical file contents,
+     * used to estimate the savings of storing every distinct content only once.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the content statistics
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public CmsContentStatistics readContentStatistics(CmsDbContext dbc) throws CmsException {
+
+        return getVfsDriver(dbc).readContentStatistics(dbc);
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -6696,6 +6843,34 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return file;
     }
 
+    /**
+     * Returns a stream on the binary content of a file resource.<p>
+     *
+     * The content is streamed from the database where possible, so this should be preferred 
+     * over <code>{@link #readFile(CmsDbContext, CmsResource)}</code> for large binary files that are 
+     * only copied to some output. The returned stream must always be closed by the caller.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the file resource to read the content for
+     *
+     * @return a stream on the content of the file
+     *
+     * @throws CmsException if operation was not successful
+     */
+    public InputStream readFileContentStream(CmsDbContext dbc, CmsResource resource) throws CmsException {
+
+        if (resource.isFolder()) {
+            throw new CmsVfsResourceNotFoundException(Messages.get().container(
+                Messages.ERR_ACCESS_FOLDER_AS_FILE_1,
+                dbc.removeSiteRoot(resource.getRootPath())));
+        }
+        if (resource instanceof I_CmsHistoryResource) {
+            // historical contents are only available as byte array
+            return new ByteArrayInputStream(readFile(dbc, resource).getContents());
+        }
+        return getVfsDriver(dbc).readContentStream(dbc, dbc.currentProject().getUuid(), resource.getResourceId());
+    }
+
     /**
      * Reads a folder from the VFS,
      * using the specified resource filter.<p>
@@ -7274,42 +7449,15 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         // check if we have the result already cached
         CmsUUID projectId = getProjectIdForContext(dbc);
-        String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, search, projectId, resource.getRootPath());
+        String rootPath = resource.getRootPath();
+        String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, search, projectId, rootPath);
 
         List<CmsProperty> properties = m_monitor.getCachedPropertyList(cacheKey);
 
         if ((properties == null) || !dbc.getProjectId().isNullUUID()) {
             // result not cached, let's look it up in the DB
             if (search) {
-                boolean cont;
-                properties = new ArrayList<CmsProperty>();
-                List<CmsProperty> parentProperties = null;
-
-                do {
-                    try {
-                        parentProperties = readPropertyObjects(dbc, resource, false);
-
-                        // make sure properties from lower folders "overwrite" properties from upper folders
-                        parentProperties.removeAll(properties);
-                        parentProperties.addAll(properties);
-
-                        properties.clear();
-                        properties.addAll(parentProperties);
-
-                        cont = resource.getRootPath().length() > 1;
-                    } catch (CmsSecurityException se) {
-                        // a security exception (probably no read permission) we return the current result
-                        cont = false;
-                    }
-                    if (cont) {
-                        // no permission check on parent folder is required since we must have "read"
-                        // permissions to read the child resource anyway
-                        resource = readResource(
-                            dbc,
-                            CmsResource.getParentFolder(resource.getRootPath()),
-                            CmsResourceFilter.ALL);
-                    }
-                } while (cont);
+                properties = readInheritedPropertyObjects(dbc, resource);
             } else {
                 properties = getVfsDriver(dbc).readPropertyObjects(dbc, dbc.currentProject(), resource);
                 //                for (CmsProperty prop : properties) {
@@ -7321,7 +7469,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             CmsProperty.setFrozen(properties);
             if (dbc.getProjectId().isNullUUID()) {
                 // store the result in the cache if needed
-                m_monitor.cachePropertyList(cacheKey, properties);
+                m_monitor.cachePropertyList(cacheKey, rootPath, properties);
             }
         }
 
@@ -7485,6 +7633,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public CmsResource readResource(CmsDbContext dbc, String resourcePath, CmsResourceFilter filter)
     throws CmsDataAccessException {
 
+        // the resource may not exist yet, so the path is tracked before reading
+        updateContextDependencies(dbc, resourcePath, false);
         CmsUUID projectId = getProjectIdForContext(dbc);
         // please note: the filter will be applied in the security manager later
         CmsResource resource = getVfsDriver(dbc).readResource(dbc, projectId, resourcePath, filter.includeDeleted());
@@ -7553,9 +7703,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
             // store the result in the resourceList cache
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResourceList(cacheKey, resourceList);
+                m_monitor.cacheResourceList(cacheKey, parent.getRootPath(), resourceList);
             }
         }
+        // new resources below the parent will change the result
+        updateContextDependencies(dbc, parent.getRootPath(), true);
         // we must always apply the result filter and update the context dates
         return updateContextDates(dbc, resourceList, filter);
     }
@@ -7636,9 +7788,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
             resourceList = filterPermissions(dbc, resourceList, filter);
             // store the result in the resourceList cache
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResourceList(cacheKey, resourceList);
+                m_monitor.cacheResourceList(cacheKey, folder.getRootPath(), resourceList);
             }
         }
+        // new resources below the folder will change the result
+        updateContextDependencies(dbc, folder.getRootPath(), true);
         // we must always apply the result filter and update the context dates
         return updateContextDates(dbc, resourceList, filter);
     }
@@ -8206,7 +8360,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         if ((properties != null) && !properties.isEmpty()) {
             // write the properties
             getVfsDriver(dbc).writePropertyObjects(dbc, dbc.currentProject(), resource, properties);
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            m_monitor.uncacheProperties(resource);
         }
 
         // update the resource state
@@ -8229,7 +8383,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         deleteRelationsWithSiblings(dbc, resource);
 
         // clear the cache
-        m_monitor.clearResourceCache();
+        m_monitor.uncacheResource(resource);
 
         if ((properties != null) && !properties.isEmpty()) {
             // resource and properties were modified
@@ -8523,7 +8677,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             // write them to the restored resource
             writePropertyObjects(dbc, newResource, historyProperties, false);
 
-            m_monitor.clearResourceCache();
+            m_monitor.uncacheResource(newResource);
         }
 
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -8560,6 +8714,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 LOG.error("Invalid alias path: " + aliasPath);
             }
         }
+        OpenCms.fireCmsEvent(new CmsEvent(
+            I_CmsEventListener.EVENT_ALIASES_MODIFIED,
+            new HashMap<String, Object>()));
     }
 
     /**
@@ -8576,6 +8733,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
         CmsRewriteAliasFilter filter = new CmsRewriteAliasFilter().setSiteRoot(siteRoot);
         getVfsDriver(dbc).deleteRewriteAliases(dbc, filter);
         getVfsDriver(dbc).insertRewriteAliases(dbc, newAliases);
+        OpenCms.fireCmsEvent(new CmsEvent(
+            I_CmsEventListener.EVENT_ALIASES_MODIFIED,
+            new HashMap<String, Object>()));
     }
 
     /**
@@ -8625,7 +8785,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             new String[] {resource.getRootPath()}), false);
 
         // clear the cache
-        m_monitor.clearResourceCache();
+        m_monitor.uncacheResource(resource);
 
         // fire the event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -8667,7 +8827,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             new String[] {resource.getRootPath()}), false);
 
         // clear the cache
-        m_monitor.clearResourceCache();
+        m_monitor.uncacheResource(resource);
 
         // fire the event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -8708,7 +8868,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             new String[] {resource.getRootPath()}), false);
 
         // clear the cache
-        m_monitor.clearResourceCache();
+        m_monitor.uncacheResource(resource);
 
         // fire the event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -8866,7 +9026,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             CmsLogEntryType.RESOURCE_UNDELETED,
             new String[] {resource.getRootPath()}), false);
         // clear the cache
-        m_monitor.clearResourceCache();
+        m_monitor.uncacheResource(resource);
 
         // fire change event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -8980,7 +9140,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
     throws CmsException {
 
         // update the resource cache
-        m_monitor.clearResourceCache();
+        m_monitor.uncacheResource(resource);
 
         // now update lock status
         m_lockManager.removeResource(dbc, resource, force, removeSystemLock);
@@ -9524,7 +9684,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         deleteRelationsWithSiblings(dbc, resource);
 
         // update the cache
-        m_monitor.clearResourceCache();
+        m_monitor.uncacheResource(resource);
 
         Map<String, Object> data = new HashMap<String, Object>(2);
         data.put(I_CmsEventListener.KEY_RESOURCE, resource);
@@ -9711,8 +9871,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         } finally {
             // update the driver manager cache
-            m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            m_monitor.uncacheResource(resource);
+            m_monitor.uncacheProperties(resource);
 
             // fire an event that a property of a resource has been modified
             Map<String, Object> data = new HashMap<String, Object>();
@@ -9792,8 +9952,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         } finally {
             // update the driver manager cache
-            m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            m_monitor.uncacheResource(resource);
+            m_monitor.uncacheProperties(resource);
 
             // fire an event that the properties of a resource have been modified
             OpenCms.fireCmsEvent(new CmsEvent(
@@ -9860,7 +10020,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         // update the cache
-        m_monitor.clearResourceCache();
+        m_monitor.uncacheResource(resource);
         Map<String, Object> data = new HashMap<String, Object>(2);
         data.put(I_CmsEventListener.KEY_RESOURCE, resource);
         data.put(I_CmsEventListener.KEY_CHANGE, new Integer(CHANGED_RESOURCE));
@@ -11172,6 +11332,111 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Reads the property objects of a resource together with the properties inherited from its parent folders.<p>
+     *
+     * The inherited properties of a folder are cached like the result of
+     * {@link #readPropertyObjects(CmsDbContext, CmsResource, boolean)} with search, so the lookup stops
+     * at the nearest parent folder with cached inherited properties. The properties of all parent folders
+     * below that folder which are not cached yet are read with a single query, and the merged
+     * result of each of these folders is cached so that other resources in the same folders can use it.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource where the properties are read from
+     *
+     * @return the property objects of the resource, including the inherited properties
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private List<CmsProperty> readInheritedPropertyObjects(CmsDbContext dbc, CmsResource resource)
+    throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        boolean useCache = dbc.getProjectId().isNullUUID();
+
+        // collect the parent folders up to the nearest folder with cached inherited properties, from bottom to top
+        List<CmsProperty> inherited = null;
+        List<String> folders = new ArrayList<String>();
+        String folder = CmsResource.getParentFolder(resource.getRootPath());
+        while (folder != null) {
+            if (useCache) {
+                inherited = m_monitor.getCachedPropertyList(getCacheKey(CACHE_ALL_PROPERTIES, true, projectId, folder));
+                if (inherited != null) {
+                    break;
+                }
+            }
+            folders.add(folder);
+            folder = CmsResource.getParentFolder(folder);
+        }
+
+        // collect the properties directly attached to these folders, reading all missing ones at once
+        Map<String, List<CmsProperty>> folderProperties = new HashMap<String, List<CmsProperty>>();
+        List<String> missingFolders = new ArrayList<String>();
+        for (String folderPath : folders) {
+            List<CmsProperty> properties = null;
+            if (useCache) {
+                properties = m_monitor.getCachedPropertyList(getCacheKey(
+                    CACHE_ALL_PROPERTIES,
+                    false,
+                    projectId,
+                    folderPath));
+            }
+            if (properties != null) {
+                folderProperties.put(folderPath, properties);
+            } else {
+                missingFolders.add(folderPath);
+            }
+        }
+        if (!missingFolders.isEmpty()) {
+            Map<String, List<CmsProperty>> readProperties = getVfsDriver(dbc).readPropertyObjectsForPaths(
+                dbc,
+                dbc.currentProject(),
+                missingFolders);
+            for (String folderPath : missingFolders) {
+                List<CmsProperty> properties = readProperties.get(folderPath);
+                if (properties == null) {
+                    properties = new ArrayList<CmsProperty>();
+                }
+                // set all properties in the result list as frozen
+                CmsProperty.setFrozen(properties);
+                if (useCache) {
+                    m_monitor.cachePropertyList(
+                        getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, folderPath),
+                        folderPath,
+                        properties);
+                }
+                folderProperties.put(folderPath, properties);
+            }
+        }
+
+        // merge from top to bottom, so properties from lower folders "overwrite" properties from upper folders
+        Map<String, CmsProperty> result = new LinkedHashMap<String, CmsProperty>();
+        if (inherited != null) {
+            for (CmsProperty property : inherited) {
+                result.put(property.getName(), property);
+            }
+        }
+        for (int i = folders.size() - 1; i >= 0; i--) {
+            String folderPath = folders.get(i);
+            for (CmsProperty property : folderProperties.get(folderPath)) {
+                result.remove(property.getName());
+                result.put(property.getName(), property);
+            }
+            if (useCache) {
+                // cache the inherited properties of the folder for the other resources in it
+                m_monitor.cachePropertyList(
+                    getCacheKey(CACHE_ALL_PROPERTIES, true, projectId, folderPath),
+                    folderPath,
+                    new ArrayList<CmsProperty>(result.values()));
+            }
+        }
+        for (CmsProperty property : readPropertyObjects(dbc, resource, false)) {
+            result.remove(property.getName());
+            result.put(property.getName(), property);
+        }
+        return new ArrayList<CmsProperty>(result.values());
+    }
+
     /**
      * Sorts the given list of {@link CmsAccessControlEntry} objects.<p>
      *
@@ -11236,7 +11501,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             if (attrModified) {
                 vfsDriver.transferResource(dbc, project, resource, createdUser, lastModUser);
                 // clear the cache
-                m_monitor.clearResourceCache();
+                m_monitor.uncacheResource(resource);
             }
             boolean aceModified = false;
             // check aces
@@ -11515,6 +11780,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
         if (info != null) {
             info.updateFromResource(resource);
+            info.getDependencies().addResource(resource);
         }
     }
 
@@ -11537,6 +11803,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             for (int i = 0; i < resourceList.size(); i++) {
                 CmsResource resource = resourceList.get(i);
                 info.updateFromResource(resource);
+                info.getDependencies().addResource(resource);
             }
         }
         return resourceList;
@@ -11576,11 +11843,34 @@ public final class CmsDriverManager implements I_CmsEventListener {
             // since a resource may be invalid because of release / expiration date
             if (info != null) {
                 info.updateFromResource(resource);
+                info.getDependencies().addResource(resource);
             }
         }
         return result;
     }
 
+    /**
+     * Adds a resource path to the VFS resources the current users context depends on.<p>
+     *
+     * This is required for the Flex cache to decide which cached elements must be removed after a publish,
+     * see {@link org.opencms.flex.CmsFlexCacheDependencies}.<p>
+     *
+     * @param dbc the current database context
+     * @param rootPath the root path of the resource
+     * @param folderContents <code>true</code> if the contents of the folder with the given path have been read
+     */
+    private void updateContextDependencies(CmsDbContext dbc, String rootPath, boolean folderContents) {
+
+        CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
+        if (info != null) {
+            if (folderContents) {
+                info.getDependencies().addFolder(rootPath);
+            } else {
+                info.getDependencies().addPath(rootPath);
+            }
+        }
+    }
+
     /**
      * Updates the state of a resource, depending on the <code>resourceState</code> parameter.<p>
      *
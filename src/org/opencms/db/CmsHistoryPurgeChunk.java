@@ -0,0 +1,109 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.util.CmsUUID;
+
+/**
+ * The result of deleting the historical versions of one chunk of resources.<p>
+ *
+ * The chunks are ordered by structure id, so the last structure id of a chunk is the position
+ * to continue from with the next chunk, or to resume from if the deletion was interrupted.<p>
+ *
+ * @since 8.5.0
+ *
+ * @see I_CmsHistoryDriver#deleteEntries(CmsDbContext, CmsUUID, int, int, int, long)
+ */
+public class CmsHistoryPurgeChunk {
+
+    /** The default number of resources per chunk. */
+    public static final int DEFAULT_SIZE = 500;
+
+    /** The number of deleted historical entries. */
+    private int m_deletedCount;
+
+    /** The last structure id of the chunk. */
+    private CmsUUID m_lastStructureId;
+
+    /** The number of resources in the chunk. */
+    private int m_resourceCount;
+
+    /**
+     * Creates a new chunk result.<p>
+     *
+     * @param lastStructureId the last structure id of the chunk, or <code>null</code> if the chunk is empty
+     * @param resourceCount the number of resources in the chunk
+     * @param deletedCount the number of deleted historical entries
+     */
+    public CmsHistoryPurgeChunk(CmsUUID lastStructureId, int resourceCount, int deletedCount) {
+
+        m_lastStructureId = lastStructureId;
+        m_resourceCount = resourceCount;
+        m_deletedCount = deletedCount;
+    }
+
+    /**
+     * Returns the number of deleted historical structure and resource entries.<p>
+     *
+     * @return the number of deleted historical entries
+     */
+    public int getDeletedCount() {
+
+        return m_deletedCount;
+    }
+
+    /**
+     * Returns the last structure id of the chunk, to continue the deletion after it.<p>
+     *
+     * @return the last structure id of the chunk, or <code>null</code> if there are no more resources
+     */
+    public CmsUUID getLastStructureId() {
+
+        return m_lastStructureId;
+    }
+
+    /**
+     * Returns the number of resources in the chunk.<p>
+     *
+     * @return the number of resources in the chunk
+     */
+    public int getResourceCount() {
+
+        return m_resourceCount;
+    }
+
+    /**
+     * Returns if the chunk is empty, that is if there are no more resources to process.<p>
+     *
+     * @return <code>true</code> if the chunk is empty
+     */
+    public boolean isEmpty() {
+
+        return m_lastStructureId == null;
+    }
+}
@@ -31,7 +31,10 @@ import org.opencms.main.CmsLog;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -89,41 +92,131 @@ public class CmsRewriteAliasMatcher {
 
     }
 
+    /** The characters which have a special meaning in a regular expression. */
+    private static final String REGEX_META_CHARS = "\\^$.|?*+()[]{}";
+
     /** The logger instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsRewriteAliasMatcher.class);
 
     /** The list of rewrite aliases to use for matching. */
     private List<CmsRewriteAlias> m_aliases;
 
+    /** The indexes of the aliases by the literal prefix of their patterns. */
+    private Map<String, List<Integer>> m_indexesByPrefix;
+
+    /** The compiled patterns, with the same indexes as the aliases, or null for invalid patterns. */
+    private List<Pattern> m_patterns;
+
     /**
      * Creates a new matcher instance for the given list of rewrite aliases.<p>
      * 
+     * The patterns of the aliases are compiled once, so a matcher instance should be reused for 
+     * matching multiple paths. It is safe to use the same instance from multiple threads.<p>
+     * 
      * @param aliases the list of rewrite aliases to be used for matching 
      */
     public CmsRewriteAliasMatcher(Collection<CmsRewriteAlias> aliases) {
 
         m_aliases = new ArrayList<CmsRewriteAlias>(aliases);
+        m_patterns = new ArrayList<Pattern>(m_aliases.size());
+        m_indexesByPrefix = new HashMap<String, List<Integer>>();
+        for (int i = 0; i < m_aliases.size(); i++) {
+            String patternString = m_aliases.get(i).getPatternString();
+            Pattern pattern = null;
+            try {
+                pattern = Pattern.compile(patternString);
+            } catch (PatternSyntaxException e) {
+                LOG.warn(e.getLocalizedMessage(), e);
+            }
+            m_patterns.add(pattern);
+            if (pattern != null) {
+                String prefix = getLiteralPrefix(patternString);
+                List<Integer> indexes = m_indexesByPrefix.get(prefix);
+                if (indexes == null) {
+                    indexes = new ArrayList<Integer>(1);
+                    m_indexesByPrefix.put(prefix, indexes);
+                }
+                indexes.add(Integer.valueOf(i));
+            }
+        }
+    }
+
+    /**
+     * Returns the literal prefix of a regular expression, i.e. a string with which all strings 
+     * matching the whole regular expression must start.<p>
+     * 
+     * The prefix is determined conservatively, e.g. the prefix of an expression containing 
+     * alternatives is always the empty string.<p>
+     * 
+     * @param patternString the regular expression
+     *  
+     * @return the literal prefix of the regular expression
+     */
+    protected static String getLiteralPrefix(String patternString) {
+
+        if (patternString.indexOf('|') != -1) {
+            // alternatives can start with anything
+            return "";
+        }
+        StringBuffer prefix = new StringBuffer();
+        int i = patternString.startsWith("^") ? 1 : 0;
+        while (i < patternString.length()) {
+            char c = patternString.charAt(i);
+            if ((c == '?') || (c == '*') || (c == '+') || (c == '{')) {
+                // the previous character is quantified, so it is not part of the literal prefix
+                if (prefix.length() > 0) {
+                    prefix.setLength(prefix.length() - 1);
+                }
+                break;
+            }
+            if (c == '\\') {
+                // only escaped non alphanumeric characters are literals, other escapes are e.g. character classes
+                if (((i + 1) < patternString.length())
+                    && !Character.isLetterOrDigit(patternString.charAt(i + 1))) {
+                    prefix.append(patternString.charAt(i + 1));
+                    i += 2;
+                    continue;
+                }
+                break;
+            }
+            if (REGEX_META_CHARS.indexOf(c) != -1) {
+                break;
+            }
+            prefix.append(c);
+            i++;
+        }
+        return prefix.toString();
     }
 
     /**
      * Tries to rewrite a given path, and either returns the rewrite result or null if no 
      * rewrite alias matched the path.<p>
      * 
+     * If more than one alias matches the path, the first matching alias from the list 
+     * given in the constructor is used. Only the aliases whose literal pattern prefix
+     * is a prefix of the path are tested.<p>
+     * 
      * @param path the path to match 
      * @return the rewrite result or null if no rewrite alias matched
      */
     public RewriteResult match(String path) {
 
-        for (CmsRewriteAlias alias : m_aliases) {
+        List<Integer> candidates = new ArrayList<Integer>();
+        for (int i = 0; i <= path.length(); i++) {
+            List<Integer> indexes = m_indexesByPrefix.get(path.substring(0, i));
+            if (indexes != null) {
+                candidates.addAll(indexes);
+            }
+        }
+        Collections.sort(candidates);
+        for (Integer index : candidates) {
+            CmsRewriteAlias alias = m_aliases.get(index.intValue());
             try {
-                Pattern pattern = Pattern.compile(alias.getPatternString());
-                Matcher matcher = pattern.matcher(path);
+                Matcher matcher = m_patterns.get(index.intValue()).matcher(path);
                 if (matcher.matches()) {
                     String newPath = matcher.replaceFirst(alias.getReplacementString());
                     return new RewriteResult(newPath, alias);
                 }
-            } catch (PatternSyntaxException e) {
-                LOG.warn(e.getLocalizedMessage(), e);
             } catch (IndexOutOfBoundsException e) {
                 LOG.warn(e.getLocalizedMessage(), e);
             }
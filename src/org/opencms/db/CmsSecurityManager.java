@@ -92,6 +92,7 @@ import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -103,6 +104,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.commons.logging.Log;
 
@@ -1089,7 +1091,7 @@ public final class CmsSecurityManager {
      *
      * @see org.opencms.file.types.I_CmsResourceType#createResource(CmsObject, CmsSecurityManager, String, byte[], List)
      */
-    public synchronized CmsResource createResource(
+    public CmsResource createResource(
         CmsRequestContext context,
         String resourcename,
         int type,
@@ -1100,23 +1102,30 @@ public final class CmsSecurityManager {
         // We use checkExistsPath instead of resourcename because when creating a folder /foo/bar/, we want to fail
         // if a file /foo/bar already exists. 
 
-        if (existsResource(context, checkExistsPath, CmsResourceFilter.ALL)) {
-            // check if the resource already exists by name
-            throw new CmsVfsResourceAlreadyExistsException(org.opencms.db.generic.Messages.get().container(
-                org.opencms.db.generic.Messages.ERR_RESOURCE_WITH_NAME_ALREADY_EXISTS_1,
-                resourcename));
-        }
-        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
-        CmsResource newResource = null;
+        // the existence check and the creation must not be interrupted by the creation of a resource with the same name
+        Lock creationLock = m_driverManager.getResourceCreationLock(checkExistsPath);
+        creationLock.lock();
         try {
-            checkOfflineProject(dbc);
-            newResource = m_driverManager.createResource(dbc, resourcename, type, content, properties);
-        } catch (Exception e) {
-            dbc.report(null, Messages.get().container(Messages.ERR_CREATE_RESOURCE_1, resourcename), e);
+            if (existsResource(context, checkExistsPath, CmsResourceFilter.ALL)) {
+                // check if the resource already exists by name
+                throw new CmsVfsResourceAlreadyExistsException(org.opencms.db.generic.Messages.get().container(
+                    org.opencms.db.generic.Messages.ERR_RESOURCE_WITH_NAME_ALREADY_EXISTS_1,
+                    resourcename));
+            }
+            CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+            CmsResource newResource = null;
+            try {
+                checkOfflineProject(dbc);
+                newResource = m_driverManager.createResource(dbc, resourcename, type, content, properties);
+            } catch (Exception e) {
+                dbc.report(null, Messages.get().container(Messages.ERR_CREATE_RESOURCE_1, resourcename), e);
+            } finally {
+                dbc.clear();
+            }
+            return newResource;
         } finally {
-            dbc.clear();
+            creationLock.unlock();
         }
-        return newResource;
     }
 
     /**
@@ -1352,12 +1361,52 @@ public final class CmsSecurityManager {
         long timeDeleted,
         I_CmsReport report) throws CmsException, CmsRoleViolationException {
 
+        deleteHistoricalVersions(
+            context,
+            versionsToKeep,
+            versionsDeleted,
+            timeDeleted,
+            null,
+            CmsHistoryPurgeChunk.DEFAULT_SIZE,
+            report);
+    }
+
+    /**
+     * Deletes the versions from the history tables in chunks of resources, keeping the given number of versions per resource.<p>
+     *
+     * @param context the current request context
+     * @param versionsToKeep number of versions to keep, is ignored if negative
+     * @param versionsDeleted number of versions to keep for deleted resources, is ignored if negative
+     * @param timeDeleted deleted resources older than this will also be deleted, is ignored if negative
+     * @param startAfter the structure id to resume an interrupted deletion after, or <code>null</code> to start with the first resource
+     * @param chunkSize the maximal number of resources per chunk
+     * @param report the report for output logging
+     *
+     * @throws CmsException if operation was not successful
+     * @throws CmsRoleViolationException if the current user does not own the role {@link CmsRole#WORKPLACE_MANAGER}
+     */
+    public void deleteHistoricalVersions(
+        CmsRequestContext context,
+        int versionsToKeep,
+        int versionsDeleted,
+        long timeDeleted,
+        CmsUUID startAfter,
+        int chunkSize,
+        I_CmsReport report) throws CmsException, CmsRoleViolationException {
+
         CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
         try {
             CmsFolder root = readFolder(dbc, "/", CmsResourceFilter.ALL);
             checkRole(dbc, CmsRole.WORKPLACE_MANAGER.forOrgUnit(null));
             checkPermissions(dbc, root, CmsPermissionSet.ACCESS_WRITE, false, CmsResourceFilter.ALL);
-            m_driverManager.deleteHistoricalVersions(dbc, versionsToKeep, versionsDeleted, timeDeleted, report);
+            m_driverManager.deleteHistoricalVersions(
+                dbc,
+                versionsToKeep,
+                versionsDeleted,
+                timeDeleted,
+                startAfter,
+                chunkSize,
+                report);
         } catch (Exception e) {
             dbc.report(
                 null,
@@ -4020,6 +4069,39 @@ public final class CmsSecurityManager {
         }
     }
 
+    /**
+     * Reads the property objects of all child resources of a folder.<p>
+     *
+     * @param context the current request context
+     * @param folder the parent folder
+     *
+     * @return the property objects of all child resources, by structure id
+     *
+     * @throws CmsException if something goes wrong
+     * @throws CmsSecurityException if the user has insufficient permission for the given folder (read is required)
+     *
+     * @see CmsObject#readChildPropertyObjects(CmsResource)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readChildPropertyObjects(CmsRequestContext context, CmsResource folder)
+    throws CmsException, CmsSecurityException {
+
+        Map<CmsUUID, List<CmsProperty>> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            // check the access permissions
+            checkPermissions(dbc, folder, CmsPermissionSet.ACCESS_READ, true, CmsResourceFilter.ALL);
+            result = m_driverManager.readChildPropertyObjects(dbc, folder);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_CHILD_PROPS_1, context.getSitePath(folder)),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the child resources of a resource, that is the resources
      * contained in a folder.<p>
@@ -4066,6 +4148,35 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads statistics about the offline, online and historical file contents,
+     * used to estimate the savings of storing every distinct content only once.<p>
+     *
+     * This reads every content in the database and is only allowed for database managers.<p>
+     *
+     * @param context the current request context
+     *
+     * @return the content statistics
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readContentStatistics()
+     */
+    public CmsContentStatistics readContentStatistics(CmsRequestContext context) throws CmsException {
+
+        CmsContentStatistics result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            checkRole(dbc, CmsRole.DATABASE_MANAGER);
+            result = m_driverManager.readContentStatistics(dbc);
+        } catch (Exception e) {
+            dbc.report(null, Messages.get().container(Messages.ERR_READ_CONTENT_STATISTICS_0), e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -4189,6 +4300,34 @@ public final class CmsSecurityManager {
         return result;
     }
 
+
+    /**
+     * Returns a stream on the binary content of a file resource.<p>
+     *
+     * The returned stream must always be closed by the caller.<p>
+     *
+     * @param context the current request context
+     * @param resource the file resource to read the content for
+     *
+     * @return a stream on the content of the file
+     *
+     * @throws CmsException if something goes wrong
+     * 
+     * @see #readFile(CmsRequestContext, CmsResource)
+     */
+    public InputStream readFileContentStream(CmsRequestContext context, CmsResource resource) throws CmsException {
+
+        InputStream result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readFileContentStream(dbc, resource);
+        } catch (Exception e) {
+            dbc.report(null, Messages.get().container(Messages.ERR_READ_FILE_1, context.getSitePath(resource)), e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
     /**
      * Reads a folder resource from the VFS,
      * using the specified resource filter.<p>
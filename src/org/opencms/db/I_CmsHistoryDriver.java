@@ -86,6 +86,32 @@ public interface I_CmsHistoryDriver {
     int deleteEntries(CmsDbContext dbc, I_CmsHistoryResource histResource, int versionsToKeep, long time)
     throws CmsDataAccessException;
 
+    /**
+     * Deletes the historical versions of the next chunk of resources, ordered by structure id.<p>
+     *
+     * The chunk contains at most <code>chunkSize</code> resources with a structure id greater than
+     * <code>startAfter</code>. The deletion of a chunk is done in one transaction, so an interrupted
+     * deletion can be resumed after the last structure id of the last successful chunk.<p>
+     *
+     * @param dbc the current database context
+     * @param startAfter the structure id to continue after, or <code>null</code> to start with the first resource
+     * @param chunkSize the maximal number of resources in the chunk
+     * @param versionsToKeep number of versions to keep, is ignored if negative
+     * @param versionsDeleted number of versions to keep for deleted resources, is ignored if negative
+     * @param timeDeleted deleted resources older than this will also be deleted, is ignored if negative
+     *
+     * @return the result of the chunk, which is empty if there are no more resources
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    CmsHistoryPurgeChunk deleteEntries(
+        CmsDbContext dbc,
+        CmsUUID startAfter,
+        int chunkSize,
+        int versionsToKeep,
+        int versionsDeleted,
+        long timeDeleted) throws CmsDataAccessException;
+
     /**
      * Deletes a property definition.<p>
      * 
@@ -41,6 +41,7 @@ import org.opencms.relations.CmsRelationFilter;
 import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
@@ -432,6 +433,23 @@ public interface I_CmsVfsDriver {
     List<CmsAlias> readAliases(CmsDbContext dbc, CmsProject project, CmsAliasFilter filter)
     throws CmsDataAccessException;
 
+    /**
+     * Reads the property objects of all child resources of a folder at once.<p>
+     *
+     * The result maps the structure ids of the child resources to their property objects,
+     * children without any properties are not contained in the result.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param folder the parent folder
+     *
+     * @return the property objects of the child resources, by structure id
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<CmsUUID, List<CmsProperty>> readChildPropertyObjects(CmsDbContext dbc, CmsProject project, CmsResource folder)
+    throws CmsDataAccessException;
+
     /**
      * Reads all child-files and/or child-folders of a specified parent resource.<p>
      *
@@ -464,6 +482,38 @@ public interface I_CmsVfsDriver {
      */
     byte[] readContent(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId) throws CmsDataAccessException;
 
+    /**
+     * Reads statistics about the offline, online and historical file contents,
+     * used to estimate the savings of storing every distinct content only once.<p>
+     *
+     * This reads every content in the database, so it should only be used in maintenance jobs.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the content statistics
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    CmsContentStatistics readContentStatistics(CmsDbContext dbc) throws CmsDataAccessException;
+
+    /**
+     * Reads the content of a file specified by it's resource ID as a stream.<p>
+     *
+     * Unlike {@link #readContent(CmsDbContext, CmsUUID, CmsUUID)}, this does not require the 
+     * complete content to be held in memory. The returned stream must always be closed by the caller, 
+     * since it may hold database resources until it is closed.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of the current project
+     * @param resourceId the id of the resource
+     *
+     * @return a stream on the file content
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException;
+
     /**
      * Reads a folder specified by it's structure ID.<p>
      *
@@ -570,6 +620,23 @@ public interface I_CmsVfsDriver {
     List<CmsProperty> readPropertyObjects(CmsDbContext dbc, CmsProject project, CmsResource resource)
     throws CmsDataAccessException;
 
+    /**
+     * Reads all property objects directly attached to the resources with the given root paths.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param rootPaths the root paths of the resources
+     *
+     * @return a map from the root paths to the property objects attached to the resources, 
+     *      paths of resources without properties are not contained in the map
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<String, List<CmsProperty>> readPropertyObjectsForPaths(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<String> rootPaths) throws CmsDataAccessException;
+
     /**
      * Reads all relations with the given filter for the given resource.<p>
      *
@@ -438,9 +438,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_CHILD_GROUP_NO_PERMISSION_0 = "ERR_READ_CHILD_GROUP_NO_PERMISSION_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READ_CHILD_PROPS_1 = "ERR_READ_CHILD_PROPS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_CHILD_RESOURCES_1 = "ERR_READ_CHILD_RESOURCES_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READ_CONTENT_STATISTICS_0 = "ERR_READ_CONTENT_STATISTICS_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_FILE_1 = "ERR_READ_FILE_1";
 
@@ -858,6 +864,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CREATE_FOLDER_FAILED_1 = "LOG_CREATE_FOLDER_FAILED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DB_CONNECTIONS_RELEASED_3 = "LOG_DB_CONNECTIONS_RELEASED_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_DELETE_TEMP_PROJECT_FAILED_1 = "LOG_DELETE_TEMP_PROJECT_FAILED_1";
 
@@ -897,6 +906,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_DELETE_NOTHING_0 = "RPT_DELETE_NOTHING_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_DELETE_VERSIONS_CHUNK_4 = "RPT_DELETE_VERSIONS_CHUNK_4";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_DELETE_VERSIONS_INTERRUPTED_1 = "RPT_DELETE_VERSIONS_INTERRUPTED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_DELETE_VERSIONS_RESUME_1 = "RPT_DELETE_VERSIONS_RESUME_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_END_DELETE_ACT_VERSIONS_0 = "RPT_END_DELETE_ACT_VERSIONS_0";
 
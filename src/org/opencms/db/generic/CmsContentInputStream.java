@@ -0,0 +1,119 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsDbContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Input stream on the binary content of a file, read directly from the JDBC result set.<p>
+ * 
+ * The JDBC connection, statement and result set used to read the content stay open as long as 
+ * the stream is read, and are released when the stream is closed. Callers must therefore always 
+ * close the stream, preferably in a <code>finally</code> block.<p>
+ * 
+ * The connection must be owned by the stream, see {@link CmsSqlManager#getStreamConnection(CmsDbContext)},
+ * since the stream is usually read after the database context that opened it has been cleared.<p>
+ * 
+ * @since 8.5.0
+ */
+public class CmsContentInputStream extends FilterInputStream {
+
+    /** Flag to indicate if this stream has already been closed. */
+    private boolean m_closed;
+
+    /** The JDBC connection. */
+    private Connection m_conn;
+
+    /** The database context. */
+    private CmsDbContext m_dbc;
+
+    /** The result set. */
+    private ResultSet m_res;
+
+    /** The SQL manager used to release the JDBC resources. */
+    private CmsSqlManager m_sqlManager;
+
+    /** The statement. */
+    private Statement m_stmt;
+
+    /**
+     * Creates a new content input stream.<p>
+     * 
+     * @param in the binary stream of the content column, may be <code>null</code> for an empty content
+     * @param sqlManager the SQL manager used to release the JDBC resources
+     * @param dbc the current database context
+     * @param conn the JDBC connection
+     * @param stmt the statement
+     * @param res the result set
+     */
+    public CmsContentInputStream(
+        InputStream in,
+        CmsSqlManager sqlManager,
+        CmsDbContext dbc,
+        Connection conn,
+        Statement stmt,
+        ResultSet res) {
+
+        super(in != null ? in : new ByteArrayInputStream(new byte[0]));
+        m_sqlManager = sqlManager;
+        m_dbc = dbc;
+        m_conn = conn;
+        m_stmt = stmt;
+        m_res = res;
+    }
+
+    /**
+     * @see java.io.FilterInputStream#close()
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        if (m_closed) {
+            return;
+        }
+        m_closed = true;
+        try {
+            super.close();
+        } finally {
+            m_sqlManager.closeAll(m_dbc, m_conn, m_stmt, m_res);
+            m_conn = null;
+            m_stmt = null;
+            m_res = null;
+            m_dbc = null;
+        }
+    }
+}
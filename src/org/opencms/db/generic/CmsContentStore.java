@@ -0,0 +1,637 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsContentStatistics;
+import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsDbSqlException;
+import org.opencms.file.CmsDataAccessException;
+import org.opencms.file.CmsVfsResourceNotFoundException;
+import org.opencms.main.CmsLog;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.logging.Log;
+
+/**
+ * Content addressed store for file contents, shared by the offline, online and historical content tables.<p>
+ *
+ * Every content is stored once in the <code>CMS_CONTENT_STORE</code> table, keyed by its SHA-256 hash and
+ * with a counter of the content rows that refer to it. The content tables themselves only hold a short
+ * reference instead of the content bytes, so publishing a file or creating a new historical version
+ * of an unchanged content only increments a counter instead of copying the content.<p>
+ *
+ * References and plain contents can be mixed in the content tables, references are recognized by
+ * their prefix and resolved transparently when the content is read. This allows to switch the store on
+ * for an existing database without migrating the existing contents.<p>
+ *
+ * All write methods use the connection passed in by the caller, so that the reference counters are
+ * changed in the same transaction as the content rows.<p>
+ *
+ * @since 8.5.0
+ */
+public class CmsContentStore {
+
+    /** The hash algorithm used to address the contents. */
+    public static final String HASH_ALGORITHM = "SHA-256";
+
+    /** The length of a hash in its hexadecimal form. */
+    public static final int HASH_LENGTH = 64;
+
+    /** Contents smaller than this are always stored inline, since a reference would not save any space. */
+    public static final int MIN_CONTENT_SIZE = 1024;
+
+    /** The prefix of a content reference, a sequence that can not start any textual content. */
+    private static final byte[] REFERENCE_PREFIX = {0, 'O', 'C', 'M', 'S', '#'};
+
+    /** The length of a content reference. */
+    public static final int REFERENCE_LENGTH = REFERENCE_PREFIX.length + HASH_LENGTH;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsContentStore.class);
+
+    /** The SQL manager. */
+    private CmsSqlManager m_sqlManager;
+
+    /**
+     * Creates a new content store.<p>
+     *
+     * @param sqlManager the SQL manager of the driver using the store
+     */
+    public CmsContentStore(CmsSqlManager sqlManager) {
+
+        m_sqlManager = sqlManager;
+    }
+
+    /**
+     * Creates the reference stored in the content tables for the content with the given hash.<p>
+     *
+     * @param hash the hash of the content
+     *
+     * @return the content reference
+     */
+    public static byte[] createReference(String hash) {
+
+        byte[] result = new byte[REFERENCE_LENGTH];
+        System.arraycopy(REFERENCE_PREFIX, 0, result, 0, REFERENCE_PREFIX.length);
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            result[REFERENCE_PREFIX.length + i] = (byte)hash.charAt(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the hash contained in the given content reference.<p>
+     *
+     * @param content the content as stored in the content tables
+     *
+     * @return the hash, or <code>null</code> if the content is not a reference
+     */
+    public static String getHash(byte[] content) {
+
+        if (!isReference(content)) {
+            return null;
+        }
+        StringBuffer result = new StringBuffer(HASH_LENGTH);
+        for (int i = REFERENCE_PREFIX.length; i < REFERENCE_LENGTH; i++) {
+            result.append((char)content[i]);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the hash under which the given content is kept in the store.<p>
+     *
+     * @param content the content
+     *
+     * @return the hash of the content, or <code>null</code> if the content is too small and always stored inline
+     */
+    public static String getStorageHash(byte[] content) {
+
+        // contents starting with the prefix are always stored, so that they are never mistaken for a reference
+        if ((content.length < MIN_CONTENT_SIZE) && !startsWithPrefix(content)) {
+            return null;
+        }
+        return hash(content);
+    }
+
+    /**
+     * Calculates the hash of the given content.<p>
+     *
+     * @param content the content
+     *
+     * @return the hexadecimal SHA-256 hash of the content
+     */
+    public static String hash(byte[] content) {
+
+        return new String(Hex.encodeHex(getDigest().digest(content)));
+    }
+
+    /**
+     * Checks if the given content is a reference to the content store.<p>
+     *
+     * @param content the content as stored in the content tables
+     *
+     * @return <code>true</code> if the content is a reference
+     */
+    public static boolean isReference(byte[] content) {
+
+        return (content != null) && (content.length == REFERENCE_LENGTH) && startsWithPrefix(content);
+    }
+
+    /**
+     * Returns a new message digest for the hash algorithm.<p>
+     *
+     * @return a new message digest
+     */
+    protected static MessageDigest getDigest() {
+
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is available in every Java runtime
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Checks if the given bytes start with the reference prefix.<p>
+     *
+     * @param content the bytes to check
+     *
+     * @return <code>true</code> if the bytes start with the reference prefix
+     */
+    private static boolean startsWithPrefix(byte[] content) {
+
+        if (content.length < REFERENCE_PREFIX.length) {
+            return false;
+        }
+        for (int i = 0; i < REFERENCE_PREFIX.length; i++) {
+            if (content[i] != REFERENCE_PREFIX[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a reference to an already stored content, without reading or hashing the content.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param reference the content reference as stored in the content tables
+     *
+     * @return <code>true</code> if the reference was added, <code>false</code> if the given bytes are
+     *      no reference or the referenced content is missing in the store
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public boolean addReference(CmsDbContext dbc, Connection conn, byte[] reference) throws SQLException {
+
+        String hash = getHash(reference);
+        return (hash != null) && incrementReferences(dbc, conn, hash);
+    }
+
+    /**
+     * Adds the given content, as read from the content tables, to the content statistics.<p>
+     *
+     * The content is read as stream, so that the statistics can be collected also for large contents.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param in the content stream, may be <code>null</code> for an empty content
+     * @param statistics the statistics to add the content to
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public void addStatistics(CmsDbContext dbc, Connection conn, InputStream in, CmsContentStatistics statistics)
+    throws SQLException {
+
+        if (in == null) {
+            statistics.addContent(null, 0, false);
+            return;
+        }
+        MessageDigest digest = getDigest();
+        byte[] head = new byte[REFERENCE_LENGTH + 1];
+        byte[] buffer = new byte[8192];
+        int size = 0;
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (size < head.length) {
+                    System.arraycopy(buffer, 0, head, size, Math.min(read, head.length - size));
+                }
+                digest.update(buffer, 0, read);
+                size += read;
+            }
+        } catch (IOException e) {
+            SQLException ex = new SQLException(e.getLocalizedMessage());
+            ex.initCause(e);
+            throw ex;
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+        if (size == REFERENCE_LENGTH) {
+            byte[] reference = new byte[REFERENCE_LENGTH];
+            System.arraycopy(head, 0, reference, 0, REFERENCE_LENGTH);
+            String hash = getHash(reference);
+            if (hash != null) {
+                statistics.addContent(hash, Math.max(getContentSize(dbc, conn, hash), 0), true);
+                return;
+            }
+        }
+        if ((size < MIN_CONTENT_SIZE) && !startsWithPrefix(head)) {
+            statistics.addContent(null, size, false);
+        } else {
+            statistics.addContent(new String(Hex.encodeHex(digest.digest())), size, false);
+        }
+    }
+
+    /**
+     * Reads the size of the content with the given hash from the store.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param hash the hash of the content
+     *
+     * @return the size of the content, or <code>-1</code> if the content is missing in the store
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public int getContentSize(CmsDbContext dbc, Connection conn, String hash) throws SQLException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_CONTENT_STORE_READ_SIZE");
+            stmt.setString(1, hash);
+            res = stmt.executeQuery();
+            int result = -1;
+            if (res.next()) {
+                result = res.getInt(1);
+                while (res.next()) {
+                    // do nothing only move through all rows because of mssql odbc driver
+                }
+            }
+            return result;
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+        }
+    }
+
+    /**
+     * Reads the reference among the contents selected by the given statement.<p>
+     *
+     * Only the first bytes of the first content are read, so this is cheap also for a large plain content.<p>
+     *
+     * @param dbc the current database context
+     * @param stmt the statement selecting the content, closed by this method
+     *
+     * @return the reference, or <code>null</code> if no content is selected or the content is no reference
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public byte[] readReference(CmsDbContext dbc, PreparedStatement stmt) throws SQLException {
+
+        ResultSet res = null;
+        try {
+            res = stmt.executeQuery();
+            if (!res.next()) {
+                return null;
+            }
+            byte[] head = readHead(m_sqlManager.getBinaryStream(
+                res,
+                m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT")));
+            while (res.next()) {
+                // do nothing only move through all rows because of mssql odbc driver
+            }
+            return isReference(head) ? head : null;
+        } catch (IOException e) {
+            SQLException ex = new SQLException(e.getLocalizedMessage());
+            ex.initCause(e);
+            throw ex;
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+        }
+    }
+
+    /**
+     * Releases the given content, if it is a reference.<p>
+     *
+     * The reference counter of the referenced content is decremented, and the content is removed
+     * from the store if it is not referenced any longer.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param content the content as stored in the content tables, plain contents are ignored
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public void release(CmsDbContext dbc, Connection conn, byte[] content) throws SQLException {
+
+        String hash = getHash(content);
+        if (hash == null) {
+            return;
+        }
+        PreparedStatement stmt = null;
+        try {
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_CONTENT_STORE_DECREMENT");
+            stmt.setString(1, hash);
+            stmt.executeUpdate();
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_CONTENT_STORE_DELETE_UNUSED");
+            stmt.setString(1, hash);
+            stmt.executeUpdate();
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+        }
+    }
+
+    /**
+     * Releases all references among the contents selected by the given statement.<p>
+     *
+     * The statement must select the content column of the rows which are about to be deleted.
+     * Only the first bytes of every content are read, so this is cheap also for large plain contents.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param stmt the statement selecting the contents, closed by this method
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public void releaseAll(CmsDbContext dbc, Connection conn, PreparedStatement stmt) throws SQLException {
+
+        ResultSet res = null;
+        List<byte[]> references = new ArrayList<byte[]>();
+        try {
+            res = stmt.executeQuery();
+            while (res.next()) {
+                byte[] head = readHead(m_sqlManager.getBinaryStream(
+                    res,
+                    m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT")));
+                if (isReference(head)) {
+                    references.add(head);
+                }
+            }
+        } catch (IOException e) {
+            SQLException ex = new SQLException(e.getLocalizedMessage());
+            ex.initCause(e);
+            throw ex;
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+        }
+        for (byte[] reference : references) {
+            release(dbc, conn, reference);
+        }
+    }
+
+    /**
+     * Resolves the given content as read from the content tables.<p>
+     *
+     * @param dbc the current database context
+     * @param content the content as stored in the content tables
+     *
+     * @return the referenced content if the content is a reference, otherwise the content itself
+     *
+     * @throws CmsDataAccessException if the referenced content could not be read
+     */
+    public byte[] resolve(CmsDbContext dbc, byte[] content) throws CmsDataAccessException {
+
+        String hash = getHash(content);
+        if (hash == null) {
+            return content;
+        }
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_CONTENT_STORE_READ");
+            stmt.setString(1, hash);
+            res = stmt.executeQuery();
+            if (!res.next()) {
+                throw new CmsVfsResourceNotFoundException(Messages.get().container(
+                    Messages.ERR_CONTENT_STORE_MISSING_1,
+                    hash));
+            }
+            byte[] result = m_sqlManager.getBytes(res, m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+            while (res.next()) {
+                // do nothing only move through all rows because of mssql odbc driver
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+    }
+
+    /**
+     * Resolves the given content stream as read from the content tables.<p>
+     *
+     * If the stream contains a reference, it is closed and a stream on the referenced content is returned.
+     * If the content can not be resolved, the given stream is closed as well.<p>
+     *
+     * @param dbc the current database context
+     * @param in the content stream as read from the content tables
+     *
+     * @return a stream on the resolved content
+     *
+     * @throws CmsDataAccessException if the referenced content could not be read
+     */
+    public InputStream resolve(CmsDbContext dbc, InputStream in) throws CmsDataAccessException {
+
+        PushbackInputStream pushback = new PushbackInputStream(in, REFERENCE_LENGTH + 1);
+        byte[] head;
+        try {
+            head = readHead(pushback);
+            if (!isReference(head)) {
+                pushback.unread(head);
+                return pushback;
+            }
+            in.close();
+        } catch (IOException e) {
+            try {
+                in.close();
+            } catch (IOException e1) {
+                // ignore, the original exception is thrown
+            }
+            throw new CmsDbSqlException(Messages.get().container(Messages.ERR_GENERIC_SQL_0), e);
+        }
+
+        String hash = getHash(head);
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        InputStream result = null;
+        try {
+            conn = m_sqlManager.getStreamConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_CONTENT_STORE_READ");
+            stmt.setString(1, hash);
+            res = stmt.executeQuery();
+            if (!res.next()) {
+                throw new CmsVfsResourceNotFoundException(Messages.get().container(
+                    Messages.ERR_CONTENT_STORE_MISSING_1,
+                    hash));
+            }
+            // the JDBC resources are released when the returned stream is closed
+            result = new CmsContentInputStream(m_sqlManager.getBinaryStream(
+                res,
+                m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT")), m_sqlManager, dbc, conn, stmt, res);
+            return result;
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            if (result == null) {
+                m_sqlManager.closeAll(dbc, conn, stmt, res);
+            }
+        }
+    }
+
+    /**
+     * Puts the given content into the store, or adds a reference if the content is already stored.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param content the content to store
+     *
+     * @return the bytes to write to the content tables, either a reference or the content itself if it is too small
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public byte[] store(CmsDbContext dbc, Connection conn, byte[] content) throws SQLException {
+
+        String hash = getStorageHash(content);
+        if (hash == null) {
+            return content;
+        }
+        if (!incrementReferences(dbc, conn, hash)) {
+            PreparedStatement stmt = null;
+            Savepoint savepoint = null;
+            try {
+                if (!conn.getAutoCommit()) {
+                    // a failed statement aborts the whole transaction on some databases, e.g. PostgreSQL
+                    savepoint = conn.setSavepoint();
+                }
+                stmt = m_sqlManager.getPreparedStatement(conn, "C_CONTENT_STORE_INSERT");
+                stmt.setString(1, hash);
+                if (content.length < 2000) {
+                    stmt.setBytes(2, content);
+                } else {
+                    stmt.setBinaryStream(2, new ByteArrayInputStream(content), content.length);
+                }
+                stmt.setInt(3, content.length);
+                stmt.executeUpdate();
+            } catch (SQLException e) {
+                if (savepoint != null) {
+                    conn.rollback(savepoint);
+                }
+                // the same content may have been inserted concurrently
+                if (!incrementReferences(dbc, conn, hash)) {
+                    throw e;
+                }
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            } finally {
+                m_sqlManager.closeAll(dbc, null, stmt, null);
+            }
+        }
+        return createReference(hash);
+    }
+
+    /**
+     * Increments the reference counter of the content with the given hash.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param hash the hash of the content
+     *
+     * @return <code>true</code> if the content was already stored
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private boolean incrementReferences(CmsDbContext dbc, Connection conn, String hash) throws SQLException {
+
+        PreparedStatement stmt = null;
+        try {
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_CONTENT_STORE_INCREMENT");
+            stmt.setString(1, hash);
+            return stmt.executeUpdate() > 0;
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+        }
+    }
+
+    /**
+     * Reads the first bytes of a content stream, enough to recognize a reference.<p>
+     *
+     * @param in the content stream, may be <code>null</code>
+     *
+     * @return the first bytes of the stream, at most one more than the length of a reference
+     *
+     * @throws IOException if reading the stream fails
+     */
+    private byte[] readHead(InputStream in) throws IOException {
+
+        if (in == null) {
+            return new byte[0];
+        }
+        byte[] buffer = new byte[REFERENCE_LENGTH + 1];
+        int length = 0;
+        int read = 0;
+        while ((length < buffer.length) && ((read = in.read(buffer, length, buffer.length - length)) != -1)) {
+            length += read;
+        }
+        byte[] result = new byte[length];
+        System.arraycopy(buffer, 0, result, 0, length);
+        return result;
+    }
+}
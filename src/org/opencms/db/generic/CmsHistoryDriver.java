@@ -34,6 +34,7 @@ import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbEntryNotFoundException;
 import org.opencms.db.CmsDbSqlException;
 import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsHistoryPurgeChunk;
 import org.opencms.db.CmsResourceState;
 import org.opencms.db.I_CmsDriver;
 import org.opencms.db.I_CmsHistoryDriver;
@@ -64,7 +65,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -151,68 +155,27 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
             }
             m_sqlManager.closeAll(dbc, conn, stmt, res);
 
-            if (time >= 0) {
-                int maxVersionByTime = -1;
-                conn = m_sqlManager.getConnection(dbc);
-                // get the maximal version to keep for this resource based on the time parameter
-                stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_MAXVER_BYTIME");
-                stmt.setString(1, resource.getStructureId().toString());
-                stmt.setLong(2, time);
-                res = stmt.executeQuery();
-                if (res.next()) {
-                    maxVersionByTime = res.getInt(1);
-                    while (res.next()) {
-                        // do nothing only move through all rows because of mssql odbc driver
-                    }
-                }
-                m_sqlManager.closeAll(dbc, conn, stmt, res);
-                if (maxVersionByTime > 0) {
-                    if (versionsToKeep < 0) {
-                        versionsToKeep = (maxVersion - maxVersionByTime);
-                    } else {
-                        versionsToKeep = Math.min(versionsToKeep, (maxVersion - maxVersionByTime));
-                    }
-                }
-            }
             int structureVersions = 0;
-            // get the minimal structure publish tag to keep for this sibling
             conn = m_sqlManager.getConnection(dbc);
             if (!noHistoryStructure) {
-                if ((versionsToKeep == -1) || ((maxVersion - versionsToKeep) <= 0)) {
-                    // nothing to delete
-                    internalCleanup(dbc, resource);
-                    return 0;
-                }
-
                 // get the minimal structure publish tag to keep for this sibling
-                int minStrPublishTagToKeep = -1;
-
-                stmt = m_sqlManager.getPreparedStatement(conn, "C_HISTORY_READ_MAXTAG_FOR_VERSION");
-                stmt.setString(1, resource.getStructureId().toString());
-                stmt.setInt(2, (1 + maxVersion) - versionsToKeep);
-                res = stmt.executeQuery();
-                if (res.next()) {
-                    minStrPublishTagToKeep = res.getInt(1);
-                    while (res.next()) {
-                        // do nothing only move through all rows because of mssql odbc driver
-                    }
-                } else {
-                    // make sure the statement and the result is closed
-                    m_sqlManager.closeAll(dbc, conn, stmt, res);
-                    // nothing to delete
-                    internalCleanup(dbc, resource);
-                    return 0;
-                }
-                m_sqlManager.closeAll(dbc, conn, stmt, res);
+                int minStrPublishTagToKeep = internalReadPublishTagToKeep(
+                    dbc,
+                    conn,
+                    resource.getStructureId(),
+                    maxVersion,
+                    versionsToKeep,
+                    time);
                 if (minStrPublishTagToKeep < 1) {
+                    // make sure the connection is closed
+                    m_sqlManager.closeAll(dbc, conn, null, null);
+                    conn = null;
                     // nothing to delete
                     internalCleanup(dbc, resource);
                     return 0;
                 }
-                minStrPublishTagToKeep++;
 
                 // delete the properties
-                conn = m_sqlManager.getConnection(dbc);
                 stmt = m_sqlManager.getPreparedStatement(conn, "C_PROPERTIES_HISTORY_DELETE");
                 stmt.setString(1, resource.getStructureId().toString());
                 stmt.setInt(2, minStrPublishTagToKeep);
@@ -226,52 +189,192 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
                 structureVersions = stmt.executeUpdate();
                 m_sqlManager.closeAll(dbc, null, stmt, null);
             }
+            stmt = null;
 
-            // get the minimal resource publish tag to keep, 
-            // all entries with publish tag less than this will be deleted
-            int minResPublishTagToKeep = -1;
-            stmt = m_sqlManager.getPreparedStatement(conn, "C_HISTORY_READ_MIN_USED_TAG");
-            stmt.setString(1, resource.getResourceId().toString());
+            // delete the resource and content entries no longer used by any sibling
+            int resourceVersions = internalDeleteResourceEntries(dbc, conn, resource.getResourceId());
+
+            // make sure the connection is closed
+            m_sqlManager.closeAll(dbc, conn, null, null);
+            conn = null;
+            internalCleanup(dbc, resource);
+            return Math.max(structureVersions, resourceVersions);
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsHistoryDriver#deleteEntries(CmsDbContext, CmsUUID, int, int, int, long)
+     */
+    public CmsHistoryPurgeChunk deleteEntries(
+        CmsDbContext dbc,
+        CmsUUID startAfter,
+        int chunkSize,
+        int versionsToKeep,
+        int versionsDeleted,
+        long timeDeleted) throws CmsDataAccessException {
+
+        if (startAfter == null) {
+            startAfter = CmsUUID.getNullUUID();
+        }
+        // the maximal version, the maximal publish tag and the resource id of the resources in the chunk
+        Map<CmsUUID, int[]> versions = new LinkedHashMap<CmsUUID, int[]>();
+        Map<CmsUUID, CmsUUID> resourceIds = new HashMap<CmsUUID, CmsUUID>();
+        Set<CmsUUID> onlineIds = new HashSet<CmsUUID>();
+        // the minimal publish tags to keep of the resources with versions to delete
+        Map<CmsUUID, Integer> publishTags = new LinkedHashMap<CmsUUID, Integer>();
+        // the resources without any version left
+        List<CmsUUID> purgedIds = new ArrayList<CmsUUID>();
+        CmsUUID lastStructureId = null;
+        int deleted = 0;
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        boolean autoCommit = true;
+        boolean transaction = false;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+
+            // read the next chunk, keyset paginated by structure id
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_READ_CHUNK");
+            stmt.setMaxRows(chunkSize);
+            stmt.setString(1, startAfter.toString());
             res = stmt.executeQuery();
-            if (res.next()) {
-                minResPublishTagToKeep = res.getInt(1);
-                if (res.wasNull()) {
-                    // the database will return a row with a single NULL column if there are no rows at all for the given
-                    // resource id. This means that we want to clean up all resource history and content history entries 
-                    // for this resource id, and we achieve this by comparing their publish tag with the maximum integer.
-                    minResPublishTagToKeep = Integer.MAX_VALUE;
+            while (res.next()) {
+                lastStructureId = new CmsUUID(res.getString(1));
+                versions.put(lastStructureId, new int[] {res.getInt(2), res.getInt(3)});
+                resourceIds.put(lastStructureId, new CmsUUID(res.getString(4)));
+            }
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+            res = null;
+            stmt = null;
+            if (lastStructureId == null) {
+                return new CmsHistoryPurgeChunk(null, 0, 0);
+            }
+
+            // read which resources of the chunk are not deleted
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_READ_ONLINE_RANGE");
+            stmt.setString(1, startAfter.toString());
+            stmt.setString(2, lastStructureId.toString());
+            res = stmt.executeQuery();
+            while (res.next()) {
+                onlineIds.add(new CmsUUID(res.getString(1)));
+            }
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+            res = null;
+            stmt = null;
+
+            // get the minimal publish tags to keep
+            for (Map.Entry<CmsUUID, int[]> entry : versions.entrySet()) {
+                int publishTag;
+                if (onlineIds.contains(entry.getKey())) {
+                    if (versionsToKeep < 0) {
+                        continue;
+                    }
+                    publishTag = internalReadPublishTagToKeep(
+                        dbc,
+                        conn,
+                        entry.getKey(),
+                        entry.getValue()[0],
+                        versionsToKeep,
+                        -1);
+                } else {
+                    if ((versionsDeleted < 0) && (timeDeleted < 0)) {
+                        continue;
+                    }
+                    publishTag = internalReadPublishTagToKeep(
+                        dbc,
+                        conn,
+                        entry.getKey(),
+                        entry.getValue()[0],
+                        versionsDeleted,
+                        timeDeleted);
                 }
-                while (res.next()) {
-                    // do nothing only move through all rows because of mssql odbc driver
+                if (publishTag < 1) {
+                    // nothing to delete
+                    continue;
+                }
+                publishTags.put(entry.getKey(), Integer.valueOf(publishTag));
+                if (publishTag > entry.getValue()[1]) {
+                    purgedIds.add(entry.getKey());
                 }
             }
-            m_sqlManager.closeAll(dbc, conn, stmt, res);
 
-            // delete the resource entries
-            conn = m_sqlManager.getConnection(dbc);
-            stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_HISTORY_DELETE");
-            stmt.setString(1, resource.getResourceId().toString());
-            stmt.setInt(2, minResPublishTagToKeep);
-            int resourceVersions = stmt.executeUpdate();
-            m_sqlManager.closeAll(dbc, null, stmt, null);
+            if (!publishTags.isEmpty()) {
+                // delete the versions of the chunk in one transaction
+                autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit(false);
+                transaction = true;
 
-            // delete the content entries
-            stmt = m_sqlManager.getPreparedStatement(conn, "C_CONTENT_HISTORY_DELETE");
-            stmt.setString(1, resource.getResourceId().toString());
-            stmt.setInt(2, minResPublishTagToKeep);
-            stmt.executeUpdate();
+                // delete the properties
+                stmt = m_sqlManager.getPreparedStatement(conn, "C_PROPERTIES_HISTORY_DELETE");
+                for (Map.Entry<CmsUUID, Integer> entry : publishTags.entrySet()) {
+                    stmt.setString(1, entry.getKey().toString());
+                    stmt.setInt(2, entry.getValue().intValue());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                m_sqlManager.closeAll(dbc, null, stmt, null);
 
-            // make sure the statement and the result is closed
-            m_sqlManager.closeAll(dbc, conn, stmt, res);
-            internalCleanup(dbc, resource);
-            return Math.max(structureVersions, resourceVersions);
+                // delete the structure entries
+                stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_DELETE");
+                for (Map.Entry<CmsUUID, Integer> entry : publishTags.entrySet()) {
+                    stmt.setString(1, entry.getKey().toString());
+                    stmt.setInt(2, entry.getValue().intValue());
+                    stmt.addBatch();
+                }
+                int[] counts = stmt.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) {
+                        deleted += counts[i];
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, null);
+                stmt = null;
+
+                // delete the resource and content entries no longer used by any sibling
+                Set<CmsUUID> deletedResourceIds = new LinkedHashSet<CmsUUID>();
+                for (CmsUUID structureId : publishTags.keySet()) {
+                    deletedResourceIds.add(resourceIds.get(structureId));
+                }
+                for (CmsUUID resourceId : deletedResourceIds) {
+                    deleted += internalDeleteResourceEntries(dbc, conn, resourceId);
+                }
+                conn.commit();
+            }
         } catch (SQLException e) {
+            if (transaction) {
+                try {
+                    conn.rollback();
+                } catch (SQLException e1) {
+                    LOG.debug(e1.getLocalizedMessage(), e1);
+                }
+            }
             throw new CmsDbSqlException(Messages.get().container(
                 Messages.ERR_GENERIC_SQL_1,
                 CmsDbSqlException.getErrorQuery(stmt)), e);
         } finally {
+            if (transaction) {
+                try {
+                    conn.setAutoCommit(autoCommit);
+                } catch (SQLException e) {
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
             m_sqlManager.closeAll(dbc, conn, stmt, res);
         }
+
+        // delete all versions of the subresources of folders without any version left
+        for (CmsUUID structureId : purgedIds) {
+            deleted += internalCleanupSubResources(dbc, structureId);
+        }
+        return new CmsHistoryPurgeChunk(lastStructureId, versions.size(), deleted);
     }
 
     /**
@@ -609,6 +712,10 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         } finally {
             m_sqlManager.closeAll(dbc, conn, stmt, res);
         }
+        CmsContentStore contentStore = getContentStore(dbc);
+        if (contentStore != null) {
+            content = contentStore.resolve(dbc, content);
+        }
         return content;
     }
 
@@ -1530,6 +1637,22 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         writeProperties(dbc, resource, properties, publishTag);
     }
 
+    /**
+     * Returns the content store shared with the VFS driver.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the content store, or <code>null</code> if the contents are stored inline
+     */
+    protected CmsContentStore getContentStore(CmsDbContext dbc) {
+
+        I_CmsVfsDriver vfsDriver = m_driverManager.getVfsDriver(dbc);
+        if (vfsDriver instanceof CmsVfsDriver) {
+            return ((CmsVfsDriver)vfsDriver).getContentStore();
+        }
+        return null;
+    }
+
     /**
      * Updates the property map for the given resource with the given property data.<p>
      * 
@@ -1604,41 +1727,59 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
      */
     protected void internalCleanup(CmsDbContext dbc, I_CmsHistoryResource resource) throws CmsDataAccessException {
 
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        ResultSet res = null;
-        Map<CmsUUID, Integer> tmpSubResources = new HashMap<CmsUUID, Integer>();
-
         // if is folder and if no versions left
         boolean isFolderAndNoVersionLeft = resource.getRootPath().endsWith("/")
             && (readLastVersion(dbc, resource.getStructureId()) == 0);
 
         // if the resource is a folder
         if (isFolderAndNoVersionLeft) {
-            try {
-                conn = m_sqlManager.getConnection(dbc);
-                // get all direct subresources                    
-                stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_READ_SUBRESOURCES");
-                stmt.setString(1, resource.getStructureId().toString());
-                res = stmt.executeQuery();
-                while (res.next()) {
-                    CmsUUID structureId = new CmsUUID(res.getString(1));
-                    int version = res.getInt(2);
-                    tmpSubResources.put(structureId, Integer.valueOf(version));
-                }
-            } catch (SQLException e) {
-                throw new CmsDbSqlException(Messages.get().container(
-                    Messages.ERR_GENERIC_SQL_1,
-                    CmsDbSqlException.getErrorQuery(stmt)), e);
-            } finally {
-                m_sqlManager.closeAll(dbc, conn, stmt, res);
+            internalCleanupSubResources(dbc, resource.getStructureId());
+        }
+    }
+
+    /**
+     * Deletes all historical entries of the direct subresources of a folder, 
+     * which in turn deletes the entries of their subresources.<p>
+     * 
+     * @param dbc the current database context
+     * @param structureId the structure id of the folder
+     * 
+     * @return the number of versions that were deleted
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected int internalCleanupSubResources(CmsDbContext dbc, CmsUUID structureId) throws CmsDataAccessException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        Map<CmsUUID, Integer> tmpSubResources = new HashMap<CmsUUID, Integer>();
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            // get all direct subresources                    
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_READ_SUBRESOURCES");
+            stmt.setString(1, structureId.toString());
+            res = stmt.executeQuery();
+            while (res.next()) {
+                CmsUUID subResourceId = new CmsUUID(res.getString(1));
+                int version = res.getInt(2);
+                tmpSubResources.put(subResourceId, Integer.valueOf(version));
             }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
         }
         // delete all subresource versions
+        int deleted = 0;
         for (Map.Entry<CmsUUID, Integer> entry : tmpSubResources.entrySet()) {
             I_CmsHistoryResource histResource = readResource(dbc, entry.getKey(), entry.getValue().intValue());
-            deleteEntries(dbc, histResource, 0, -1);
+            deleted += deleteEntries(dbc, histResource, 0, -1);
         }
+        return deleted;
     }
 
     /**
@@ -1796,6 +1937,74 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         }
     }
 
+    /**
+     * Deletes the historical resource and content entries of a resource which are no longer 
+     * used by any historical structure entry of its siblings.<p>
+     * 
+     * The references of the deleted contents to the content store are released.<p>
+     * 
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param resourceId the resource id
+     * 
+     * @return the number of deleted resource entries
+     * 
+     * @throws SQLException if something goes wrong
+     */
+    protected int internalDeleteResourceEntries(CmsDbContext dbc, Connection conn, CmsUUID resourceId)
+    throws SQLException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            // get the minimal resource publish tag to keep, 
+            // all entries with publish tag less than this will be deleted
+            int minResPublishTagToKeep = -1;
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_HISTORY_READ_MIN_USED_TAG");
+            stmt.setString(1, resourceId.toString());
+            res = stmt.executeQuery();
+            if (res.next()) {
+                minResPublishTagToKeep = res.getInt(1);
+                if (res.wasNull()) {
+                    // the database will return a row with a single NULL column if there are no rows at all for the given
+                    // resource id. This means that we want to clean up all resource history and content history entries 
+                    // for this resource id, and we achieve this by comparing their publish tag with the maximum integer.
+                    minResPublishTagToKeep = Integer.MAX_VALUE;
+                }
+                while (res.next()) {
+                    // do nothing only move through all rows because of mssql odbc driver
+                }
+            }
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+            res = null;
+
+            // delete the resource entries
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_HISTORY_DELETE");
+            stmt.setString(1, resourceId.toString());
+            stmt.setInt(2, minResPublishTagToKeep);
+            int resourceVersions = stmt.executeUpdate();
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+
+            CmsContentStore contentStore = getContentStore(dbc);
+            if (contentStore != null) {
+                // release the stored contents of the content entries to delete
+                stmt = m_sqlManager.getPreparedStatement(conn, "C_CONTENT_HISTORY_READ_DELETED");
+                stmt.setString(1, resourceId.toString());
+                stmt.setInt(2, minResPublishTagToKeep);
+                contentStore.releaseAll(dbc, conn, stmt);
+            }
+
+            // delete the content entries
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_CONTENT_HISTORY_DELETE");
+            stmt.setString(1, resourceId.toString());
+            stmt.setInt(2, minResPublishTagToKeep);
+            stmt.executeUpdate();
+            return resourceVersions;
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+        }
+    }
+
     /**
      * Merges an historical entry for a sibling, based on the structure data from the given historical resource
      * and result set for the resource entry.<p>
@@ -1879,6 +2088,82 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         }
     }
 
+    /**
+     * Returns the minimal structure publish tag to keep for a sibling,
+     * all structure entries with a publish tag less than this will be deleted.<p>
+     * 
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param structureId the structure id of the sibling
+     * @param maxVersion the maximal version of the sibling
+     * @param versionsToKeep the number of versions to keep, is ignored if negative
+     * @param time deleted resources older than this will also be deleted, is ignored if negative
+     * 
+     * @return the minimal structure publish tag to keep, or <code>-1</code> if there is nothing to delete
+     * 
+     * @throws SQLException if something goes wrong
+     */
+    protected int internalReadPublishTagToKeep(
+        CmsDbContext dbc,
+        Connection conn,
+        CmsUUID structureId,
+        int maxVersion,
+        int versionsToKeep,
+        long time) throws SQLException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            if (time >= 0) {
+                int maxVersionByTime = -1;
+                // get the maximal version to keep for this resource based on the time parameter
+                stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_MAXVER_BYTIME");
+                stmt.setString(1, structureId.toString());
+                stmt.setLong(2, time);
+                res = stmt.executeQuery();
+                if (res.next()) {
+                    maxVersionByTime = res.getInt(1);
+                    while (res.next()) {
+                        // do nothing only move through all rows because of mssql odbc driver
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+                if (maxVersionByTime > 0) {
+                    if (versionsToKeep < 0) {
+                        versionsToKeep = (maxVersion - maxVersionByTime);
+                    } else {
+                        versionsToKeep = Math.min(versionsToKeep, (maxVersion - maxVersionByTime));
+                    }
+                }
+            }
+            if ((versionsToKeep == -1) || ((maxVersion - versionsToKeep) <= 0)) {
+                // nothing to delete
+                return -1;
+            }
+
+            int minStrPublishTagToKeep = -1;
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_HISTORY_READ_MAXTAG_FOR_VERSION");
+            stmt.setString(1, structureId.toString());
+            stmt.setInt(2, (1 + maxVersion) - versionsToKeep);
+            res = stmt.executeQuery();
+            if (res.next()) {
+                minStrPublishTagToKeep = res.getInt(1);
+                while (res.next()) {
+                    // do nothing only move through all rows because of mssql odbc driver
+                }
+            }
+            if (minStrPublishTagToKeep < 1) {
+                // nothing to delete
+                return -1;
+            }
+            return minStrPublishTagToKeep + 1;
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+        }
+    }
+
     /**
      * Tests if a history resource does exist.<p>
      * 
@@ -1009,6 +1009,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                         onlineProject.getUuid(),
                         delFile,
                         CmsProperty.DELETE_OPTION_DELETE_STRUCTURE_AND_RESOURCE_VALUES);
+                    // removing the file reads the online contents and siblings, so write the queued statements
+                    m_sqlManager.flushBatch(dbc);
                     vfsDriver.removeFile(dbc, onlineProject.getUuid(), delFile);
                 } catch (CmsDataAccessException e) {
                     if (LOG.isWarnEnabled()) {
@@ -1044,6 +1046,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             try {
                 // remove the folder online and offline
                 vfsDriver.removeFolder(dbc, dbc.currentProject(), currentFolder);
+                m_sqlManager.flushBatch(dbc);
                 vfsDriver.removeFolder(dbc, onlineProject, currentFolder);
             } catch (CmsDataAccessException e) {
                 if (LOG.isErrorEnabled()) {
@@ -1544,6 +1547,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                     dbc.currentProject(),
                     offlineFolder);
                 CmsProperty.setAutoCreatePropertyDefinitions(offlineProperties, true);
+                // the existing online values are read again, so write the queued deletion first
+                m_sqlManager.flushBatch(dbc);
                 m_driverManager.getVfsDriver(dbc).writePropertyObjects(
                     dbc,
                     onlineProject,
@@ -1599,6 +1604,11 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         Set<CmsUUID> publishedContentIds = new HashSet<CmsUUID>();
         Set<CmsUUID> publishedIds = new HashSet<CmsUUID>();
 
+        // queue the publish history and the offline state updates of the published resources, 
+        // and write them in chunks instead of one by one; the online writes are queued until they are read again
+        CmsSqlBatch batch = new CmsSqlBatch(m_sqlManager);
+        dbc.setAttribute(CmsSqlBatch.ATTR_SQL_BATCH, batch);
+
         try {
 
             ////////////////////////////////////////////////////////////////////////////////////////
@@ -1679,6 +1689,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                         internalResetResourceState(dbc, currentFolder);
 
                         m_driverManager.unlockResource(dbc, currentFolder, true, true);
+                        // the next folders read the online state of this folder
+                        m_sqlManager.flushBatch(dbc);
                     } else {
                         // state == unchanged !!?? something went really wrong
                         report.print(Messages.get().container(Messages.RPT_PUBLISH_FOLDER_0), I_CmsReport.FORMAT_NOTE);
@@ -1707,7 +1719,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                         Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FOLDER_1, currentFolder.getRootPath()),
                         t);
                 }
+                internalFlushPublishBatch(dbc, report, batch, false);
             }
+            internalFlushPublishBatch(dbc, report, batch, true);
 
             if (foldersSize > 0) {
                 report.println(
@@ -1774,6 +1788,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                         new String[] {currentResource.getRootPath()}), true);
 
                     publishedIds.add(currentResource.getStructureId());
+                    // the next files read the online state of this file, e.g. of its siblings
+                    m_sqlManager.flushBatch(dbc);
                     dbc.pop();
                 } catch (Throwable t) {
                     dbc.report(
@@ -1781,7 +1797,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                         Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, currentResource.getRootPath()),
                         t);
                 }
+                internalFlushPublishBatch(dbc, report, batch, false);
             }
+            internalFlushPublishBatch(dbc, report, batch, true);
 
             if (filesSize > 0) {
                 report.println(Messages.get().container(Messages.RPT_PUBLISH_FILES_END_0), I_CmsReport.FORMAT_HEADLINE);
@@ -1836,6 +1854,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                         currentFolder.getStructureId(),
                         CmsLogEntryType.RESOURCE_PUBLISHED_DELETED,
                         new String[] {currentFolder.getRootPath()}), true);
+                    // the next folders read the online state of this folder
+                    m_sqlManager.flushBatch(dbc);
 
                     dbc.pop();
                 } catch (Throwable t) {
@@ -1846,6 +1866,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                             currentFolder.getRootPath()),
                         t);
                 }
+                internalFlushPublishBatch(dbc, report, batch, false);
             }
 
             if (deletedFoldersSize > 0) {
@@ -1863,19 +1884,25 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             }
             throw new CmsDataAccessException(message, o);
         } finally {
-            // reset vfs driver internal info after publishing
-            m_driverManager.getVfsDriver(dbc).publishVersions(dbc, null, false);
-            Object[] msgArgs = new Object[] {
-                String.valueOf(publishedFileCount),
-                String.valueOf(publishedFolderCount),
-                String.valueOf(deletedFolderCount),
-                report.formatRuntime()};
-
-            CmsMessageContainer message = Messages.get().container(Messages.RPT_PUBLISH_STAT_4, msgArgs);
-            if (LOG.isInfoEnabled()) {
-                LOG.info(message.key());
+            dbc.removeAttribute(CmsSqlBatch.ATTR_SQL_BATCH);
+            try {
+                // write the remaining queued statements
+                internalFlushPublishBatch(dbc, report, batch, true);
+            } finally {
+                // reset vfs driver internal info after publishing
+                m_driverManager.getVfsDriver(dbc).publishVersions(dbc, null, false);
+                Object[] msgArgs = new Object[] {
+                    String.valueOf(publishedFileCount),
+                    String.valueOf(publishedFolderCount),
+                    String.valueOf(deletedFolderCount),
+                    report.formatRuntime()};
+
+                CmsMessageContainer message = Messages.get().container(Messages.RPT_PUBLISH_STAT_4, msgArgs);
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(message.key());
+                }
+                report.println(message);
             }
-            report.println(message);
         }
     }
 
@@ -2706,20 +2733,30 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
     public void writePublishHistory(CmsDbContext dbc, CmsUUID publishId, CmsPublishedResource resource)
     throws CmsDataAccessException {
 
+        Object[] params = new Object[] {
+            new Integer(resource.getPublishTag()),
+            resource.getStructureId().toString(),
+            resource.getResourceId().toString(),
+            resource.getRootPath(),
+            new Integer(resource.getMovedState().getState()),
+            new Integer(resource.getType()),
+            publishId.toString(),
+            new Integer(resource.getSiblingCount())};
+
+        CmsSqlBatch batch = CmsSqlBatch.getBatch(dbc);
+        if (batch != null) {
+            // the publish history is not read again while publishing
+            batch.add(m_sqlManager.readQuery("C_RESOURCES_WRITE_PUBLISH_HISTORY"), params);
+            return;
+        }
+
         Connection conn = null;
         PreparedStatement stmt = null;
 
         try {
             conn = m_sqlManager.getConnection(dbc);
             stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_WRITE_PUBLISH_HISTORY");
-            stmt.setInt(1, resource.getPublishTag());
-            stmt.setString(2, resource.getStructureId().toString());
-            stmt.setString(3, resource.getResourceId().toString());
-            stmt.setString(4, resource.getRootPath());
-            stmt.setInt(5, resource.getMovedState().getState());
-            stmt.setInt(6, resource.getType());
-            stmt.setString(7, publishId.toString());
-            stmt.setInt(8, resource.getSiblingCount());
+            CmsSqlBatch.setParameters(m_sqlManager, stmt, params);
             stmt.executeUpdate();
         } catch (SQLException e) {
             throw new CmsDbSqlException(Messages.get().container(
@@ -3095,6 +3132,31 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return new CmsLogEntry(userId, date, structureId, type, data);
     }
 
+    /**
+     * Writes the statements queued in the given publish batch, if the batch reached 
+     * the chunk size or if forced.<p>
+     * 
+     * @param dbc the current database context
+     * @param report the report to write errors to
+     * @param batch the publish batch
+     * @param force if <code>true</code>, the batch is written regardless of its size
+     * 
+     * @throws CmsException if writing the batch failed and the error is not only reported
+     */
+    protected void internalFlushPublishBatch(CmsDbContext dbc, I_CmsReport report, CmsSqlBatch batch, boolean force)
+    throws CmsException {
+
+        int size = batch.size();
+        if ((size == 0) || (!force && (size < CmsSqlBatch.DEFAULT_CHUNK_SIZE))) {
+            return;
+        }
+        try {
+            batch.flush(dbc);
+        } catch (CmsDataAccessException e) {
+            dbc.report(report, Messages.get().container(Messages.ERR_WRITING_PUBLISH_BATCH_1, new Integer(size)), e);
+        }
+    }
+
     /**
      * Resets the state to UNCHANGED for a specified resource.<p>
      *
@@ -3106,6 +3168,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
     protected void internalResetResourceState(CmsDbContext dbc, CmsResource resource) throws CmsDataAccessException {
 
         try {
+            // updating the versions reads the online versions queued while publishing the resource
+            m_sqlManager.flushBatch(dbc);
             // reset the resource state
             resource.setState(CmsResource.STATE_UNCHANGED);
             m_driverManager.getVfsDriver(dbc).writeResourceState(
@@ -3165,6 +3229,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
         try {
             if (OpenCms.getSystemInfo().isHistoryEnabled()) {
+                // the history reads the online versions and contents queued while publishing the resource
+                m_sqlManager.flushBatch(dbc);
                 // write the resource to the historical archive
                 if (properties == null) {
                     properties = m_driverManager.getVfsDriver(dbc).readPropertyObjects(
@@ -3413,6 +3479,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                 dbc.currentProject(),
                 offlineResource);
             CmsProperty.setAutoCreatePropertyDefinitions(offlineProperties, true);
+            // the existing online values are read again, so write the queued deletion first
+            m_sqlManager.flushBatch(dbc);
             m_driverManager.getVfsDriver(dbc).writePropertyObjects(dbc, onlineProject, newFile, offlineProperties);
         } catch (CmsDataAccessException e) {
             if (LOG.isErrorEnabled()) {
@@ -3557,6 +3625,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             // remove the file online and offline
             m_driverManager.getVfsDriver(dbc).removeFile(dbc, dbc.currentProject().getUuid(), offlineResource);
             if (existsOnline && (onlineResource != null)) {
+                // removing the file reads the online contents and siblings, so write the queued statements
+                m_sqlManager.flushBatch(dbc);
                 m_driverManager.getVfsDriver(dbc).removeFile(dbc, onlineProject.getUuid(), onlineResource);
             }
         } catch (CmsDataAccessException e) {
@@ -3701,6 +3771,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             try {
                 // remove the existing file and ensure that it's content is written
                 // in any case by removing it's resource ID from the set of published resource IDs
+                m_sqlManager.flushBatch(dbc);
                 m_driverManager.getVfsDriver(dbc).removeFile(dbc, onlineProject.getUuid(), offlineResource);
                 publishedContentIds.remove(offlineResource.getResourceId());
                 newFile = m_driverManager.getProjectDriver(dbc).publishFileContent(
@@ -3739,6 +3810,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                 dbc.currentProject(),
                 offlineResource);
             CmsProperty.setAutoCreatePropertyDefinitions(offlineProperties, true);
+            // the existing online values are read again, so write the queued deletion first
+            m_sqlManager.flushBatch(dbc);
             m_driverManager.getVfsDriver(dbc).writePropertyObjects(dbc, onlineProject, newFile, offlineProperties);
         } catch (CmsDataAccessException e) {
             if (LOG.isErrorEnabled()) {
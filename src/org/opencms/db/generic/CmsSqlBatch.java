@@ -0,0 +1,354 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsDbSqlException;
+import org.opencms.file.CmsDataAccessException;
+import org.opencms.main.CmsLog;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Collects the parameters of write statements, to execute them later as JDBC batches.<p>
+ * 
+ * While a batch is attached to a database context, drivers that support it queue their write 
+ * statements in the batch instead of executing them immediately. The queued statements are executed 
+ * in the order they have been added, in one transaction on a connection of their own. Consecutive 
+ * statements with the same SQL are sent to the database with one <code>executeBatch</code> call.<p>
+ * 
+ * There are two kinds of queued statements:<ul>
+ * <li>Deferred statements, which are not read again while the batch is attached, like the publish history. 
+ *     They are only executed when the batch is flushed.</li>
+ * <li>Read back statements, which may be read again, like the online resources written while publishing.
+ *     The code reading them again has to execute them first with {@link CmsSqlManager#flushBatch(CmsDbContext)}.
+ *     This is not done when a connection is handed out, so a failing batch is reported where it is executed 
+ *     and not by an unrelated query.</li></ul>
+ * Both kinds must write to different tables, since they are not executed in a common order. Statements 
+ * executed immediately on the same rows as queued read back statements also have to flush the batch first.<p>
+ * 
+ * @since 8.5.0
+ */
+public class CmsSqlBatch {
+
+    /**
+     * A queued statement.<p>
+     */
+    private static class CmsQueuedStatement {
+
+        /** The statement parameters. */
+        final Object[] m_params;
+
+        /** The SQL statement. */
+        final String m_sql;
+
+        /**
+         * Creates a new queued statement.<p>
+         * 
+         * @param sql the SQL statement
+         * @param params the statement parameters
+         */
+        CmsQueuedStatement(String sql, Object[] params) {
+
+            m_sql = sql;
+            m_params = params;
+        }
+    }
+
+    /** The database context attribute name to attach a batch to a database context. */
+    public static final String ATTR_SQL_BATCH = "ATTR_SQL_BATCH";
+
+    /** The default number of queued statements after which a batch should be flushed. */
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsSqlBatch.class);
+
+    /** The queued deferred statements, in the order they have been added. */
+    private List<CmsQueuedStatement> m_deferred;
+
+    /** The queued read back statements, in the order they have been added. */
+    private List<CmsQueuedStatement> m_readBack;
+
+    /** The SQL manager to get connections and statements from. */
+    private final CmsSqlManager m_sqlManager;
+
+    /**
+     * Creates a new, empty batch.<p>
+     * 
+     * @param sqlManager the SQL manager to get connections and statements from
+     */
+    public CmsSqlBatch(CmsSqlManager sqlManager) {
+
+        m_sqlManager = sqlManager;
+        m_deferred = new ArrayList<CmsQueuedStatement>();
+        m_readBack = new ArrayList<CmsQueuedStatement>();
+    }
+
+    /**
+     * Returns the batch attached to the given database context.<p>
+     * 
+     * @param dbc the current database context
+     * 
+     * @return the attached batch, or <code>null</code> if write statements have to be executed immediately
+     */
+    public static CmsSqlBatch getBatch(CmsDbContext dbc) {
+
+        if (dbc == null) {
+            return null;
+        }
+        return (CmsSqlBatch)dbc.getAttribute(ATTR_SQL_BATCH);
+    }
+
+    /**
+     * Sets the given parameters on the given statement.<p>
+     * 
+     * Supported parameter types are <code>String</code>, <code>Integer</code>, <code>Long</code> 
+     * and <code>byte[]</code>.<p>
+     * 
+     * @param sqlManager the SQL manager, used to set byte arrays
+     * @param stmt the statement
+     * @param params the parameters to set
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    public static void setParameters(CmsSqlManager sqlManager, PreparedStatement stmt, Object[] params)
+    throws SQLException {
+
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            if (param instanceof Integer) {
+                stmt.setInt(i + 1, ((Integer)param).intValue());
+            } else if (param instanceof Long) {
+                stmt.setLong(i + 1, ((Long)param).longValue());
+            } else if (param instanceof byte[]) {
+                sqlManager.setBytes(stmt, i + 1, (byte[])param);
+            } else {
+                stmt.setString(i + 1, (String)param);
+            }
+        }
+    }
+
+    /**
+     * Queues a deferred write statement, which is not read again before the batch is flushed.<p>
+     * 
+     * @param sql the SQL statement, with the project pattern already replaced
+     * @param params the statement parameters
+     */
+    public void add(String sql, Object[] params) {
+
+        add(sql, params, false);
+    }
+
+    /**
+     * Queues a write statement.<p>
+     * 
+     * @param sql the SQL statement, with the project pattern already replaced
+     * @param params the statement parameters
+     * @param readBack <code>true</code> if the written data may be read again before the batch is flushed
+     */
+    public void add(String sql, Object[] params, boolean readBack) {
+
+        CmsQueuedStatement statement = new CmsQueuedStatement(sql, params);
+        if (readBack) {
+            m_readBack.add(statement);
+        } else {
+            m_deferred.add(statement);
+        }
+    }
+
+    /**
+     * Executes all queued statements and clears this batch.<p>
+     * 
+     * If the batch fails, the transaction is rolled back and the statements are 
+     * executed one by one, so that only the failing statements are lost.<p>
+     * 
+     * @param dbc the current database context
+     * 
+     * @throws CmsDataAccessException if a statement could not be executed
+     */
+    public void flush(CmsDbContext dbc) throws CmsDataAccessException {
+
+        List<CmsQueuedStatement> statements = m_readBack;
+        statements.addAll(m_deferred);
+        m_readBack = new ArrayList<CmsQueuedStatement>();
+        m_deferred = new ArrayList<CmsQueuedStatement>();
+        execute(dbc, statements);
+    }
+
+    /**
+     * Executes the queued read back statements, so that they can be read by the next query.<p>
+     * 
+     * The deferred statements stay in the batch.<p>
+     * 
+     * @param dbc the current database context
+     * 
+     * @throws CmsDataAccessException if a statement could not be executed
+     */
+    public void flushReadBack(CmsDbContext dbc) throws CmsDataAccessException {
+
+        List<CmsQueuedStatement> statements = m_readBack;
+        m_readBack = new ArrayList<CmsQueuedStatement>();
+        execute(dbc, statements);
+    }
+
+    /**
+     * Checks if read back statements are queued.<p>
+     * 
+     * @return <code>true</code> if read back statements are queued
+     */
+    public boolean hasReadBack() {
+
+        return !m_readBack.isEmpty();
+    }
+
+    /**
+     * Returns the number of queued statements.<p>
+     * 
+     * @return the number of queued statements
+     */
+    public int size() {
+
+        return m_readBack.size() + m_deferred.size();
+    }
+
+    /**
+     * Executes the given statements in the given order, in one transaction.<p>
+     * 
+     * @param dbc the current database context
+     * @param statements the statements to execute
+     * 
+     * @throws CmsDataAccessException if a statement could not be executed
+     */
+    private void execute(CmsDbContext dbc, List<CmsQueuedStatement> statements) throws CmsDataAccessException {
+
+        if (statements.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        boolean transaction = false;
+        boolean autoCommit = true;
+        try {
+            // the connection is not shared with other calls, so its transaction only contains this batch
+            conn = m_sqlManager.getTransactionConnection(dbc);
+            autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            transaction = true;
+            String sql = null;
+            Iterator<CmsQueuedStatement> it = statements.iterator();
+            while (it.hasNext()) {
+                CmsQueuedStatement statement = it.next();
+                if (!statement.m_sql.equals(sql)) {
+                    // the SQL changes, send the statements collected so far to keep the order
+                    if (stmt != null) {
+                        stmt.executeBatch();
+                        m_sqlManager.closeAll(dbc, null, stmt, null);
+                        stmt = null;
+                    }
+                    sql = statement.m_sql;
+                    stmt = m_sqlManager.getPreparedStatementForSql(conn, sql);
+                }
+                setParameters(m_sqlManager, stmt, statement.m_params);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            conn.commit();
+            return;
+        } catch (SQLException e) {
+            LOG.warn(
+                Messages.get().getBundle().key(Messages.LOG_SQL_BATCH_FAILED_1, new Integer(statements.size())),
+                e);
+            if (transaction) {
+                try {
+                    conn.rollback();
+                } catch (SQLException e1) {
+                    LOG.debug(e1.getLocalizedMessage(), e1);
+                }
+            }
+        } finally {
+            if (transaction) {
+                try {
+                    conn.setAutoCommit(autoCommit);
+                } catch (SQLException e) {
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+        // the batch failed, execute the statements one by one
+        executeSingle(dbc, statements);
+    }
+
+    /**
+     * Executes the given statements one by one.<p>
+     * 
+     * @param dbc the current database context
+     * @param statements the statements to execute
+     * 
+     * @throws CmsDataAccessException with the first failure, after all statements have been tried
+     */
+    private void executeSingle(CmsDbContext dbc, List<CmsQueuedStatement> statements)
+    throws CmsDataAccessException {
+
+        CmsDataAccessException failure = null;
+        Iterator<CmsQueuedStatement> it = statements.iterator();
+        while (it.hasNext()) {
+            CmsQueuedStatement statement = it.next();
+            Connection conn = null;
+            PreparedStatement stmt = null;
+            try {
+                conn = m_sqlManager.getTransactionConnection(dbc);
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, statement.m_sql);
+                setParameters(m_sqlManager, stmt, statement.m_params);
+                stmt.executeUpdate();
+            } catch (SQLException e) {
+                CmsDataAccessException ex = new CmsDbSqlException(Messages.get().container(
+                    Messages.ERR_GENERIC_SQL_1,
+                    CmsDbSqlException.getErrorQuery(stmt)), e);
+                LOG.error(ex.getLocalizedMessage(), e);
+                if (failure == null) {
+                    failure = ex;
+                }
+            } finally {
+                m_sqlManager.closeAll(dbc, conn, stmt, null);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
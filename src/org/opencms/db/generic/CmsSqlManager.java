@@ -29,14 +29,18 @@ package org.opencms.db.generic;
 
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbPool;
+import org.opencms.file.CmsDataAccessException;
 import org.opencms.file.CmsProject;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -77,6 +81,9 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     /** A map holding all SQL queries. */
     protected Map<String, String> m_queries;
 
+    /** The replica pool for read-only queries against the online project, or <code>null</code> if there is none. */
+    protected CmsSqlReplica m_replica;
+
     /**
      * Creates a new, empty SQL manager.<p>
      */
@@ -185,6 +192,44 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
     }
 
+    /**
+     * Executes the statements queued in the batch of the given database context which may be read again,
+     * so that the next query sees them.<p>
+     * 
+     * Connections are handed out without executing the batch, so this has to be called explicitly 
+     * before rows written by the batch are read again, see {@link CmsSqlBatch}.<p>
+     * 
+     * @param dbc the current database context
+     * 
+     * @throws CmsDataAccessException if a queued statement could not be executed
+     */
+    public void flushBatch(CmsDbContext dbc) throws CmsDataAccessException {
+
+        CmsSqlBatch batch = CmsSqlBatch.getBatch(dbc);
+        if ((batch != null) && batch.hasReadBack()) {
+            batch.flushReadBack(dbc);
+        }
+    }
+
+    /**
+     * Retrieves the value of the designated column in the current row of this ResultSet object as 
+     * a stream of uninterpreted bytes.<p>
+     * 
+     * Overwrite this method if another database server requires a different handling of byte 
+     * attributes in tables.<p>
+     * 
+     * @param res the result set
+     * @param attributeName the name of the table attribute
+     * 
+     * @return the column value as stream; if the value is SQL NULL, the value returned is null 
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    public InputStream getBinaryStream(ResultSet res, String attributeName) throws SQLException {
+
+        return res.getBinaryStream(attributeName);
+    }
+
     /**
      * Retrieves the value of the designated column in the current row of this ResultSet object as 
      * a byte array in the Java programming language.<p>
@@ -209,6 +254,12 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
      * 
      * Use this method to get a connection for reading/writing project independent data.<p>
      * 
+     * If the database context has a connection cache, the connection is taken from the cache,
+     * so that all calls with the same context share one connection of the pool.<p>
+     * 
+     * If a replica pool is configured, the database context will not read from the replica anymore,
+     * since the returned connection may be used for writing.<p>
+     * 
      * @param dbc the current database context
      * 
      * @return a JDBC connection
@@ -220,8 +271,39 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         if (dbc == null) {
             LOG.error(Messages.get().getBundle().key(Messages.LOG_NULL_DB_CONTEXT_0));
         }
-        // match the ID to a JDBC pool URL of the OpenCms JDBC pools {online|offline|backup}
-        return getConnectionByUrl(m_poolUrl);
+        if ((m_replica != null) && (dbc != null)) {
+            // the context may write data now, so it must not read from the replica anymore
+            m_replica.setPrimaryUsed(dbc);
+        }
+        return getConnection(dbc, m_poolUrl);
+    }
+
+    /**
+     * Returns a JDBC connection for read-only queries against the given project.<p>
+     * 
+     * If a replica pool is configured, reads from the online project are sent to the replica,
+     * as long as the database context has not used the primary pool before and the online tables
+     * have not been written recently, see {@link CmsSqlReplica}. Otherwise a connection from 
+     * the primary pool is returned.<p>
+     * 
+     * Use this method only for connections which are not used for writing.<p>
+     * 
+     * @param dbc the current database context
+     * @param projectId the id of the project the query reads from
+     * 
+     * @return a JDBC connection
+     * 
+     * @throws SQLException if the project id is not supported
+     */
+    public Connection getReadConnection(CmsDbContext dbc, CmsUUID projectId) throws SQLException {
+
+        if ((m_replica != null) && m_replica.isReadable(dbc, projectId)) {
+            return getConnection(dbc, m_replica.getPoolUrl());
+        }
+        if (dbc == null) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_NULL_DB_CONTEXT_0));
+        }
+        return getConnection(dbc, m_poolUrl);
     }
 
     /**
@@ -285,11 +367,53 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
      */
     public PreparedStatement getPreparedStatementForSql(Connection con, String query) throws SQLException {
 
+        if ((m_replica != null) && m_replica.isOnlineWrite(query)) {
+            // the replica may need some time until it contains the written data
+            m_replica.suspend();
+        }
         // unfortunately, this wrapper is essential, because some JDBC driver 
         // implementations don't accept the delegated objects of DBCP's connection pool. 
         return con.prepareStatement(query);
     }
 
+    /**
+     * Returns a JDBC connection for a result which is read after the current call has returned,
+     * like a content stream.<p>
+     *
+     * The connection is always taken directly from the pool, even if the database context has a connection
+     * cache, since the cache closes its connections when the context is cleared. The caller owns the
+     * connection and has to close it with {@link #closeAll(CmsDbContext, Connection, Statement, ResultSet)}.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return a JDBC connection
+     *
+     * @throws SQLException if no connection could be obtained
+     */
+    public Connection getStreamConnection(CmsDbContext dbc) throws SQLException {
+
+        return getOwnedConnection(dbc);
+    }
+
+    /**
+     * Returns a JDBC connection for a transaction.<p>
+     *
+     * The connection is always taken directly from the pool, so the transaction does not include
+     * the statements of other calls with the same database context. The caller owns the connection,
+     * may change its auto commit mode and has to close it with 
+     * {@link #closeAll(CmsDbContext, Connection, Statement, ResultSet)}.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return a JDBC connection
+     *
+     * @throws SQLException if no connection could be obtained
+     */
+    public Connection getTransactionConnection(CmsDbContext dbc) throws SQLException {
+
+        return getOwnedConnection(dbc);
+    }
+
     /**
      * Initializes this SQL manager.<p>
      * 
@@ -307,6 +431,20 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
     }
 
+    /**
+     * Initializes the replica pool used for read-only queries against the online project.<p>
+     * 
+     * @param poolUrl the pool URL of the replica
+     * @param lag the time in milliseconds for which the replica is not used after a write to the online tables
+     */
+    public void initReplica(String poolUrl, long lag) {
+
+        m_replica = new CmsSqlReplica(poolUrl, lag);
+        OpenCms.addCmsEventListener(m_replica, new int[] {
+            I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT,
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT});
+    }
+
     /**
      * Searches for the SQL query with the specified key and CmsProject.<p>
      * 
@@ -428,6 +566,47 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         return " ";
     }
 
+    /**
+     * Returns a JDBC connection from the pool with the given URL.<p>
+     * 
+     * If the database context has a connection cache, the connection is taken from the cache,
+     * so that all calls with the same context share one connection of the pool.<p>
+     * 
+     * @param dbc the current database context
+     * @param poolUrl the pool URL
+     * 
+     * @return a JDBC connection
+     * 
+     * @throws SQLException if no connection could be obtained
+     */
+    protected Connection getConnection(CmsDbContext dbc, String poolUrl) throws SQLException {
+
+        if ((dbc != null) && (dbc.getConnectionCache() != null)) {
+            return dbc.getConnectionCache().getConnection(this, poolUrl);
+        }
+        // match the ID to a JDBC pool URL of the OpenCms JDBC pools {online|offline|backup}
+        return getConnectionByUrl(poolUrl);
+    }
+
+    /**
+     * Returns a JDBC connection from the primary pool, which is not shared with other calls.<p>
+     * 
+     * @param dbc the current database context
+     * 
+     * @return a JDBC connection
+     * 
+     * @throws SQLException if no connection could be obtained
+     */
+    protected Connection getOwnedConnection(CmsDbContext dbc) throws SQLException {
+
+        if (dbc == null) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_NULL_DB_CONTEXT_0));
+        } else if (m_replica != null) {
+            m_replica.setPrimaryUsed(dbc);
+        }
+        return getConnectionByUrl(m_poolUrl);
+    }
+
     /**
      * Loads a Java properties hash containing SQL queries.<p>
      * 
@@ -0,0 +1,179 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsDbPool;
+import org.opencms.file.CmsProject;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.util.CmsUUID;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A replica database pool which a SQL manager uses for read-only queries against the online project.<p>
+ *
+ * An online read is sent to the replica unless:
+ * <ul>
+ * <li>the database context has already used the primary pool, since it may have written data
+ *      which is not yet available on the replica</li>
+ * <li>a publish job is running, or has finished less than the configured replica lag ago</li>
+ * <li>the online tables have been written by the SQL manager less than the configured replica lag ago</li>
+ * </ul>
+ * In all these cases, and for all other projects, the primary pool is used.<p>
+ *
+ * @since 8.5.0
+ */
+public class CmsSqlReplica implements I_CmsEventListener {
+
+    /** The database context attribute indicating that the context has used the primary pool. */
+    public static final String ATTRIBUTE_PRIMARY_USED = CmsSqlReplica.class.getName() + ".primaryUsed";
+
+    /** The time in milliseconds for which the replica is not used after a write to the online tables. */
+    private final long m_lag;
+
+    /** The pool URL of the replica, including DBCP's pool URL prefix. */
+    private final String m_poolUrl;
+
+    /** The number of publish jobs which have been started and not yet finished. */
+    private final AtomicInteger m_publishing = new AtomicInteger();
+
+    /** The time until which the replica is not used, in milliseconds. */
+    private volatile long m_suspendedUntil;
+
+    /**
+     * Creates a new replica.<p>
+     *
+     * @param poolUrl the pool URL of the replica
+     * @param lag the time in milliseconds for which the replica is not used after a write to the online tables
+     */
+    public CmsSqlReplica(String poolUrl, long lag) {
+
+        if (!poolUrl.startsWith(CmsDbPool.DBCP_JDBC_URL_PREFIX)) {
+            poolUrl = CmsDbPool.DBCP_JDBC_URL_PREFIX + poolUrl;
+        }
+        m_poolUrl = poolUrl;
+        m_lag = lag;
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT:
+                m_publishing.incrementAndGet();
+                break;
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                suspend();
+                // publishing organizational units or deleting resources fires this event 
+                // without a preceding "before publish" event, so never count below zero
+                int running = m_publishing.get();
+                while ((running > 0) && !m_publishing.compareAndSet(running, running - 1)) {
+                    running = m_publishing.get();
+                }
+                break;
+            default:
+                // noop
+        }
+    }
+
+    /**
+     * Returns the time in milliseconds for which the replica is not used after a write to the online tables.<p>
+     *
+     * @return the replica lag in milliseconds
+     */
+    public long getLag() {
+
+        return m_lag;
+    }
+
+    /**
+     * Returns the pool URL of the replica, including DBCP's pool URL prefix.<p>
+     *
+     * @return the pool URL of the replica
+     */
+    public String getPoolUrl() {
+
+        return m_poolUrl;
+    }
+
+    /**
+     * Checks if the given SQL query writes to the online tables.<p>
+     *
+     * @param query the SQL query
+     *
+     * @return <code>true</code> if the given SQL query writes to the online tables
+     */
+    public boolean isOnlineWrite(String query) {
+
+        String sql = query.trim();
+        return !sql.regionMatches(true, 0, "SELECT", 0, 6) && (sql.indexOf("_ONLINE_") >= 0);
+    }
+
+    /**
+     * Checks if a read-only query with the given database context and project can be sent to the replica.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project the query reads from
+     *
+     * @return <code>true</code> if the query can be sent to the replica
+     */
+    public boolean isReadable(CmsDbContext dbc, CmsUUID projectId) {
+
+        return (dbc != null)
+            && CmsProject.ONLINE_PROJECT_ID.equals(projectId)
+            && (dbc.getAttribute(ATTRIBUTE_PRIMARY_USED) == null)
+            && (m_publishing.get() == 0)
+            && (System.currentTimeMillis() >= m_suspendedUntil);
+    }
+
+    /**
+     * Marks the given database context as having used the primary pool.<p>
+     *
+     * All following reads with the context will use the primary pool as well.<p>
+     *
+     * @param dbc the current database context
+     */
+    public void setPrimaryUsed(CmsDbContext dbc) {
+
+        if (dbc.getAttribute(ATTRIBUTE_PRIMARY_USED) == null) {
+            dbc.setAttribute(ATTRIBUTE_PRIMARY_USED, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Suspends the use of the replica for the configured replica lag, starting now.<p>
+     */
+    public void suspend() {
+
+        m_suspendedUntil = System.currentTimeMillis() + m_lag;
+    }
+}
@@ -31,6 +31,7 @@ import org.opencms.configuration.CmsConfigurationManager;
 import org.opencms.configuration.CmsParameterConfiguration;
 import org.opencms.db.CmsAlias;
 import org.opencms.db.CmsAliasFilter;
+import org.opencms.db.CmsContentStatistics;
 import org.opencms.db.CmsDbConsistencyException;
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbEntryNotFoundException;
@@ -80,6 +81,7 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -90,6 +92,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -112,6 +115,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.generic.CmsVfsDriver.class);
 
+    /** The content store, or <code>null</code> if contents are stored inline. */
+    protected CmsContentStore m_contentStore;
+
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
@@ -274,6 +280,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         try {
             conn = m_sqlManager.getConnection(dbc);
+            if (m_contentStore != null) {
+                content = m_contentStore.store(dbc, conn, content);
+            }
             // create new offline content
             stmt = m_sqlManager.getPreparedStatement(conn, "C_OFFLINE_CONTENTS_WRITE");
             stmt.setString(1, resourceId.toString());
@@ -312,6 +321,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         CmsUUID userCreated = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_CREATED")));
         CmsUUID userLastModified = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_LASTMODIFIED")));
         byte[] content = m_sqlManager.getBytes(res, m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+        if (m_contentStore != null) {
+            content = internalResolveContent(content);
+        }
         int siblingCount = res.getInt(m_sqlManager.readQuery("C_RESOURCES_SIBLING_COUNT"));
         long dateContent = res.getLong(m_sqlManager.readQuery("C_RESOURCES_DATE_CONTENT"));
         int resourceVersion = res.getInt(m_sqlManager.readQuery("C_RESOURCES_VERSION"));
@@ -381,6 +393,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
         if (hasFileContentInResultSet) {
             content = m_sqlManager.getBytes(res, m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+            if (m_contentStore != null) {
+                content = internalResolveContent(content);
+            }
         }
         resProjectId = lockedInProject;
         int newState = (structureState > resourceState) ? structureState : resourceState;
@@ -466,63 +481,62 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         boolean needToUpdateContent) throws CmsDataAccessException {
 
         Connection conn = null;
-        PreparedStatement stmt = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            if (m_contentStore != null) {
+                // the content store reads and writes its reference counts on this connection
+                conn = m_sqlManager.getConnection(dbc);
+            }
             boolean dbcHasProjectId = (dbc.getProjectId() != null) && !dbc.getProjectId().isNullUUID();
+            // the online contents are written with the online project id, so they are queued while publishing
+            CmsUUID onlineId = CmsProject.ONLINE_PROJECT_ID;
+            Object[] resourceParams = new Object[] {resourceId.toString()};
 
             if (needToUpdateContent || dbcHasProjectId) {
+                if (m_contentStore != null) {
+                    // the contents have been read from this row, so a stored content only needs another reference,
+                    // which is added before the current online content is released
+                    String queryKey = dbcHasProjectId ? "C_ONLINE_CONTENTS_READ_CURRENT" : "C_OFFLINE_FILES_CONTENT";
+                    byte[] reference = internalReadContentReference(dbc, conn, queryKey, resourceId);
+                    if (m_contentStore.addReference(dbc, conn, reference)) {
+                        contents = reference;
+                    } else {
+                        contents = m_contentStore.store(dbc, conn, contents);
+                    }
+                }
                 if (dbcHasProjectId || !OpenCms.getSystemInfo().isHistoryEnabled()) {
+                    if (m_contentStore != null) {
+                        internalReleaseContents(dbc, conn, "C_ONLINE_CONTENTS_READ_CURRENT", resourceId);
+                    }
                     // remove the online content for this resource id
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_DELETE");
-                    stmt.setString(1, resourceId.toString());
-                    stmt.executeUpdate();
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
+                    conn = internalExecuteUpdate(dbc, conn, onlineId, "C_ONLINE_CONTENTS_DELETE", resourceParams);
                 } else {
                     // put the online content in the history, only if explicit requested
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_HISTORY");
-                    stmt.setString(1, resourceId.toString());
-                    stmt.executeUpdate();
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
+                    conn = internalExecuteUpdate(dbc, conn, onlineId, "C_ONLINE_CONTENTS_HISTORY", resourceParams);
                 }
 
                 // create new online content
-                stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_WRITE");
-
-                stmt.setString(1, resourceId.toString());
-                if (contents.length < 2000) {
-                    stmt.setBytes(2, contents);
-                } else {
-                    stmt.setBinaryStream(2, new ByteArrayInputStream(contents), contents.length);
-                }
-                stmt.setInt(3, publishTag);
-                stmt.setInt(4, publishTag);
-                stmt.setInt(5, keepOnline ? 1 : 0);
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
+                conn = internalExecuteUpdate(dbc, conn, onlineId, "C_ONLINE_CONTENTS_WRITE", new Object[] {
+                    resourceId.toString(),
+                    contents,
+                    new Integer(publishTag),
+                    new Integer(publishTag),
+                    new Integer(keepOnline ? 1 : 0)});
             } else {
                 // update old content entry
-                stmt = m_sqlManager.getPreparedStatement(conn, "C_HISTORY_CONTENTS_UPDATE");
-                stmt.setInt(1, publishTag);
-                stmt.setString(2, resourceId.toString());
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
+                conn = internalExecuteUpdate(dbc, conn, onlineId, "C_HISTORY_CONTENTS_UPDATE", new Object[] {
+                    new Integer(publishTag),
+                    resourceId.toString()});
 
                 if (!keepOnline) {
                     // put the online content in the history
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_HISTORY");
-                    stmt.setString(1, resourceId.toString());
-                    stmt.executeUpdate();
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
+                    conn = internalExecuteUpdate(dbc, conn, onlineId, "C_ONLINE_CONTENTS_HISTORY", resourceParams);
                 }
             }
         } catch (SQLException e) {
-            throw new CmsDbSqlException(Messages.get().container(
-                Messages.ERR_GENERIC_SQL_1,
-                CmsDbSqlException.getErrorQuery(stmt)), e);
+            throw new CmsDbSqlException(Messages.get().container(Messages.ERR_GENERIC_SQL_0), e);
         } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
+            m_sqlManager.closeAll(dbc, conn, null, null);
         }
     }
 
@@ -561,32 +575,19 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
      */
     public void createRelation(CmsDbContext dbc, CmsUUID projectId, CmsRelation relation) throws CmsDataAccessException {
 
-        Connection conn = null;
-        PreparedStatement stmt = null;
-
-        try {
-            conn = m_sqlManager.getConnection(dbc);
-            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_CREATE_RELATION");
-            stmt.setString(1, relation.getSourceId().toString());
-            stmt.setString(2, relation.getSourcePath());
-            stmt.setString(3, relation.getTargetId().toString());
-            stmt.setString(4, relation.getTargetPath());
-            stmt.setInt(5, relation.getType().getId());
-
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(
-                    Messages.LOG_CREATE_RELATION_2,
-                    String.valueOf(projectId),
-                    relation));
-            }
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(Messages.get().container(
-                Messages.ERR_GENERIC_SQL_1,
-                CmsDbSqlException.getErrorQuery(stmt)), e);
-        } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
-        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_CREATE_RELATION_2,
+                String.valueOf(projectId),
+                relation));
+        }
+        Connection conn = internalExecuteUpdate(dbc, null, projectId, "C_CREATE_RELATION", new Object[] {
+            relation.getSourceId().toString(),
+            relation.getSourcePath(),
+            relation.getTargetId().toString(),
+            relation.getTargetPath(),
+            new Integer(relation.getType().getId())});
+        m_sqlManager.closeAll(dbc, conn, null, null);
     }
 
     /**
@@ -1055,50 +1056,33 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     public void deletePropertyObjects(CmsDbContext dbc, CmsUUID projectId, CmsResource resource, int deleteOption)
     throws CmsDataAccessException {
 
-        Connection conn = null;
-        PreparedStatement stmt = null;
-
-        try {
-            conn = m_sqlManager.getConnection(dbc);
-
-            if (deleteOption == CmsProperty.DELETE_OPTION_DELETE_STRUCTURE_AND_RESOURCE_VALUES) {
-                // delete both the structure and resource property values mapped to the specified resource
-                stmt = m_sqlManager.getPreparedStatement(
-                    conn,
-                    projectId,
-                    "C_PROPERTIES_DELETE_ALL_STRUCTURE_AND_RESOURCE_VALUES");
-                stmt.setString(1, resource.getResourceId().toString());
-                stmt.setInt(2, CmsProperty.RESOURCE_RECORD_MAPPING);
-                stmt.setString(3, resource.getStructureId().toString());
-                stmt.setInt(4, CmsProperty.STRUCTURE_RECORD_MAPPING);
-            } else if (deleteOption == CmsProperty.DELETE_OPTION_DELETE_STRUCTURE_VALUES) {
-                // delete the structure values mapped to the specified resource
-                stmt = m_sqlManager.getPreparedStatement(
-                    conn,
-                    projectId,
-                    "C_PROPERTIES_DELETE_ALL_VALUES_FOR_MAPPING_TYPE");
-                stmt.setString(1, resource.getStructureId().toString());
-                stmt.setInt(2, CmsProperty.STRUCTURE_RECORD_MAPPING);
-            } else if (deleteOption == CmsProperty.DELETE_OPTION_DELETE_RESOURCE_VALUES) {
-                // delete the resource property values mapped to the specified resource
-                stmt = m_sqlManager.getPreparedStatement(
-                    conn,
-                    projectId,
-                    "C_PROPERTIES_DELETE_ALL_VALUES_FOR_MAPPING_TYPE");
-                stmt.setString(1, resource.getResourceId().toString());
-                stmt.setInt(2, CmsProperty.RESOURCE_RECORD_MAPPING);
-            } else {
-                throw new CmsDataAccessException(Messages.get().container(Messages.ERR_INVALID_DELETE_OPTION_1));
-            }
-
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(Messages.get().container(
-                Messages.ERR_GENERIC_SQL_1,
-                CmsDbSqlException.getErrorQuery(stmt)), e);
-        } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        String queryKey;
+        Object[] params;
+        if (deleteOption == CmsProperty.DELETE_OPTION_DELETE_STRUCTURE_AND_RESOURCE_VALUES) {
+            // delete both the structure and resource property values mapped to the specified resource
+            queryKey = "C_PROPERTIES_DELETE_ALL_STRUCTURE_AND_RESOURCE_VALUES";
+            params = new Object[] {
+                resource.getResourceId().toString(),
+                new Integer(CmsProperty.RESOURCE_RECORD_MAPPING),
+                resource.getStructureId().toString(),
+                new Integer(CmsProperty.STRUCTURE_RECORD_MAPPING)};
+        } else if (deleteOption == CmsProperty.DELETE_OPTION_DELETE_STRUCTURE_VALUES) {
+            // delete the structure values mapped to the specified resource
+            queryKey = "C_PROPERTIES_DELETE_ALL_VALUES_FOR_MAPPING_TYPE";
+            params = new Object[] {
+                resource.getStructureId().toString(),
+                new Integer(CmsProperty.STRUCTURE_RECORD_MAPPING)};
+        } else if (deleteOption == CmsProperty.DELETE_OPTION_DELETE_RESOURCE_VALUES) {
+            // delete the resource property values mapped to the specified resource
+            queryKey = "C_PROPERTIES_DELETE_ALL_VALUES_FOR_MAPPING_TYPE";
+            params = new Object[] {
+                resource.getResourceId().toString(),
+                new Integer(CmsProperty.RESOURCE_RECORD_MAPPING)};
+        } else {
+            throw new CmsDataAccessException(Messages.get().container(Messages.ERR_INVALID_DELETE_OPTION_1));
         }
+        Connection conn = internalExecuteUpdate(dbc, null, projectId, queryKey, params);
+        m_sqlManager.closeAll(dbc, conn, null, null);
     }
 
     /**
@@ -1108,11 +1092,8 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     throws CmsDataAccessException {
 
         Connection conn = null;
-        PreparedStatement stmt = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
-
             if (filter.isSource()) {
                 List<Object> params = new ArrayList<Object>(7);
 
@@ -1120,16 +1101,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 queryBuf.append(m_sqlManager.readQuery(projectId, "C_DELETE_RELATIONS"));
                 queryBuf.append(prepareRelationConditions(projectId, filter, resource, params, true));
 
-                stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString());
-                for (int i = 0; i < params.size(); i++) {
-                    if (params.get(i) instanceof Integer) {
-                        stmt.setInt(i + 1, ((Integer)params.get(i)).intValue());
-                    } else {
-                        stmt.setString(i + 1, (String)params.get(i));
-                    }
-                }
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
+                conn = internalExecuteUpdateForSql(dbc, conn, projectId, queryBuf.toString(), params.toArray());
             }
             if (filter.isTarget()) {
                 List<Object> params = new ArrayList<Object>(7);
@@ -1138,23 +1110,10 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 queryBuf.append(m_sqlManager.readQuery(projectId, "C_DELETE_RELATIONS"));
                 queryBuf.append(prepareRelationConditions(projectId, filter, resource, params, false));
 
-                stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString());
-                for (int i = 0; i < params.size(); i++) {
-                    if (params.get(i) instanceof Integer) {
-                        stmt.setInt(i + 1, ((Integer)params.get(i)).intValue());
-                    } else {
-                        stmt.setString(i + 1, (String)params.get(i));
-                    }
-                }
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
+                conn = internalExecuteUpdateForSql(dbc, conn, projectId, queryBuf.toString(), params.toArray());
             }
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(Messages.get().container(
-                Messages.ERR_GENERIC_SQL_1,
-                CmsDbSqlException.getErrorQuery(stmt)), e);
         } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
+            m_sqlManager.closeAll(dbc, conn, null, null);
         }
         // update broken remaining relations
         updateBrokenRelations(dbc, projectId, resource.getRootPath());
@@ -1217,6 +1176,16 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Returns the content store used by this driver.<p>
+     *
+     * @return the content store, or <code>null</code> if the contents are stored inline
+     */
+    public CmsContentStore getContentStore() {
+
+        return m_contentStore;
+    }
+
     /**
      * Returns all organizational units for the given resource.<p>
      *
@@ -1322,6 +1291,25 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_ASSIGNED_POOL_1, poolUrl));
         }
 
+        String replicaPoolUrl = configuration.get("db.vfs.replica.pool");
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(replicaPoolUrl)) {
+            int replicaLag = configuration.getInteger("db.vfs.replica.lag", 5000);
+            m_sqlManager.initReplica(replicaPoolUrl, replicaLag);
+            if (CmsLog.INIT.isInfoEnabled()) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_ASSIGNED_REPLICA_POOL_2,
+                    replicaPoolUrl,
+                    new Integer(replicaLag)));
+            }
+        }
+
+        if (configuration.getBoolean("db.vfs.contentstore", false)) {
+            m_contentStore = new CmsContentStore(m_sqlManager);
+            if (CmsLog.INIT.isInfoEnabled()) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_CONTENT_STORE_ENABLED_0));
+            }
+        }
+
         if ((successiveDrivers != null) && !successiveDrivers.isEmpty()) {
             if (LOG.isWarnEnabled()) {
                 LOG.warn(Messages.get().getBundle().key(
@@ -1508,7 +1496,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         CmsResource offlineResource) throws CmsDataAccessException {
 
         Connection conn = null;
-        PreparedStatement stmt = null;
+        CmsUUID onlineId = onlineProject.getUuid();
 
         // validate the resource length
         internalValidateResourceLength(offlineResource);
@@ -1517,88 +1505,70 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         String resourcePath = CmsFileUtil.removeTrailingSeparator(offlineResource.getRootPath());
 
         try {
-            int sibCount = countSiblings(dbc, onlineProject.getUuid(), onlineResource.getResourceId());
-            boolean resourceExists = validateResourceIdExists(
-                dbc,
-                onlineProject.getUuid(),
-                offlineResource.getResourceId());
-            conn = m_sqlManager.getConnection(dbc);
+            int sibCount = countSiblings(dbc, onlineId, onlineResource.getResourceId());
+            boolean resourceExists = validateResourceIdExists(dbc, onlineId, offlineResource.getResourceId());
             if (resourceExists) {
                 // the resource record exists online already
                 // update the online resource record
-                stmt = m_sqlManager.getPreparedStatement(conn, onlineProject, "C_RESOURCES_UPDATE_RESOURCES");
-                stmt.setInt(1, offlineResource.getTypeId());
-                stmt.setInt(2, offlineResource.getFlags());
-                stmt.setLong(3, offlineResource.getDateLastModified());
-                stmt.setString(4, offlineResource.getUserLastModified().toString());
-                stmt.setInt(5, CmsResource.STATE_UNCHANGED.getState());
-                stmt.setInt(6, resourceSize);
-                stmt.setLong(7, offlineResource.getDateContent());
-                stmt.setString(8, offlineResource.getProjectLastModified().toString());
-                stmt.setInt(9, sibCount);
-                stmt.setString(10, offlineResource.getResourceId().toString());
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, conn, stmt, null);
+                conn = internalExecuteUpdate(dbc, conn, onlineId, "C_RESOURCES_UPDATE_RESOURCES", new Object[] {
+                    new Integer(offlineResource.getTypeId()),
+                    new Integer(offlineResource.getFlags()),
+                    new Long(offlineResource.getDateLastModified()),
+                    offlineResource.getUserLastModified().toString(),
+                    new Integer(CmsResource.STATE_UNCHANGED.getState()),
+                    new Integer(resourceSize),
+                    new Long(offlineResource.getDateContent()),
+                    offlineResource.getProjectLastModified().toString(),
+                    new Integer(sibCount),
+                    offlineResource.getResourceId().toString()});
             } else {
                 // the resource record does NOT exist online yet
                 // create the resource record online
-                stmt = m_sqlManager.getPreparedStatement(conn, onlineProject, "C_RESOURCES_WRITE");
-                stmt.setString(1, offlineResource.getResourceId().toString());
-                stmt.setInt(2, offlineResource.getTypeId());
-                stmt.setInt(3, offlineResource.getFlags());
-                stmt.setLong(4, offlineResource.getDateCreated());
-                stmt.setString(5, offlineResource.getUserCreated().toString());
-                stmt.setLong(6, offlineResource.getDateLastModified());
-                stmt.setString(7, offlineResource.getUserLastModified().toString());
-                stmt.setInt(8, CmsResource.STATE_UNCHANGED.getState());
-                stmt.setInt(9, resourceSize);
-                stmt.setLong(10, offlineResource.getDateContent());
-                stmt.setString(11, offlineResource.getProjectLastModified().toString());
-                stmt.setInt(12, 1); // initial siblings count
-                stmt.setInt(13, 1); // initial resource version
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, conn, stmt, null);
+                conn = internalExecuteUpdate(dbc, conn, onlineId, "C_RESOURCES_WRITE", new Object[] {
+                    offlineResource.getResourceId().toString(),
+                    new Integer(offlineResource.getTypeId()),
+                    new Integer(offlineResource.getFlags()),
+                    new Long(offlineResource.getDateCreated()),
+                    offlineResource.getUserCreated().toString(),
+                    new Long(offlineResource.getDateLastModified()),
+                    offlineResource.getUserLastModified().toString(),
+                    new Integer(CmsResource.STATE_UNCHANGED.getState()),
+                    new Integer(resourceSize),
+                    new Long(offlineResource.getDateContent()),
+                    offlineResource.getProjectLastModified().toString(),
+                    new Integer(1), // initial siblings count
+                    new Integer(1)}); // initial resource version
             }
+            m_sqlManager.closeAll(dbc, conn, null, null);
+            conn = null;
 
             // read the parent id
-            String parentId = internalReadParentId(dbc, onlineProject.getUuid(), resourcePath);
-            boolean structureExists = validateStructureIdExists(
-                dbc,
-                onlineProject.getUuid(),
-                offlineResource.getStructureId());
-            conn = m_sqlManager.getConnection(dbc);
+            String parentId = internalReadParentId(dbc, onlineId, resourcePath);
+            boolean structureExists = validateStructureIdExists(dbc, onlineId, offlineResource.getStructureId());
             if (structureExists) {
                 // update the online structure record
-                stmt = m_sqlManager.getPreparedStatement(conn, onlineProject, "C_RESOURCES_UPDATE_STRUCTURE");
-                stmt.setString(1, offlineResource.getResourceId().toString());
-                stmt.setString(2, resourcePath);
-                stmt.setInt(3, CmsResource.STATE_UNCHANGED.getState());
-                stmt.setLong(4, offlineResource.getDateReleased());
-                stmt.setLong(5, offlineResource.getDateExpired());
-                stmt.setString(6, parentId);
-                stmt.setString(7, offlineResource.getStructureId().toString());
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
+                conn = internalExecuteUpdate(dbc, conn, onlineId, "C_RESOURCES_UPDATE_STRUCTURE", new Object[] {
+                    offlineResource.getResourceId().toString(),
+                    resourcePath,
+                    new Integer(CmsResource.STATE_UNCHANGED.getState()),
+                    new Long(offlineResource.getDateReleased()),
+                    new Long(offlineResource.getDateExpired()),
+                    parentId,
+                    offlineResource.getStructureId().toString()});
             } else {
                 // create the structure record online
-                stmt = m_sqlManager.getPreparedStatement(conn, onlineProject, "C_STRUCTURE_WRITE");
-                stmt.setString(1, offlineResource.getStructureId().toString());
-                stmt.setString(2, offlineResource.getResourceId().toString());
-                stmt.setString(3, resourcePath);
-                stmt.setInt(4, CmsResource.STATE_UNCHANGED.getState());
-                stmt.setLong(5, offlineResource.getDateReleased());
-                stmt.setLong(6, offlineResource.getDateExpired());
-                stmt.setString(7, parentId);
-                stmt.setInt(8, resourceExists ? 1 : 0); // new resources start with 0, new siblings with 1
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
+                conn = internalExecuteUpdate(dbc, conn, onlineId, "C_STRUCTURE_WRITE", new Object[] {
+                    offlineResource.getStructureId().toString(),
+                    offlineResource.getResourceId().toString(),
+                    resourcePath,
+                    new Integer(CmsResource.STATE_UNCHANGED.getState()),
+                    new Long(offlineResource.getDateReleased()),
+                    new Long(offlineResource.getDateExpired()),
+                    parentId,
+                    new Integer(resourceExists ? 1 : 0)}); // new resources start with 0, new siblings with 1
             }
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(Messages.get().container(
-                Messages.ERR_GENERIC_SQL_1,
-                CmsDbSqlException.getErrorQuery(stmt)), e);
         } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
+            m_sqlManager.closeAll(dbc, conn, null, null);
         }
     }
 
@@ -1669,40 +1639,29 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
 
         Connection conn = null;
-        PreparedStatement stmt = null;
-        ResultSet res = null;
+        CmsUUID onlineId = CmsProject.ONLINE_PROJECT_ID;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
-
             if (resOp) {
                 // update the resource version
-                stmt = m_sqlManager.getPreparedStatement(
+                conn = internalExecuteUpdate(
+                    dbc,
                     conn,
-                    CmsProject.ONLINE_PROJECT_ID,
-                    "C_RESOURCES_UPDATE_RESOURCE_VERSION");
-                stmt.setInt(1, resVersion);
-                stmt.setString(2, resource.getResourceId().toString());
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
+                    onlineId,
+                    "C_RESOURCES_UPDATE_RESOURCE_VERSION",
+                    new Object[] {new Integer(resVersion), resource.getResourceId().toString()});
             }
             if (!resOp || strState.isNew()) {
                 // update the structure version
-                stmt = m_sqlManager.getPreparedStatement(
+                conn = internalExecuteUpdate(
+                    dbc,
                     conn,
-                    CmsProject.ONLINE_PROJECT_ID,
-                    "C_RESOURCES_UPDATE_STRUCTURE_VERSION");
-                stmt.setInt(1, strVersion);
-                stmt.setString(2, resource.getStructureId().toString());
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
+                    onlineId,
+                    "C_RESOURCES_UPDATE_STRUCTURE_VERSION",
+                    new Object[] {new Integer(strVersion), resource.getStructureId().toString()});
             }
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(Messages.get().container(
-                Messages.ERR_GENERIC_SQL_1,
-                CmsDbSqlException.getErrorQuery(stmt)), e);
         } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, res);
+            m_sqlManager.closeAll(dbc, conn, null, null);
         }
     }
 
@@ -1742,6 +1701,77 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readChildPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readChildPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        CmsResource folder) throws CmsDataAccessException {
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+        Map<CmsUUID, Map<String, CmsProperty>> propertyMaps = new HashMap<CmsUUID, Map<String, CmsProperty>>();
+
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_READALL_CHILDREN");
+            stmt.setString(1, folder.getStructureId().toString());
+            res = stmt.executeQuery();
+
+            while (res.next()) {
+                CmsUUID structureId = new CmsUUID(res.getString(1));
+                String propertyKey = res.getString(2);
+                String propertyValue = res.getString(3);
+                int mappingType = res.getInt(4);
+
+                Map<String, CmsProperty> propertyMap = propertyMaps.get(structureId);
+                if (propertyMap == null) {
+                    propertyMap = new HashMap<String, CmsProperty>();
+                    propertyMaps.put(structureId, propertyMap);
+                }
+                CmsProperty property = propertyMap.get(propertyKey);
+                if (property == null) {
+                    // there doesn't exist a property object for this key yet
+                    property = new CmsProperty();
+                    property.setName(propertyKey);
+                    propertyMap.put(propertyKey, property);
+                }
+
+                if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                    // this property value is mapped to a structure record
+                    property.setStructureValue(propertyValue);
+                } else if (mappingType == CmsProperty.RESOURCE_RECORD_MAPPING) {
+                    // this property value is mapped to a resource record
+                    property.setResourceValue(propertyValue);
+                } else {
+                    throw new CmsDbConsistencyException(Messages.get().container(
+                        Messages.ERR_UNKNOWN_PROPERTY_VALUE_MAPPING_3,
+                        folder.getRootPath(),
+                        new Integer(mappingType),
+                        propertyKey));
+                }
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>(propertyMaps.size());
+        for (Map.Entry<CmsUUID, Map<String, CmsProperty>> entry : propertyMaps.entrySet()) {
+            result.put(entry.getKey(), new ArrayList<CmsProperty>(entry.getValue().values()));
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readChildResources(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, boolean, boolean)
      */
@@ -1776,7 +1806,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         PreparedStatement stmt = null;
         ResultSet res = null;
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatementForSql(conn, query.toString());
             stmt.setString(1, resource.getStructureId().toString());
             res = stmt.executeQuery();
@@ -1813,7 +1843,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         byte[] byteRes = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
                 stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_ONLINE_FILES_CONTENT");
             } else {
@@ -1841,35 +1871,61 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         } finally {
             m_sqlManager.closeAll(dbc, conn, stmt, res);
         }
+        if (m_contentStore != null) {
+            byteRes = m_contentStore.resolve(dbc, byteRes);
+        }
         return byteRes;
     }
 
     /**
-     * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
+     * @see org.opencms.db.I_CmsVfsDriver#readContentStatistics(org.opencms.db.CmsDbContext)
      */
-    public CmsFolder readFolder(CmsDbContext dbc, CmsUUID projectId, CmsUUID folderId) throws CmsDataAccessException {
+    public CmsContentStatistics readContentStatistics(CmsDbContext dbc) throws CmsDataAccessException {
 
-        CmsFolder folder = null;
-        ResultSet res = null;
-        PreparedStatement stmt = null;
-        Connection conn = null;
+        // the statistics can also be read before the content store is enabled
+        CmsContentStore store = (m_contentStore != null) ? m_contentStore : new CmsContentStore(m_sqlManager);
+        CmsContentStatistics result = new CmsContentStatistics(CmsContentStore.REFERENCE_LENGTH);
 
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
         try {
             conn = m_sqlManager.getConnection(dbc);
-            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READBYID");
-            stmt.setString(1, folderId.toString());
+
+            // read the keys first and then the contents one by one,
+            // so that the JDBC driver never holds more than one content in memory
+            List<String> offlineIds = new ArrayList<String>();
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_OFFLINE_CONTENTS_READ_IDS");
             res = stmt.executeQuery();
+            while (res.next()) {
+                offlineIds.add(res.getString(1));
+            }
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+            res = null;
 
-            if (res.next()) {
-                folder = createFolder(res, projectId, true);
-                while (res.next()) {
-                    // do nothing only move through all rows because of mssql odbc driver
-                }
-            } else {
-                throw new CmsVfsResourceNotFoundException(Messages.get().container(
-                    Messages.ERR_READ_FOLDER_WITH_ID_1,
-                    folderId));
+            for (String resourceId : offlineIds) {
+                stmt = m_sqlManager.getPreparedStatement(conn, "C_OFFLINE_FILES_CONTENT");
+                stmt.setString(1, resourceId);
+                internalAddContentStatistics(dbc, conn, stmt, store, result);
+            }
+
+            // the online table also holds the historical contents
+            List<CmsPair<String, Integer>> onlineKeys = new ArrayList<CmsPair<String, Integer>>();
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_CONTENTS_READ_KEYS");
+            res = stmt.executeQuery();
+            while (res.next()) {
+                onlineKeys.add(CmsPair.create(res.getString(1), Integer.valueOf(res.getInt(2))));
+            }
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+            res = null;
+
+            for (CmsPair<String, Integer> key : onlineKeys) {
+                stmt = m_sqlManager.getPreparedStatement(conn, "C_CONTENTS_READ_BY_KEY");
+                stmt.setString(1, key.getFirst());
+                stmt.setInt(2, key.getSecond().intValue());
+                internalAddContentStatistics(dbc, conn, stmt, store, result);
             }
+            stmt = null;
         } catch (SQLException e) {
             throw new CmsDbSqlException(Messages.get().container(
                 Messages.ERR_GENERIC_SQL_1,
@@ -1877,24 +1933,108 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         } finally {
             m_sqlManager.closeAll(dbc, conn, stmt, res);
         }
-
-        return folder;
+        return result;
     }
 
     /**
-     * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, java.lang.String)
+     * @see org.opencms.db.I_CmsVfsDriver#readContentStream(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID)
      */
-    public CmsFolder readFolder(CmsDbContext dbc, CmsUUID projectId, String folderPath) throws CmsDataAccessException {
+    public InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException {
 
-        CmsFolder folder = null;
-        ResultSet res = null;
         PreparedStatement stmt = null;
+        ResultSet res = null;
         Connection conn = null;
+        InputStream result = null;
 
-        folderPath = CmsFileUtil.removeTrailingSeparator(folderPath);
         try {
-            conn = m_sqlManager.getConnection(dbc);
-            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READ");
+            // the returned stream outlives this call, so it must not use a connection of the context's cache
+            conn = m_sqlManager.getStreamConnection(dbc);
+            if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_ONLINE_FILES_CONTENT");
+            } else {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_OFFLINE_FILES_CONTENT");
+            }
+            stmt.setString(1, resourceId.toString());
+            res = stmt.executeQuery();
+
+            if (res.next()) {
+                // the JDBC resources are released when the returned stream is closed
+                result = new CmsContentInputStream(m_sqlManager.getBinaryStream(
+                    res,
+                    m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT")), m_sqlManager, dbc, conn, stmt, res);
+                if (m_contentStore != null) {
+                    result = m_contentStore.resolve(dbc, result);
+                }
+            } else {
+                throw new CmsVfsResourceNotFoundException(Messages.get().container(
+                    Messages.ERR_READ_CONTENT_WITH_RESOURCE_ID_2,
+                    resourceId,
+                    Boolean.valueOf(projectId.equals(CmsProject.ONLINE_PROJECT_ID))));
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            if (result == null) {
+                m_sqlManager.closeAll(dbc, conn, stmt, res);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
+     */
+    public CmsFolder readFolder(CmsDbContext dbc, CmsUUID projectId, CmsUUID folderId) throws CmsDataAccessException {
+
+        CmsFolder folder = null;
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READBYID");
+            stmt.setString(1, folderId.toString());
+            res = stmt.executeQuery();
+
+            if (res.next()) {
+                folder = createFolder(res, projectId, true);
+                while (res.next()) {
+                    // do nothing only move through all rows because of mssql odbc driver
+                }
+            } else {
+                throw new CmsVfsResourceNotFoundException(Messages.get().container(
+                    Messages.ERR_READ_FOLDER_WITH_ID_1,
+                    folderId));
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+
+        return folder;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, java.lang.String)
+     */
+    public CmsFolder readFolder(CmsDbContext dbc, CmsUUID projectId, String folderPath) throws CmsDataAccessException {
+
+        CmsFolder folder = null;
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        folderPath = CmsFileUtil.removeTrailingSeparator(folderPath);
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READ");
 
             stmt.setString(1, folderPath);
             res = stmt.executeQuery();
@@ -1932,7 +2072,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         PreparedStatement stmt = null;
         Connection conn = null;
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READ_PARENT_BY_ID");
             stmt.setString(1, structureId.toString());
             res = stmt.executeQuery();
@@ -2046,7 +2186,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         int resultSize = 0;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_READ");
 
             stmt.setString(1, key);
@@ -2117,7 +2257,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         CmsProperty property;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_READALL");
             stmt.setString(1, resource.getStructureId().toString());
             stmt.setString(2, resource.getResourceId().toString());
@@ -2166,6 +2306,94 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjectsForPaths(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<String, List<CmsProperty>> readPropertyObjectsForPaths(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<String> rootPaths) throws CmsDataAccessException {
+
+        Map<String, List<CmsProperty>> result = new HashMap<String, List<CmsProperty>>();
+        if (rootPaths.isEmpty()) {
+            return result;
+        }
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+        Map<String, Map<String, CmsProperty>> propertyMaps = new HashMap<String, Map<String, CmsProperty>>();
+
+        try {
+            StringBuffer sql = new StringBuffer(m_sqlManager.readQuery(projectId, "C_PROPERTIES_READALL_PATHS"));
+            sql.append(BEGIN_CONDITION);
+            for (int i = 0; i < rootPaths.size(); i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append("?");
+            }
+            sql.append(END_CONDITION);
+
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            stmt = m_sqlManager.getPreparedStatementForSql(conn, sql.toString());
+            for (int i = 0; i < rootPaths.size(); i++) {
+                stmt.setString(i + 1, rootPaths.get(i));
+            }
+            res = stmt.executeQuery();
+
+            while (res.next()) {
+                String rootPath = res.getString(1);
+                String propertyKey = res.getString(2);
+                String propertyValue = res.getString(3);
+                int mappingType = res.getInt(4);
+
+                Map<String, CmsProperty> propertyMap = propertyMaps.get(rootPath);
+                if (propertyMap == null) {
+                    propertyMap = new HashMap<String, CmsProperty>();
+                    propertyMaps.put(rootPath, propertyMap);
+                }
+                CmsProperty property = propertyMap.get(propertyKey);
+                if (property == null) {
+                    // there doesn't exist a property object for this key yet
+                    property = new CmsProperty();
+                    property.setName(propertyKey);
+                    propertyMap.put(propertyKey, property);
+                }
+
+                if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                    // this property value is mapped to a structure record
+                    property.setStructureValue(propertyValue);
+                } else if (mappingType == CmsProperty.RESOURCE_RECORD_MAPPING) {
+                    // this property value is mapped to a resource record
+                    property.setResourceValue(propertyValue);
+                } else {
+                    throw new CmsDbConsistencyException(Messages.get().container(
+                        Messages.ERR_UNKNOWN_PROPERTY_VALUE_MAPPING_3,
+                        rootPath,
+                        new Integer(mappingType),
+                        propertyKey));
+                }
+                property.setOrigin(rootPath);
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+
+        for (Map.Entry<String, Map<String, CmsProperty>> entry : propertyMaps.entrySet()) {
+            result.put(entry.getKey(), new ArrayList<CmsProperty>(entry.getValue().values()));
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -2182,7 +2410,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         ResultSet res = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             if (filter.isSource()) {
                 List<Object> params = new ArrayList<Object>(7);
 
@@ -2257,7 +2485,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READBYID");
 
             stmt.setString(1, structureId.toString());
@@ -2308,7 +2536,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         boolean endsWithSlash = (len != path.length());
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READ");
 
             stmt.setString(1, path);
@@ -2489,7 +2717,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             if (value == null) {
                 stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_GET_RESOURCE_WITH_PROPERTYDEF");
                 stmt.setString(1, propertyDef.toString());
@@ -2563,7 +2791,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             StringBuffer queryBuf = new StringBuffer(256);
             queryBuf.append(m_sqlManager.readQuery(projectId, "C_RESOURCES_READ_TREE"));
             queryBuf.append(conditions);
@@ -2657,7 +2885,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         List<CmsResource> vfsLinks = new ArrayList<CmsResource>();
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
 
             if (includeDeleted) {
                 stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_SELECT_VFS_SIBLINGS");
@@ -2829,11 +3057,21 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                     stmt.setString(1, resource.getResourceId().toString());
                     stmt.executeUpdate();
                 } else if (dbcHasProjectId) {
+                    if (m_contentStore != null) {
+                        internalReleaseContents(
+                            dbc,
+                            conn,
+                            "C_ONLINE_CONTENTS_READ_CURRENT",
+                            resource.getResourceId());
+                    }
                     // remove current online version
                     stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_DELETE");
                     stmt.setString(1, resource.getResourceId().toString());
                     stmt.executeUpdate();
                 } else {
+                    if (m_contentStore != null) {
+                        internalReleaseContents(dbc, conn, "C_OFFLINE_FILES_CONTENT", resource.getResourceId());
+                    }
                     // delete content records with this resource id
                     stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_OFFLINE_FILE_CONTENT_DELETE");
                     stmt.setString(1, resource.getResourceId().toString());
@@ -3112,6 +3350,11 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         try {
             conn = m_sqlManager.getConnection(dbc);
+            if (m_contentStore != null) {
+                // store the new content first, so that an unchanged content is never removed from the store
+                content = m_contentStore.store(dbc, conn, content);
+                internalReleaseContents(dbc, conn, "C_OFFLINE_FILES_CONTENT", resourceId);
+            }
             stmt = m_sqlManager.getPreparedStatement(conn, dbc.currentProject(), "C_OFFLINE_CONTENTS_UPDATE");
             // update the file content in the database.
             if (content.length < 2000) {
@@ -3164,147 +3407,12 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         ? project.getUuid()
         : dbc.getProjectId();
 
-        // TODO: check if we need autocreation for link property definition types too
-        CmsPropertyDefinition propertyDefinition = null;
-        try {
-            // read the property definition
-            propertyDefinition = readPropertyDefinition(dbc, property.getName(), projectId);
-        } catch (CmsDbEntryNotFoundException e) {
-            if (property.autoCreatePropertyDefinition()) {
-                propertyDefinition = createPropertyDefinition(
-                    dbc,
-                    projectId,
-                    property.getName(),
-                    CmsPropertyDefinition.TYPE_NORMAL);
-                try {
-                    readPropertyDefinition(dbc, property.getName(), CmsProject.ONLINE_PROJECT_ID);
-                } catch (CmsDataAccessException e1) {
-                    createPropertyDefinition(
-                        dbc,
-                        CmsProject.ONLINE_PROJECT_ID,
-                        property.getName(),
-                        CmsPropertyDefinition.TYPE_NORMAL);
-                }
-                try {
-                    m_driverManager.getHistoryDriver(dbc).readPropertyDefinition(dbc, property.getName());
-                } catch (CmsDataAccessException e1) {
-                    m_driverManager.getHistoryDriver(dbc).createPropertyDefinition(
-                        dbc,
-                        property.getName(),
-                        CmsPropertyDefinition.TYPE_NORMAL);
-                }
-                OpenCms.fireCmsEvent(new CmsEvent(
-                    I_CmsEventListener.EVENT_PROPERTY_DEFINITION_CREATED,
-                    Collections.<String, Object> singletonMap("propertyDefinition", propertyDefinition)));
-
-            } else {
-                throw new CmsDbEntryNotFoundException(Messages.get().container(
-                    Messages.ERR_NO_PROPERTYDEF_WITH_NAME_1,
-                    property.getName()));
-            }
-        }
-
-        PreparedStatement stmt = null;
-        Connection conn = null;
-
-        try {
-            // read the existing property to test if we need the
-            // insert or update query to write a property value
-            CmsProperty existingProperty = readPropertyObject(dbc, propertyDefinition.getName(), project, resource);
-
-            if (existingProperty.isIdentical(property)) {
-                // property already has the identical values set, no write required
-                return;
-            }
-
-            conn = m_sqlManager.getConnection(dbc);
-
-            for (int i = 0; i < 2; i++) {
-                int mappingType = -1;
-                String value = null;
-                CmsUUID id = null;
-                boolean existsPropertyValue = false;
-                boolean deletePropertyValue = false;
-
-                // 1) take any required decisions to choose and fill the correct SQL query
-
-                if (i == 0) {
-                    // write/delete the *structure value* on the first cycle
-                    if ((existingProperty.getStructureValue() != null) && property.isDeleteStructureValue()) {
-                        // this property value is marked to be deleted
-                        deletePropertyValue = true;
-                    } else {
-                        value = property.getStructureValue();
-                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
-                            // no structure value set or the structure value is an empty string,
-                            // continue with the resource value
-                            continue;
-                        }
-                    }
-
-                    // set the vars to be written to the database
-                    mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
-                    id = resource.getStructureId();
-                    existsPropertyValue = existingProperty.getStructureValue() != null;
-                } else {
-                    // write/delete the *resource value* on the second cycle
-                    if ((existingProperty.getResourceValue() != null) && property.isDeleteResourceValue()) {
-                        // this property value is marked to be deleted
-                        deletePropertyValue = true;
-                    } else {
-                        value = property.getResourceValue();
-                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
-                            // no resource value set or the resource value is an empty string,
-                            // break out of the loop
-                            break;
-                        }
-                    }
-
-                    // set the vars to be written to the database
-                    mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
-                    id = resource.getResourceId();
-                    existsPropertyValue = existingProperty.getResourceValue() != null;
-                }
+        CmsPropertyDefinition propertyDefinition = internalReadPropertyDefinition(dbc, projectId, property);
 
-                // 2) execute the SQL query
-                try {
-                    if (!deletePropertyValue) {
-                        // insert/update the property value
-                        if (existsPropertyValue) {
-                            // {structure|resource} property value already exists- use update statement
-                            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_UPDATE");
-                            stmt.setString(1, m_sqlManager.validateEmpty(value));
-                            stmt.setString(2, id.toString());
-                            stmt.setInt(3, mappingType);
-                            stmt.setString(4, propertyDefinition.getId().toString());
-                        } else {
-                            // {structure|resource} property value doesn't exist- use create statement
-                            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_CREATE");
-                            stmt.setString(1, new CmsUUID().toString());
-                            stmt.setString(2, propertyDefinition.getId().toString());
-                            stmt.setString(3, id.toString());
-                            stmt.setInt(4, mappingType);
-                            stmt.setString(5, m_sqlManager.validateEmpty(value));
-                        }
-                    } else {
-                        // {structure|resource} property value marked as deleted- use delete statement
-                        stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_DELETE");
-                        stmt.setString(1, propertyDefinition.getId().toString());
-                        stmt.setString(2, id.toString());
-                        stmt.setInt(3, mappingType);
-                    }
-                    stmt.executeUpdate();
-                } finally {
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
-                }
-            }
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(Messages.get().container(
-                Messages.ERR_GENERIC_SQL_1,
-                CmsDbSqlException.getErrorQuery(stmt)), e);
-        } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
-        }
+        // read the existing property to test if we need the
+        // insert or update query to write a property value
+        CmsProperty existingProperty = readPropertyObject(dbc, propertyDefinition.getName(), project, resource);
+        internalWritePropertyValues(dbc, projectId, resource, property, propertyDefinition, existingProperty);
     }
 
     /**
@@ -3316,14 +3424,39 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         CmsResource resource,
         List<CmsProperty> properties) throws CmsDataAccessException {
 
-        CmsProperty property = null;
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
 
+        if ((CmsSqlBatch.getBatch(dbc) == null) || !CmsProject.ONLINE_PROJECT_ID.equals(projectId)) {
+            CmsProperty property = null;
+
+            for (int i = 0; i < properties.size(); i++) {
+                property = properties.get(i);
+                writePropertyObject(dbc, project, resource, property);
+            }
+            return;
+        }
+
+        // while publishing, read all definitions and existing values first, so that the values of all properties 
+        // are then written with one batch; the publish driver flushes the batch before, if it deleted them
+        List<CmsPropertyDefinition> propertyDefinitions = new ArrayList<CmsPropertyDefinition>(properties.size());
+        List<CmsProperty> existingProperties = new ArrayList<CmsProperty>(properties.size());
         for (int i = 0; i < properties.size(); i++) {
-            property = properties.get(i);
-            writePropertyObject(dbc, project, resource, property);
+            CmsPropertyDefinition definition = internalReadPropertyDefinition(dbc, projectId, properties.get(i));
+            propertyDefinitions.add(definition);
+            existingProperties.add(readPropertyObject(dbc, definition.getName(), project, resource));
+        }
+        for (int i = 0; i < properties.size(); i++) {
+            internalWritePropertyValues(
+                dbc,
+                projectId,
+                resource,
+                properties.get(i),
+                propertyDefinitions.get(i),
+                existingProperties.get(i));
         }
     }
-
     /**
      * @see org.opencms.db.I_CmsVfsDriver#writeResource(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.file.CmsResource, int)
      */
@@ -3435,69 +3568,75 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         int changed,
         boolean isPublishing) throws CmsDataAccessException {
 
-        PreparedStatement stmt = null;
-        Connection conn = null;
-
         if (project.getUuid().equals(CmsProject.ONLINE_PROJECT_ID)) {
             return;
         }
 
-        try {
-            conn = m_sqlManager.getConnection(dbc);
+        // collect the statements to execute
+        Map<String, Object[]> statements = new LinkedHashMap<String, Object[]>();
+        if (changed == CmsDriverManager.UPDATE_RESOURCE_PROJECT) {
+            statements.put("C_RESOURCES_UPDATE_RESOURCE_PROJECT", new Object[] {
+                new Integer(resource.getFlags()),
+                project.getUuid().toString(),
+                resource.getResourceId().toString()});
+        }
 
-            if (changed == CmsDriverManager.UPDATE_RESOURCE_PROJECT) {
-                stmt = m_sqlManager.getPreparedStatement(conn, project, "C_RESOURCES_UPDATE_RESOURCE_PROJECT");
-                stmt.setInt(1, resource.getFlags());
-                stmt.setString(2, project.getUuid().toString());
-                stmt.setString(3, resource.getResourceId().toString());
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
-            }
+        if (changed == CmsDriverManager.UPDATE_RESOURCE) {
+            statements.put("C_RESOURCES_UPDATE_RESOURCE_STATELASTMODIFIED", new Object[] {
+                new Integer(resource.getState().getState()),
+                new Long(resource.getDateLastModified()),
+                resource.getUserLastModified().toString(),
+                project.getUuid().toString(),
+                resource.getResourceId().toString()});
+        }
 
-            if (changed == CmsDriverManager.UPDATE_RESOURCE) {
-                stmt = m_sqlManager.getPreparedStatement(conn, project, "C_RESOURCES_UPDATE_RESOURCE_STATELASTMODIFIED");
-                stmt.setInt(1, resource.getState().getState());
-                stmt.setLong(2, resource.getDateLastModified());
-                stmt.setString(3, resource.getUserLastModified().toString());
-                stmt.setString(4, project.getUuid().toString());
-                stmt.setString(5, resource.getResourceId().toString());
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
-            }
+        if ((changed == CmsDriverManager.UPDATE_RESOURCE_STATE) || (changed == CmsDriverManager.UPDATE_ALL)) {
+            statements.put("C_RESOURCES_UPDATE_RESOURCE_STATE", new Object[] {
+                new Integer(resource.getState().getState()),
+                project.getUuid().toString(),
+                resource.getResourceId().toString()});
+        }
 
-            if ((changed == CmsDriverManager.UPDATE_RESOURCE_STATE) || (changed == CmsDriverManager.UPDATE_ALL)) {
-                stmt = m_sqlManager.getPreparedStatement(conn, project, "C_RESOURCES_UPDATE_RESOURCE_STATE");
-                stmt.setInt(1, resource.getState().getState());
-                stmt.setString(2, project.getUuid().toString());
-                stmt.setString(3, resource.getResourceId().toString());
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
-            }
+        if ((changed == CmsDriverManager.UPDATE_STRUCTURE)
+            || (changed == CmsDriverManager.UPDATE_ALL)
+            || (changed == CmsDriverManager.UPDATE_STRUCTURE_STATE)) {
+            statements.put("C_RESOURCES_UPDATE_STRUCTURE_STATE", new Object[] {
+                new Integer(resource.getState().getState()),
+                resource.getStructureId().toString()});
+        }
 
-            if ((changed == CmsDriverManager.UPDATE_STRUCTURE)
-                || (changed == CmsDriverManager.UPDATE_ALL)
-                || (changed == CmsDriverManager.UPDATE_STRUCTURE_STATE)) {
-                stmt = m_sqlManager.getPreparedStatement(conn, project, "C_RESOURCES_UPDATE_STRUCTURE_STATE");
-                stmt.setInt(1, resource.getState().getState());
-                stmt.setString(2, resource.getStructureId().toString());
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
-            }
+        if ((changed == CmsDriverManager.UPDATE_STRUCTURE) || (changed == CmsDriverManager.UPDATE_ALL)) {
+            statements.put("C_RESOURCES_UPDATE_RELEASE_EXPIRED", new Object[] {
+                new Long(resource.getDateReleased()),
+                new Long(resource.getDateExpired()),
+                resource.getStructureId().toString()});
+        }
 
-            if ((changed == CmsDriverManager.UPDATE_STRUCTURE) || (changed == CmsDriverManager.UPDATE_ALL)) {
-                stmt = m_sqlManager.getPreparedStatement(conn, project, "C_RESOURCES_UPDATE_RELEASE_EXPIRED");
-                stmt.setLong(1, resource.getDateReleased());
-                stmt.setLong(2, resource.getDateExpired());
-                stmt.setString(3, resource.getStructureId().toString());
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
+        CmsSqlBatch batch = isPublishing ? CmsSqlBatch.getBatch(dbc) : null;
+        if (batch != null) {
+            // the offline state of a published resource is not read again while publishing
+            for (Map.Entry<String, Object[]> statement : statements.entrySet()) {
+                batch.add(m_sqlManager.readQuery(project, statement.getKey()), statement.getValue());
+            }
+        } else {
+            PreparedStatement stmt = null;
+            Connection conn = null;
+            try {
+                conn = m_sqlManager.getConnection(dbc);
+                for (Map.Entry<String, Object[]> statement : statements.entrySet()) {
+                    stmt = m_sqlManager.getPreparedStatement(conn, project, statement.getKey());
+                    CmsSqlBatch.setParameters(m_sqlManager, stmt, statement.getValue());
+                    stmt.executeUpdate();
+                    m_sqlManager.closeAll(dbc, null, stmt, null);
+                    stmt = null;
+                }
+            } catch (SQLException e) {
+                throw new CmsDbSqlException(Messages.get().container(
+                    Messages.ERR_GENERIC_SQL_1,
+                    CmsDbSqlException.getErrorQuery(stmt)), e);
+            } finally {
+                m_sqlManager.closeAll(dbc, conn, stmt, null);
             }
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(Messages.get().container(
-                Messages.ERR_GENERIC_SQL_1,
-                CmsDbSqlException.getErrorQuery(stmt)), e);
-        } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
         }
 
         if (isPublishing) {
@@ -3586,6 +3725,39 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Adds the contents selected by the given statement to the content statistics.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param stmt the statement selecting the contents, closed by this method
+     * @param store the content store used to analyze the contents
+     * @param statistics the statistics to add the contents to
+     *
+     * @throws SQLException if something goes wrong
+     */
+    protected void internalAddContentStatistics(
+        CmsDbContext dbc,
+        Connection conn,
+        PreparedStatement stmt,
+        CmsContentStore store,
+        CmsContentStatistics statistics) throws SQLException {
+
+        ResultSet res = null;
+        try {
+            res = stmt.executeQuery();
+            while (res.next()) {
+                store.addStatistics(
+                    dbc,
+                    conn,
+                    m_sqlManager.getBinaryStream(res, m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT")),
+                    statistics);
+            }
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+        }
+    }
+
     /**
      * Returns the count of properties for a property definition.<p>
      *
@@ -3676,6 +3848,83 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new CmsUrlNameMappingEntry(name, structureId, state, dateChanged, locale);
     }
 
+    /**
+     * Executes the write statement with the given query key, or queues it in the batch attached to 
+     * the database context if it writes to the online project.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use, or <code>null</code> to get one if the statement is executed
+     * @param projectId the id of the project the statement writes to
+     * @param queryKey the key of the SQL query
+     * @param params the statement parameters
+     *
+     * @return the used connection, which has to be closed by the caller
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     *
+     * @see #internalExecuteUpdateForSql(CmsDbContext, Connection, CmsUUID, String, Object[])
+     */
+    protected Connection internalExecuteUpdate(
+        CmsDbContext dbc,
+        Connection conn,
+        CmsUUID projectId,
+        String queryKey,
+        Object[] params) throws CmsDataAccessException {
+
+        return internalExecuteUpdateForSql(dbc, conn, projectId, m_sqlManager.readQuery(projectId, queryKey), params);
+    }
+
+    /**
+     * Executes the given write statement, or queues it in the batch attached to the database context
+     * if it writes to the online project.<p>
+     *
+     * While publishing, the online tables are written with a {@link CmsSqlBatch}. The queued statements
+     * are executed where the project driver reads them again, see {@link CmsSqlManager#flushBatch(CmsDbContext)},
+     * so all statements queued in between are sent to the database together.
+     * A connection is only taken if the statement is executed immediately.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use, or <code>null</code> to get one if the statement is executed
+     * @param projectId the id of the project the statement writes to
+     * @param sql the SQL statement, with the project pattern already replaced
+     * @param params the statement parameters
+     *
+     * @return the used connection, which has to be closed by the caller
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected Connection internalExecuteUpdateForSql(
+        CmsDbContext dbc,
+        Connection conn,
+        CmsUUID projectId,
+        String sql,
+        Object[] params) throws CmsDataAccessException {
+
+        CmsSqlBatch batch = CmsSqlBatch.getBatch(dbc);
+        if ((batch != null) && CmsProject.ONLINE_PROJECT_ID.equals(projectId)) {
+            batch.add(sql, params, true);
+            return conn;
+        }
+        Connection usedConn = conn;
+        PreparedStatement stmt = null;
+        boolean success = false;
+        try {
+            if (usedConn == null) {
+                usedConn = m_sqlManager.getConnection(dbc);
+            }
+            stmt = m_sqlManager.getPreparedStatementForSql(usedConn, sql);
+            CmsSqlBatch.setParameters(m_sqlManager, stmt, params);
+            stmt.executeUpdate();
+            success = true;
+        } catch (SQLException e) {
+            throw wrapException(stmt, e);
+        } finally {
+            // a connection taken here is returned to the caller only if no error occurred
+            m_sqlManager.closeAll(dbc, (success || (conn != null)) ? null : usedConn, stmt, null);
+        }
+        return usedConn;
+    }
+
     /**
      * Increments a counter.<p>
      *
@@ -3719,6 +3968,29 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new CmsAlias(new CmsUUID(structId), siteRoot, path, CmsAliasMode.fromInt(mode));
     }
 
+    /**
+     * Reads the content store reference of the content selected by the given query.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param queryKey the key of the query selecting the content by resource id
+     * @param resourceId the resource id
+     *
+     * @return the reference, or <code>null</code> if there is no content or the content is stored inline
+     *
+     * @throws SQLException if something goes wrong
+     */
+    protected byte[] internalReadContentReference(
+        CmsDbContext dbc,
+        Connection conn,
+        String queryKey,
+        CmsUUID resourceId) throws SQLException {
+
+        PreparedStatement stmt = m_sqlManager.getPreparedStatement(conn, queryKey);
+        stmt.setString(1, resourceId.toString());
+        return m_contentStore.readReference(dbc, stmt);
+    }
+
     /**
      * Reads the current value of a counter.<p>
      *
@@ -3807,6 +4079,65 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return parentId;
     }
 
+    /**
+     * Reads the definition of the given property, and creates it if the property allows that.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project to read the definition from
+     * @param property the property
+     *
+     * @return the property definition
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected CmsPropertyDefinition internalReadPropertyDefinition(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        CmsProperty property) throws CmsDataAccessException {
+
+        // TODO: check if we need autocreation for link property definition types too
+        CmsPropertyDefinition propertyDefinition = null;
+        try {
+            // read the property definition
+            propertyDefinition = readPropertyDefinition(dbc, property.getName(), projectId);
+        } catch (CmsDbEntryNotFoundException e) {
+            if (property.autoCreatePropertyDefinition()) {
+                propertyDefinition = createPropertyDefinition(
+                    dbc,
+                    projectId,
+                    property.getName(),
+                    CmsPropertyDefinition.TYPE_NORMAL);
+                try {
+                    readPropertyDefinition(dbc, property.getName(), CmsProject.ONLINE_PROJECT_ID);
+                } catch (CmsDataAccessException e1) {
+                    createPropertyDefinition(
+                        dbc,
+                        CmsProject.ONLINE_PROJECT_ID,
+                        property.getName(),
+                        CmsPropertyDefinition.TYPE_NORMAL);
+                }
+                try {
+                    m_driverManager.getHistoryDriver(dbc).readPropertyDefinition(dbc, property.getName());
+                } catch (CmsDataAccessException e1) {
+                    m_driverManager.getHistoryDriver(dbc).createPropertyDefinition(
+                        dbc,
+                        property.getName(),
+                        CmsPropertyDefinition.TYPE_NORMAL);
+                }
+                OpenCms.fireCmsEvent(new CmsEvent(
+                    I_CmsEventListener.EVENT_PROPERTY_DEFINITION_CREATED,
+                    Collections.<String, Object> singletonMap("propertyDefinition", propertyDefinition)));
+
+            } else {
+                throw new CmsDbEntryNotFoundException(Messages.get().container(
+                    Messages.ERR_NO_PROPERTYDEF_WITH_NAME_1,
+                    property.getName()));
+            }
+        }
+
+        return propertyDefinition;
+    }
+
     /**
      * Creates a new {@link CmsRelation} object from the given result set entry.<p>
      *
@@ -3906,6 +4237,26 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return state;
     }
 
+    /**
+     * Releases the content store references of the contents selected by the given query.<p>
+     *
+     * This has to be called before the selected content rows are deleted.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param queryKey the key of the query selecting the contents by resource id
+     * @param resourceId the resource id
+     *
+     * @throws SQLException if something goes wrong
+     */
+    protected void internalReleaseContents(CmsDbContext dbc, Connection conn, String queryKey, CmsUUID resourceId)
+    throws SQLException {
+
+        PreparedStatement stmt = m_sqlManager.getPreparedStatement(conn, queryKey);
+        stmt.setString(1, resourceId.toString());
+        m_contentStore.releaseAll(dbc, conn, stmt);
+    }
+
     /**
      * Removes a resource physically in the database.<p>
      *
@@ -3944,6 +4295,29 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Resolves a content read from a result set, if it is a content store reference.<p>
+     *
+     * @param content the content as stored in the content tables
+     *
+     * @return the resolved content
+     *
+     * @throws SQLException if the referenced content could not be read
+     */
+    protected byte[] internalResolveContent(byte[] content) throws SQLException {
+
+        if (!CmsContentStore.isReference(content)) {
+            return content;
+        }
+        try {
+            return m_contentStore.resolve(new CmsDbContext(), content);
+        } catch (CmsDataAccessException e) {
+            SQLException ex = new SQLException(e.getLocalizedMessage());
+            ex.initCause(e);
+            throw ex;
+        }
+    }
+
     /**
      * Updates the offline version numbers.<p>
      *
@@ -3972,6 +4346,17 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         int onlineStructureVersion = onlineVersions.get("structure").intValue();
         int onlineResourceVersion = onlineVersions.get("resource").intValue();
 
+        CmsSqlBatch batch = CmsSqlBatch.getBatch(dbc);
+        if (batch != null) {
+            batch.add(
+                m_sqlManager.readQuery(dbc.currentProject(), "C_RESOURCES_UPDATE_RESOURCE_VERSION"),
+                new Object[] {new Integer(onlineResourceVersion), resource.getResourceId().toString()});
+            batch.add(
+                m_sqlManager.readQuery(dbc.currentProject(), "C_RESOURCES_UPDATE_STRUCTURE_VERSION"),
+                new Object[] {new Integer(onlineStructureVersion), resource.getStructureId().toString()});
+            return;
+        }
+
         Connection conn = null;
         PreparedStatement stmt = null;
         ResultSet res = null;
@@ -4027,6 +4412,113 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             resource.getRootPath()));
     }
 
+    /**
+     * Writes the structure and resource values of a property, if they differ from the existing values.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project to write the values to
+     * @param resource the resource to write the values for
+     * @param property the property to write
+     * @param propertyDefinition the definition of the property
+     * @param existingProperty the existing values of the property
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalWritePropertyValues(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        CmsResource resource,
+        CmsProperty property,
+        CmsPropertyDefinition propertyDefinition,
+        CmsProperty existingProperty) throws CmsDataAccessException {
+
+        if (existingProperty.isIdentical(property)) {
+            // property already has the identical values set, no write required
+            return;
+        }
+
+        Connection conn = null;
+
+        try {
+            for (int i = 0; i < 2; i++) {
+                int mappingType = -1;
+                String value = null;
+                CmsUUID id = null;
+                boolean existsPropertyValue = false;
+                boolean deletePropertyValue = false;
+
+                // 1) take any required decisions to choose and fill the correct SQL query
+
+                if (i == 0) {
+                    // write/delete the *structure value* on the first cycle
+                    if ((existingProperty.getStructureValue() != null) && property.isDeleteStructureValue()) {
+                        // this property value is marked to be deleted
+                        deletePropertyValue = true;
+                    } else {
+                        value = property.getStructureValue();
+                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
+                            // no structure value set or the structure value is an empty string,
+                            // continue with the resource value
+                            continue;
+                        }
+                    }
+
+                    // set the vars to be written to the database
+                    mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
+                    id = resource.getStructureId();
+                    existsPropertyValue = existingProperty.getStructureValue() != null;
+                } else {
+                    // write/delete the *resource value* on the second cycle
+                    if ((existingProperty.getResourceValue() != null) && property.isDeleteResourceValue()) {
+                        // this property value is marked to be deleted
+                        deletePropertyValue = true;
+                    } else {
+                        value = property.getResourceValue();
+                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
+                            // no resource value set or the resource value is an empty string,
+                            // break out of the loop
+                            break;
+                        }
+                    }
+
+                    // set the vars to be written to the database
+                    mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
+                    id = resource.getResourceId();
+                    existsPropertyValue = existingProperty.getResourceValue() != null;
+                }
+
+                // 2) execute the SQL query
+                if (!deletePropertyValue) {
+                    // insert/update the property value
+                    if (existsPropertyValue) {
+                        // {structure|resource} property value already exists- use update statement
+                        conn = internalExecuteUpdate(dbc, conn, projectId, "C_PROPERTIES_UPDATE", new Object[] {
+                            m_sqlManager.validateEmpty(value),
+                            id.toString(),
+                            new Integer(mappingType),
+                            propertyDefinition.getId().toString()});
+                    } else {
+                        // {structure|resource} property value doesn't exist- use create statement
+                        conn = internalExecuteUpdate(dbc, conn, projectId, "C_PROPERTIES_CREATE", new Object[] {
+                            new CmsUUID().toString(),
+                            propertyDefinition.getId().toString(),
+                            id.toString(),
+                            new Integer(mappingType),
+                            m_sqlManager.validateEmpty(value)});
+                    }
+                } else {
+                    // {structure|resource} property value marked as deleted- use delete statement
+                    conn = internalExecuteUpdate(dbc, conn, projectId, "C_PROPERTIES_DELETE", new Object[] {
+                        propertyDefinition.getId().toString(),
+                        id.toString(),
+                        new Integer(mappingType)});
+                }
+            }
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, null, null);
+        }
+    }
+
     /**
      * Moves all relations of a resource to the new path.<p>
      *
@@ -4610,21 +5102,13 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     protected void updateBrokenRelations(CmsDbContext dbc, CmsUUID projectId, String rootPath)
     throws CmsDataAccessException {
 
-        PreparedStatement stmt = null;
-        Connection conn = null;
-
-        try {
-            conn = m_sqlManager.getConnection(dbc);
-            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RELATIONS_UPDATE_BROKEN");
-            stmt.setString(1, rootPath);
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(Messages.get().container(
-                Messages.ERR_GENERIC_SQL_1,
-                CmsDbSqlException.getErrorQuery(stmt)), e);
-        } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
-        }
+        Connection conn = internalExecuteUpdate(
+            dbc,
+            null,
+            projectId,
+            "C_RELATIONS_UPDATE_BROKEN",
+            new Object[] {rootPath});
+        m_sqlManager.closeAll(dbc, conn, null, null);
     }
 
     /**
@@ -37,6 +37,9 @@ import org.opencms.i18n.I_CmsMessageBundle;
  */
 public final class Messages extends A_CmsMessageBundle {
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CONTENT_STORE_MISSING_1 = "ERR_CONTENT_STORE_MISSING_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_COUNTING_PROPERTIES_1 = "ERR_COUNTING_PROPERTIES_1";
 
@@ -241,6 +244,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_WRITING_HISTORY_OF_PROJECT_1 = "ERR_WRITING_HISTORY_OF_PROJECT_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_WRITING_PUBLISH_BATCH_1 = "ERR_WRITING_PUBLISH_BATCH_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_WRITING_TO_OUTPUT_STREAM_1 = "ERR_WRITING_TO_OUTPUT_STREAM_1";
 
@@ -277,6 +283,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_ASSIGNED_POOL_1 = "INIT_ASSIGNED_POOL_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_ASSIGNED_REPLICA_POOL_2 = "INIT_ASSIGNED_REPLICA_POOL_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_CONTENT_STORE_ENABLED_0 = "INIT_CONTENT_STORE_ENABLED_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_DEFAULT_USERS_CREATED_0 = "INIT_DEFAULT_USERS_CREATED_0";
 
@@ -409,6 +421,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_REMOVING_VISITEDLOG_1 = "LOG_REMOVING_VISITEDLOG_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SQL_BATCH_FAILED_1 = "LOG_SQL_BATCH_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SQL_MANAGER_INIT_FAILED_1 = "LOG_SQL_MANAGER_INIT_FAILED_1";
 
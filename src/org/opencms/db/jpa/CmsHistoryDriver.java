@@ -34,6 +34,7 @@ import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbEntryNotFoundException;
 import org.opencms.db.CmsDbSqlException;
 import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsHistoryPurgeChunk;
 import org.opencms.db.CmsResourceState;
 import org.opencms.db.I_CmsDriver;
 import org.opencms.db.I_CmsHistoryDriver;
@@ -71,7 +72,9 @@ import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -197,12 +200,18 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
     /** Query key. */
     private static final String C_STRUCTURE_HISTORY_MAXVER_BYTIME = "C_STRUCTURE_HISTORY_MAXVER_BYTIME";
 
+    /** Query key. */
+    private static final String C_STRUCTURE_HISTORY_READ_CHUNK = "C_STRUCTURE_HISTORY_READ_CHUNK";
+
     /** Query key. */
     private static final String C_STRUCTURE_HISTORY_READ_DELETED = "C_STRUCTURE_HISTORY_READ_DELETED";
 
     /** Query key. */
     private static final String C_STRUCTURE_HISTORY_READ_NOTDELETED = "C_STRUCTURE_HISTORY_READ_NOTDELETED";
 
+    /** Query key. */
+    private static final String C_STRUCTURE_HISTORY_READ_ONLINE_RANGE = "C_STRUCTURE_HISTORY_READ_ONLINE_RANGE";
+
     /** Query key. */
     private static final String C_STRUCTURE_HISTORY_READ_SUBRESOURCES = "C_STRUCTURE_HISTORY_READ_SUBRESOURCES";
 
@@ -370,6 +379,66 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsHistoryDriver#deleteEntries(CmsDbContext, CmsUUID, int, int, int, long)
+     */
+    public CmsHistoryPurgeChunk deleteEntries(
+        CmsDbContext dbc,
+        CmsUUID startAfter,
+        int chunkSize,
+        int versionsToKeep,
+        int versionsDeleted,
+        long timeDeleted) throws CmsDataAccessException {
+
+        if (startAfter == null) {
+            startAfter = CmsUUID.getNullUUID();
+        }
+        Map<CmsUUID, Integer> versions = new LinkedHashMap<CmsUUID, Integer>();
+        Set<CmsUUID> onlineIds = new HashSet<CmsUUID>();
+        CmsUUID lastStructureId = null;
+        try {
+            // read the next chunk, keyset paginated by structure id
+            Query q = m_sqlManager.createQuery(dbc, C_STRUCTURE_HISTORY_READ_CHUNK);
+            q.setParameter(1, startAfter.toString());
+            q.setMaxResults(chunkSize);
+            @SuppressWarnings("unchecked")
+            List<Object[]> res = q.getResultList();
+            for (Object[] o : res) {
+                lastStructureId = new CmsUUID((String)o[0]);
+                versions.put(lastStructureId, Integer.valueOf(CmsDataTypeUtil.numberToInt((Number)o[1])));
+            }
+            if (lastStructureId == null) {
+                return new CmsHistoryPurgeChunk(null, 0, 0);
+            }
+
+            // read which resources of the chunk are not deleted
+            q = m_sqlManager.createQuery(dbc, C_STRUCTURE_HISTORY_READ_ONLINE_RANGE);
+            q.setParameter(1, startAfter.toString());
+            q.setParameter(2, lastStructureId.toString());
+            @SuppressWarnings("unchecked")
+            List<String> ids = q.getResultList();
+            for (String id : ids) {
+                onlineIds.add(new CmsUUID(id));
+            }
+        } catch (PersistenceException e) {
+            throw new CmsDbSqlException(Messages.get().container(Messages.ERR_JPA_PERSITENCE_1, e), e);
+        }
+
+        int deleted = 0;
+        for (Map.Entry<CmsUUID, Integer> entry : versions.entrySet()) {
+            if (onlineIds.contains(entry.getKey())) {
+                if (versionsToKeep >= 0) {
+                    I_CmsHistoryResource histResource = readResource(dbc, entry.getKey(), entry.getValue().intValue());
+                    deleted += deleteEntries(dbc, histResource, versionsToKeep, -1);
+                }
+            } else if ((versionsDeleted >= 0) || (timeDeleted >= 0)) {
+                I_CmsHistoryResource histResource = readResource(dbc, entry.getKey(), entry.getValue().intValue());
+                deleted += deleteEntries(dbc, histResource, versionsDeleted, timeDeleted);
+            }
+        }
+        return new CmsHistoryPurgeChunk(lastStructureId, versions.size(), deleted);
+    }
+
     /** 
      * @see org.opencms.db.I_CmsHistoryDriver#deletePropertyDefinition(org.opencms.db.CmsDbContext, org.opencms.file.CmsPropertyDefinition)
      */
@@ -31,6 +31,7 @@ import org.opencms.configuration.CmsConfigurationManager;
 import org.opencms.configuration.CmsParameterConfiguration;
 import org.opencms.db.CmsAlias;
 import org.opencms.db.CmsAliasFilter;
+import org.opencms.db.CmsContentStatistics;
 import org.opencms.db.CmsDbConsistencyException;
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbEntryNotFoundException;
@@ -43,6 +44,7 @@ import org.opencms.db.CmsVfsOnlineResourceAlreadyExistsException;
 import org.opencms.db.I_CmsDriver;
 import org.opencms.db.I_CmsProjectDriver;
 import org.opencms.db.I_CmsVfsDriver;
+import org.opencms.db.generic.CmsContentStore;
 import org.opencms.db.generic.Messages;
 import org.opencms.db.jpa.persistence.CmsDAOAlias;
 import org.opencms.db.jpa.persistence.CmsDAOContents;
@@ -103,6 +105,8 @@ import org.opencms.util.CmsPair;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -130,6 +134,12 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Internal presentation of empty binary content. */
     public static final byte[] EMPTY_BLOB = new byte[0];
 
+    /** Query key. */
+    private static final String C_CONTENTS_READ_BY_KEY = "C_CONTENTS_READ_BY_KEY";
+
+    /** Query key. */
+    private static final String C_CONTENTS_READ_KEYS = "C_CONTENTS_READ_KEYS";
+
     /** Query key. */
     private static final String C_DELETE_RELATIONS = "C_DELETE_RELATIONS";
 
@@ -145,6 +155,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Query key. */
     private static final String C_MOVE_RELATIONS_TARGET = "C_MOVE_RELATIONS_TARGET";
 
+    /** Query key. */
+    private static final String C_OFFLINE_CONTENTS_READ_IDS = "C_OFFLINE_CONTENTS_READ_IDS";
+
     /** Query key. */
     private static final String C_OFFLINE_CONTENTS_UPDATE = "C_OFFLINE_CONTENTS_UPDATE";
 
@@ -1888,6 +1901,25 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readChildPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readChildPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        CmsResource folder) throws CmsDataAccessException {
+
+        // there is no single query for this in JPA, so the properties are read for each child
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>();
+        for (CmsResource child : readChildResources(dbc, project, folder, true, true)) {
+            List<CmsProperty> properties = readPropertyObjects(dbc, project, child);
+            if (!properties.isEmpty()) {
+                result.put(child.getStructureId(), properties);
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readChildResources(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, boolean, boolean)
      */
@@ -1982,6 +2014,54 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return byteRes == null ? EMPTY_BLOB : byteRes;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContentStatistics(org.opencms.db.CmsDbContext)
+     */
+    public CmsContentStatistics readContentStatistics(CmsDbContext dbc) throws CmsDataAccessException {
+
+        // the JPA driver does not use the content store, so all contents are stored inline
+        CmsContentStatistics result = new CmsContentStatistics(CmsContentStore.REFERENCE_LENGTH);
+        try {
+            // read the keys first and then the contents one by one, to avoid loading all contents at once
+            Query q = m_sqlManager.createQuery(dbc, C_OFFLINE_CONTENTS_READ_IDS);
+            @SuppressWarnings("unchecked")
+            List<String> offlineIds = q.getResultList();
+            for (String resourceId : offlineIds) {
+                CmsDAOOfflineContents c = m_sqlManager.find(dbc, CmsDAOOfflineContents.class, resourceId);
+                if (c != null) {
+                    internalAddContentStatistics(c.getFileContent(), result);
+                }
+            }
+
+            q = m_sqlManager.createQuery(dbc, C_CONTENTS_READ_KEYS);
+            @SuppressWarnings("unchecked")
+            List<Object[]> onlineKeys = q.getResultList();
+            for (Object[] key : onlineKeys) {
+                q = m_sqlManager.createQuery(dbc, C_CONTENTS_READ_BY_KEY);
+                q.setParameter(1, key[0]);
+                q.setParameter(2, key[1]);
+                try {
+                    internalAddContentStatistics(((CmsDAOContents)q.getSingleResult()).getFileContent(), result);
+                } catch (NoResultException e) {
+                    // the content has been deleted in the meantime
+                }
+            }
+        } catch (PersistenceException e) {
+            throw new CmsDataAccessException(Messages.get().container(Messages.ERR_JPA_PERSITENCE_1, e), e);
+        }
+        return result;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContentStream(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID)
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException {
+
+        // the JPA content entities always hold the complete content
+        return new ByteArrayInputStream(readContent(dbc, projectId, resourceId));
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -2242,6 +2322,35 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjectsForPaths(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<String, List<CmsProperty>> readPropertyObjectsForPaths(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<String> rootPaths) throws CmsDataAccessException {
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        // there is no single query for this in JPA, so the properties are read for each path
+        Map<String, List<CmsProperty>> result = new HashMap<String, List<CmsProperty>>();
+        for (String rootPath : rootPaths) {
+            CmsResource resource;
+            try {
+                resource = readResource(dbc, projectId, rootPath, true);
+            } catch (CmsVfsResourceNotFoundException e) {
+                continue;
+            }
+            List<CmsProperty> properties = readPropertyObjects(dbc, project, resource);
+            if (!properties.isEmpty()) {
+                result.put(rootPath, properties);
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -3508,6 +3617,20 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Adds a content to the content statistics.<p>
+     *
+     * @param content the content, may be <code>null</code> for an empty content
+     * @param statistics the statistics to add the content to
+     */
+    protected void internalAddContentStatistics(byte[] content, CmsContentStatistics statistics) {
+
+        if (content == null) {
+            content = EMPTY_BLOB;
+        }
+        statistics.addContent(CmsContentStore.getStorageHash(content), content.length, false);
+    }
+
     /**
      * Returns the count of properties for a property definition.<p>
      *
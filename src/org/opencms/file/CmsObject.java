@@ -27,6 +27,7 @@
 
 package org.opencms.file;
 
+import org.opencms.db.CmsContentStatistics;
 import org.opencms.db.CmsDbEntryNotFoundException;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsResourceState;
@@ -65,6 +66,8 @@ import org.opencms.util.CmsUUID;
 import org.opencms.workplace.CmsWorkplace;
 import org.opencms.xml.content.CmsNumberSuffixNameSequence;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -936,6 +939,39 @@ public final class CmsObject {
         m_securityManager.deleteHistoricalVersions(m_context, versionsToKeep, versionsDeleted, timeDeleted, report);
     }
 
+    /**
+     * Deletes the versions from the history tables in chunks of resources, keeping the given number of versions per resource.<p>
+     *
+     * Every chunk is deleted in its own transaction. If the deletion is interrupted, it can be resumed 
+     * after the last structure id written to the report.<p>
+     *
+     * @param versionsToKeep number of versions to keep, is ignored if negative
+     * @param versionsDeleted number of versions to keep for deleted resources, is ignored if negative
+     * @param timeDeleted deleted resources older than this will also be deleted, is ignored if negative
+     * @param startAfter the structure id to resume after, or <code>null</code> to start with the first resource
+     * @param chunkSize the maximal number of resources per chunk
+     * @param report the report for output logging
+     *
+     * @throws CmsException if operation was not successful
+     */
+    public void deleteHistoricalVersions(
+        int versionsToKeep,
+        int versionsDeleted,
+        long timeDeleted,
+        CmsUUID startAfter,
+        int chunkSize,
+        I_CmsReport report) throws CmsException {
+
+        m_securityManager.deleteHistoricalVersions(
+            m_context,
+            versionsToKeep,
+            versionsDeleted,
+            timeDeleted,
+            startAfter,
+            chunkSize,
+            report);
+    }
+
     /**
      * Deletes the log entries matching the given filter.<p>
      *
@@ -2292,6 +2328,43 @@ public final class CmsObject {
         return m_securityManager.readBestUrlName(m_context, id, locale, defaultLocales);
     }
 
+    /**
+     * Reads the property objects directly attached to all child resources of a folder.<p>
+     *
+     * This is more efficient than calling <code>{@link CmsObject#readPropertyObjects(CmsResource, boolean)}</code>
+     * for every child, since the properties of all children are read with a single database query.<p>
+     *
+     * The result contains an entry for every child resource, regardless of the current users permissions
+     * on that child. All properties in the result lists will be in frozen (read only) state.<p>
+     *
+     * @param folder the parent folder
+     *
+     * @return the property objects of all child resources, by structure id
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readChildPropertyObjects(CmsResource folder) throws CmsException {
+
+        return m_securityManager.readChildPropertyObjects(m_context, folder);
+    }
+
+    /**
+     * Reads statistics about the offline, online and historical file contents,
+     * used to estimate the savings of storing every distinct content only once.<p>
+     *
+     * This reads every content in the database, so it should only be used in maintenance jobs.<p>
+     *
+     * @return the content statistics
+     *
+     * @throws CmsException if something goes wrong, for example if the user is not a database manager
+     *
+     * @see CmsSecurityManager#readContentStatistics(CmsRequestContext)
+     */
+    public CmsContentStatistics readContentStatistics() throws CmsException {
+
+        return m_securityManager.readContentStatistics(m_context);
+    }
+
     /**
      * Returns the default resource for the given folder.<p>
      * <ol>
@@ -2441,6 +2514,36 @@ public final class CmsObject {
         return m_securityManager.readFile(m_context, resource);
     }
 
+    /**
+     * Returns a stream on the binary content of a file resource.<p>
+     *
+     * In contrast to <code>{@link #readFile(CmsResource)}</code>, the content is not read into memory 
+     * as a whole, but streamed from the database where the database driver supports this. 
+     * Use this for large binary files that are only copied to some output, e.g. a response.<p>
+     *
+     * The returned stream may hold database resources until it is closed, so it must always be closed
+     * by the caller.<p>
+     *
+     * @param resource the file resource to read the content for
+     *
+     * @return a stream on the content of the file
+     *
+     * @throws CmsException if the content could not be read for any reason
+     *
+     * @see #readFile(CmsResource)
+     */
+    public InputStream readFileContentStream(CmsResource resource) throws CmsException {
+
+        if ((resource instanceof CmsFile) && (((CmsFile)resource).getContents() != null)) {
+            CmsFile file = (CmsFile)resource;
+            if (file.getContents().length > 0) {
+                // file has the contents already available
+                return new ByteArrayInputStream(file.getContents());
+            }
+        }
+        return m_securityManager.readFileContentStream(m_context, resource);
+    }
+
     /**
      * Reads a file resource (including it's binary content) from the VFS,
      * using the <code>{@link CmsResourceFilter#DEFAULT}</code> filter.<p>
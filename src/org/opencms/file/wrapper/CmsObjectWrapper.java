@@ -37,6 +37,8 @@ import org.opencms.file.CmsResource.CmsResourceDeleteMode;
 import org.opencms.file.CmsResourceFilter;
 import org.opencms.file.CmsUser;
 import org.opencms.file.I_CmsResource;
+import org.opencms.file.types.CmsResourceTypeBinary;
+import org.opencms.file.types.CmsResourceTypeImage;
 import org.opencms.file.types.CmsResourceTypeJsp;
 import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
@@ -52,6 +54,8 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.util.CmsUUID;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -580,6 +584,34 @@ public class CmsObjectWrapper {
         return res;
     }
 
+    /**
+     * Returns a stream on the content of the given file resource.<p>
+     * 
+     * The content of binary and image resources is not changed by any resource wrapper, so it is 
+     * streamed directly from the VFS. The content of all other resources is read with 
+     * {@link #readFile(String, CmsResourceFilter)}, so that the resource wrappers and the UTF-8 marker 
+     * are applied.<p>
+     * 
+     * The returned stream must always be closed by the caller.<p>
+     * 
+     * @param resource the file resource to read the content for
+     * 
+     * @return a stream on the content of the file
+     * 
+     * @throws CmsException if something goes wrong
+     * 
+     * @see CmsObject#readFileContentStream(CmsResource)
+     */
+    public InputStream readFileContentStream(CmsResource resource) throws CmsException {
+
+        int typeId = resource.getTypeId();
+        if ((typeId == CmsResourceTypeBinary.getStaticTypeId()) || (typeId == CmsResourceTypeImage.getStaticTypeId())) {
+            return m_cms.readFileContentStream(resource);
+        }
+        CmsFile file = readFile(m_cms.getSitePath(resource), CmsResourceFilter.IGNORE_EXPIRATION);
+        return new ByteArrayInputStream(file.getContents());
+    }
+
     /**
      * Delegate method for {@link CmsObject#readPropertyObject(CmsResource, String, boolean)}.<p>
      * 
@@ -27,10 +27,17 @@
 
 package org.opencms.flex;
 
+import org.opencms.ade.configuration.CmsADEManager;
+import org.opencms.ade.configuration.formatters.CmsFormatterConfigurationCache;
 import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.I_CmsLruCacheObject;
+import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeJsp;
+import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
 import org.opencms.loader.CmsJspLoader;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
@@ -38,13 +45,16 @@ import org.opencms.security.CmsRole;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -88,8 +98,11 @@ import org.apache.commons.logging.Log;
  * </ul>
  *
  * Cache clearing is handled using events.
- * The cache is fully flushed if an event {@link I_CmsEventListener#EVENT_PUBLISH_PROJECT} 
- * or {@link I_CmsEventListener#EVENT_CLEAR_CACHES} is caught.<p>
+ * The cache is fully flushed if an event {@link I_CmsEventListener#EVENT_CLEAR_CACHES} is caught.
+ * If an event {@link I_CmsEventListener#EVENT_PUBLISH_PROJECT} is caught, only the entries 
+ * that depend on the published resources are removed, see {@link CmsFlexCacheDependencies}.
+ * The cache is fully flushed if the published resources can not be read, or if resources 
+ * are published that are not tracked as dependencies, like JSPs or configuration files.<p>
  * 
  * @since 6.0.0 
  * 
@@ -214,6 +227,14 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexCache.class);
 
+    /** The names of the resource types that are read into other caches, publishing them clears the complete cache. */
+    private static final String[] UNTRACKED_TYPES = {
+        CmsADEManager.CONFIG_TYPE,
+        CmsADEManager.ELEMENT_VIEW_TYPE,
+        CmsADEManager.MODULE_CONFIG_TYPE,
+        CmsFormatterConfigurationCache.TYPE_FORMATTER_CONFIG,
+        CmsResourceTypeXmlContainerPage.INHERIT_CONTAINER_CONFIG_TYPE_NAME};
+
     /** The LRU cache to organize the cached entries. */
     protected CmsLruCache m_variationCache;
 
@@ -226,6 +247,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** Map to store the entries for fast lookup. */
     private Map<String, CmsFlexCacheVariation> m_keyCache;
 
+    /** The context used to read the published resources. */
+    private CmsObject m_publishCms;
+
     /** Counter for the size. */
     private int m_size;
 
@@ -297,6 +321,12 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
 
         switch (event.getType()) {
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(
+                        Messages.LOG_FLEXCACHE_RECEIVED_EVENT_CLEAR_CACHE_PARTIALLY_0));
+                }
+                clearPublished(event);
+                break;
             case I_CmsEventListener.EVENT_CLEAR_CACHES:
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_RECEIVED_EVENT_CLEAR_CACHE_0));
@@ -820,6 +850,67 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         clearAccordingToSuffix(CACHE_ONLINESUFFIX, true);
     }
 
+    /**
+     * Removes all entries that depend on the resources published in the publish job of the given event.<p>
+     * 
+     * The complete cache is cleared if the published resources can not be read, 
+     * or if resources have been published that are not tracked as dependencies.<p>
+     * 
+     * @param event the publish event
+     */
+    private void clearPublished(org.opencms.main.CmsEvent event) {
+
+        List<CmsPublishedResource> publishedResources = readPublishedResources(event);
+        if ((publishedResources == null) || publishedResources.isEmpty()) {
+            // the event is not coming from a normal publish process, so clear everything to be on the safe side
+            clear();
+            return;
+        }
+        Set<String> paths = new HashSet<String>();
+        Set<CmsUUID> ids = new HashSet<CmsUUID>();
+        Set<CmsUUID> resourceIds = new HashSet<CmsUUID>();
+        List<String> folders = new ArrayList<String>();
+        for (CmsPublishedResource res : publishedResources) {
+            if (!isTracked(res)) {
+                clear();
+                return;
+            }
+            paths.add(res.getRootPath());
+            ids.add(res.getStructureId());
+            if (res.getResourceId() != null) {
+                resourceIds.add(res.getResourceId());
+            }
+            if (res.isFolder()) {
+                folders.add(res.getRootPath());
+            }
+        }
+        removeDependentEntries(paths, ids, resourceIds, folders);
+    }
+
+    /**
+     * Checks if a published resource is tracked as dependency of the cache entries.<p>
+     * 
+     * JSPs, resources in the system folder and configuration files are not tracked,
+     * since they are used by all entries, or read into other caches.<p>
+     * 
+     * @param res the published resource
+     * 
+     * @return <code>true</code> if the published resource is tracked as dependency
+     */
+    private boolean isTracked(CmsPublishedResource res) {
+
+        if (CmsResourceTypeJsp.isJspTypeId(res.getType())
+            || res.getRootPath().startsWith(CmsResource.VFS_FOLDER_SYSTEM + "/")) {
+            return false;
+        }
+        for (String typeName : UNTRACKED_TYPES) {
+            if (OpenCms.getResourceManager().matchResourceType(typeName, res.getType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * This method purges the JSP repository dirs,
      * i.e. it deletes all JSP files that OpenCms has written to the
@@ -851,6 +942,71 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Reads the resources published in the publish job of the given event.<p>
+     * 
+     * @param event the publish event
+     * 
+     * @return the published resources, or <code>null</code> if they could not be read
+     */
+    private List<CmsPublishedResource> readPublishedResources(org.opencms.main.CmsEvent event) {
+
+        Map<String, ?> data = event.getData();
+        String publishId = (data != null) ? (String)data.get(I_CmsEventListener.KEY_PUBLISHID) : null;
+        if (publishId == null) {
+            return null;
+        }
+        try {
+            if (m_publishCms == null) {
+                m_publishCms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+            }
+            return m_publishCms.readPublishedResources(new CmsUUID(publishId));
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Removes all entries that depend on one of the given resources, 
+     * and all entries without dependency information.<p>
+     * 
+     * @param paths the root paths of the changed resources
+     * @param ids the structure ids of the changed resources
+     * @param resourceIds the resource ids of the changed resources
+     * @param folders the root paths of the changed folders
+     */
+    private synchronized void removeDependentEntries(
+        Set<String> paths,
+        Set<CmsUUID> ids,
+        Set<CmsUUID> resourceIds,
+        List<String> folders) {
+
+        int removed = 0;
+        // create new set to avoid ConcurrentModificationExceptions
+        Set<String> cacheKeys = new HashSet<String>(m_keyCache.keySet());
+        for (String key : cacheKeys) {
+            CmsFlexCacheVariation v = m_keyCache.get(key);
+            if ((v == null) || (v.m_map == null)) {
+                continue;
+            }
+            Iterator<I_CmsLruCacheObject> allEntries = v.m_map.values().iterator();
+            while (allEntries.hasNext()) {
+                I_CmsLruCacheObject nextObject = allEntries.next();
+                CmsFlexCacheDependencies dependencies = ((CmsFlexCacheEntry)nextObject).getDependencies();
+                if ((dependencies == null) || dependencies.isAffectedBy(paths, ids, resourceIds, folders)) {
+                    allEntries.remove();
+                    m_variationCache.remove(nextObject);
+                    m_size--;
+                    removed++;
+                }
+            }
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_PUBLISHED_1, new Integer(removed)));
+        }
+    }
+
     /**
      * Save a value to the cache.<p>
      *
@@ -0,0 +1,197 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Contains the VFS resources a Flex cache entry depends on.<p>
+ * 
+ * The dependencies are collected in the {@link CmsFlexRequestContextInfo} while the entry is generated, 
+ * and used to decide which entries must be removed from the Flex cache after a publish.<p>
+ * 
+ * If the output of an entry depends on data that can not be tracked, e.g. search results, 
+ * the dependencies are marked as untracked, and the entry is removed after every publish.<p>
+ * 
+ * @since 8.5.0 
+ */
+public class CmsFlexCacheDependencies {
+
+    /** The root paths of the folders whose contents have been read. */
+    private Set<String> m_folders;
+
+    /** The structure ids of the resources that have been read. */
+    private Set<CmsUUID> m_ids;
+
+    /** The root paths of the resources that have been read. */
+    private Set<String> m_paths;
+
+    /** The resource ids of the resources that have been read, shared by all siblings. */
+    private Set<CmsUUID> m_resourceIds;
+
+    /** Indicates if all dependencies have been tracked. */
+    private boolean m_tracked;
+
+    /**
+     * Creates a new, empty set of dependencies.<p>
+     */
+    public CmsFlexCacheDependencies() {
+
+        m_folders = new HashSet<String>();
+        m_ids = new HashSet<CmsUUID>();
+        m_paths = new HashSet<String>();
+        m_resourceIds = new HashSet<CmsUUID>();
+        m_tracked = true;
+    }
+
+    /**
+     * Adds a dependency on the contents of a folder, 
+     * i.e. a change of any resource below the folder affects the entry.<p>
+     * 
+     * @param rootPath the root path of the folder
+     */
+    public void addFolder(String rootPath) {
+
+        m_folders.add(rootPath.endsWith("/") ? rootPath : rootPath + "/");
+    }
+
+    /**
+     * Adds a dependency on a resource path, which must not exist yet.<p>
+     * 
+     * @param rootPath the root path of the resource
+     */
+    public void addPath(String rootPath) {
+
+        m_paths.add(rootPath);
+    }
+
+    /**
+     * Adds a dependency on a resource, including the content and properties it shares with its siblings.<p>
+     * 
+     * @param resource the resource
+     */
+    public void addResource(CmsResource resource) {
+
+        m_paths.add(resource.getRootPath());
+        m_ids.add(resource.getStructureId());
+        if (resource.getResourceId() != null) {
+            m_resourceIds.add(resource.getResourceId());
+        }
+    }
+
+    /**
+     * Checks if an entry with these dependencies is affected by a change of the given resources.<p>
+     * 
+     * @param paths the root paths of the changed resources
+     * @param ids the structure ids of the changed resources
+     * @param resourceIds the resource ids of the changed resources
+     * @param folders the root paths of the changed folders
+     * 
+     * @return <code>true</code> if an entry with these dependencies is affected
+     */
+    public boolean isAffectedBy(
+        Set<String> paths,
+        Set<CmsUUID> ids,
+        Set<CmsUUID> resourceIds,
+        Collection<String> folders) {
+
+        if (!m_tracked) {
+            return true;
+        }
+        for (CmsUUID id : m_ids) {
+            if (ids.contains(id)) {
+                return true;
+            }
+        }
+        for (CmsUUID resourceId : m_resourceIds) {
+            // a sibling has changed the content or the shared properties
+            if (resourceIds.contains(resourceId)) {
+                return true;
+            }
+        }
+        for (String path : m_paths) {
+            if (paths.contains(path)) {
+                return true;
+            }
+            // properties and permissions are inherited from the parent folders
+            for (String folder : folders) {
+                if (path.startsWith(folder)) {
+                    return true;
+                }
+            }
+        }
+        for (String folder : m_folders) {
+            // resources may have been created, deleted or moved in the folder
+            for (String path : paths) {
+                if (path.startsWith(folder)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if all dependencies have been tracked.<p>
+     * 
+     * @return <code>true</code> if all dependencies have been tracked
+     */
+    public boolean isTracked() {
+
+        return m_tracked;
+    }
+
+    /**
+     * Adds all dependencies of the given dependencies to these dependencies.<p>
+     * 
+     * @param other the dependencies to add
+     */
+    public void merge(CmsFlexCacheDependencies other) {
+
+        m_folders.addAll(other.m_folders);
+        m_ids.addAll(other.m_ids);
+        m_paths.addAll(other.m_paths);
+        m_resourceIds.addAll(other.m_resourceIds);
+        m_tracked = m_tracked && other.m_tracked;
+    }
+
+    /**
+     * Marks these dependencies as untracked, 
+     * which means an entry with these dependencies is affected by every change.<p>
+     */
+    public void setUntracked() {
+
+        m_tracked = false;
+    }
+}
@@ -89,6 +89,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** The "last modified" date for this Flex cache entry. */
     private long m_dateLastModified;
 
+    /** The VFS resources this Flex cache entry depends on. */
+    private CmsFlexCacheDependencies m_dependencies;
+
     /** The list of items for this resource. */
     private List<Object> m_elements;
 
@@ -263,6 +266,19 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_dateLastModified;
     }
 
+    /**
+     * Returns the VFS resources this Flex cache entry depends on.<p>
+     * 
+     * If no dependencies have been set, <code>null</code> is returned, 
+     * and the entry must be considered to depend on every resource.<p>
+     * 
+     * @return the VFS resources this Flex cache entry depends on, or <code>null</code>
+     */
+    public CmsFlexCacheDependencies getDependencies() {
+
+        return m_dependencies;
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
      */
@@ -465,6 +481,16 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         setDateLastModified(now - (daytime % timeoutMinutes));
     }
 
+    /**
+     * Sets the VFS resources this Flex cache entry depends on.<p>
+     * 
+     * @param dependencies the VFS resources this Flex cache entry depends on
+     */
+    public void setDependencies(CmsFlexCacheDependencies dependencies) {
+
+        m_dependencies = dependencies;
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
      */
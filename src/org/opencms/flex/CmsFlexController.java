@@ -488,6 +488,20 @@ public class CmsFlexController {
         return (m_flexContextInfoList.get(pos)).getDateLastModified();
     }
 
+    /**
+     * Returns the VFS resources read while generating the current response.<p>
+     * 
+     * @return the VFS resources read while generating the current response, or <code>null</code>
+     */
+    public CmsFlexCacheDependencies getDependencies() {
+
+        int pos = m_flexContextInfoList.size() - 1;
+        if (pos < 0) {
+            return null;
+        }
+        return (m_flexContextInfoList.get(pos)).getDependencies();
+    }
+
     /**
      * Returns the size of the response stack.<p>
      * 
@@ -709,6 +723,26 @@ public class CmsFlexController {
         (m_flexContextInfoList.get(pos)).updateDates(dateLastModified, dateExpires);
     }
 
+    /**
+     * Adds the given VFS resources to the resources read while generating the current response.<p>
+     * 
+     * This is required if output generated with a different controller, e.g. when dumping a resource, 
+     * becomes part of the current response. Since such a controller may share the request context with
+     * this controller, the context info of this controller is also attached to the request context again.<p> 
+     * 
+     * @param dependencies the VFS resources to add
+     */
+    public void updateDependencies(CmsFlexCacheDependencies dependencies) {
+
+        int pos = m_flexContextInfoList.size() - 1;
+        if ((pos < 0) || (dependencies == null)) {
+            // ensure a valid position is used
+            return;
+        }
+        (m_flexContextInfoList.get(pos)).getDependencies().merge(dependencies);
+        updateRequestContextInfo();
+    }
+
     /**
      * Updates the context info of the request context.<p>
      */
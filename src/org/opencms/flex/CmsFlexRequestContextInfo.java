@@ -27,7 +27,9 @@
 
 package org.opencms.flex;
 
+import org.opencms.file.CmsRequestContext;
 import org.opencms.file.CmsResource;
+import org.opencms.util.CmsRequestUtil;
 
 /**
  * Contains information about the OpenCms request context required by the 
@@ -36,12 +38,15 @@ import org.opencms.file.CmsResource;
  * An instance of this class is attached to every <code>CmsRequestContext</code> as 
  * an attribute as soon as the request context is wrapped in a flex response.
  * Information about the "last modified" and "expire" times of VFS resources are 
- * stored in this Object.<p> 
+ * stored in this Object, as well as the VFS resources the generated output depends on.<p> 
  * 
  * @since 6.0.0 
  */
 public class CmsFlexRequestContextInfo {
 
+    /** The VFS resources read in this request context. */
+    private CmsFlexCacheDependencies m_dependencies;
+
     /** The currently calculated "expires" date for this request context .*/
     private long m_dateExpires;
 
@@ -55,6 +60,33 @@ public class CmsFlexRequestContextInfo {
 
         // by default the expiration date is the max long value
         m_dateExpires = CmsResource.DATE_EXPIRED_DEFAULT;
+        m_dependencies = new CmsFlexCacheDependencies();
+    }
+
+    /**
+     * Marks the dependencies collected in the given request context as untracked.<p>
+     * 
+     * This must be called if the generated output depends on data that is not read from the VFS, 
+     * e.g. search results, so that Flex cache entries containing the output are removed after every publish.<p>
+     * 
+     * @param context the request context
+     */
+    public static void setDependenciesUntracked(CmsRequestContext context) {
+
+        Object info = context.getAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED);
+        if (info instanceof CmsFlexRequestContextInfo) {
+            ((CmsFlexRequestContextInfo)info).getDependencies().setUntracked();
+        }
+    }
+
+    /**
+     * Returns the VFS resources read in this context.<p>
+     * 
+     * @return the VFS resources read in this context
+     */
+    public CmsFlexCacheDependencies getDependencies() {
+
+        return m_dependencies;
     }
 
     /**
@@ -86,6 +118,7 @@ public class CmsFlexRequestContextInfo {
 
         updateDateLastModified(other.getDateLastModified());
         updateDateExpires(other.getDateExpires());
+        m_dependencies.merge(other.getDependencies());
     }
 
     /**
@@ -423,7 +423,8 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
 
                 entry = w_res.processCacheEntry();
                 if ((entry != null) && (variation != null) && w_req.isCacheable()) {
-                    // the result can be cached
+                    // the result can be cached, remember the resources read to remove it after they are published
+                    entry.setDependencies(controller.getDependencies());
                     if (w_res.getCmsCacheKey().getTimeout() > 0) {
                         // cache entry has a timeout, set last modified to time of last creation
                         entry.setDateLastModifiedToPreviousTimeout(w_res.getCmsCacheKey().getTimeout());
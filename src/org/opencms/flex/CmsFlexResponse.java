@@ -577,6 +577,16 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         return m_out.getBytes();
     }
 
+    /**
+     * Returns <code>true</code> if the output of this response is collected for the Flex cache.<p>
+     * 
+     * @return <code>true</code> if the output of this response is collected for the Flex cache
+     */
+    public boolean isCachingRequired() {
+
+        return m_cachingRequired;
+    }
+
     /** 
      * This flag indicates if the response is suspended or not.<p>
      * 
@@ -51,6 +51,7 @@ public abstract class A_CmsMessageBundle implements I_CmsMessageBundle {
             org.opencms.ade.sitemap.Messages.get(),
             org.opencms.ade.upload.Messages.get(),
             org.opencms.cache.Messages.get(),
+            org.opencms.cluster.Messages.get(),
             org.opencms.configuration.Messages.get(),
             org.opencms.db.Messages.get(),
             org.opencms.db.generic.Messages.get(),
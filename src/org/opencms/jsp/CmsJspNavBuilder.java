@@ -32,9 +32,13 @@ import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
+import org.opencms.flex.CmsFlexRequestContextInfo;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.security.CmsPermissionSet;
 import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsRequestUtil;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -419,26 +423,15 @@ public class CmsJspNavBuilder {
         Visibility visibility,
         CmsResourceFilter resourceFilter) {
 
-        folder = CmsFileUtil.removeTrailingSeparator(folder);
-        List<CmsJspNavElement> result = new ArrayList<CmsJspNavElement>();
-
-        List<CmsResource> resources = null;
-        try {
-
-            resources = m_cms.getResourcesInFolder(folder, resourceFilter);
-        } catch (Exception e) {
-            // should never happen
-            LOG.error(e.getLocalizedMessage(), e);
-        }
-        if (resources == null) {
+        List<CmsJspNavElement> elements = readNavigationElements(folder, resourceFilter, false);
+        if (elements == null) {
             return Collections.<CmsJspNavElement> emptyList();
         }
+        List<CmsJspNavElement> result = new ArrayList<CmsJspNavElement>();
         boolean includeAll = visibility == Visibility.all;
         boolean includeHidden = visibility == Visibility.includeHidden;
-        for (CmsResource r : resources) {
-            CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter);
-            if ((element != null)
-                && (includeAll || (element.isInNavigation() && (includeHidden || !element.isHiddenNavigationEntry())))) {
+        for (CmsJspNavElement element : elements) {
+            if (includeAll || (element.isInNavigation() && (includeHidden || !element.isHiddenNavigationEntry()))) {
                 result.add(element);
             }
         }
@@ -614,6 +607,68 @@ public class CmsJspNavBuilder {
         m_requestUriFolder = CmsResource.getFolderPath(m_requestUri);
     }
 
+    /**
+     * Creates a navigation element for the given resource.<p>
+     * 
+     * @param sitePath the site path of the resource
+     * @param resource the resource
+     * @param propertiesMap the properties directly attached to the resource
+     * @param resourceFilter the filter to use reading the resources
+     * @param shallow <code>true</code> for a shallow look up, not regarding next level resources
+     * 
+     * @return a navigation element for the given resource
+     */
+    private CmsJspNavElement createNavigationElement(
+        String sitePath,
+        CmsResource resource,
+        Map<String, String> propertiesMap,
+        CmsResourceFilter resourceFilter,
+        boolean shallow) {
+
+        int level = CmsResource.getPathLevel(sitePath);
+        if (sitePath.endsWith("/")) {
+            level--;
+        }
+        try {
+            if (resource.isFolder()) {
+                if (!sitePath.endsWith("/")) {
+                    sitePath = sitePath + "/";
+                }
+                if (!shallow
+                    && (NAVIGATION_LEVEL_FOLDER.equals(propertiesMap.get(CmsPropertyDefinition.PROPERTY_DEFAULT_FILE)))) {
+                    // this folder is marked as a navigation level, set the site path to the first sub element
+                    List<CmsJspNavElement> subElements = getNavigationForFolder(sitePath, false, resourceFilter, true);
+                    if (!subElements.isEmpty()) {
+                        CmsJspNavElement subElement = subElements.get(0);
+                        subElement = getNavigationForResource(subElement.getSitePath(), resourceFilter, false);
+                        sitePath = subElement.getSitePath();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // may happen if permissions are not sufficient
+            LOG.error(e.getLocalizedMessage(), e);
+            return null;
+        }
+
+        return new CmsJspNavElement(sitePath, resource, propertiesMap, level);
+    }
+
+    /**
+     * Returns the navigation cache for the current project.<p>
+     * 
+     * @return the navigation cache, or <code>null</code> if it is not available
+     */
+    private CmsJspNavCache getNavigationCache() {
+
+        if (OpenCms.getRunLevel() < OpenCms.RUNLEVEL_3_SHELL_ACCESS) {
+            // the ADE manager, which manages the navigation cache, is not available yet
+            return null;
+        }
+        return OpenCms.getADEManager().getNavigationCache(
+            m_cms.getRequestContext().getCurrentProject().isOnlineProject());
+    }
+
     /**
      * Collect all navigation elements from the files in the given folder.<p>
     *
@@ -630,21 +685,16 @@ public class CmsJspNavBuilder {
         CmsResourceFilter resourceFilter,
         boolean shallow) {
 
-        folder = CmsResource.getFolderPath(folder);
-        List<CmsJspNavElement> result = new ArrayList<CmsJspNavElement>();
-
-        List<CmsResource> resources;
-        try {
-            resources = m_cms.getResourcesInFolder(folder, resourceFilter);
-        } catch (Exception e) {
-            // should never happen
-            LOG.error(e.getLocalizedMessage(), e);
+        List<CmsJspNavElement> elements = readNavigationElements(
+            CmsResource.getFolderPath(folder),
+            resourceFilter,
+            shallow);
+        if (elements == null) {
             return Collections.<CmsJspNavElement> emptyList();
         }
-
-        for (CmsResource r : resources) {
-            CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter, shallow);
-            if ((element != null) && (includeInvisible || element.isInNavigation())) {
+        List<CmsJspNavElement> result = new ArrayList<CmsJspNavElement>();
+        for (CmsJspNavElement element : elements) {
+            if (includeInvisible || element.isInNavigation()) {
                 result.add(element);
             }
         }
@@ -666,35 +716,109 @@ public class CmsJspNavBuilder {
 
         CmsResource resource;
         Map<String, String> propertiesMap;
-        int level = CmsResource.getPathLevel(sitePath);
-        if (sitePath.endsWith("/")) {
-            level--;
-        }
         try {
             resource = m_cms.readResource(sitePath, resourceFilter);
             List<CmsProperty> properties = m_cms.readPropertyObjects(resource, false);
             propertiesMap = CmsProperty.toMap(properties);
-            if (resource.isFolder()) {
-                if (!sitePath.endsWith("/")) {
-                    sitePath = sitePath + "/";
-                }
-                if (!shallow
-                    && (NAVIGATION_LEVEL_FOLDER.equals(propertiesMap.get(CmsPropertyDefinition.PROPERTY_DEFAULT_FILE)))) {
-                    // this folder is marked as a navigation level, set the site path to the first sub element
-                    List<CmsJspNavElement> subElements = getNavigationForFolder(sitePath, false, resourceFilter, true);
-                    if (!subElements.isEmpty()) {
-                        CmsJspNavElement subElement = subElements.get(0);
-                        subElement = getNavigationForResource(subElement.getSitePath(), resourceFilter, false);
-                        sitePath = subElement.getSitePath();
-                    }
-                }
-            }
         } catch (Exception e) {
             // may happen if permissions are not sufficient
             LOG.error(e.getLocalizedMessage(), e);
             return null;
         }
+        return createNavigationElement(sitePath, resource, propertiesMap, resourceFilter, shallow);
+    }
 
-        return new CmsJspNavElement(sitePath, resource, propertiesMap, level);
+    /**
+     * Checks if the current user may read the given resource with the given filter.<p>
+     * 
+     * This is the same check that is applied when reading the resource, 
+     * and is used for the resources taken from the navigation cache.<p>
+     * 
+     * @param resource the resource to check
+     * @param resourceFilter the resource filter
+     * 
+     * @return <code>true</code> if the current user may read the resource
+     */
+    private boolean isReadable(CmsResource resource, CmsResourceFilter resourceFilter) {
+
+        if (!resourceFilter.isValid(m_cms.getRequestContext(), resource)) {
+            return false;
+        }
+        try {
+            return m_cms.hasPermissions(resource, CmsPermissionSet.ACCESS_READ, false, resourceFilter);
+        } catch (CmsException e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Creates the navigation elements for all resources in the given folder, 
+     * regardless of their navigation properties.<p>
+     * 
+     * If the navigation cache is available, the resources and their properties are taken from the cache
+     * and only filtered with the current users permissions, 
+     * otherwise the resources and their properties are read one by one.<p>
+     * 
+     * @param folder the site path of the folder
+     * @param resourceFilter the filter to use reading the resources
+     * @param shallow <code>true</code> for a shallow look up, not regarding next level resources
+     * 
+     * @return the unsorted navigation elements, or <code>null</code> if the folder could not be read
+     */
+    private List<CmsJspNavElement> readNavigationElements(
+        String folder,
+        CmsResourceFilter resourceFilter,
+        boolean shallow) {
+
+        List<CmsJspNavElement> result = new ArrayList<CmsJspNavElement>();
+        CmsJspNavCache cache = getNavigationCache();
+        if (cache == null) {
+            List<CmsResource> resources;
+            try {
+                resources = m_cms.getResourcesInFolder(CmsFileUtil.removeTrailingSeparator(folder), resourceFilter);
+            } catch (Exception e) {
+                // should never happen
+                LOG.error(e.getLocalizedMessage(), e);
+                return null;
+            }
+            for (CmsResource r : resources) {
+                CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter, shallow);
+                if (element != null) {
+                    result.add(element);
+                }
+            }
+            return result;
+        }
+
+        String folderRootPath = m_cms.getRequestContext().addSiteRoot(CmsFileUtil.addTrailingSeparator(folder));
+        // the cached resources are not read in this context, so update the Flex cache information here 
+        CmsFlexRequestContextInfo info = null;
+        Object infoAttribute = m_cms.getRequestContext().getAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED);
+        if (infoAttribute instanceof CmsFlexRequestContextInfo) {
+            info = (CmsFlexRequestContextInfo)infoAttribute;
+            info.getDependencies().addFolder(folderRootPath);
+        }
+        for (CmsJspNavCache.ChildResource child : cache.getChildren(folderRootPath)) {
+            CmsResource cachedResource = child.getCachedResource();
+            if (info != null) {
+                // must also include unreadable resources, since a resource may be invalid because of release / expiration date
+                info.updateFromResource(cachedResource);
+                info.getDependencies().addResource(cachedResource);
+            }
+            if (isReadable(cachedResource, resourceFilter)) {
+                CmsResource resource = child.getResource();
+                CmsJspNavElement element = createNavigationElement(
+                    m_cms.getSitePath(resource),
+                    resource,
+                    child.getPropertiesMap(),
+                    resourceFilter,
+                    shallow);
+                if (element != null) {
+                    result.add(element);
+                }
+            }
+        }
+        return result;
     }
 }
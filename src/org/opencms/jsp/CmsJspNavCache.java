@@ -0,0 +1,308 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.jsp;
+
+import org.opencms.ade.configuration.I_CmsGlobalConfigurationCache;
+import org.opencms.cache.CmsConcurrentLruMap;
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.CmsVfsResourceNotFoundException;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Cache for the data required by the {@link CmsJspNavBuilder}.<p>
+ *
+ * For each cached folder, this cache holds the child resources together with the properties directly
+ * attached to them. The children of a folder are read with one query for the resources and one query for
+ * all of their properties, see {@link CmsObject#readChildPropertyObjects(CmsResource)}.<p>
+ *
+ * The cached data is read with an administrator context and is shared between all users,
+ * so the navigation builder must still filter the children with the current users permissions.
+ * The cache is keyed by root path, so it serves all sites. One instance is used for the Online project
+ * and one for all offline projects, both are managed by the ADE manager and are updated through
+ * the {@link org.opencms.ade.configuration.CmsGlobalConfigurationCacheEventHandler}.<p>
+ *
+ * @since 8.5.0
+ */
+public class CmsJspNavCache implements I_CmsGlobalConfigurationCache {
+
+    /**
+     * A cached child resource together with its properties.<p>
+     */
+    public static class ChildResource {
+
+        /** The properties directly attached to the resource. */
+        private List<CmsProperty> m_properties;
+
+        /** The resource. */
+        private CmsResource m_resource;
+
+        /**
+         * Creates a new cached child resource.<p>
+         *
+         * @param resource the resource
+         * @param properties the properties directly attached to the resource
+         */
+        protected ChildResource(CmsResource resource, List<CmsProperty> properties) {
+
+            m_resource = resource;
+            m_properties = properties;
+        }
+
+        /**
+         * Returns a new map of the properties directly attached to the resource.<p>
+         *
+         * @return a new map of the properties directly attached to the resource
+         */
+        public Map<String, String> getPropertiesMap() {
+
+            return CmsProperty.toMap(m_properties);
+        }
+
+        /**
+         * Returns a copy of the resource.<p>
+         *
+         * A copy is returned since the cached instance is shared between all requests.<p>
+         *
+         * @return a copy of the resource
+         */
+        public CmsResource getResource() {
+
+            return (CmsResource)m_resource.clone();
+        }
+
+        /**
+         * Returns the root path of the resource.<p>
+         *
+         * @return the root path of the resource
+         */
+        public String getRootPath() {
+
+            return m_resource.getRootPath();
+        }
+
+        /**
+         * Returns the cached resource instance, which must not be modified.<p>
+         *
+         * @return the cached resource instance
+         */
+        protected CmsResource getCachedResource() {
+
+            return m_resource;
+        }
+    }
+
+    /** The default maximum number of cached folders. */
+    public static final int DEFAULT_MAX_FOLDERS = 10000;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsJspNavCache.class);
+
+    /** The administrator CMS context used to read the cached data. */
+    private CmsObject m_cms;
+
+    /** The cached child resources, by root path of the folder. */
+    private CmsConcurrentLruMap<String, List<ChildResource>> m_folders;
+
+    /** Counts the invalidations of this cache, to prevent storing data that was read before an invalidation. */
+    private volatile long m_generation;
+
+    /** A name for debugging. */
+    private String m_name;
+
+    /**
+     * Creates a new navigation cache.<p>
+     *
+     * @param cms an administrator CMS context for the project of this cache
+     * @param name a name for debugging
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public CmsJspNavCache(CmsObject cms, String name)
+    throws CmsException {
+
+        m_cms = OpenCms.initCmsObject(cms);
+        m_cms.getRequestContext().setSiteRoot("");
+        m_name = name;
+        m_folders = new CmsConcurrentLruMap<String, List<ChildResource>>(DEFAULT_MAX_FOLDERS);
+    }
+
+    /**
+     * @see org.opencms.ade.configuration.I_CmsGlobalConfigurationCache#clear()
+     */
+    public synchronized void clear() {
+
+        m_generation++;
+        m_folders.clear();
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_NAV_CACHE_CLEARED_1, m_name));
+        }
+    }
+
+    /**
+     * Returns the child resources of the folder with the given root path.<p>
+     *
+     * The children are not filtered at all, so they contain e.g. deleted, expired or hidden resources.
+     * The result list must not be modified.<p>
+     *
+     * @param folderRootPath the root path of the folder
+     *
+     * @return the child resources of the folder
+     */
+    public List<ChildResource> getChildren(String folderRootPath) {
+
+        if (!CmsResource.isFolder(folderRootPath)) {
+            folderRootPath = folderRootPath + "/";
+        }
+        List<ChildResource> children = m_folders.get(folderRootPath);
+        if (children == null) {
+            long generation = m_generation;
+            children = readChildren(folderRootPath);
+            if (children != null) {
+                synchronized (this) {
+                    if (generation == m_generation) {
+                        m_folders.put(folderRootPath, children);
+                    }
+                }
+            } else {
+                children = Collections.emptyList();
+            }
+        }
+        return children;
+    }
+
+    /**
+     * @see org.opencms.ade.configuration.I_CmsGlobalConfigurationCache#remove(org.opencms.db.CmsPublishedResource)
+     */
+    public void remove(CmsPublishedResource pubRes) {
+
+        invalidate(pubRes.getRootPath(), pubRes.isFolder());
+    }
+
+    /**
+     * @see org.opencms.ade.configuration.I_CmsGlobalConfigurationCache#remove(org.opencms.file.CmsResource)
+     */
+    public void remove(CmsResource resource) {
+
+        invalidate(resource.getRootPath(), resource.isFolder());
+    }
+
+    /**
+     * @see org.opencms.ade.configuration.I_CmsGlobalConfigurationCache#update(org.opencms.db.CmsPublishedResource)
+     */
+    public void update(CmsPublishedResource pubRes) {
+
+        invalidate(pubRes.getRootPath(), pubRes.isFolder());
+    }
+
+    /**
+     * @see org.opencms.ade.configuration.I_CmsGlobalConfigurationCache#update(org.opencms.file.CmsResource)
+     */
+    public void update(CmsResource resource) {
+
+        invalidate(resource.getRootPath(), resource.isFolder());
+    }
+
+    /**
+     * Removes the cached data affected by a change of the resource with the given root path.<p>
+     *
+     * This is the children of the parent folder, and for folders also the cached data of all sub folders,
+     * since a folder may have been moved or deleted.<p>
+     *
+     * @param rootPath the root path of the changed resource
+     * @param isFolder <code>true</code> if the changed resource is a folder
+     */
+    private synchronized void invalidate(String rootPath, boolean isFolder) {
+
+        m_generation++;
+        String parentFolder = CmsResource.getParentFolder(rootPath);
+        if (parentFolder != null) {
+            m_folders.remove(parentFolder);
+        }
+        if (isFolder) {
+            if (!CmsResource.isFolder(rootPath)) {
+                rootPath = rootPath + "/";
+            }
+            List<String> removedKeys = new ArrayList<String>();
+            for (String key : m_folders.keySet()) {
+                if (key.startsWith(rootPath)) {
+                    removedKeys.add(key);
+                }
+            }
+            for (String key : removedKeys) {
+                m_folders.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Reads the child resources of a folder together with their properties.<p>
+     *
+     * @param folderRootPath the root path of the folder
+     *
+     * @return the child resources, or <code>null</code> if they could not be read
+     */
+    private List<ChildResource> readChildren(String folderRootPath) {
+
+        try {
+            CmsObject cms = OpenCms.initCmsObject(m_cms);
+            CmsResource folder = cms.readResource(folderRootPath, CmsResourceFilter.ALL);
+            List<CmsResource> resources = cms.getResourcesInFolder(folderRootPath, CmsResourceFilter.ALL);
+            Map<CmsUUID, List<CmsProperty>> properties = cms.readChildPropertyObjects(folder);
+            List<ChildResource> children = new ArrayList<ChildResource>(resources.size());
+            for (CmsResource resource : resources) {
+                List<CmsProperty> resourceProperties = properties.get(resource.getStructureId());
+                if (resourceProperties == null) {
+                    resourceProperties = Collections.emptyList();
+                }
+                children.add(new ChildResource(resource, resourceProperties));
+            }
+            return Collections.unmodifiableList(children);
+        } catch (CmsVfsResourceNotFoundException e) {
+            // the folder does not exist (yet), this will be invalidated as soon as it is created
+            LOG.debug(e.getLocalizedMessage(), e);
+            return Collections.emptyList();
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return null;
+        }
+    }
+}
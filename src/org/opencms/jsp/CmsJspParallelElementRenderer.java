@@ -0,0 +1,796 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.jsp;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.flex.CmsFlexController;
+import org.opencms.jsp.util.CmsJspStandardContextBean;
+import org.opencms.loader.I_CmsResourceLoader;
+import org.opencms.loader.I_CmsResourceStringDumpLoader;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsUUID;
+import org.opencms.xml.containerpage.CmsContainerBean;
+import org.opencms.xml.containerpage.CmsContainerElementBean;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Renders the elements of a container in parallel.<p>
+ * 
+ * Each element formatter is executed on a thread of the pool provided by the ADE manager, 
+ * with its own copy of the CMS context, the request attributes and the standard context bean, 
+ * and writes to its own Flex response buffer. The request thread writes a marker for each submitted 
+ * element to the container output, and later replaces the markers with the rendered elements in 
+ * their original order.<p>
+ * 
+ * Elements that fail or do not finish within the timeout are not rendered again, and are detached 
+ * from the page request and response, since these may be recycled after the page is finished.<p>
+ * 
+ * Since the elements do not share request attributes, only containers whose elements do not 
+ * depend on each other must be rendered in parallel.<p>
+ * 
+ * @since 8.5.0
+ */
+public class CmsJspParallelElementRenderer {
+
+    /**
+     * An element submitted for parallel rendering.<p>
+     * 
+     * The element is rendered with its own request and response wrappers. The page request and 
+     * response are only accessed through these wrappers, and can be detached from them if the page 
+     * no longer waits for the element, since the servlet container may then recycle them.<p>
+     */
+    public static class CmsRenderedElement implements Callable<String> {
+
+        /**
+         * Invocation handler forwarding to the page request or response as long as the element is not detached.<p>
+         */
+        private class CmsDetachableHandler implements InvocationHandler {
+
+            /** The page request or response. */
+            private Object m_target;
+
+            /**
+             * Creates a new invocation handler.<p>
+             * 
+             * @param target the page request or response
+             */
+            CmsDetachableHandler(Object target) {
+
+                m_target = target;
+            }
+
+            /**
+             * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+             */
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+                if (m_detached && (method.getDeclaringClass() != Object.class)) {
+                    throw new IllegalStateException(Messages.get().getBundle().key(
+                        Messages.ERR_PARALLEL_RENDER_DETACHED_0));
+                }
+                try {
+                    return method.invoke(m_target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+
+        /** The CMS context used to render the element. */
+        private CmsObject m_cms;
+
+        /** The date the rendered element expires. */
+        private long m_dateExpires;
+
+        /** The date the rendered element was last modified. */
+        private long m_dateLastModified;
+
+        /** Signals if the element has been detached from the page request and response. */
+        private volatile boolean m_detached;
+
+        /** The element. */
+        private CmsContainerElementBean m_element;
+
+        /** The site path of the formatter. */
+        private String m_formatter;
+
+        /** The pending result. */
+        private Future<String> m_future;
+
+        /** The locale to render the element for. */
+        private Locale m_locale;
+
+        /** The marker written to the container output at the position of the element. */
+        private String m_marker;
+
+        /** The request used to render the element. */
+        private CmsDetachedRequest m_request;
+
+        /** The response used to render the element. */
+        private CmsDetachedResponse m_response;
+
+        /** The time the element has been submitted. */
+        private long m_submitted;
+
+        /**
+         * Creates a new element to be rendered in parallel.<p>
+         * 
+         * @param cms the CMS context used to render the element
+         * @param element the element
+         * @param formatter the site path of the formatter
+         * @param locale the locale to render the element for
+         * @param attributes the attributes of the request the element is rendered for
+         * @param topRequest the top level request of the page
+         * @param topResponse the top level response of the page
+         */
+        protected CmsRenderedElement(
+            CmsObject cms,
+            CmsContainerElementBean element,
+            String formatter,
+            Locale locale,
+            Map<String, Object> attributes,
+            HttpServletRequest topRequest,
+            HttpServletResponse topResponse) {
+
+            m_cms = cms;
+            m_element = element;
+            m_formatter = formatter;
+            m_locale = locale;
+            m_dateLastModified = -1;
+            m_dateExpires = -1;
+            // the wrappers are created in the request thread, so the worker never accesses the page request directly
+            m_request = new CmsDetachedRequest((HttpServletRequest)Proxy.newProxyInstance(
+                HttpServletRequest.class.getClassLoader(),
+                new Class[] {HttpServletRequest.class},
+                new CmsDetachableHandler(topRequest)), attributes);
+            m_response = new CmsDetachedResponse((HttpServletResponse)Proxy.newProxyInstance(
+                HttpServletResponse.class.getClassLoader(),
+                new Class[] {HttpServletResponse.class},
+                new CmsDetachableHandler(topResponse)));
+        }
+
+        /**
+         * Renders the element.<p>
+         * 
+         * @see java.util.concurrent.Callable#call()
+         */
+        public String call() throws Exception {
+
+            String content = render(m_request, m_response);
+            CmsFlexController controller = m_request.getController();
+            if (controller != null) {
+                m_dateLastModified = controller.getDateLastModified();
+                m_dateExpires = controller.getDateExpires();
+            }
+            return content;
+        }
+
+        /**
+         * Detaches the element from the page request and response.<p>
+         * 
+         * After this, every access of the element to the page request or response fails.<p>
+         */
+        public void detach() {
+
+            m_detached = true;
+        }
+
+        /**
+         * Returns the element.<p>
+         * 
+         * @return the element
+         */
+        public CmsContainerElementBean getElement() {
+
+            return m_element;
+        }
+
+        /**
+         * Returns the site path of the formatter.<p>
+         * 
+         * @return the site path of the formatter
+         */
+        public String getFormatter() {
+
+            return m_formatter;
+        }
+
+        /**
+         * Returns the marker written to the container output at the position of the element.<p>
+         * 
+         * @return the marker
+         */
+        public String getMarker() {
+
+            return m_marker;
+        }
+
+        /**
+         * Returns the request used to render the element.<p>
+         * 
+         * @return the request used to render the element
+         */
+        public HttpServletRequest getRequest() {
+
+            return m_request;
+        }
+
+        /**
+         * Returns the response used to render the element.<p>
+         * 
+         * @return the response used to render the element
+         */
+        public HttpServletResponse getResponse() {
+
+            return m_response;
+        }
+
+        /**
+         * Returns if the element has been detached from the page request and response.<p>
+         * 
+         * @return <code>true</code> if the element has been detached
+         */
+        public boolean isDetached() {
+
+            return m_detached;
+        }
+
+        /**
+         * Renders the element with the given request and response.<p>
+         * 
+         * This mirrors the not cacheable include of the include tag.<p>
+         * 
+         * @param req the request used to render the element
+         * @param res the response used to render the element
+         * 
+         * @return the rendered element
+         * 
+         * @throws Exception if rendering the element fails
+         */
+        protected String render(HttpServletRequest req, HttpServletResponse res) throws Exception {
+
+            CmsFile file = m_cms.readFile(m_formatter);
+            I_CmsResourceLoader loader = OpenCms.getResourceManager().getLoader(file);
+            if (loader instanceof I_CmsResourceStringDumpLoader) {
+                // loader can provide content as a String
+                return ((I_CmsResourceStringDumpLoader)loader).dumpAsString(m_cms, file, null, m_locale, req, res);
+            }
+            byte[] result = loader.dump(m_cms, file, null, m_locale, req, res);
+            // use the encoding from the property or the system default if not available
+            String encoding = m_cms.readPropertyObject(file, CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING, true).getValue(
+                OpenCms.getSystemInfo().getDefaultEncoding());
+            return (result == null) ? "" : new String(result, encoding);
+        }
+    }
+
+    /**
+     * Request wrapper isolating the request attributes of an element rendered in parallel.<p>
+     * 
+     * Attributes are read from a copy of the attributes of the page request, and written 
+     * to that copy only.<p>
+     */
+    protected static class CmsDetachedRequest extends HttpServletRequestWrapper {
+
+        /** The attributes of this request. */
+        private Map<String, Object> m_attributes;
+
+        /** The last Flex controller set on this request. */
+        private CmsFlexController m_controller;
+
+        /**
+         * Creates a new detached request.<p>
+         * 
+         * @param req the request to wrap
+         * @param attributes the attributes of this request
+         */
+        protected CmsDetachedRequest(HttpServletRequest req, Map<String, Object> attributes) {
+
+            super(req);
+            m_attributes = new HashMap<String, Object>(attributes);
+        }
+
+        /**
+         * @see javax.servlet.ServletRequestWrapper#getAttribute(java.lang.String)
+         */
+        @Override
+        public Object getAttribute(String name) {
+
+            Object result = m_attributes.get(name);
+            if ((result == null) && !m_attributes.containsKey(name)) {
+                result = super.getAttribute(name);
+            }
+            return result;
+        }
+
+        /**
+         * @see javax.servlet.ServletRequestWrapper#getAttributeNames()
+         */
+        @Override
+        public Enumeration<String> getAttributeNames() {
+
+            return Collections.enumeration(new ArrayList<String>(m_attributes.keySet()));
+        }
+
+        /**
+         * Returns the last Flex controller that has been set on this request.<p>
+         * 
+         * @return the last Flex controller that has been set on this request
+         */
+        public CmsFlexController getController() {
+
+            return m_controller;
+        }
+
+        /**
+         * @see javax.servlet.ServletRequestWrapper#removeAttribute(java.lang.String)
+         */
+        @Override
+        public void removeAttribute(String name) {
+
+            // keep the key, so the attribute of the wrapped request is hidden
+            m_attributes.put(name, null);
+        }
+
+        /**
+         * @see javax.servlet.ServletRequestWrapper#setAttribute(java.lang.String, java.lang.Object)
+         */
+        @Override
+        public void setAttribute(String name, Object value) {
+
+            if (value instanceof CmsFlexController) {
+                m_controller = (CmsFlexController)value;
+            }
+            m_attributes.put(name, value);
+        }
+    }
+
+    /**
+     * Response wrapper that keeps an element rendered in parallel from changing the page response.<p>
+     * 
+     * Status and header changes are ignored, writing to the response directly is not allowed.<p>
+     */
+    protected static class CmsDetachedResponse extends HttpServletResponseWrapper {
+
+        /**
+         * Creates a new detached response.<p>
+         * 
+         * @param res the response to wrap
+         */
+        protected CmsDetachedResponse(HttpServletResponse res) {
+
+            super(res);
+        }
+
+        /**
+         * @see javax.servlet.http.HttpServletResponseWrapper#addCookie(javax.servlet.http.Cookie)
+         */
+        @Override
+        public void addCookie(Cookie cookie) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.http.HttpServletResponseWrapper#addDateHeader(java.lang.String, long)
+         */
+        @Override
+        public void addDateHeader(String name, long date) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.http.HttpServletResponseWrapper#addHeader(java.lang.String, java.lang.String)
+         */
+        @Override
+        public void addHeader(String name, String value) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.http.HttpServletResponseWrapper#addIntHeader(java.lang.String, int)
+         */
+        @Override
+        public void addIntHeader(String name, int value) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.ServletResponseWrapper#flushBuffer()
+         */
+        @Override
+        public void flushBuffer() {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.ServletResponseWrapper#getOutputStream()
+         */
+        @Override
+        public ServletOutputStream getOutputStream() {
+
+            throw new IllegalStateException(Messages.get().getBundle().key(Messages.ERR_DETACHED_RESPONSE_OUTPUT_0));
+        }
+
+        /**
+         * @see javax.servlet.ServletResponseWrapper#getWriter()
+         */
+        @Override
+        public PrintWriter getWriter() {
+
+            throw new IllegalStateException(Messages.get().getBundle().key(Messages.ERR_DETACHED_RESPONSE_OUTPUT_0));
+        }
+
+        /**
+         * @see javax.servlet.ServletResponseWrapper#isCommitted()
+         */
+        @Override
+        public boolean isCommitted() {
+
+            return false;
+        }
+
+        /**
+         * @see javax.servlet.ServletResponseWrapper#reset()
+         */
+        @Override
+        public void reset() {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.ServletResponseWrapper#resetBuffer()
+         */
+        @Override
+        public void resetBuffer() {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.http.HttpServletResponseWrapper#sendError(int)
+         */
+        @Override
+        public void sendError(int sc) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.http.HttpServletResponseWrapper#sendError(int, java.lang.String)
+         */
+        @Override
+        public void sendError(int sc, String msg) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.http.HttpServletResponseWrapper#sendRedirect(java.lang.String)
+         */
+        @Override
+        public void sendRedirect(String location) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.ServletResponseWrapper#setBufferSize(int)
+         */
+        @Override
+        public void setBufferSize(int size) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.ServletResponseWrapper#setCharacterEncoding(java.lang.String)
+         */
+        @Override
+        public void setCharacterEncoding(String charset) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.ServletResponseWrapper#setContentLength(int)
+         */
+        @Override
+        public void setContentLength(int len) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.ServletResponseWrapper#setContentType(java.lang.String)
+         */
+        @Override
+        public void setContentType(String type) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.http.HttpServletResponseWrapper#setDateHeader(java.lang.String, long)
+         */
+        @Override
+        public void setDateHeader(String name, long date) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.http.HttpServletResponseWrapper#setHeader(java.lang.String, java.lang.String)
+         */
+        @Override
+        public void setHeader(String name, String value) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.http.HttpServletResponseWrapper#setIntHeader(java.lang.String, int)
+         */
+        @Override
+        public void setIntHeader(String name, int value) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.ServletResponseWrapper#setLocale(java.util.Locale)
+         */
+        @Override
+        public void setLocale(Locale loc) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.http.HttpServletResponseWrapper#setStatus(int)
+         */
+        @Override
+        public void setStatus(int sc) {
+
+            // ignore
+        }
+
+        /**
+         * @see javax.servlet.http.HttpServletResponseWrapper#setStatus(int, java.lang.String)
+         */
+        @SuppressWarnings("deprecation")
+        @Override
+        public void setStatus(int sc, String sm) {
+
+            // ignore
+        }
+    }
+
+    /** The Flex controller of the page. */
+    private CmsFlexController m_controller;
+
+    /** The elements submitted for parallel rendering, in the order of submission. */
+    private List<CmsRenderedElement> m_elements;
+
+    /** The pool of threads used to render the elements. */
+    private ExecutorService m_executor;
+
+    /** The unique id used for the markers of this renderer. */
+    private String m_markerId;
+
+    /** The time in milliseconds to wait for a rendered element. */
+    private long m_timeout;
+
+    /**
+     * Creates a new parallel element renderer.<p>
+     * 
+     * @param controller the Flex controller of the page
+     * @param executor the pool of threads used to render the elements
+     * @param timeout the time in milliseconds to wait for a rendered element
+     */
+    public CmsJspParallelElementRenderer(CmsFlexController controller, ExecutorService executor, long timeout) {
+
+        m_controller = controller;
+        m_executor = executor;
+        m_timeout = timeout;
+        m_elements = new ArrayList<CmsRenderedElement>();
+        m_markerId = new CmsUUID().toString();
+    }
+
+    /**
+     * Detaches all submitted elements from the page request and response, and cancels the 
+     * elements that are still being rendered.<p>
+     * 
+     * This must be called before the page request is finished.<p>
+     */
+    public void finish() {
+
+        for (CmsRenderedElement element : m_elements) {
+            element.detach();
+            element.m_future.cancel(true);
+        }
+    }
+
+    /**
+     * Returns the elements submitted for parallel rendering, in the order of submission.<p>
+     * 
+     * @return the elements submitted for parallel rendering
+     */
+    public List<CmsRenderedElement> getElements() {
+
+        return Collections.unmodifiableList(m_elements);
+    }
+
+    /**
+     * Waits for the given element to be rendered and returns the result.<p>
+     * 
+     * If rendering the element does not finish within the timeout, the element is detached from the 
+     * page request and response and cancelled. An element is never rendered a second time.<p>
+     * 
+     * @param element the element to wait for
+     * 
+     * @return the rendered element
+     * 
+     * @throws Exception if rendering the element failed or did not finish within the timeout
+     */
+    public String getResult(CmsRenderedElement element) throws Exception {
+
+        long wait = Math.max(0, (element.m_submitted + m_timeout) - System.currentTimeMillis());
+        try {
+            String result = element.m_future.get(wait, TimeUnit.MILLISECONDS);
+            // the dates of the element influence the cache headers of the page
+            if (element.m_dateLastModified != -1) {
+                m_controller.updateDates(element.m_dateLastModified, element.m_dateExpires);
+            }
+            return result;
+        } catch (TimeoutException e) {
+            // the worker may still be running, it must not use the page request after the page is finished
+            element.detach();
+            element.m_future.cancel(true);
+            throw new TimeoutException(Messages.get().getBundle().key(
+                Messages.ERR_PARALLEL_RENDER_TIMEOUT_3,
+                element.getElement().getSitePath(),
+                element.getFormatter(),
+                new Long(m_timeout)));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception)e.getCause();
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            element.detach();
+            element.m_future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * Submits an element for parallel rendering.<p>
+     * 
+     * @param cms the current CMS context
+     * @param standardContext the standard context bean of the page
+     * @param container the container of the element
+     * @param element the element
+     * @param formatter the site path of the formatter
+     * @param locale the locale to render the element for
+     * @param attributes the current request attributes
+     * 
+     * @return the marker to write to the container output at the position of the element, 
+     *      or <code>null</code> if the element could not be submitted and must be rendered in the request thread
+     */
+    public String submit(
+        CmsObject cms,
+        CmsJspStandardContextBean standardContext,
+        CmsContainerBean container,
+        CmsContainerElementBean element,
+        String formatter,
+        Locale locale,
+        Map<String, Object> attributes) {
+
+        CmsObject elementCms;
+        try {
+            // every element gets its own context, since the request context is not thread safe
+            elementCms = OpenCms.initCmsObject(cms);
+        } catch (Exception e) {
+            return null;
+        }
+        Map<String, Object> elementAttributes = new HashMap<String, Object>(attributes);
+        // hide the page controller, the loader will create a new controller for the element
+        elementAttributes.put(CmsFlexController.ATTRIBUTE_NAME, null);
+        // the standard context bean is not thread safe, every element gets its own copy
+        CmsJspStandardContextBean elementContext = standardContext.createCopy();
+        elementContext.setContainer(container);
+        elementContext.setElement(element);
+        elementAttributes.put(CmsJspStandardContextBean.ATTRIBUTE_NAME, elementContext);
+        return submit(new CmsRenderedElement(
+            elementCms,
+            element,
+            formatter,
+            locale,
+            elementAttributes,
+            m_controller.getTopRequest(),
+            m_controller.getTopResponse()));
+    }
+
+    /**
+     * Submits the given element for parallel rendering.<p>
+     * 
+     * @param element the element
+     * 
+     * @return the marker to write to the container output at the position of the element, 
+     *      or <code>null</code> if the element could not be submitted and must be rendered in the request thread
+     */
+    protected String submit(CmsRenderedElement element) {
+
+        String marker = "<!--" + m_markerId + ":" + m_elements.size() + "-->";
+        try {
+            element.m_submitted = System.currentTimeMillis();
+            element.m_future = m_executor.submit(element);
+        } catch (RejectedExecutionException e) {
+            // all threads are busy, render in the request thread
+            return null;
+        }
+        element.m_marker = marker;
+        m_elements.add(element);
+        return marker;
+    }
+}
@@ -42,6 +42,7 @@ import org.opencms.file.history.CmsHistoryResourceHandler;
 import org.opencms.flex.CmsFlexController;
 import org.opencms.gwt.shared.CmsTemplateContextInfo;
 import org.opencms.i18n.CmsEncoder;
+import org.opencms.jsp.CmsJspParallelElementRenderer.CmsRenderedElement;
 import org.opencms.jsp.util.CmsJspStandardContextBean;
 import org.opencms.loader.CmsLoaderException;
 import org.opencms.loader.CmsTemplateContext;
@@ -74,6 +75,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
@@ -130,6 +132,12 @@ public class CmsJspTagContainer extends BodyTagSupport {
     /** The name attribute value. */
     private String m_name;
 
+    /** The parallel attribute value. */
+    private boolean m_parallel;
+
+    /** The renderer for elements rendered in parallel, only set while the elements are rendered. */
+    private CmsJspParallelElementRenderer m_parallelRenderer;
+
     /** The parent container. */
     private CmsContainerBean m_parentContainer;
 
@@ -575,25 +583,52 @@ public class CmsJspTagContainer extends BodyTagSupport {
                 } else {
                     allElements.addAll(container.getElements());
                 }
+                if (m_parallel && isOnline && !isNested() && !controller.getCurrentResponse().isCachingRequired()) {
+                    ExecutorService executor = OpenCms.getADEManager().getElementRenderExecutor();
+                    if (executor != null) {
+                        m_parallelRenderer = new CmsJspParallelElementRenderer(
+                            controller,
+                            executor,
+                            OpenCms.getADEManager().getElementRenderTimeout());
+                        // collect the container output, so the markers can be replaced by the rendered elements
+                        pageContext.pushBody();
+                    }
+                }
                 // iterate over elements to render
                 int numRenderedElements = 0;
-                for (CmsContainerElementBean elementBean : allElements) {
-                    try {
-                        boolean rendered = renderContainerElement(
-                            (HttpServletRequest)req,
-                            cms,
-                            standardContext,
-                            elementBean,
-                            locale,
-                            numRenderedElements >= maxElements);
-                        if (rendered) {
-                            numRenderedElements += 1;
-                        }
-                    } catch (Exception e) {
-                        if (LOG.isErrorEnabled()) {
-                            LOG.error(e.getLocalizedMessage(), e);
+                String parallelContent = null;
+                try {
+                    for (CmsContainerElementBean elementBean : allElements) {
+                        try {
+                            boolean rendered = renderContainerElement(
+                                (HttpServletRequest)req,
+                                cms,
+                                standardContext,
+                                elementBean,
+                                locale,
+                                numRenderedElements >= maxElements);
+                            if (rendered) {
+                                numRenderedElements += 1;
+                            }
+                        } catch (Exception e) {
+                            if (LOG.isErrorEnabled()) {
+                                LOG.error(e.getLocalizedMessage(), e);
+                            }
                         }
                     }
+                } finally {
+                    if (m_parallelRenderer != null) {
+                        parallelContent = ((BodyContent)pageContext.getOut()).getString();
+                        pageContext.popBody();
+                    }
+                }
+                if (parallelContent != null) {
+                    try {
+                        printParallelElements(parallelContent);
+                    } finally {
+                        // the page request must not be used by the element threads after the page is finished
+                        m_parallelRenderer.finish();
+                    }
                 }
                 if ((numRenderedElements == 0) && (m_bodyContent != null) && CmsJspTagEditable.isEditableRequest(req)) {
                     // the container is empty, print the evaluated body content
@@ -618,6 +653,8 @@ public class CmsJspTagContainer extends BodyTagSupport {
         m_tagClass = null;
         m_detailView = false;
         m_detailOnly = false;
+        m_parallel = false;
+        m_parallelRenderer = null;
         m_width = null;
         m_editableBy = null;
         m_bodyContent = null;
@@ -686,6 +723,16 @@ public class CmsJspTagContainer extends BodyTagSupport {
         return m_name;
     }
 
+    /**
+     * Returns if the elements of this container should be rendered in parallel.<p>
+     * 
+     * @return <code>true</code> or <code>false</code> 
+     */
+    public String getParallel() {
+
+        return String.valueOf(m_parallel);
+    }
+
     /**
      * Returns the (optional) container parameter.<p>
      * 
@@ -793,6 +840,19 @@ public class CmsJspTagContainer extends BodyTagSupport {
         m_name = name;
     }
 
+    /**
+     * Sets if the elements of this container should be rendered in parallel.<p>
+     * 
+     * Only use this for containers whose elements do not depend on each other, 
+     * since elements rendered in parallel do not share request attributes.<p>
+     * 
+     * @param parallel <code>true</code> or <code>false</code>
+     */
+    public void setParallel(String parallel) {
+
+        m_parallel = Boolean.parseBoolean(parallel);
+    }
+
     /**
      * Sets the container parameter.<p>
      * 
@@ -1191,6 +1251,44 @@ public class CmsJspTagContainer extends BodyTagSupport {
         }
     }
 
+    /**
+     * Prints the collected container output, replacing the markers of the elements rendered in parallel 
+     * with the rendered elements.<p>
+     * 
+     * Elements that failed or did not finish in time are not rendered again, the error of 
+     * the element is printed instead.<p>
+     * 
+     * @param content the collected container output
+     * 
+     * @throws IOException if writing to the page fails
+     */
+    private void printParallelElements(String content) throws IOException {
+
+        int start = 0;
+        for (CmsRenderedElement element : m_parallelRenderer.getElements()) {
+            int pos = content.indexOf(element.getMarker(), start);
+            if (pos < 0) {
+                continue;
+            }
+            pageContext.getOut().print(content.substring(start, pos));
+            start = pos + element.getMarker().length();
+            try {
+                pageContext.getOut().print(m_parallelRenderer.getResult(element));
+            } catch (Exception e) {
+                if (LOG.isErrorEnabled()) {
+                    LOG.error(
+                        Messages.get().getBundle().key(
+                            Messages.ERR_CONTAINER_PAGE_ELEMENT_RENDER_ERROR_2,
+                            element.getElement().getSitePath(),
+                            element.getFormatter()),
+                        e);
+                }
+                printElementErrorTag(true, element.getElement().getSitePath(), element.getFormatter(), e);
+            }
+        }
+        pageContext.getOut().print(content.substring(start));
+    }
+
     /**
      * Renders a container element.<p>
      * 
@@ -1415,18 +1513,34 @@ public class CmsJspTagContainer extends BodyTagSupport {
                         pageContext.getOut().print(DUMMY_ELEMENT);
                         result = false;
                     } else {
-                        // execute the formatter jsp for the given element uri
-                        CmsJspTagInclude.includeTagAction(
-                            pageContext,
-                            formatter,
-                            null,
-                            locale,
-                            false,
-                            isOnline,
-                            null,
-                            CmsRequestUtil.getAtrributeMap(req),
-                            req,
-                            res);
+                        String marker = null;
+                        if (m_parallelRenderer != null) {
+                            marker = m_parallelRenderer.submit(
+                                cms,
+                                standardContext,
+                                standardContext.getContainer(),
+                                element,
+                                formatter,
+                                locale,
+                                CmsRequestUtil.getAtrributeMap(req));
+                        }
+                        if (marker != null) {
+                            // the element is rendered in parallel, the marker is replaced later
+                            pageContext.getOut().print(marker);
+                        } else {
+                            // execute the formatter jsp for the given element uri
+                            CmsJspTagInclude.includeTagAction(
+                                pageContext,
+                                formatter,
+                                null,
+                                locale,
+                                false,
+                                isOnline,
+                                null,
+                                CmsRequestUtil.getAtrributeMap(req),
+                                req,
+                                res);
+                        }
                     }
                 } catch (Exception e) {
                     if (LOG.isErrorEnabled()) {
@@ -82,6 +82,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_CONTAINER_PAGE_NOT_FOUND_3 = "ERR_CONTAINER_PAGE_NOT_FOUND_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_DETACHED_RESPONSE_OUTPUT_0 = "ERR_DETACHED_RESPONSE_OUTPUT_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_DIRECT_EDIT_PROVIDER_1 = "ERR_DIRECT_EDIT_PROVIDER_1";
 
@@ -91,6 +94,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_MISSING_CMS_CONTROLLER_1 = "ERR_MISSING_CMS_CONTROLLER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_PARALLEL_RENDER_DETACHED_0 = "ERR_PARALLEL_RENDER_DETACHED_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_PARALLEL_RENDER_TIMEOUT_3 = "ERR_PARALLEL_RENDER_TIMEOUT_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_PARENTLESS_TAG_1 = "ERR_PARENTLESS_TAG_1";
 
@@ -217,6 +226,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MAXELEMENTS_NOT_SET_2 = "LOG_MAXELEMENTS_NOT_SET_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_NAV_CACHE_CLEARED_1 = "LOG_NAV_CACHE_CLEARED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_WRONG_CONTAINER_MAXELEMENTS_3 = "LOG_WRONG_CONTAINER_MAXELEMENTS_3";
 
@@ -39,7 +39,14 @@ import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.workplace.CmsWorkplaceManager;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Iterator;
 import java.util.Locale;
 
@@ -61,6 +68,12 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
     /** The id of this loader. */
     public static final int RESOURCE_LOADER_ID = 1;
 
+    /** The prefix of the byte range specification in the "Range" header. */
+    private static final String RANGE_UNIT_PREFIX = "bytes=";
+
+    /** The size of the buffer used to stream the file contents to the response. */
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
     /** The maximum age for dumped contents in the clients cache. */
     private static long m_clientCacheMaxAge;
 
@@ -229,35 +242,22 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
             return;
         }
 
-        // make sure we have the file contents available
-        CmsFile file = cms.readFile(resource);
-
-        // set response status to "200 - OK" (required for static export "on-demand")
-        res.setStatus(HttpServletResponse.SC_OK);
-        // set content length header
-        res.setContentLength(file.getContents().length);
-
-        if (CmsWorkplaceManager.isWorkplaceUser(req)) {
-            // prevent caching for Workplace users
-            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, System.currentTimeMillis());
-            CmsRequestUtil.setNoCacheHeaders(res);
-        } else {
-            // set date last modified header
-            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, file.getDateLastModified());
-
-            // set "Expires" only if cache control is not already set
-            if (!res.containsHeader(CmsRequestUtil.HEADER_CACHE_CONTROL)) {
-                long expireTime = resource.getDateExpired();
-                if (expireTime == CmsResource.DATE_EXPIRED_DEFAULT) {
-                    expireTime--;
-                    // flex controller will automatically reduce this to a reasonable value
-                }
-                // now set "Expires" header        
-                CmsFlexController.setDateExpiresHeader(res, expireTime, m_clientCacheMaxAge);
-            }
+        long length = getContentLength(resource);
+        long[] range = getRequestedRange(resource, req, length);
+        if ((range != null) && (range.length == 0)) {
+            // the requested range is not satisfiable
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_RANGE, "bytes */" + length);
+            res.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
         }
 
-        service(cms, file, req, res);
+        // make sure the file contents are available, the content is streamed and not read into memory as a whole
+        InputStream in = cms.readFileContentStream(resource);
+        try {
+            writeContent(resource, req, res, in, length, range);
+        } finally {
+            in.close();
+        }
     }
 
     /**
@@ -266,7 +266,13 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
     public void service(CmsObject cms, CmsResource resource, ServletRequest req, ServletResponse res)
     throws CmsException, IOException {
 
-        res.getOutputStream().write(cms.readFile(resource).getContents());
+        // stream the content with a fixed size buffer instead of reading it into memory as a whole
+        InputStream in = cms.readFileContentStream(resource);
+        try {
+            copyContent(in, res.getOutputStream(), 0, -1);
+        } finally {
+            in.close();
+        }
     }
 
     /**
@@ -301,4 +307,262 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
         }
         return false;
     }
+
+    /**
+     * Returns the length of the content of the given resource.<p>
+     * 
+     * @param resource the resource to get the content length for
+     * 
+     * @return the length of the content of the given resource
+     */
+    protected long getContentLength(CmsResource resource) {
+
+        if ((resource instanceof CmsFile) && (((CmsFile)resource).getContents() != null)) {
+            // the content may have been modified, e.g. by scaling an image
+            return ((CmsFile)resource).getContents().length;
+        }
+        return resource.getLength();
+    }
+
+    /**
+     * Returns the byte range requested by the "Range" header of the given request.<p>
+     * 
+     * Only single byte ranges are supported. For requests without a "Range" header, 
+     * requests with multiple or malformed ranges and requests with an "If-Range" header 
+     * that does not match the last modification date of the resource, <code>null</code> 
+     * is returned and the complete content must be sent.<p>
+     * 
+     * @param resource the requested resource
+     * @param req the current request
+     * @param length the length of the content
+     * 
+     * @return the first and last byte position of the requested range, an empty array if 
+     *      the requested range is not satisfiable, or <code>null</code> if the complete content must be sent
+     */
+    protected long[] getRequestedRange(CmsResource resource, HttpServletRequest req, long length) {
+
+        String header = req.getHeader(CmsRequestUtil.HEADER_RANGE);
+        if ((header == null) || !header.startsWith(RANGE_UNIT_PREFIX) || (header.indexOf(',') != -1)) {
+            return null;
+        }
+        if (req.getHeader(CmsRequestUtil.HEADER_IF_RANGE) != null) {
+            long ifRange;
+            try {
+                ifRange = req.getDateHeader(CmsRequestUtil.HEADER_IF_RANGE);
+            } catch (IllegalArgumentException e) {
+                // entity tags are not supported
+                return null;
+            }
+            // HTTP dates have a precision of one second only
+            if ((resource.getDateLastModified() / 1000) != (ifRange / 1000)) {
+                return null;
+            }
+        }
+        String spec = header.substring(RANGE_UNIT_PREFIX.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash == -1) {
+            return null;
+        }
+        long start;
+        long end;
+        try {
+            if (dash == 0) {
+                // suffix range, e.g. "bytes=-500" for the last 500 bytes
+                long suffix = Long.parseLong(spec.substring(1).trim());
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash).trim());
+                String last = spec.substring(dash + 1).trim();
+                end = (last.length() == 0) ? (length - 1) : Math.min(Long.parseLong(last), length - 1);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if ((start < 0) || (start >= length) || (end < start)) {
+            return new long[0];
+        }
+        return new long[] {start, end};
+    }
+
+    /**
+     * Writes the given RFS file as content of the given resource to the response.<p>
+     * 
+     * This is used to serve a file from a disk cache, e.g. a scaled image, instead of the content 
+     * from the VFS. The content is transferred from the file channel to the response, so it is 
+     * not read into memory at all.<p>
+     * 
+     * @param resource the requested resource, used for the response headers
+     * @param content the RFS file with the content to write
+     * @param req the current request
+     * @param res the current response
+     * 
+     * @throws IOException if something goes wrong
+     */
+    protected void loadFile(CmsResource resource, File content, HttpServletRequest req, HttpServletResponse res)
+    throws IOException {
+
+        FileInputStream in = new FileInputStream(content);
+        try {
+            FileChannel channel = in.getChannel();
+            long length = channel.size();
+            long[] range = getRequestedRange(resource, req, length);
+            if ((range != null) && (range.length == 0)) {
+                // the requested range is not satisfiable
+                res.setHeader(CmsRequestUtil.HEADER_CONTENT_RANGE, "bytes */" + length);
+                res.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            writeHeaders(resource, req, res, length, range);
+            long position = (range == null) ? 0 : range[0];
+            long count = (range == null) ? length : (range[1] - range[0]) + 1;
+            // the channel on the response stream must not be closed, as this would close the response stream
+            WritableByteChannel out = Channels.newChannel(res.getOutputStream());
+            while (count > 0) {
+                long transferred = channel.transferTo(position, count, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                count -= transferred;
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Copies the content from the given input stream to the given output stream using a fixed size buffer.<p>
+     * 
+     * @param in the input stream to read from
+     * @param out the output stream to write to
+     * @param offset the number of bytes to skip in the input stream
+     * @param count the number of bytes to copy, or <code>-1</code> to copy up to the end of the input stream
+     * 
+     * @throws IOException if something goes wrong
+     */
+    private void copyContent(InputStream in, OutputStream out, long offset, long count) throws IOException {
+
+        long toSkip = offset;
+        while (toSkip > 0) {
+            long skipped = in.skip(toSkip);
+            if (skipped <= 0) {
+                // some streams do not support skipping, read the bytes instead
+                if (in.read() == -1) {
+                    return;
+                }
+                skipped = 1;
+            }
+            toSkip -= skipped;
+        }
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        long remaining = count;
+        while (remaining != 0) {
+            int len = (remaining < 0) ? buffer.length : (int)Math.min(buffer.length, remaining);
+            len = in.read(buffer, 0, len);
+            if (len == -1) {
+                break;
+            }
+            out.write(buffer, 0, len);
+            if (remaining > 0) {
+                remaining -= len;
+            }
+        }
+    }
+
+    /**
+     * Sets the content length header of the given response, also for contents larger than 2 GB.<p>
+     * 
+     * @param res the response
+     * @param length the content length
+     */
+    private void setContentLength(HttpServletResponse res, long length) {
+
+        if (length <= Integer.MAX_VALUE) {
+            res.setContentLength((int)length);
+        } else {
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_LENGTH, String.valueOf(length));
+        }
+    }
+
+    /**
+     * Sets the response status and headers and writes the (requested part of the) content to the response.<p>
+     * 
+     * @param resource the requested resource
+     * @param req the current request
+     * @param res the current response
+     * @param in the stream on the content of the resource
+     * @param length the length of the content
+     * @param range the requested byte range, or <code>null</code> to write the complete content
+     * 
+     * @throws IOException if something goes wrong
+     */
+    private void writeContent(
+        CmsResource resource,
+        HttpServletRequest req,
+        HttpServletResponse res,
+        InputStream in,
+        long length,
+        long[] range) throws IOException {
+
+        writeHeaders(resource, req, res, length, range);
+        if (range == null) {
+            copyContent(in, res.getOutputStream(), 0, -1);
+        } else {
+            copyContent(in, res.getOutputStream(), range[0], (range[1] - range[0]) + 1);
+        }
+    }
+
+    /**
+     * Sets the response status and headers for writing the (requested part of the) content to the response.<p>
+     * 
+     * @param resource the requested resource
+     * @param req the current request
+     * @param res the current response
+     * @param length the length of the content
+     * @param range the requested byte range, or <code>null</code> if the complete content is written
+     */
+    private void writeHeaders(
+        CmsResource resource,
+        HttpServletRequest req,
+        HttpServletResponse res,
+        long length,
+        long[] range) {
+
+        res.setHeader(CmsRequestUtil.HEADER_ACCEPT_RANGES, "bytes");
+        if (range == null) {
+            // set response status to "200 - OK" (required for static export "on-demand")
+            res.setStatus(HttpServletResponse.SC_OK);
+            // set content length header
+            setContentLength(res, length);
+        } else {
+            // send only the requested part of the content
+            res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + length);
+            setContentLength(res, (range[1] - range[0]) + 1);
+        }
+
+        if (CmsWorkplaceManager.isWorkplaceUser(req)) {
+            // prevent caching for Workplace users
+            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, System.currentTimeMillis());
+            CmsRequestUtil.setNoCacheHeaders(res);
+        } else {
+            // set date last modified header
+            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, resource.getDateLastModified());
+
+            // set "Expires" only if cache control is not already set
+            if (!res.containsHeader(CmsRequestUtil.HEADER_CACHE_CONTROL)) {
+                long expireTime = resource.getDateExpired();
+                if (expireTime == CmsResource.DATE_EXPIRED_DEFAULT) {
+                    expireTime--;
+                    // flex controller will automatically reduce this to a reasonable value
+                }
+                // now set "Expires" header        
+                CmsFlexController.setDateExpiresHeader(res, expireTime, m_clientCacheMaxAge);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -38,10 +38,16 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.scheduler.jobs.CmsImageCacheCleanupJob;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -74,9 +80,36 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The configuration parameter for the OpenCms XML configuration to set the maximum image scale size. */
     public static final String CONFIGURATION_MAX_SCALE_SIZE = "image.scaling.maxsize";
 
+    /** The configuration parameter for the OpenCms XML configuration to set the pause in milliseconds after each pre-generated image variant. */
+    public static final String CONFIGURATION_PREGENERATE_DELAY = "image.pregenerate.delay";
+
+    /** The configuration parameter for the OpenCms XML configuration to enable the pre-generation of image variants after publishing. */
+    public static final String CONFIGURATION_PREGENERATE_ENABLED = "image.pregenerate.enabled";
+
+    /** The configuration parameter for the OpenCms XML configuration to add a preset for the pre-generation of image variants. */
+    public static final String CONFIGURATION_PREGENERATE_PRESET = "image.pregenerate.preset";
+
     /** The configuration parameter for the OpenCms XML configuration to enable the image scaling. */
     public static final String CONFIGURATION_SCALING_ENABLED = "image.scaling.enabled";
 
+    /** The configuration parameter for the OpenCms XML configuration to set the maximum number of queued image scaling tasks. */
+    public static final String CONFIGURATION_SCALING_QUEUE = "image.scaling.queue";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the number of image scaling threads. */
+    public static final String CONFIGURATION_SCALING_THREADS = "image.scaling.threads";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the maximum time in milliseconds to wait for a scaled image. */
+    public static final String CONFIGURATION_SCALING_TIMEOUT = "image.scaling.timeout";
+
+    /** The default pause in milliseconds after each pre-generated image variant. */
+    public static final long DEFAULT_PREGENERATE_DELAY = 100;
+
+    /** The default maximum number of queued image scaling tasks. */
+    public static final int DEFAULT_SCALING_QUEUE = 100;
+
+    /** The default maximum time in milliseconds to wait for a scaled image. */
+    public static final long DEFAULT_SCALING_TIMEOUT = 30000;
+
     /** Default name for the image cache repository. */
     public static final String IMAGE_REPOSITORY_DEFAULT = "/WEB-INF/imagecache/";
 
@@ -86,6 +119,9 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The id of this loader. */
     public static final int RESOURCE_LOADER_ID_IMAGE_LOADER = 2;
 
+    /** The number of seconds after which a client should retry a request rejected because the image scaling queue is full. */
+    public static final int SCALING_RETRY_AFTER = 5;
+
     /** The log object for this class. */
     protected static final Log LOG = CmsLog.getLog(CmsImageLoader.class);
 
@@ -98,6 +134,12 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The maximum image size (width * height) to apply image blurring when down scaling (setting this to high may cause "out of memory" errors). */
     protected static int m_maxBlurSize = CmsImageScaler.SCALE_DEFAULT_MAX_BLUR_SIZE;
 
+    /** The pre-generation of image variants after publishing, or <code>null</code> if not enabled. */
+    protected static CmsImagePregenerator m_pregenerator;
+
+    /** The service creating the scaled image versions in the disk cache. */
+    protected static CmsImageScalingService m_scalingService;
+
     /** The disk cache to use for saving scaled image versions. */
     protected static CmsVfsNameBasedDiskCache m_vfsDiskCache;
 
@@ -107,6 +149,24 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The maximum image size (width or height) to allow when up scaling an image using request parameters. */
     protected int m_maxScaleSize = CmsImageScaler.SCALE_DEFAULT_MAX_SIZE;
 
+    /** The pause in milliseconds after each pre-generated image variant. */
+    protected long m_pregenerateDelay = DEFAULT_PREGENERATE_DELAY;
+
+    /** Indicates if the pre-generation of image variants after publishing is enabled. */
+    protected boolean m_pregenerateEnabled;
+
+    /** The configured presets for the pre-generation of image variants. */
+    protected List<String> m_pregeneratePresets = new ArrayList<String>();
+
+    /** The maximum number of queued image scaling tasks. */
+    protected int m_scalingQueue = DEFAULT_SCALING_QUEUE;
+
+    /** The number of image scaling threads. */
+    protected int m_scalingThreads = Runtime.getRuntime().availableProcessors();
+
+    /** The maximum time in milliseconds to wait for a scaled image. */
+    protected long m_scalingTimeout = DEFAULT_SCALING_TIMEOUT;
+
     /**
      * Creates a new image loader.<p>
      */
@@ -172,6 +232,21 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         return m_enabled;
     }
 
+    /**
+     * Provides the image loader with an OpenCms context with admin permissions, 
+     * which starts the pre-generation of image variants after publishing if enabled.<p>
+     * 
+     * @param adminCms an OpenCms context with admin permissions
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    public static void setAdminCms(CmsObject adminCms) throws CmsException {
+
+        if (m_pregenerator != null) {
+            m_pregenerator.initialize(adminCms);
+        }
+    }
+
     /**
      * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#addConfigurationParameter(java.lang.String, java.lang.String)
      */
@@ -197,6 +272,24 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             if (CONFIGURATION_DOWNSCALE.equals(paramName)) {
                 m_downScaleParams = paramValue.trim();
             }
+            if (CONFIGURATION_PREGENERATE_ENABLED.equals(paramName)) {
+                m_pregenerateEnabled = Boolean.valueOf(paramValue).booleanValue();
+            }
+            if (CONFIGURATION_PREGENERATE_DELAY.equals(paramName)) {
+                m_pregenerateDelay = CmsStringUtil.getIntValue(paramValue, (int)DEFAULT_PREGENERATE_DELAY, paramName);
+            }
+            if (CONFIGURATION_PREGENERATE_PRESET.equals(paramName)) {
+                m_pregeneratePresets.add(paramValue.trim());
+            }
+            if (CONFIGURATION_SCALING_THREADS.equals(paramName)) {
+                m_scalingThreads = CmsStringUtil.getIntValue(paramValue, m_scalingThreads, paramName);
+            }
+            if (CONFIGURATION_SCALING_QUEUE.equals(paramName)) {
+                m_scalingQueue = CmsStringUtil.getIntValue(paramValue, DEFAULT_SCALING_QUEUE, paramName);
+            }
+            if (CONFIGURATION_SCALING_TIMEOUT.equals(paramName)) {
+                m_scalingTimeout = CmsStringUtil.getIntValue(paramValue, (int)DEFAULT_SCALING_TIMEOUT, paramName);
+            }
         }
         super.addConfigurationParameter(paramName, paramValue);
     }
@@ -240,6 +333,14 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
 
         m_enabled = false;
         m_imageRepositoryFolder = null;
+        if (m_pregenerator != null) {
+            m_pregenerator.shutdown();
+            m_pregenerator = null;
+        }
+        if (m_scalingService != null) {
+            m_scalingService.shutdown();
+            m_scalingService = null;
+        }
         m_vfsDiskCache = null;
     }
 
@@ -283,6 +384,25 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                 OpenCms.getSystemInfo().getWebApplicationRfsPath(),
                 m_imageRepositoryFolder);
         }
+        if (m_scalingService == null) {
+            m_scalingService = new CmsImageScalingService(
+                m_vfsDiskCache,
+                m_scalingThreads,
+                m_scalingQueue,
+                m_scalingTimeout);
+        }
+        if (m_enabled && m_pregenerateEnabled && (m_pregenerator == null)) {
+            m_pregenerator = new CmsImagePregenerator(
+                m_scalingService,
+                m_maxScaleSize,
+                m_maxBlurSize,
+                m_pregenerateDelay);
+            for (String preset : m_pregeneratePresets) {
+                if (!m_pregenerator.addPreset(preset)) {
+                    CmsLog.INIT.warn(Messages.get().getBundle().key(Messages.LOG_IMAGE_PRESET_INVALID_1, preset));
+                }
+            }
+        }
         OpenCms.addCmsEventListener(this);
         // output setup information
         if (CmsLog.INIT.isInfoEnabled()) {
@@ -292,6 +412,17 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             CmsLog.INIT.info(Messages.get().getBundle().key(
                 Messages.INIT_IMAGE_SCALING_ENABLED_1,
                 Boolean.valueOf(m_enabled)));
+            CmsLog.INIT.info(Messages.get().getBundle().key(
+                Messages.INIT_IMAGE_SCALING_THREADS_3,
+                Integer.valueOf(m_scalingThreads),
+                Integer.valueOf(m_scalingQueue),
+                Long.valueOf(m_scalingTimeout)));
+            if (m_pregenerator != null) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_IMAGE_PREGENERATION_2,
+                    m_pregenerator.getPresets(),
+                    Long.valueOf(m_pregenerateDelay)));
+            }
         }
     }
 
@@ -309,10 +440,31 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             }
             // get the scale information from the request
             CmsImageScaler scaler = new CmsImageScaler(req, m_maxScaleSize, m_maxBlurSize);
-            // load the file from the cache
-            CmsFile file = getScaledImage(cms, resource, scaler);
-            // now perform standard load operation inherited from dump loader
-            super.load(cms, file, req, res);
+            if (resource instanceof CmsFile) {
+                // the content of the given file must be replaced with the scaled version (required e.g. for static export)
+                CmsFile file = getScaledImage(cms, resource, scaler);
+                // now perform standard load operation inherited from dump loader
+                super.load(cms, file, req, res);
+                return;
+            }
+            if ((m_pregenerator != null)
+                && scaler.isValid()
+                && cms.getRequestContext().getCurrentProject().isOnlineProject()) {
+                // remember a variant served from the cache, it is created again after the image has been published
+                m_pregenerator.recordVariant(resource, scaler);
+            }
+            File cacheFile;
+            try {
+                cacheFile = m_scalingService.getCacheFile(cms, resource, scaler, false);
+            } catch (RejectedExecutionException e) {
+                // too many images are waiting to be scaled, let the client try again later 
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_IMAGE_SCALING_REJECTED_1, resource.getRootPath()));
+                res.setHeader(CmsRequestUtil.HEADER_RETRY_AFTER, String.valueOf(SCALING_RETRY_AFTER));
+                res.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+            // serve the cached file from the disk
+            loadFile(resource, cacheFile, req, res);
         } else {
             // scaling is disabled
             super.load(cms, resource, req, res);
@@ -326,6 +478,9 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
      * If the scaled version does not exist in the cache, it is created. 
      * Unscaled versions of the images are also stored in the cache.<p>
      * 
+     * If the given resource is a file, its content is replaced with the scaled version.
+     * If the image scaling queue is full, the current thread scales the image.<p>
+     * 
      * @param cms the current users OpenCms context
      * @param resource the base VFS resource for the image
      * @param scaler the configured image scaler
@@ -338,34 +493,17 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     protected CmsFile getScaledImage(CmsObject cms, CmsResource resource, CmsImageScaler scaler)
     throws IOException, CmsException {
 
-        String cacheParam = scaler.isValid() ? scaler.toString() : null;
-        String cacheName = m_vfsDiskCache.getCacheName(resource, cacheParam);
-        byte[] content = m_vfsDiskCache.getCacheContent(cacheName);
-
+        File cacheFile = m_scalingService.getCacheFile(cms, resource, scaler, true);
         CmsFile file;
-        if (content != null) {
-            if (resource instanceof CmsFile) {
-                // the original file content must be modified (required e.g. for static export)
-                file = (CmsFile)resource;
-            } else {
-                // this is no file, but we don't want to use "upgrade" since we don't need to read the content from the VFS
-                file = new CmsFile(resource);
-            }
-            // save the content in the file
-            file.setContents(content);
+        if (resource instanceof CmsFile) {
+            // the original file content must be modified (required e.g. for static export)
+            file = (CmsFile)resource;
         } else {
-            // we must read the content from the VFS (if this has not been done yet)
-            file = cms.readFile(resource);
-            // upgrade the file (load the content)
-            if (scaler.isValid()) {
-                // valid scaling parameters found, scale the content
-                content = scaler.scaleImage(file);
-                // exchange the content of the file with the scaled version
-                file.setContents(content);
-            }
-            // save the file content in the cache
-            m_vfsDiskCache.saveCacheFile(cacheName, file.getContents());
+            // this is no file, but we don't want to use "upgrade" since we don't need to read the content from the VFS
+            file = new CmsFile(resource);
         }
+        // save the content in the file
+        file.setContents(CmsFileUtil.readFile(cacheFile));
         return file;
     }
 }
\ No newline at end of file
@@ -0,0 +1,361 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.cache.CmsConcurrentLruMap;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeImage;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.publish.CmsPublishEventAdapter;
+import org.opencms.publish.CmsPublishJobRunning;
+import org.opencms.util.CmsUUID;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Creates the scaled versions of published images in the image disk cache in the background, 
+ * so that the first requests after a publish do not have to wait for the scaling.<p>
+ * 
+ * The scale parameters used for an image are taken from:
+ * <ul>
+ * <li>the variants of the image served from the image cache in the online project, which are recorded 
+ * by the image loader</li>
+ * <li>the presets configured for the folder of the image, e.g. for a gallery folder</li>
+ * </ul>
+ * 
+ * The images are scaled one after another with the {@link CmsImageScalingService}, with a pause 
+ * after each variant. While requests are waiting for scaled images, the pre-generation waits as well, 
+ * so it never competes with the request threads for the scaling threads.<p>
+ * 
+ * @since 8.5.0
+ */
+public class CmsImagePregenerator extends CmsPublishEventAdapter {
+
+    /** The maximum number of images for which the requested variants are recorded. */
+    public static final int MAX_RECORDED_IMAGES = 10000;
+
+    /** The maximum number of recorded variants per image. */
+    public static final int MAX_RECORDED_VARIANTS = 20;
+
+    /** The maximum number of images waiting for the pre-generation. */
+    public static final int QUEUE_SIZE = 10000;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsImagePregenerator.class);
+
+    /** The admin OpenCms context, used only by the pre-generation thread. */
+    private CmsObject m_adminCms;
+
+    /** The pause in milliseconds after each pre-generated variant. */
+    private long m_delay;
+
+    /** The executor for the pre-generation, with a single thread. */
+    private ThreadPoolExecutor m_executor;
+
+    /** The maximum image size to apply image blurring when down scaling. */
+    private int m_maxBlurSize;
+
+    /** The maximum scale size (width or height) of the presets. */
+    private int m_maxScaleSize;
+
+    /** The configured scale parameters, with the root path of the folder they apply to as key. */
+    private Map<String, List<String>> m_presets;
+
+    /** The service used for scaling the images. */
+    private CmsImageScalingService m_scalingService;
+
+    /** The recorded scale parameters, with the structure id of the image as key. */
+    private CmsConcurrentLruMap<CmsUUID, Set<String>> m_variants;
+
+    /**
+     * Creates a new image pre-generator.<p>
+     * 
+     * @param scalingService the service used for scaling the images
+     * @param maxScaleSize the maximum scale size (width or height) of the presets
+     * @param maxBlurSize the maximum image size to apply image blurring when down scaling
+     * @param delay the pause in milliseconds after each pre-generated variant
+     */
+    public CmsImagePregenerator(CmsImageScalingService scalingService, int maxScaleSize, int maxBlurSize, long delay) {
+
+        m_scalingService = scalingService;
+        m_maxScaleSize = maxScaleSize;
+        m_maxBlurSize = maxBlurSize;
+        m_delay = delay;
+        m_presets = new LinkedHashMap<String, List<String>>();
+        m_variants = new CmsConcurrentLruMap<CmsUUID, Set<String>>(MAX_RECORDED_IMAGES);
+        ThreadFactory factory = new ThreadFactory() {
+
+            /** The number of created threads. */
+            private int m_count;
+
+            /**
+             * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+             */
+            public synchronized Thread newThread(Runnable r) {
+
+                m_count++;
+                Thread thread = new Thread(r, "OpenCms: Image pre-generation worker " + m_count);
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        };
+        m_executor = new ThreadPoolExecutor(
+            1,
+            1,
+            60L,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(QUEUE_SIZE),
+            factory);
+        m_executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Adds a preset with scale parameters for all images in the given folder and its sub-folders.<p>
+     * 
+     * The preset must have the form <code>folder=parameters</code>, 
+     * e.g. <code>/sites/default/.galleries/=w:200,h:150</code>. Presets larger than the maximum scale size 
+     * are rejected, like the requests for such variants.<p>
+     * 
+     * @param preset the preset to add 
+     * 
+     * @return <code>true</code> if the preset was valid and has been added
+     */
+    public boolean addPreset(String preset) {
+
+        int pos = preset.indexOf('=');
+        if (pos <= 0) {
+            return false;
+        }
+        String folder = preset.substring(0, pos).trim();
+        String parameters = preset.substring(pos + 1).trim();
+        CmsImageScaler scaler = new CmsImageScaler(parameters);
+        if (!scaler.isValid() || (scaler.getWidth() > m_maxScaleSize) || (scaler.getHeight() > m_maxScaleSize)) {
+            return false;
+        }
+        List<String> presets = m_presets.get(folder);
+        if (presets == null) {
+            presets = new ArrayList<String>();
+            m_presets.put(folder, presets);
+        }
+        presets.add(parameters);
+        return true;
+    }
+
+    /**
+     * Returns the configured presets, with the root path of the folder they apply to as key.<p>
+     * 
+     * @return the configured presets
+     */
+    public Map<String, List<String>> getPresets() {
+
+        return Collections.unmodifiableMap(m_presets);
+    }
+
+    /**
+     * Returns the scale parameters of the variants to pre-generate for the given image.<p>
+     * 
+     * @param resource the image resource
+     * 
+     * @return the scale parameters of the variants to pre-generate
+     */
+    public Set<String> getVariants(CmsResource resource) {
+
+        Set<String> result = new LinkedHashSet<String>();
+        for (Map.Entry<String, List<String>> entry : m_presets.entrySet()) {
+            if (resource.getRootPath().startsWith(entry.getKey())) {
+                result.addAll(entry.getValue());
+            }
+        }
+        Set<String> recorded = m_variants.get(resource.getStructureId());
+        if (recorded != null) {
+            result.addAll(recorded);
+        }
+        return result;
+    }
+
+    /**
+     * Initializes the pre-generation, which starts to listen to finished publish jobs.<p>
+     * 
+     * @param adminCms an OpenCms context with admin permissions
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    public void initialize(CmsObject adminCms) throws CmsException {
+
+        m_adminCms = OpenCms.initCmsObject(adminCms);
+        m_adminCms.getRequestContext().setCurrentProject(m_adminCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        OpenCms.getPublishManager().addPublishListener(this);
+    }
+
+    /**
+     * @see org.opencms.publish.CmsPublishEventAdapter#onFinish(org.opencms.publish.CmsPublishJobRunning)
+     */
+    @Override
+    public void onFinish(CmsPublishJobRunning publishJob) {
+
+        if (m_adminCms == null) {
+            return;
+        }
+        schedule(publishJob.getPublishList().getFileList());
+    }
+
+    /**
+     * Records the scale parameters of an image variant requested in the online project.<p>
+     * 
+     * Only variants which are already in the image cache are recorded, i.e. variants which have been requested 
+     * before and have been scaled once. This keeps single requests with arbitrary scale parameters from 
+     * filling the recorded variants.<p>
+     * 
+     * @param resource the requested image resource
+     * @param scaler the image scaler with the requested scale parameters
+     */
+    public void recordVariant(CmsResource resource, CmsImageScaler scaler) {
+
+        if (!scaler.isValid() || !m_scalingService.isCached(resource, scaler)) {
+            return;
+        }
+        Set<String> variants = m_variants.get(resource.getStructureId());
+        if (variants == null) {
+            variants = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            m_variants.put(resource.getStructureId(), variants);
+        }
+        if (variants.size() < MAX_RECORDED_VARIANTS) {
+            variants.add(scaler.toString());
+        }
+    }
+
+    /**
+     * Stops the pre-generation.<p>
+     */
+    public void shutdown() {
+
+        m_executor.shutdownNow();
+        if (m_adminCms != null) {
+            OpenCms.getPublishManager().removePublishListener(this);
+        }
+    }
+
+    /**
+     * Creates all variants of the image with the given structure id in the image disk cache.<p>
+     * 
+     * @param structureId the structure id of the image
+     */
+    protected void pregenerate(CmsUUID structureId) {
+
+        CmsResource resource;
+        try {
+            resource = m_adminCms.readResource(structureId);
+        } catch (CmsException e) {
+            // the image has been deleted in the meantime
+            return;
+        }
+        for (String parameters : getVariants(resource)) {
+            CmsImageScaler scaler = new CmsImageScaler(parameters);
+            scaler.setMaxBlurSize(m_maxBlurSize);
+            try {
+                // let the requests waiting for scaled images go first
+                while (m_scalingService.getQueuedCount() > 0) {
+                    Thread.sleep(Math.max(m_delay, 10));
+                }
+                m_scalingService.getCacheFile(m_adminCms, resource, scaler, false);
+                Thread.sleep(m_delay);
+            } catch (InterruptedException e) {
+                // the pre-generation has been stopped
+                return;
+            } catch (RejectedExecutionException e) {
+                // the scaling queue has been filled by requests, this variant is scaled when it is requested
+                LOG.debug(e.getLocalizedMessage(), e);
+            } catch (CmsException e) {
+                LOG.warn(Messages.get().getBundle().key(
+                    Messages.LOG_IMAGE_PREGENERATION_FAILED_2,
+                    resource.getRootPath(),
+                    parameters), e);
+            } catch (IOException e) {
+                LOG.warn(Messages.get().getBundle().key(
+                    Messages.LOG_IMAGE_PREGENERATION_FAILED_2,
+                    resource.getRootPath(),
+                    parameters), e);
+            }
+        }
+    }
+
+    /**
+     * Queues the pre-generation of the given images, skipping all resources without variants to pre-generate.<p>
+     * 
+     * @param resources the published resources
+     */
+    protected void schedule(List<CmsResource> resources) {
+
+        for (CmsResource resource : resources) {
+            if ((resource.getTypeId() != CmsResourceTypeImage.getStaticTypeId())
+                || resource.getState().isDeleted()
+                || getVariants(resource).isEmpty()) {
+                continue;
+            }
+            final CmsUUID structureId = resource.getStructureId();
+            try {
+                m_executor.execute(new Runnable() {
+
+                    /**
+                     * @see java.lang.Runnable#run()
+                     */
+                    public void run() {
+
+                        pregenerate(structureId);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // too many images are waiting, the remaining ones are scaled when they are requested 
+                LOG.warn(Messages.get().getBundle().key(
+                    Messages.LOG_IMAGE_PREGENERATION_QUEUE_FULL_1,
+                    resource.getRootPath()));
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.cache.CmsVfsNameBasedDiskCache;
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.main.CmsException;
+import org.opencms.main.OpenCms;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates the scaled versions of VFS images in the image disk cache.<p>
+ * 
+ * Concurrent requests for the same image variant are coalesced, so each variant is scaled only once,
+ * while all other requests wait for the result. The scaling is done by a bounded number of threads 
+ * with a bounded queue, so that a burst of requests for new variants can not exhaust the memory and 
+ * the CPU of the server. If the queue is full, a {@link RejectedExecutionException} is thrown 
+ * and the caller can decide how to handle the overload.<p>
+ * 
+ * @since 8.5.0
+ */
+public class CmsImageScalingService {
+
+    /**
+     * A task creating an image cache file, which removes itself from the pending tasks when done.<p>
+     */
+    private class CmsScalingTask extends FutureTask<File> {
+
+        /** The RFS name of the cache file created by this task. */
+        private String m_cacheName;
+
+        /**
+         * Creates a new scaling task.<p>
+         * 
+         * @param cacheName the RFS name of the cache file to create
+         * @param producer the producer of the cache file content
+         */
+        CmsScalingTask(final String cacheName, final Callable<byte[]> producer) {
+
+            super(new Callable<File>() {
+
+                /**
+                 * @see java.util.concurrent.Callable#call()
+                 */
+                public File call() throws Exception {
+
+                    // the file may have been created just before this task was registered 
+                    File file = m_cache.getCacheFile(cacheName);
+                    if (file == null) {
+                        m_cache.saveCacheFile(cacheName, producer.call());
+                        file = new File(cacheName);
+                    }
+                    return file;
+                }
+            });
+            m_cacheName = cacheName;
+        }
+
+        /**
+         * @see java.util.concurrent.FutureTask#done()
+         */
+        @Override
+        protected void done() {
+
+            m_pending.remove(m_cacheName, this);
+        }
+    }
+
+    /** The disk cache for the scaled images. */
+    protected CmsVfsNameBasedDiskCache m_cache;
+
+    /** The pending tasks, with the RFS name of the cache file as key. */
+    protected ConcurrentHashMap<String, CmsScalingTask> m_pending;
+
+    /** The number of requests which waited for a task started by another request. */
+    private AtomicLong m_coalescedCount;
+
+    /** The executor for the scaling tasks. */
+    private ThreadPoolExecutor m_executor;
+
+    /** The maximum time in milliseconds to wait for a scaled image. */
+    private long m_timeout;
+
+    /**
+     * Creates a new image scaling service.<p>
+     * 
+     * @param cache the disk cache for the scaled images
+     * @param threads the number of threads used for scaling images
+     * @param queueSize the maximum number of scaling tasks waiting for a free thread
+     * @param timeout the maximum time in milliseconds to wait for a scaled image, 
+     *      or <code>0</code> to wait without a time limit
+     */
+    public CmsImageScalingService(CmsVfsNameBasedDiskCache cache, int threads, int queueSize, long timeout) {
+
+        m_cache = cache;
+        m_timeout = timeout;
+        m_pending = new ConcurrentHashMap<String, CmsScalingTask>();
+        m_coalescedCount = new AtomicLong();
+        ThreadFactory factory = new ThreadFactory() {
+
+            /** The number of created threads. */
+            private int m_count;
+
+            /**
+             * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+             */
+            public synchronized Thread newThread(Runnable r) {
+
+                m_count++;
+                Thread thread = new Thread(r, "OpenCms: Image scaling worker " + m_count);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        m_executor = new ThreadPoolExecutor(
+            Math.max(1, threads),
+            Math.max(1, threads),
+            60L,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(Math.max(1, queueSize)),
+            factory);
+        m_executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the number of requests which did not scale an image themselves, 
+     * but waited for the same image variant being scaled for another request.<p>
+     * 
+     * @return the number of coalesced requests
+     */
+    public long getCoalescedCount() {
+
+        return m_coalescedCount.get();
+    }
+
+    /**
+     * Returns the cache file for the given image resource scaled with the given scaler.<p>
+     * 
+     * If the file is not in the cache yet, it is created. Scaling is done by the threads of this service,
+     * an unscaled copy of the image is written to the cache by the current thread.<p>
+     * 
+     * @param cms the current users OpenCms context
+     * @param resource the VFS image resource
+     * @param scaler the image scaler, which may not be valid if the image is requested without scaling
+     * @param callerRuns if <code>true</code> the current thread scales the image if the queue is full, 
+     *      otherwise a {@link RejectedExecutionException} is thrown in that case
+     * 
+     * @return the cache file for the given image resource
+     * 
+     * @throws IOException in case of errors accessing the disk based cache
+     * @throws CmsException in case of errors accessing the OpenCms VFS, or if waiting for the image timed out
+     */
+    public File getCacheFile(CmsObject cms, final CmsResource resource, final CmsImageScaler scaler, boolean callerRuns)
+    throws IOException, CmsException {
+
+        final boolean scale = scaler.isValid();
+        String cacheName = m_cache.getCacheName(resource, scale ? scaler.toString() : null);
+        File file = m_cache.getCacheFile(cacheName);
+        if (file != null) {
+            return file;
+        }
+        // the OpenCms context is not thread safe, so the scaling thread needs its own copy
+        final CmsObject cmsCopy = scale ? OpenCms.initCmsObject(cms) : cms;
+        Callable<byte[]> producer = new Callable<byte[]>() {
+
+            /**
+             * @see java.util.concurrent.Callable#call()
+             */
+            public byte[] call() throws Exception {
+
+                // the file is not modified here, since it may be the resource of the waiting request
+                CmsFile original = cmsCopy.readFile(resource);
+                return scale ? scaler.scaleImage(original) : original.getContents();
+            }
+        };
+        return getCacheFile(cacheName, producer, scale, callerRuns);
+    }
+
+    /**
+     * Returns the number of scaling tasks waiting for a free scaling thread.<p>
+     * 
+     * @return the number of queued scaling tasks
+     */
+    public int getQueuedCount() {
+
+        return m_executor.getQueue().size();
+    }
+
+    /**
+     * Checks if the given image resource scaled with the given scaler is already in the cache.<p>
+     * 
+     * @param resource the VFS image resource
+     * @param scaler the image scaler, which may not be valid if the image is requested without scaling
+     * 
+     * @return <code>true</code> if the cache file exists
+     */
+    public boolean isCached(CmsResource resource, CmsImageScaler scaler) {
+
+        String cacheName = m_cache.getCacheName(resource, scaler.isValid() ? scaler.toString() : null);
+        return m_cache.getCacheFile(cacheName) != null;
+    }
+
+    /**
+     * Shuts down the scaling threads of this service.<p>
+     */
+    public void shutdown() {
+
+        m_executor.shutdownNow();
+    }
+
+    /**
+     * Returns the cache file with the given name, creating it with the given producer if it does not exist.<p>
+     * 
+     * @param cacheName the RFS name of the cache file
+     * @param producer the producer for the content of the cache file
+     * @param async if <code>true</code> the content is produced by the threads of this service, 
+     *      otherwise by the current thread
+     * @param callerRuns if <code>true</code> the current thread produces the content if the queue is full, 
+     *      otherwise a {@link RejectedExecutionException} is thrown in that case
+     * 
+     * @return the cache file 
+     * 
+     * @throws IOException in case of errors accessing the disk based cache
+     * @throws CmsException in case of errors producing the content, or if waiting for the file timed out
+     */
+    protected File getCacheFile(String cacheName, Callable<byte[]> producer, boolean async, boolean callerRuns)
+    throws IOException, CmsException {
+
+        File file = m_cache.getCacheFile(cacheName);
+        if (file != null) {
+            return file;
+        }
+        CmsScalingTask task = new CmsScalingTask(cacheName, producer);
+        CmsScalingTask pending = m_pending.putIfAbsent(cacheName, task);
+        if (pending != null) {
+            // the same file is already being created for another request
+            m_coalescedCount.incrementAndGet();
+            return waitFor(pending, cacheName);
+        }
+        if (!async) {
+            task.run();
+        } else {
+            try {
+                m_executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                if (!callerRuns) {
+                    // removes the task from the pending tasks and notifies the requests already waiting for it
+                    task.cancel(false);
+                    throw e;
+                }
+                task.run();
+            }
+        }
+        return waitFor(task, cacheName);
+    }
+
+    /**
+     * Waits for the given task to create the cache file.<p>
+     * 
+     * @param task the task to wait for
+     * @param cacheName the RFS name of the cache file
+     * 
+     * @return the cache file
+     * 
+     * @throws IOException in case of errors accessing the disk based cache
+     * @throws CmsException in case of errors producing the content, or if waiting for the file timed out
+     */
+    private File waitFor(CmsScalingTask task, String cacheName) throws IOException, CmsException {
+
+        try {
+            return (m_timeout > 0) ? task.get(m_timeout, TimeUnit.MILLISECONDS) : task.get();
+        } catch (CancellationException e) {
+            // the task has been rejected because the queue was full
+            throw new RejectedExecutionException(e);
+        } catch (TimeoutException e) {
+            throw new CmsLoaderException(Messages.get().container(
+                Messages.ERR_IMAGE_SCALING_TIMEOUT_2,
+                cacheName,
+                Long.valueOf(m_timeout)), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CmsLoaderException(Messages.get().container(Messages.ERR_IMAGE_SCALING_FAILED_1, cacheName), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof CmsException) {
+                throw (CmsException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new CmsLoaderException(
+                Messages.get().container(Messages.ERR_IMAGE_SCALING_FAILED_1, cacheName),
+                cause);
+        }
+    }
+}
@@ -298,6 +298,8 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
             if ((oldController != null) && (controller != null)) {
                 // update "date last modified"
                 oldController.updateDates(controller.getDateLastModified(), controller.getDateExpires());
+                // the dumped output becomes part of the output of the old controller
+                oldController.updateDependencies(controller.getDependencies());
                 // reset saved controller 
                 CmsFlexController.setController(req, oldController);
             }
@@ -49,6 +49,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_FILE_NAME_PATTERN_WITHOUT_NUMBER_MACRO_1 = "ERR_FILE_NAME_PATTERN_WITHOUT_NUMBER_MACRO_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_IMAGE_SCALING_FAILED_1 = "ERR_IMAGE_SCALING_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_IMAGE_SCALING_TIMEOUT_2 = "ERR_IMAGE_SCALING_TIMEOUT_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_INVALID_COLLECTOR_NAME_1 = "ERR_INVALID_COLLECTOR_NAME_1";
 
@@ -157,12 +163,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_GET_RESTYPE_2 = "INIT_GET_RESTYPE_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_IMAGE_PREGENERATION_2 = "INIT_IMAGE_PREGENERATION_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_IMAGE_REPOSITORY_PATH_1 = "INIT_IMAGE_REPOSITORY_PATH_1";
 
     /** Message constant for key in the resource bundle. */
     public static final String INIT_IMAGE_SCALING_ENABLED_1 = "INIT_IMAGE_SCALING_ENABLED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_IMAGE_SCALING_THREADS_3 = "INIT_IMAGE_SCALING_THREADS_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JSP_CACHE_SIZE_1 = "INIT_JSP_CACHE_SIZE_1";
 
@@ -223,6 +235,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_IGNORING_EXC_1 = "LOG_IGNORING_EXC_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_PREGENERATION_FAILED_2 = "LOG_IMAGE_PREGENERATION_FAILED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_PREGENERATION_QUEUE_FULL_1 = "LOG_IMAGE_PREGENERATION_QUEUE_FULL_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_PRESET_INVALID_1 = "LOG_IMAGE_PRESET_INVALID_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_SCALING_REJECTED_1 = "LOG_IMAGE_SCALING_REJECTED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_JSP_PERMCHECK_4 = "LOG_JSP_PERMCHECK_4";
 
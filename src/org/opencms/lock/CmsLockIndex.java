@@ -0,0 +1,560 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.lock;
+
+import org.opencms.util.CmsUUID;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index of the locks held by the lock manager, keyed by the root path of the locked resource.<p>
+ *
+ * The locks are stored in a prefix tree with one node per path segment, so that the locks of a sub tree
+ * and the locks of the parent folders of a resource can be found with a cost proportional to the
+ * path length and the number of results, and not to the total number of locks. Additionally the locks are
+ * indexed by the ids of the users and projects of the lock and its related lock.<p>
+ *
+ * The index can be read concurrently, write access is exclusive.
+ * It implements the {@link Map} interface so it can be monitored like the other caches,
+ * the collections returned by {@link #entrySet()}, {@link #keySet()} and {@link #values()}
+ * are unmodifiable snapshots.<p>
+ *
+ * @since 8.5.0
+ */
+public class CmsLockIndex extends AbstractMap<String, CmsLock> {
+
+    /**
+     * A node of the prefix tree.<p>
+     */
+    private static class Node {
+
+        /** The child nodes, by path segment. */
+        Map<String, Node> m_children;
+
+        /** The ids of the projects under which the lock of this node is indexed. */
+        Set<CmsUUID> m_indexedProjectIds;
+
+        /** The ids of the users under which the lock of this node is indexed. */
+        Set<CmsUUID> m_indexedUserIds;
+
+        /** The lock of the resource with the path of this node, or <code>null</code>. */
+        CmsLock m_lock;
+
+        /** The parent node. */
+        Node m_parent;
+
+        /** The path segment of this node. */
+        String m_segment;
+
+        /**
+         * Creates a new node.<p>
+         *
+         * @param parent the parent node
+         * @param segment the path segment
+         */
+        Node(Node parent, String segment) {
+
+            m_parent = parent;
+            m_segment = segment;
+        }
+
+        /**
+         * Collects the locks of this node and all its descendants.<p>
+         *
+         * @param result the list to add the locks to
+         */
+        void collect(List<CmsLock> result) {
+
+            if (m_lock != null) {
+                result.add(m_lock);
+            }
+            if (m_children != null) {
+                for (Node child : m_children.values()) {
+                    child.collect(result);
+                }
+            }
+        }
+
+        /**
+         * Returns the child node for the given segment, or <code>null</code>.<p>
+         *
+         * @param segment the path segment
+         *
+         * @return the child node, or <code>null</code>
+         */
+        Node getChild(String segment) {
+
+            return m_children == null ? null : m_children.get(segment);
+        }
+    }
+
+    /** The read/write lock protecting the index. */
+    private final ReadWriteLock m_accessLock = new ReentrantReadWriteLock();
+
+    /** The nodes holding a lock, by root path. */
+    private final Map<String, Node> m_nodes = new HashMap<String, Node>();
+
+    /** The root paths of the locks, by project id. */
+    private final Map<CmsUUID, Set<String>> m_pathsByProject = new HashMap<CmsUUID, Set<String>>();
+
+    /** The root paths of the locks, by user id. */
+    private final Map<CmsUUID, Set<String>> m_pathsByUser = new HashMap<CmsUUID, Set<String>>();
+
+    /** The root node of the prefix tree. */
+    private final Node m_root = new Node(null, "");
+
+    /**
+     * Creates a new, empty lock index.<p>
+     */
+    public CmsLockIndex() {
+
+        // empty
+    }
+
+    /**
+     * Creates a new lock index containing the given locks.<p>
+     *
+     * @param locks the locks, by root path
+     */
+    public CmsLockIndex(Map<String, CmsLock> locks) {
+
+        putAll(locks);
+    }
+
+    /**
+     * Splits a root path into the segments used as keys in the prefix tree.<p>
+     *
+     * Each segment contains its trailing slash, so that the segment of a folder is different
+     * from the segment of a file with the same name, e.g. <code>/sites/a/b</code> is split into
+     * <code>/</code>, <code>sites/</code>, <code>a/</code> and <code>b</code>.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the path segments
+     */
+    protected static List<String> getSegments(String rootPath) {
+
+        List<String> segments = new ArrayList<String>();
+        int start = 0;
+        int length = rootPath.length();
+        while (start < length) {
+            int end = rootPath.indexOf('/', start);
+            end = (end < 0) ? length : end + 1;
+            segments.add(rootPath.substring(start, end));
+            start = end;
+        }
+        return segments;
+    }
+
+    /**
+     * @see java.util.Map#clear()
+     */
+    @Override
+    public void clear() {
+
+        m_accessLock.writeLock().lock();
+        try {
+            m_nodes.clear();
+            m_pathsByProject.clear();
+            m_pathsByUser.clear();
+            m_root.m_children = null;
+            m_root.m_lock = null;
+        } finally {
+            m_accessLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @see java.util.Map#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a snapshot of the locks in this index.<p>
+     *
+     * @see java.util.Map#entrySet()
+     */
+    @Override
+    public Set<Map.Entry<String, CmsLock>> entrySet() {
+
+        m_accessLock.readLock().lock();
+        try {
+            Set<Map.Entry<String, CmsLock>> result = new LinkedHashSet<Map.Entry<String, CmsLock>>(m_nodes.size());
+            for (Map.Entry<String, Node> entry : m_nodes.entrySet()) {
+                result.add(new SimpleImmutableEntry<String, CmsLock>(entry.getKey(), entry.getValue().m_lock));
+            }
+            return Collections.unmodifiableSet(result);
+        } finally {
+            m_accessLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @see java.util.Map#get(java.lang.Object)
+     */
+    @Override
+    public CmsLock get(Object key) {
+
+        m_accessLock.readLock().lock();
+        try {
+            Node node = m_nodes.get(key);
+            return node == null ? null : node.m_lock;
+        } finally {
+            m_accessLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the locks of all resources whose root path starts with the given prefix.<p>
+     *
+     * @param prefix the root path prefix, e.g. the root path of a folder
+     *
+     * @return the matching locks
+     */
+    public List<CmsLock> getLocksByPrefix(String prefix) {
+
+        List<CmsLock> result = new ArrayList<CmsLock>();
+        m_accessLock.readLock().lock();
+        try {
+            Node node = m_root;
+            for (String segment : getSegments(prefix)) {
+                if (!segment.endsWith("/")) {
+                    // partial last segment, all children starting with it match
+                    if (node.m_children != null) {
+                        for (Map.Entry<String, Node> entry : node.m_children.entrySet()) {
+                            if (entry.getKey().startsWith(segment)) {
+                                entry.getValue().collect(result);
+                            }
+                        }
+                    }
+                    return result;
+                }
+                node = node.getChild(segment);
+                if (node == null) {
+                    return result;
+                }
+            }
+            node.collect(result);
+            return result;
+        } finally {
+            m_accessLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the locks indexed for the given project, i.e. the locks where the lock itself
+     * or its related lock has been set in the given project.<p>
+     *
+     * @param projectId the project id
+     *
+     * @return the locks indexed for the project
+     */
+    public List<CmsLock> getLocksByProject(CmsUUID projectId) {
+
+        return getIndexedLocks(m_pathsByProject, projectId);
+    }
+
+    /**
+     * Returns the locks indexed for the given user, i.e. the locks where the lock itself
+     * or its related lock is owned by the given user.<p>
+     *
+     * @param userId the user id
+     *
+     * @return the locks indexed for the user
+     */
+    public List<CmsLock> getLocksByUser(CmsUUID userId) {
+
+        return getIndexedLocks(m_pathsByUser, userId);
+    }
+
+    /**
+     * Returns the locks of all folders which are parent folders of the given root path,
+     * ordered from the top level folder down.<p>
+     *
+     * If the root path is a folder, its own lock is included as last element.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the locks of the parent folders
+     */
+    public List<CmsLock> getParentFolderLocks(String rootPath) {
+
+        List<CmsLock> result = new ArrayList<CmsLock>();
+        m_accessLock.readLock().lock();
+        try {
+            Node node = m_root;
+            for (String segment : getSegments(rootPath)) {
+                if (!segment.endsWith("/")) {
+                    break;
+                }
+                node = node.getChild(segment);
+                if (node == null) {
+                    break;
+                }
+                if (node.m_lock != null) {
+                    result.add(node.m_lock);
+                }
+            }
+            return result;
+        } finally {
+            m_accessLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces the lock for the given root path.<p>
+     *
+     * The user and project indexes are recalculated, so this has to be called again
+     * if the related lock of an indexed lock is changed.<p>
+     *
+     * @see java.util.Map#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public CmsLock put(String rootPath, CmsLock lock) {
+
+        m_accessLock.writeLock().lock();
+        try {
+            Node node = m_nodes.get(rootPath);
+            if (node == null) {
+                node = m_root;
+                for (String segment : getSegments(rootPath)) {
+                    Node child = node.getChild(segment);
+                    if (child == null) {
+                        child = new Node(node, segment);
+                        if (node.m_children == null) {
+                            node.m_children = new HashMap<String, Node>(4);
+                        }
+                        node.m_children.put(segment, child);
+                    }
+                    node = child;
+                }
+                m_nodes.put(rootPath, node);
+            } else {
+                unindex(rootPath, node);
+            }
+            CmsLock previous = node.m_lock;
+            node.m_lock = lock;
+            index(rootPath, node);
+            return previous;
+        } finally {
+            m_accessLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @see java.util.Map#remove(java.lang.Object)
+     */
+    @Override
+    public CmsLock remove(Object key) {
+
+        m_accessLock.writeLock().lock();
+        try {
+            Node node = m_nodes.remove(key);
+            if (node == null) {
+                return null;
+            }
+            unindex((String)key, node);
+            CmsLock previous = node.m_lock;
+            node.m_lock = null;
+            // prune the nodes which are not needed anymore
+            while ((node.m_parent != null)
+                && (node.m_lock == null)
+                && ((node.m_children == null) || node.m_children.isEmpty())) {
+                node.m_parent.m_children.remove(node.m_segment);
+                node = node.m_parent;
+            }
+            return previous;
+        } finally {
+            m_accessLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @see java.util.Map#size()
+     */
+    @Override
+    public int size() {
+
+        m_accessLock.readLock().lock();
+        try {
+            return m_nodes.size();
+        } finally {
+            m_accessLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the locks in this index.<p>
+     *
+     * @see java.util.Map#values()
+     */
+    @Override
+    public Collection<CmsLock> values() {
+
+        m_accessLock.readLock().lock();
+        try {
+            List<CmsLock> result = new ArrayList<CmsLock>(m_nodes.size());
+            for (Node node : m_nodes.values()) {
+                result.add(node.m_lock);
+            }
+            return Collections.unmodifiableList(result);
+        } finally {
+            m_accessLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a root path to the given secondary index.<p>
+     *
+     * @param index the secondary index
+     * @param id the id to index the path under
+     * @param rootPath the root path
+     */
+    private void addToIndex(Map<CmsUUID, Set<String>> index, CmsUUID id, String rootPath) {
+
+        Set<String> paths = index.get(id);
+        if (paths == null) {
+            paths = new HashSet<String>();
+            index.put(id, paths);
+        }
+        paths.add(rootPath);
+    }
+
+    /**
+     * Returns the locks for the paths stored in a secondary index for the given id.<p>
+     *
+     * @param index the secondary index
+     * @param id the id
+     *
+     * @return the locks
+     */
+    private List<CmsLock> getIndexedLocks(Map<CmsUUID, Set<String>> index, CmsUUID id) {
+
+        m_accessLock.readLock().lock();
+        try {
+            Set<String> paths = index.get(id);
+            if (paths == null) {
+                return new ArrayList<CmsLock>();
+            }
+            List<CmsLock> result = new ArrayList<CmsLock>(paths.size());
+            for (String path : paths) {
+                result.add(m_nodes.get(path).m_lock);
+            }
+            return result;
+        } finally {
+            m_accessLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the lock of the given node to the user and project indexes.<p>
+     *
+     * @param rootPath the root path of the lock
+     * @param node the node
+     */
+    private void index(String rootPath, Node node) {
+
+        Set<CmsUUID> userIds = new HashSet<CmsUUID>(2);
+        Set<CmsUUID> projectIds = new HashSet<CmsUUID>(2);
+        CmsLock lock = node.m_lock;
+        if (lock != null) {
+            userIds.add(lock.getUserId());
+            projectIds.add(lock.getProjectId());
+            if (!lock.isUnlocked()) {
+                CmsLock relatedLock = lock.getRelatedLock();
+                userIds.add(relatedLock.getUserId());
+                projectIds.add(relatedLock.getProjectId());
+            }
+        }
+        userIds.remove(null);
+        projectIds.remove(null);
+        for (CmsUUID userId : userIds) {
+            addToIndex(m_pathsByUser, userId, rootPath);
+        }
+        for (CmsUUID projectId : projectIds) {
+            addToIndex(m_pathsByProject, projectId, rootPath);
+        }
+        node.m_indexedUserIds = userIds;
+        node.m_indexedProjectIds = projectIds;
+    }
+
+    /**
+     * Removes a root path from the given secondary index.<p>
+     *
+     * @param index the secondary index
+     * @param id the id the path is indexed under
+     * @param rootPath the root path
+     */
+    private void removeFromIndex(Map<CmsUUID, Set<String>> index, CmsUUID id, String rootPath) {
+
+        Set<String> paths = index.get(id);
+        if (paths != null) {
+            paths.remove(rootPath);
+            if (paths.isEmpty()) {
+                index.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Removes the lock of the given node from the user and project indexes.<p>
+     *
+     * @param rootPath the root path of the lock
+     * @param node the node
+     */
+    private void unindex(String rootPath, Node node) {
+
+        if (node.m_indexedUserIds != null) {
+            for (CmsUUID userId : node.m_indexedUserIds) {
+                removeFromIndex(m_pathsByUser, userId, rootPath);
+            }
+        }
+        if (node.m_indexedProjectIds != null) {
+            for (CmsUUID projectId : node.m_indexedProjectIds) {
+                removeFromIndex(m_pathsByProject, projectId, rootPath);
+            }
+        }
+        node.m_indexedUserIds = null;
+        node.m_indexedProjectIds = null;
+    }
+}
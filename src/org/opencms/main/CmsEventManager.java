@@ -175,6 +175,16 @@ public class CmsEventManager {
         m_eventListeners = new HashMap<Integer, List<I_CmsEventListener>>(base.getEventListeners());
     }
 
+    /**
+     * Shuts down this event manager.<p>
+     * 
+     * This implementation does nothing, subclasses can override it to release their resources.<p>
+     */
+    protected void shutDown() {
+
+        // nothing to do
+    }
+
     /**
      * Fires the specified event to a list of event listeners.<p>
      * 
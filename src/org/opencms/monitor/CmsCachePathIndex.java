@@ -0,0 +1,191 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.file.CmsResource;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Index of the keys of a cache by the VFS root path the cached values depend on.<p>
+ * 
+ * This allows to remove only the cache entries that depend on a changed resource 
+ * instead of flushing the whole cache.<p>
+ * 
+ * Keys that have been added without a path depend on every resource, so they are 
+ * returned by every lookup.<p>
+ * 
+ * The index does not notice if an entry is evicted from the cache itself, 
+ * so it must be pruned from time to time with {@link #retainAll(Collection)}.<p>
+ * 
+ * @since 8.5.0
+ */
+public class CmsCachePathIndex {
+
+    /** The number of keys stored in the index. */
+    private int m_keyCount;
+
+    /** The keys by root path. */
+    private SortedMap<String, Set<String>> m_keysByPath;
+
+    /** The keys that have been added without a root path. */
+    private Set<String> m_keysWithoutPath;
+
+    /**
+     * Creates a new, empty cache path index.<p>
+     */
+    public CmsCachePathIndex() {
+
+        m_keysByPath = new TreeMap<String, Set<String>>();
+        m_keysWithoutPath = new HashSet<String>();
+    }
+
+    /**
+     * Adds a cache key to the index.<p>
+     * 
+     * @param rootPath the root path the cached value depends on, or <code>null</code> if unknown
+     * @param key the cache key
+     */
+    public synchronized void add(String rootPath, String key) {
+
+        Set<String> keys;
+        if (rootPath == null) {
+            keys = m_keysWithoutPath;
+        } else {
+            keys = m_keysByPath.get(rootPath);
+            if (keys == null) {
+                keys = new HashSet<String>();
+                m_keysByPath.put(rootPath, keys);
+            }
+        }
+        if (keys.add(key)) {
+            m_keyCount++;
+        }
+    }
+
+    /**
+     * Removes all keys from the index.<p>
+     */
+    public synchronized void clear() {
+
+        m_keysByPath.clear();
+        m_keysWithoutPath.clear();
+        m_keyCount = 0;
+    }
+
+    /**
+     * Returns the number of keys in the index.<p>
+     * 
+     * @return the number of keys in the index
+     */
+    public synchronized int getKeyCount() {
+
+        return m_keyCount;
+    }
+
+    /**
+     * Removes the keys that depend on the given root path from the index and returns them.<p>
+     * 
+     * @param rootPath the root path of the changed resource
+     * @param ancestors if <code>true</code>, also the keys of all parent folders are removed
+     * @param descendants if <code>true</code> and the path is a folder, also the keys of all sub resources are removed
+     * 
+     * @return the removed keys
+     */
+    public synchronized Set<String> remove(String rootPath, boolean ancestors, boolean descendants) {
+
+        Set<String> result = new HashSet<String>(m_keysWithoutPath);
+        m_keysWithoutPath.clear();
+        removePath(rootPath, result);
+        if (ancestors) {
+            String parent = CmsResource.getParentFolder(rootPath);
+            while (parent != null) {
+                removePath(parent, result);
+                parent = CmsResource.getParentFolder(parent);
+            }
+        }
+        if (descendants && CmsResource.isFolder(rootPath)) {
+            Iterator<Map.Entry<String, Set<String>>> it = m_keysByPath.subMap(
+                rootPath,
+                rootPath + Character.MAX_VALUE).entrySet().iterator();
+            while (it.hasNext()) {
+                result.addAll(it.next().getValue());
+                it.remove();
+            }
+        }
+        m_keyCount -= result.size();
+        if (m_keyCount < 0) {
+            m_keyCount = 0;
+        }
+        return result;
+    }
+
+    /**
+     * Removes all keys from the index that are not contained in the given collection.<p>
+     * 
+     * Use this to remove the keys of entries that have been evicted from the cache.<p>
+     * 
+     * @param keys the keys still present in the cache
+     */
+    public synchronized void retainAll(Collection<String> keys) {
+
+        m_keyCount = 0;
+        m_keysWithoutPath.retainAll(keys);
+        m_keyCount += m_keysWithoutPath.size();
+        Iterator<Set<String>> it = m_keysByPath.values().iterator();
+        while (it.hasNext()) {
+            Set<String> pathKeys = it.next();
+            pathKeys.retainAll(keys);
+            if (pathKeys.isEmpty()) {
+                it.remove();
+            } else {
+                m_keyCount += pathKeys.size();
+            }
+        }
+    }
+
+    /**
+     * Removes the keys of exactly the given root path.<p>
+     * 
+     * @param rootPath the root path
+     * @param result the set to add the removed keys to
+     */
+    private void removePath(String rootPath, Set<String> result) {
+
+        Set<String> keys = m_keysByPath.remove(rootPath);
+        if (keys != null) {
+            result.addAll(keys);
+        }
+    }
+}
@@ -27,6 +27,7 @@
 
 package org.opencms.monitor;
 
+import org.opencms.cache.CmsConcurrentLruMap;
 import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.CmsMemoryObjectCache;
 import org.opencms.cache.CmsVfsMemoryObjectCache;
@@ -46,6 +47,7 @@ import org.opencms.file.CmsUser;
 import org.opencms.flex.CmsFlexCache.CmsFlexCacheVariation;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.lock.CmsLock;
+import org.opencms.lock.CmsLockIndex;
 import org.opencms.lock.CmsLockManager;
 import org.opencms.mail.CmsMailTransport;
 import org.opencms.mail.CmsSimpleMail;
@@ -75,11 +77,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.mail.internet.InternetAddress;
 
@@ -163,6 +168,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Maximum depth for object size recursion. */
     private static final int MAX_DEPTH = 5;
 
+    /** Number of keys a cache path index may hold in addition to twice the cache size before it is pruned. */
+    private static final int PATH_INDEX_PRUNE_THRESHOLD = 1000;
+
     /** Cache for access control lists. */
     private Map<String, CmsAccessControlList> m_cacheAccessControlList;
 
@@ -175,15 +183,21 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Cache for roles. */
     private Map<String, Boolean> m_cacheHasRoles;
 
+    /** The number of cache hits per cache type. */
+    private Map<CacheType, AtomicLong> m_cacheHits;
+
     /** A cache for accelerated locale lookup. */
     private Map<String, Locale> m_cacheLocale;
 
     /** Cache for the resource locks. */
-    private Map<String, CmsLock> m_cacheLock;
+    private CmsLockIndex m_cacheLock;
 
     /** The memory object cache map. */
     private Map<String, Object> m_cacheMemObject;
 
+    /** The number of cache misses per cache type. */
+    private Map<CacheType, AtomicLong> m_cacheMisses;
+
     /** Cache for organizational units. */
     private Map<String, CmsOrganizationalUnit> m_cacheOrgUnit;
 
@@ -238,6 +252,15 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Map to keep track of disabled caches. */
     private Map<CacheType, Boolean> m_disabled = new HashMap<CacheType, Boolean>();
 
+    /** The root path index of the property list cache. */
+    private CmsCachePathIndex m_indexPropertyList;
+
+    /** The root path index of the resource cache. */
+    private CmsCachePathIndex m_indexResource;
+
+    /** The root path index of the resource list cache. */
+    private CmsCachePathIndex m_indexResourceList;
+
     /** Interval in which emails are send. */
     private int m_intervalEmail;
 
@@ -295,6 +318,15 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     public CmsMemoryMonitor() {
 
         m_monitoredObjects = new HashMap<String, Object>();
+        m_indexResource = new CmsCachePathIndex();
+        m_indexResourceList = new CmsCachePathIndex();
+        m_indexPropertyList = new CmsCachePathIndex();
+        m_cacheHits = new EnumMap<CacheType, AtomicLong>(CacheType.class);
+        m_cacheMisses = new EnumMap<CacheType, AtomicLong>(CacheType.class);
+        for (CacheType type : CacheType.values()) {
+            m_cacheHits.put(type, new AtomicLong());
+            m_cacheMisses.put(type, new AtomicLong());
+        }
     }
 
     /**
@@ -688,10 +720,27 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public void cachePropertyList(String key, List<CmsProperty> propertyList) {
 
+        cachePropertyList(key, null, propertyList);
+    }
+
+    /**
+     * Caches the given property list of the resource with the given root path under the given cache key.<p>
+     * 
+     * The entry is removed by {@link #uncacheProperties(CmsResource)} if the resource 
+     * or one of its parent folders is changed.<p>
+     * 
+     * @param key the cache key
+     * @param rootPath the root path of the resource the properties belong to, or <code>null</code> if unknown
+     * @param propertyList the property list to cache
+     */
+    public void cachePropertyList(String key, String rootPath, List<CmsProperty> propertyList) {
+
         if (m_disabled.get(CacheType.PROPERTY_LIST) != null) {
             return;
         }
+        m_indexPropertyList.add(rootPath, key);
         m_cachePropertyList.put(key, propertyList);
+        pruneIndex(m_indexPropertyList, m_cachePropertyList);
     }
 
     /**
@@ -747,7 +796,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (m_disabled.get(CacheType.RESOURCE) != null) {
             return;
         }
+        m_indexResource.add(resource != null ? resource.getRootPath() : null, key);
         m_cacheResource.put(key, resource);
+        pruneIndex(m_indexResource, m_cacheResource);
     }
 
     /**
@@ -758,10 +809,27 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public void cacheResourceList(String key, List<CmsResource> resourceList) {
 
+        cacheResourceList(key, null, resourceList);
+    }
+
+    /**
+     * Caches the given list of resources read from the folder with the given root path under the given cache key.<p>
+     * 
+     * The entry is removed by {@link #uncacheResource(CmsResource)} if the folder, 
+     * one of its parent folders or one of its sub resources is changed.<p>
+     * 
+     * @param key the cache key
+     * @param rootPath the root path of the folder the resources were read from, or <code>null</code> if unknown
+     * @param resourceList the resource list to cache
+     */
+    public void cacheResourceList(String key, String rootPath, List<CmsResource> resourceList) {
+
         if (m_disabled.get(CacheType.RESOURCE_LIST) != null) {
             return;
         }
+        m_indexResourceList.add(rootPath, key);
         m_cacheResourceList.put(key, resourceList);
+        pruneIndex(m_indexResourceList, m_cacheResourceList);
     }
 
     /**
@@ -1033,6 +1101,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     break;
                 case PROPERTY_LIST:
                     m_cachePropertyList.clear();
+                    m_indexPropertyList.clear();
                     break;
                 case PUBLISHED_RESOURCES:
                     m_cachePublishedResources.clear();
@@ -1045,9 +1114,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     break;
                 case RESOURCE:
                     m_cacheResource.clear();
+                    m_indexResource.clear();
                     break;
                 case RESOURCE_LIST:
                     m_cacheResourceList.clear();
+                    m_indexResourceList.clear();
                     break;
                 case ROLE_LIST:
                     m_cacheRoleLists.clear();
@@ -1121,11 +1192,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         // initialize new lock cache
-        Map<String, CmsLock> newLockCache = Collections.synchronizedMap(newLocks);
+        CmsLockIndex newLockCache = new CmsLockIndex(newLocks);
         // register it
         register(CmsLockManager.class.getName(), newLockCache);
         // save the old cache
-        Map<String, CmsLock> oldCache = m_cacheLock;
+        CmsLockIndex oldCache = m_cacheLock;
         // replace the old by the new cache
         m_cacheLock = newLockCache;
         // clean up the old cache
@@ -1384,6 +1455,34 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return new ArrayList<CmsPublishJobInfoBean>(m_publishHistory);
     }
 
+    /**
+     * Returns the number of cache hits of the given cache type since the start of OpenCms.<p>
+     * 
+     * Hits are counted for the resource, resource list, property and property list caches.<p>
+     * 
+     * @param type the cache type
+     * 
+     * @return the number of cache hits
+     */
+    public long getCacheHitCount(CacheType type) {
+
+        return m_cacheHits.get(type).get();
+    }
+
+    /**
+     * Returns the number of cache misses of the given cache type since the start of OpenCms.<p>
+     * 
+     * Misses are counted for the resource, resource list, property and property list caches.<p>
+     * 
+     * @param type the cache type
+     * 
+     * @return the number of cache misses
+     */
+    public long getCacheMissCount(CacheType type) {
+
+        return m_cacheMisses.get(type).get();
+    }
+
     /**
      * Returns the ACL cached with the given cache key or <code>null</code> if not found.<p>
      * 
@@ -1436,6 +1535,55 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cacheLocale.get(key);
     }
 
+    /**
+     * Returns the cached locks of all resources whose root path starts with the given prefix.<p>
+     * 
+     * @param prefix the root path prefix, e.g. the root path of a folder
+     * 
+     * @return a list of {@link CmsLock} objects
+     */
+    public List<CmsLock> getCachedLocksByPrefix(String prefix) {
+
+        return m_cacheLock.getLocksByPrefix(prefix);
+    }
+
+    /**
+     * Returns the cached locks where the lock or its related lock has been set in the given project.<p>
+     * 
+     * @param projectId the project id
+     * 
+     * @return a list of {@link CmsLock} objects
+     */
+    public List<CmsLock> getCachedLocksByProject(CmsUUID projectId) {
+
+        return m_cacheLock.getLocksByProject(projectId);
+    }
+
+    /**
+     * Returns the cached locks where the lock or its related lock is owned by the given user.<p>
+     * 
+     * @param userId the user id
+     * 
+     * @return a list of {@link CmsLock} objects
+     */
+    public List<CmsLock> getCachedLocksByUser(CmsUUID userId) {
+
+        return m_cacheLock.getLocksByUser(userId);
+    }
+
+    /**
+     * Returns the cached locks of the parent folders of the given root path, 
+     * including the lock of the root path itself if it is a folder.<p>
+     * 
+     * @param rootPath the root path
+     * 
+     * @return a list of {@link CmsLock} objects, ordered from the top level folder down
+     */
+    public List<CmsLock> getCachedParentFolderLocks(String rootPath) {
+
+        return m_cacheLock.getParentFolderLocks(rootPath);
+    }
+
     /**
      * Returns the lock cached with the given root path or <code>null</code> if not found.<p>
      * 
@@ -1517,7 +1665,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsProperty getCachedProperty(String key) {
 
-        return m_cacheProperty.get(key);
+        return countHit(CacheType.PROPERTY, m_cacheProperty.get(key));
     }
 
     /**
@@ -1529,7 +1677,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsProperty> getCachedPropertyList(String key) {
 
-        return m_cachePropertyList.get(key);
+        return countHit(CacheType.PROPERTY_LIST, m_cachePropertyList.get(key));
     }
 
     /**
@@ -1594,7 +1742,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsResource getCachedResource(String key) {
 
-        return m_cacheResource.get(key);
+        return countHit(CacheType.RESOURCE, m_cacheResource.get(key));
     }
 
     /**
@@ -1606,7 +1754,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsResource> getCachedResourceList(String key) {
 
-        return m_cacheResourceList.get(key);
+        return countHit(CacheType.RESOURCE_LIST, m_cacheResourceList.get(key));
     }
 
     /**
@@ -1823,9 +1971,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         // create and register all system caches
 
         // temporary xml entities cache
-        Map<String, byte[]> xmlTemporaryCache = CmsCollectionsGenericWrapper.createLRUMap(128);
-        m_cacheXmlTemporaryEntity = Collections.synchronizedMap(xmlTemporaryCache);
-        register(CmsXmlEntityResolver.class.getName() + ".xmlEntityTemporaryCache", m_cacheXmlTemporaryEntity);
+        m_cacheXmlTemporaryEntity = createCache(
+            cacheSettings,
+            CacheType.XML_ENTITY_TEMP,
+            128,
+            CmsXmlEntityResolver.class.getName() + ".xmlEntityTemporaryCache");
 
         // permanent xml entities cache
         Map<String, byte[]> xmlPermanentCache = new HashMap<String, byte[]>(32);
@@ -1833,14 +1983,15 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsXmlEntityResolver.class.getName() + ".xmlEntityPermanentCache", m_cacheXmlPermanentEntity);
 
         // xml content definitions cache
-        Map<String, CmsXmlContentDefinition> contentDefinitionsCache = CmsCollectionsGenericWrapper.createLRUMap(64);
-        m_cacheContentDefinitions = Collections.synchronizedMap(contentDefinitionsCache);
-        register(CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache", m_cacheContentDefinitions);
+        m_cacheContentDefinitions = createCache(
+            cacheSettings,
+            CacheType.CONTENT_DEFINITION,
+            64,
+            CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache");
 
         // lock cache
-        Map<String, CmsLock> lockCache = new HashMap<String, CmsLock>();
-        m_cacheLock = Collections.synchronizedMap(lockCache);
-        register(CmsLockManager.class.getName(), lockCache);
+        m_cacheLock = new CmsLockIndex();
+        register(CmsLockManager.class.getName(), m_cacheLock);
 
         // locale cache
         Map<String, Locale> map = new HashMap<String, Locale>();
@@ -1848,44 +1999,60 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsLocaleManager.class.getName(), map);
 
         // permissions cache
-        Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> lruPermissions = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getPermissionCacheSize());
-        m_cachePermission = Collections.synchronizedMap(lruPermissions);
-        register(CmsSecurityManager.class.getName(), lruPermissions);
+        m_cachePermission = createCache(
+            cacheSettings,
+            CacheType.PERMISSION,
+            cacheSettings.getPermissionCacheSize(),
+            CmsSecurityManager.class.getName());
 
         // user cache
-        Map<String, CmsUser> lruUsers = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserCacheSize());
-        m_cacheUser = Collections.synchronizedMap(lruUsers);
-        register(CmsDriverManager.class.getName() + ".userCache", lruUsers);
+        m_cacheUser = createCache(
+            cacheSettings,
+            CacheType.USER,
+            cacheSettings.getUserCacheSize(),
+            CmsDriverManager.class.getName() + ".userCache");
 
         // user list cache
-        Map<String, List<CmsUser>> lruUserList = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserCacheSize());
-        m_cacheUserList = Collections.synchronizedMap(lruUserList);
-        register(CmsDriverManager.class.getName() + ".userListCache", lruUserList);
+        m_cacheUserList = createCache(
+            cacheSettings,
+            CacheType.USER_LIST,
+            cacheSettings.getUserCacheSize(),
+            CmsDriverManager.class.getName() + ".userListCache");
 
         // group cache
-        Map<String, CmsGroup> lruGroup = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getGroupCacheSize());
-        m_cacheGroup = Collections.synchronizedMap(lruGroup);
-        register(CmsDriverManager.class.getName() + ".groupCache", lruGroup);
+        m_cacheGroup = createCache(
+            cacheSettings,
+            CacheType.GROUP,
+            cacheSettings.getGroupCacheSize(),
+            CmsDriverManager.class.getName() + ".groupCache");
 
         // organizational unit cache
-        Map<String, CmsOrganizationalUnit> lruOrgUnit = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getOrgUnitCacheSize());
-        m_cacheOrgUnit = Collections.synchronizedMap(lruOrgUnit);
-        register(CmsDriverManager.class.getName() + ".orgUnitCache", lruOrgUnit);
+        m_cacheOrgUnit = createCache(
+            cacheSettings,
+            CacheType.ORG_UNIT,
+            cacheSettings.getOrgUnitCacheSize(),
+            CmsDriverManager.class.getName() + ".orgUnitCache");
 
         // user groups list cache
-        Map<String, List<CmsGroup>> lruUserGroups = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserGroupsCacheSize());
-        m_cacheUserGroups = Collections.synchronizedMap(lruUserGroups);
-        register(CmsDriverManager.class.getName() + ".userGroupsCache", lruUserGroups);
+        m_cacheUserGroups = createCache(
+            cacheSettings,
+            CacheType.USERGROUPS,
+            cacheSettings.getUserGroupsCacheSize(),
+            CmsDriverManager.class.getName() + ".userGroupsCache");
 
         // project cache
-        Map<String, CmsProject> lruProjects = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getProjectCacheSize());
-        m_cacheProject = Collections.synchronizedMap(lruProjects);
-        register(CmsDriverManager.class.getName() + ".projectCache", lruProjects);
+        m_cacheProject = createCache(
+            cacheSettings,
+            CacheType.PROJECT,
+            cacheSettings.getProjectCacheSize(),
+            CmsDriverManager.class.getName() + ".projectCache");
 
         // project resources cache cache
-        Map<String, List<CmsResource>> lruProjectResources = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getProjectResourcesCacheSize());
-        m_cacheProjectResources = Collections.synchronizedMap(lruProjectResources);
-        register(CmsDriverManager.class.getName() + ".projectResourcesCache", lruProjectResources);
+        m_cacheProjectResources = createCache(
+            cacheSettings,
+            CacheType.PROJECT_RESOURCES,
+            cacheSettings.getProjectResourcesCacheSize(),
+            CmsDriverManager.class.getName() + ".projectResourcesCache");
 
         // publish history
         int size = configuration.getPublishManager().getPublishHistorySize();
@@ -1899,44 +2066,60 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsPublishQueue.class.getName() + ".publishQueue", buffer);
 
         // resource cache
-        Map<String, CmsResource> lruResources = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getResourceCacheSize());
-        m_cacheResource = Collections.synchronizedMap(lruResources);
-        register(CmsDriverManager.class.getName() + ".resourceCache", lruResources);
+        m_cacheResource = createCache(
+            cacheSettings,
+            CacheType.RESOURCE,
+            cacheSettings.getResourceCacheSize(),
+            CmsDriverManager.class.getName() + ".resourceCache");
 
         // roles cache
-        Map<String, Boolean> lruHasRoles = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getRolesCacheSize());
-        m_cacheHasRoles = Collections.synchronizedMap(lruHasRoles);
-        register(CmsDriverManager.class.getName() + ".rolesCache", lruHasRoles);
+        m_cacheHasRoles = createCache(
+            cacheSettings,
+            CacheType.HAS_ROLE,
+            cacheSettings.getRolesCacheSize(),
+            CmsDriverManager.class.getName() + ".rolesCache");
 
         // role lists cache
-        Map<String, List<CmsRole>> lruRoleLists = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getRolesCacheSize());
-        m_cacheRoleLists = Collections.synchronizedMap(lruRoleLists);
-        register(CmsDriverManager.class.getName() + ".roleListsCache", lruRoleLists);
+        m_cacheRoleLists = createCache(
+            cacheSettings,
+            CacheType.ROLE_LIST,
+            cacheSettings.getRolesCacheSize(),
+            CmsDriverManager.class.getName() + ".roleListsCache");
 
         // resource list cache
-        Map<String, List<CmsResource>> lruResourceList = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getResourcelistCacheSize());
-        m_cacheResourceList = Collections.synchronizedMap(lruResourceList);
-        register(CmsDriverManager.class.getName() + ".resourceListCache", lruResourceList);
+        m_cacheResourceList = createCache(
+            cacheSettings,
+            CacheType.RESOURCE_LIST,
+            cacheSettings.getResourcelistCacheSize(),
+            CmsDriverManager.class.getName() + ".resourceListCache");
 
         // property cache
-        Map<String, CmsProperty> lruProperty = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getPropertyCacheSize());
-        m_cacheProperty = Collections.synchronizedMap(lruProperty);
-        register(CmsDriverManager.class.getName() + ".propertyCache", lruProperty);
+        m_cacheProperty = createCache(
+            cacheSettings,
+            CacheType.PROPERTY,
+            cacheSettings.getPropertyCacheSize(),
+            CmsDriverManager.class.getName() + ".propertyCache");
 
         // property list cache
-        Map<String, List<CmsProperty>> lruPropertyList = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getPropertyListsCacheSize());
-        m_cachePropertyList = Collections.synchronizedMap(lruPropertyList);
-        register(CmsDriverManager.class.getName() + ".propertyListCache", lruPropertyList);
+        m_cachePropertyList = createCache(
+            cacheSettings,
+            CacheType.PROPERTY_LIST,
+            cacheSettings.getPropertyListsCacheSize(),
+            CmsDriverManager.class.getName() + ".propertyListCache");
 
         // published resources list cache
-        Map<String, List<CmsPublishedResource>> lruPublishedResources = CmsCollectionsGenericWrapper.createLRUMap(5);
-        m_cachePublishedResources = Collections.synchronizedMap(lruPublishedResources);
-        register(CmsDriverManager.class.getName() + ".publishedResourcesCache", lruPublishedResources);
+        m_cachePublishedResources = createCache(
+            cacheSettings,
+            CacheType.PUBLISHED_RESOURCES,
+            5,
+            CmsDriverManager.class.getName() + ".publishedResourcesCache");
 
         // acl cache
-        Map<String, CmsAccessControlList> lruAcl = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getAclCacheSize());
-        m_cacheAccessControlList = Collections.synchronizedMap(lruAcl);
-        register(CmsDriverManager.class.getName() + ".accessControlListCache", lruAcl);
+        m_cacheAccessControlList = createCache(
+            cacheSettings,
+            CacheType.ACL,
+            cacheSettings.getAclCacheSize(),
+            CmsDriverManager.class.getName() + ".accessControlListCache");
 
         // vfs object cache
         Map<String, Object> vfsObjectCache = new HashMap<String, Object>();
@@ -2250,6 +2433,28 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheProject.remove(project.getName());
     }
 
+    /**
+     * Removes the property lists depending on the given resource from the cache.<p>
+     * 
+     * These are the property lists of the resource itself and the property lists 
+     * of its sub resources, since those may inherit the properties of the resource.
+     * If the resource has siblings the shared properties may have been changed as well, 
+     * so in this case the property caches are flushed completely.<p>
+     * 
+     * @param resource the changed resource
+     */
+    public void uncacheProperties(CmsResource resource) {
+
+        if (resource.getSiblingCount() > 1) {
+            flushCache(CacheType.PROPERTY, CacheType.PROPERTY_LIST);
+            return;
+        }
+        m_cacheProperty.clear();
+        for (String key : m_indexPropertyList.remove(resource.getRootPath(), false, true)) {
+            m_cachePropertyList.remove(key);
+        }
+    }
+
     /**
      * Removes the given publish job from the cache.<p>
      * 
@@ -2270,6 +2475,32 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_publishHistory.remove(publishJob);
     }
 
+    /**
+     * Removes all cached resources and resource lists depending on the given resource from the cache.<p>
+     * 
+     * These are the cached resource itself, all cached sub resources, and all resource lists 
+     * read from the resource, one of its parent folders or one of its sub folders.
+     * If the resource has siblings the resource entries of the siblings are changed as well, 
+     * so in this case the caches are cleared completely like in {@link #clearResourceCache()}.<p>
+     * 
+     * @param resource the changed resource
+     */
+    public void uncacheResource(CmsResource resource) {
+
+        if (resource.getSiblingCount() > 1) {
+            clearResourceCache();
+            return;
+        }
+        for (String key : m_indexResource.remove(resource.getRootPath(), false, true)) {
+            m_cacheResource.remove(key);
+        }
+        for (String key : m_indexResourceList.remove(resource.getRootPath(), true, true)) {
+            m_cacheResourceList.remove(key);
+        }
+        // roles depend on the resources of the organizational units
+        flushCache(CacheType.HAS_ROLE, CacheType.ROLE_LIST);
+    }
+
     /**
      * Removes the given user from the cache.<p>
      * 
@@ -2435,7 +2666,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Returns the max costs for all items within a monitored object.<p>
      * 
-     * <code>obj</code> must be of type {@link CmsLruCache} or {@link LRUMap}.<p>
+     * <code>obj</code> must be of type {@link CmsLruCache}, {@link LRUMap} or {@link CmsConcurrentLruMap}.<p>
      * 
      * @param obj the object
      * 
@@ -2449,6 +2680,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (obj instanceof LRUMap) {
             return Integer.toString(((LRUMap)obj).maxSize());
         }
+        if (obj instanceof CmsConcurrentLruMap) {
+            return Integer.toString(((CmsConcurrentLruMap<?, ?>)obj).getMaxSize());
+        }
 
         return "-";
     }
@@ -2663,6 +2897,29 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                         form.sprintf(getItems(obj)),
                         form.sprintf(getLimit(obj)),
                         form.sprintf(Long.toString(size))}));
+                if (obj instanceof CmsConcurrentLruMap) {
+                    CmsConcurrentLruMap<?, ?> cache = (CmsConcurrentLruMap<?, ?>)obj;
+                    LOG.info(Messages.get().getBundle().key(
+                        Messages.LOG_MM_CACHE_STATS_4,
+                        new Object[] {
+                            name1.sprintf(key),
+                            form.sprintf(Long.toString(cache.getHitCount())),
+                            form.sprintf(Long.toString(cache.getMissCount())),
+                            form.sprintf(Long.toString(cache.getEvictionCount()))}));
+                }
+            }
+
+            CacheType[] countedTypes = {
+                CacheType.RESOURCE,
+                CacheType.RESOURCE_LIST,
+                CacheType.PROPERTY,
+                CacheType.PROPERTY_LIST};
+            for (CacheType type : countedTypes) {
+                LOG.info(Messages.get().getBundle().key(
+                    Messages.LOG_MM_CACHE_HITS_3,
+                    type.name(),
+                    String.valueOf(getCacheHitCount(type)),
+                    String.valueOf(getCacheMissCount(type))));
             }
 
             LOG.info(Messages.get().getBundle().key(
@@ -2731,4 +2988,61 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_memoryCurrent.update();
         m_memoryAverage.calculateAverage(m_memoryCurrent);
     }
+
+    /**
+     * Counts a cache hit or miss for the given cache type.<p>
+     * 
+     * @param <T> the type of the cached value
+     * @param type the cache type
+     * @param value the value read from the cache, <code>null</code> for a cache miss
+     * 
+     * @return the given value
+     */
+    private <T> T countHit(CacheType type, T value) {
+
+        if (value != null) {
+            m_cacheHits.get(type).incrementAndGet();
+        } else {
+            m_cacheMisses.get(type).incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Creates and registers the cache of the given type with the configured implementation.<p>
+     * 
+     * @param <V> the type of the cached values
+     * @param cacheSettings the cache settings
+     * @param type the cache type
+     * @param size the maximum number of entries
+     * @param name the name to register the cache with
+     * 
+     * @return the created cache
+     */
+    private <V> Map<String, V> createCache(CmsCacheSettings cacheSettings, CacheType type, int size, String name) {
+
+        String implementation = cacheSettings.getCacheImplementation(type.name());
+        if (CmsCacheSettings.CACHE_IMPLEMENTATION_CONCURRENT.equals(implementation)) {
+            Map<String, V> cache = new CmsConcurrentLruMap<String, V>(size);
+            register(name, cache);
+            return cache;
+        }
+        Map<String, V> lruMap = CmsCollectionsGenericWrapper.createLRUMap(size);
+        register(name, lruMap);
+        return Collections.synchronizedMap(lruMap);
+    }
+
+    /**
+     * Removes the keys of entries that were evicted from the given cache from the given index,
+     * if the index has grown too large.<p>
+     * 
+     * @param index the cache path index
+     * @param cache the indexed cache
+     */
+    private void pruneIndex(CmsCachePathIndex index, Map<String, ?> cache) {
+
+        if (index.getKeyCount() > ((2 * cache.size()) + PATH_INDEX_PRUNE_THRESHOLD)) {
+            index.retainAll(cache.keySet());
+        }
+    }
 }
@@ -50,8 +50,10 @@ import org.opencms.security.CmsAuthentificationException;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsUUID;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -70,9 +72,6 @@ public final class CmsPublishEngine {
     /** The id of the admin user. */
     private CmsUUID m_adminUserId;
 
-    /** The current running publish job. */
-    private CmsPublishThread m_currentPublishThread;
-
     /** The runtime info factory used during publishing. */
     private final I_CmsDbContextFactory m_dbContextFactory;
 
@@ -85,6 +84,9 @@ public final class CmsPublishEngine {
     /** The publish listeners. */
     private final CmsPublishListenerCollection m_listeners;
 
+    /** The maximum number of publish jobs running in parallel. */
+    private int m_parallelJobs;
+
     /** The publish history list with already published jobs. */
     private final CmsPublishHistory m_publishHistory;
 
@@ -94,6 +96,9 @@ public final class CmsPublishEngine {
     /** The amount of time the system will wait for a running publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
+    /** The running publish threads with the scope of their publish jobs, in the order they have been started. */
+    private final Map<CmsPublishThread, CmsPublishJobScope> m_publishThreads;
+
     /** Is set during shutdown. */
     private boolean m_shuttingDown;
 
@@ -124,6 +129,9 @@ public final class CmsPublishEngine {
         m_publishHistory = new CmsPublishHistory(this);
         // initialize event handling
         m_listeners = new CmsPublishListenerCollection(this);
+        // initialize the running publish threads
+        m_publishThreads = new LinkedHashMap<CmsPublishThread, CmsPublishJobScope>();
+        m_parallelJobs = CmsPublishManager.DEFAULT_PARALLEL_JOBS;
         // set engine state to normal processing
         m_engineState = CmsPublishEngineState.ENGINE_STARTED;
         if (CmsLog.INIT.isInfoEnabled()) {
@@ -132,29 +140,16 @@ public final class CmsPublishEngine {
     }
 
     /**
-     * Abandons the given publish thread.<p>
+     * Abandons the current publish thread, that is the running publish thread that has been started first.<p>
      */
     public void abandonThread() {
 
-        if (!m_currentPublishThread.isAlive()) {
-            // thread is dead
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
-            }
+        CmsPublishThread publishThread = getCurrentPublishJob();
+        if (publishThread != null) {
+            abandonThread(publishThread);
         } else {
-            // thread is not dead, and we suppose it hangs :(
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(
-                    Messages.LOG_THREADSTORE_PUBLISH_THREAD_INTERRUPT_2,
-                    m_currentPublishThread.getName(),
-                    m_currentPublishThread.getUUID()));
-            }
-            m_currentPublishThread.interrupt();
+            checkCurrentPublishJobThread();
         }
-        // just throw it away
-        m_currentPublishThread = null;
-        // and try again
-        checkCurrentPublishJobThread();
     }
 
     /**
@@ -185,31 +180,63 @@ public final class CmsPublishEngine {
             return;
         }
 
-        // there is no running publish job
-        if (m_currentPublishThread == null) {
-            // but something is waiting in the queue
-            if (!m_publishQueue.isEmpty()) {
-                // start the next waiting publish job
-                CmsPublishJobInfoBean publishJob = m_publishQueue.next();
-                m_currentPublishThread = new CmsPublishThread(this, publishJob);
-                m_currentPublishThread.start();
-            } else {
-                // nothing to do
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0));
+        // clean up dead threads
+        synchronized (m_publishThreads) {
+            Iterator<CmsPublishThread> itThreads = m_publishThreads.keySet().iterator();
+            while (itThreads.hasNext()) {
+                if (!itThreads.next().isAlive()) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
+                    }
+                    itThreads.remove();
                 }
             }
-            return;
         }
-        if (m_currentPublishThread.isAlive()) {
-            // normal running
-            // wait until it is finished
+
+        if (m_publishQueue.isEmpty()) {
+            // nothing to do
             if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_WAITING_0));
+                LOG.debug(Messages.get().getBundle().key(
+                    getCurrentPublishJob() == null
+                    ? Messages.LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0
+                    : Messages.LOG_PUBLISH_ENGINE_WAITING_0));
             }
-        } else {
-            // clean up the dead thread
-            abandonThread();
+            return;
+        }
+
+        // the scopes of the running jobs, and of all jobs waiting before the current one
+        List<CmsPublishJobScope> blockedScopes;
+        synchronized (m_publishThreads) {
+            blockedScopes = new ArrayList<CmsPublishJobScope>(m_publishThreads.values());
+        }
+        Iterator<CmsPublishJobEnqueued> itWaitingJobs = m_publishQueue.asList().iterator();
+        while (itWaitingJobs.hasNext()) {
+            if (countPublishThreads() >= m_parallelJobs) {
+                // normal running, wait until a running job is finished
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_WAITING_0));
+                }
+                return;
+            }
+            CmsPublishJobInfoBean publishJob = itWaitingJobs.next().m_publishJob;
+            CmsPublishJobScope scope = new CmsPublishJobScope(publishJob.getPublishList());
+            if (scope.overlaps(blockedScopes)) {
+                // the job has to wait for a running or an earlier enqueued job
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(
+                        Messages.LOG_PUBLISH_ENGINE_CONFLICTING_JOB_1,
+                        publishJob.getPublishHistoryId()));
+                }
+            } else if (m_publishQueue.next(publishJob)) {
+                // start the waiting publish job
+                CmsPublishThread publishThread = new CmsPublishThread(this, publishJob);
+                synchronized (m_publishThreads) {
+                    m_publishThreads.put(publishThread, scope);
+                }
+                publishThread.start();
+            }
+            // later jobs must not overtake an overlapping job enqueued before them
+            blockedScopes.add(scope);
         }
     }
 
@@ -271,10 +298,13 @@ public final class CmsPublishEngine {
      */
     public CmsPublishJobBase getJobByPublishHistoryId(CmsUUID publishHistoryId) {
 
-        // try current running job
-        if ((m_currentPublishThread != null)
-            && m_currentPublishThread.getPublishJob().getPublishHistoryId().equals(publishHistoryId)) {
-            return new CmsPublishJobRunning(m_currentPublishThread.getPublishJob());
+        // try running jobs
+        Iterator<CmsPublishThread> itRunningJobs = getRunningPublishJobs().iterator();
+        while (itRunningJobs.hasNext()) {
+            CmsPublishJobInfoBean runningJob = itRunningJobs.next().getPublishJob();
+            if (runningJob.getPublishHistoryId().equals(publishHistoryId)) {
+                return new CmsPublishJobRunning(runningJob);
+            }
         }
         // try enqueued jobs
         Iterator<CmsPublishJobEnqueued> itEnqueuedJobs = getPublishQueue().asList().iterator();
@@ -332,10 +362,10 @@ public final class CmsPublishEngine {
         // prevent new publish jobs are accepted
         m_shuttingDown = true;
 
-        // if a job is currently running, 
+        // if jobs are currently running, 
         // wait the specified amount of time,
-        // then write an abort message to the report
-        if (m_currentPublishThread != null) {
+        // then write an abort message to the reports
+        if (getCurrentPublishJob() != null) {
 
             // if a shutdown time is defined, wait  if a publish process is running
             if (m_publishQueueShutdowntime > 0) {
@@ -348,8 +378,9 @@ public final class CmsPublishEngine {
                 }
             }
 
-            if (m_currentPublishThread != null) {
-                CmsPublishJobInfoBean publishJob = m_currentPublishThread.getPublishJob();
+            Iterator<CmsPublishThread> itThreads = getRunningPublishJobs().iterator();
+            while (itThreads.hasNext()) {
+                CmsPublishJobInfoBean publishJob = itThreads.next().getPublishJob();
                 try {
                     abortPublishJob(m_adminUserId, new CmsPublishJobEnqueued(publishJob), false);
                 } catch (CmsException e) {
@@ -379,6 +410,19 @@ public final class CmsPublishEngine {
         }
     }
 
+    /**
+     * Abandons the publish thread of the given running publish job.<p>
+     * 
+     * @param publishJob the running publish job to abandon
+     */
+    protected void abandonThread(CmsPublishJobInfoBean publishJob) {
+
+        CmsPublishThread publishThread = getPublishThread(publishJob);
+        if (publishThread != null) {
+            abandonThread(publishThread);
+        }
+    }
+
     /**
      * Aborts the given publish job.<p>
      * 
@@ -395,8 +439,9 @@ public final class CmsPublishEngine {
         // abort event should be raised before the job is removed implicitly
         m_listeners.fireAbort(userId, publishJob);
 
-        if ((m_currentPublishThread == null) || !publishJob.m_publishJob.equals(m_currentPublishThread.getPublishJob())) {
-            // engine is currently publishing another job or is not publishing
+        CmsPublishThread publishThread = getPublishThread(publishJob.m_publishJob);
+        if (publishThread == null) {
+            // engine is currently publishing other jobs or is not publishing
             if (!m_publishQueue.abortPublishJob(publishJob.m_publishJob)) {
                 // job not found
                 throw new CmsPublishException(Messages.get().container(
@@ -404,10 +449,10 @@ public final class CmsPublishEngine {
             }
         } else if (!m_shuttingDown) {
             // engine is currently publishing the job to abort
-            m_currentPublishThread.abort();
-        } else if (m_shuttingDown && (m_currentPublishThread != null)) {
-            // aborting the current job during shut down
-            I_CmsReport report = m_currentPublishThread.getReport();
+            publishThread.abort();
+        } else {
+            // aborting the running job during shut down
+            I_CmsReport report = publishThread.getReport();
             report.println();
             report.println();
             report.println(
@@ -454,20 +499,25 @@ public final class CmsPublishEngine {
     protected void enableEngine() {
 
         m_engineState = CmsPublishEngineState.ENGINE_STARTED;
-        // start publish job if jobs waiting
-        if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+        // start publish jobs if jobs waiting
+        if (!m_publishQueue.isEmpty()) {
             checkCurrentPublishJobThread();
         }
     }
 
     /**
-     * Returns the current running publish job.<p>
+     * Returns the current running publish job, that is the running publish job that has been started first.<p>
      * 
-     * @return the current running publish job
+     * @return the current running publish job, or <code>null</code> if no publish job is running
      */
     protected CmsPublishThread getCurrentPublishJob() {
 
-        return m_currentPublishThread;
+        synchronized (m_publishThreads) {
+            if (m_publishThreads.isEmpty()) {
+                return null;
+            }
+            return m_publishThreads.keySet().iterator().next();
+        }
     }
 
     /**
@@ -536,6 +586,18 @@ public final class CmsPublishEngine {
         return result;
     }
 
+    /**
+     * Returns the running publish jobs, in the order they have been started.<p>
+     * 
+     * @return the running publish jobs
+     */
+    protected List<CmsPublishThread> getRunningPublishJobs() {
+
+        synchronized (m_publishThreads) {
+            return new ArrayList<CmsPublishThread>(m_publishThreads.keySet());
+        }
+    }
+
     /**
      * Returns the user identified by the given id.<p>
      * 
@@ -563,11 +625,15 @@ public final class CmsPublishEngine {
      * @param adminCms the admin cms
      * @param publishQueuePersistance flag if the queue is persisted
      * @param publishQueueShutdowntime amount of time to wait for a publish job during shutdown
+     * @param publishParallelJobs the maximum number of non-overlapping publish jobs running in parallel
      * 
      * @throws CmsException if something goes wrong
      */
-    protected void initialize(CmsObject adminCms, boolean publishQueuePersistance, int publishQueueShutdowntime)
-    throws CmsException {
+    protected void initialize(
+        CmsObject adminCms,
+        boolean publishQueuePersistance,
+        int publishQueueShutdowntime,
+        int publishParallelJobs) throws CmsException {
 
         // check the driver manager
         if ((m_driverManager == null) || (m_dbContextFactory == null)) {
@@ -575,6 +641,12 @@ public final class CmsPublishEngine {
         }
 
         m_publishQueueShutdowntime = publishQueueShutdowntime;
+        m_parallelJobs = Math.max(1, publishParallelJobs);
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(
+                Messages.INIT_PUBLISH_ENGINE_PARALLEL_JOBS_1,
+                new Integer(m_parallelJobs)));
+        }
 
         // initially the engine is stopped, must be restartet after full system initialization
         m_engineState = CmsPublishEngineState.ENGINE_STOPPED;
@@ -586,14 +658,14 @@ public final class CmsPublishEngine {
 
     /**
      * Returns the working state, that is if no publish job
-     * is waiting to be processed and there is no current running 
+     * is waiting to be processed and there is no running 
      * publish job.<p>
      * 
      * @return the working state
      */
     protected boolean isRunning() {
 
-        return (((m_engineState == CmsPublishEngineState.ENGINE_STARTED) && !m_publishQueue.isEmpty()) || (m_currentPublishThread != null));
+        return (((m_engineState == CmsPublishEngineState.ENGINE_STARTED) && !m_publishQueue.isEmpty()) || (getCurrentPublishJob() != null));
     }
 
     /**
@@ -681,6 +753,15 @@ public final class CmsPublishEngine {
             // log failure, most likely a database problem
             LOG.error(t.getLocalizedMessage(), t);
         }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(Messages.get().getBundle().key(
+                Messages.LOG_PUBLISH_JOB_METRICS_4,
+                new Object[] {
+                    publishJob.getPublishHistoryId(),
+                    new Integer(publishJob.getSize()),
+                    new Long(publishJob.getQueueWaitTime()),
+                    new Long(publishJob.getExecutionTime())}));
+        }
         try {
             // put the publish job into the history list
             m_publishHistory.add(publishJob);
@@ -688,9 +769,9 @@ public final class CmsPublishEngine {
             // log failure, most likely a database problem
             LOG.error(t.getLocalizedMessage(), t);
         }
-        if (Thread.currentThread() == m_currentPublishThread) {
+        synchronized (m_publishThreads) {
             // wipe the dead thread, only if this thread has not been abandoned
-            m_currentPublishThread = null;
+            m_publishThreads.remove(Thread.currentThread());
         }
         // clear the published resources cache
         OpenCms.getMemoryMonitor().flushCache(CmsMemoryMonitor.CacheType.PUBLISHED_RESOURCES);
@@ -765,8 +846,8 @@ public final class CmsPublishEngine {
 
         if (m_engineState != CmsPublishEngineState.ENGINE_STARTED) {
             m_engineState = CmsPublishEngineState.ENGINE_STARTED;
-            // start publish job if jobs waiting
-            if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+            // start publish jobs if jobs waiting
+            if (!m_publishQueue.isEmpty()) {
                 checkCurrentPublishJobThread();
             }
         }
@@ -807,6 +888,67 @@ public final class CmsPublishEngine {
         }
     }
 
+    /**
+     * Abandons the given publish thread.<p>
+     * 
+     * @param publishThread the publish thread to abandon
+     */
+    private void abandonThread(CmsPublishThread publishThread) {
+
+        if (!publishThread.isAlive()) {
+            // thread is dead
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
+            }
+        } else {
+            // thread is not dead, and we suppose it hangs :(
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(
+                    Messages.LOG_THREADSTORE_PUBLISH_THREAD_INTERRUPT_2,
+                    publishThread.getName(),
+                    publishThread.getUUID()));
+            }
+            publishThread.interrupt();
+        }
+        // just throw it away
+        synchronized (m_publishThreads) {
+            m_publishThreads.remove(publishThread);
+        }
+        // and try again
+        checkCurrentPublishJobThread();
+    }
+
+    /**
+     * Returns the number of running publish threads.<p>
+     * 
+     * @return the number of running publish threads
+     */
+    private int countPublishThreads() {
+
+        synchronized (m_publishThreads) {
+            return m_publishThreads.size();
+        }
+    }
+
+    /**
+     * Returns the running publish thread of the given publish job.<p>
+     * 
+     * @param publishJob the publish job to look up
+     * 
+     * @return the publish thread, or <code>null</code> if the publish job is not running
+     */
+    private CmsPublishThread getPublishThread(CmsPublishJobInfoBean publishJob) {
+
+        Iterator<CmsPublishThread> itThreads = getRunningPublishJobs().iterator();
+        while (itThreads.hasNext()) {
+            CmsPublishThread publishThread = itThreads.next();
+            if (publishJob.equals(publishThread.getPublishJob())) {
+                return publishThread;
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns <code>true</code> if the login manager allows login.<p>
      * 
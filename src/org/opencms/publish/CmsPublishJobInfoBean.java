@@ -173,6 +173,22 @@ public final class CmsPublishJobInfoBean {
         return m_enqueueTime;
     }
 
+    /**
+     * Returns the time in milliseconds the publish job has been running.<p>
+     * 
+     * For a running publish job this is the time since the job was started.<p>
+     *
+     * @return the execution time, or <code>0</code> if the publish job has not been started
+     */
+    public long getExecutionTime() {
+
+        if (m_startTime == 0L) {
+            return 0L;
+        }
+        long end = (m_finishTime != 0L) ? m_finishTime : System.currentTimeMillis();
+        return Math.max(0L, end - m_startTime);
+    }
+
     /**
      * Returns the time the publish job ends.<p>
      *
@@ -268,6 +284,22 @@ public final class CmsPublishJobInfoBean {
         return m_publishReport;
     }
 
+    /**
+     * Returns the time in milliseconds the publish job has been waiting in the publish queue.<p>
+     * 
+     * For a still waiting publish job this is the time since the job was enqueued.<p>
+     *
+     * @return the queue wait time, or <code>0</code> if the publish job has not been enqueued
+     */
+    public long getQueueWaitTime() {
+
+        if (m_enqueueTime == 0L) {
+            return 0L;
+        }
+        long end = (m_startTime != 0L) ? m_startTime : System.currentTimeMillis();
+        return Math.max(0L, end - m_enqueueTime);
+    }
+
     /**
      * Returns the report for this publish job.<p>
      * 
@@ -0,0 +1,158 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.publish;
+
+import org.opencms.db.CmsPublishList;
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Describes the part of the VFS a publish job writes to, used to decide if two publish jobs may run in parallel.<p>
+ * 
+ * Two publish jobs overlap if they share a resource, a sibling of a resource, or if a resource of
+ * one job is a parent folder of a resource of the other job.<p>
+ * 
+ * @since 8.5.0
+ */
+/* default */final class CmsPublishJobScope {
+
+    /** The resource ids of all resources of the publish job. */
+    private final Set<CmsUUID> m_resourceIds;
+
+    /** The root paths of all resources of the publish job. */
+    private final Set<String> m_rootPaths;
+
+    /** The structure ids of all resources of the publish job. */
+    private final Set<CmsUUID> m_structureIds;
+
+    /**
+     * Creates the scope of the given publish list.<p>
+     * 
+     * @param publishList the publish list to create the scope for
+     */
+    protected CmsPublishJobScope(CmsPublishList publishList) {
+
+        m_rootPaths = new HashSet<String>();
+        m_resourceIds = new HashSet<CmsUUID>();
+        m_structureIds = new HashSet<CmsUUID>();
+        if (publishList == null) {
+            return;
+        }
+        Iterator<CmsResource> itResources = publishList.getAllResources().iterator();
+        while (itResources.hasNext()) {
+            CmsResource resource = itResources.next();
+            m_rootPaths.add(resource.getRootPath());
+            m_resourceIds.add(resource.getResourceId());
+            m_structureIds.add(resource.getStructureId());
+        }
+    }
+
+    /**
+     * Checks if this scope overlaps with the given other scope.<p>
+     * 
+     * @param other the other scope
+     * 
+     * @return <code>true</code> if the publish jobs of both scopes must not run in parallel
+     */
+    protected boolean overlaps(CmsPublishJobScope other) {
+
+        if (intersects(m_structureIds, other.m_structureIds) || intersects(m_resourceIds, other.m_resourceIds)) {
+            // same resource or sibling
+            return true;
+        }
+        return containsPathOrParent(m_rootPaths, other.m_rootPaths)
+            || containsPathOrParent(other.m_rootPaths, m_rootPaths);
+    }
+
+    /**
+     * Checks if this scope overlaps with any of the given scopes.<p>
+     * 
+     * @param scopes the scopes to check
+     * 
+     * @return <code>true</code> if this scope overlaps with at least one of the given scopes
+     */
+    protected boolean overlaps(Iterable<CmsPublishJobScope> scopes) {
+
+        Iterator<CmsPublishJobScope> it = scopes.iterator();
+        while (it.hasNext()) {
+            if (overlaps(it.next())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if one of the given paths or one of their parent folders is contained in the given set of folders.<p>
+     * 
+     * @param folders the set of paths to look up
+     * @param paths the paths to check
+     * 
+     * @return <code>true</code> if a path or a parent folder of a path is contained in the folders
+     */
+    private boolean containsPathOrParent(Set<String> folders, Set<String> paths) {
+
+        Iterator<String> itPaths = paths.iterator();
+        while (itPaths.hasNext()) {
+            String path = itPaths.next();
+            while (path != null) {
+                if (folders.contains(path)) {
+                    return true;
+                }
+                path = CmsResource.getParentFolder(path);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the given sets have a common element.<p>
+     * 
+     * @param first the first set
+     * @param second the second set
+     * 
+     * @return <code>true</code> if the given sets have a common element
+     */
+    private boolean intersects(Set<CmsUUID> first, Set<CmsUUID> second) {
+
+        Set<CmsUUID> smaller = first.size() < second.size() ? first : second;
+        Set<CmsUUID> larger = smaller == first ? second : first;
+        Iterator<CmsUUID> it = smaller.iterator();
+        while (it.hasNext()) {
+            if (larger.contains(it.next())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
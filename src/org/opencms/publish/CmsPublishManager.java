@@ -70,6 +70,9 @@ public class CmsPublishManager {
     /** The default history size. */
     public static final int DEFAULT_HISTORY_SIZE = 100;
 
+    /** The default number of non-overlapping publish jobs running in parallel. */
+    public static final int DEFAULT_PARALLEL_JOBS = 1;
+
     /** The default persistence setting for the publish queue. */
     public static final boolean DEFAULT_QUEUE_PERSISTANCE = false;
 
@@ -91,6 +94,9 @@ public class CmsPublishManager {
     /** The publish list remove mode. */
     private CmsPublishManager.PublishListRemoveMode m_publishListRemoveMode;
 
+    /** The maximum number of non-overlapping publish jobs running in parallel. */
+    private int m_publishParallelJobs = DEFAULT_PARALLEL_JOBS;
+
     /** Indicates if the publish queue is re-initialized on startup. */
     private boolean m_publishQueuePersistance;
 
@@ -133,6 +139,16 @@ public class CmsPublishManager {
         m_publishEngine.abandonThread();
     }
 
+    /**
+     * Abandons the thread of the given running publish job.<p>
+     * 
+     * @param publishJob the running publish job to abandon
+     */
+    public void abandonThread(CmsPublishJobRunning publishJob) {
+
+        m_publishEngine.abandonThread(publishJob.m_publishJob);
+    }
+
     /**
      * Aborts the given publish job.<p>
      *
@@ -195,6 +211,8 @@ public class CmsPublishManager {
     /**
      * Returns the current running publish job.<p>
      *
+     * If several publish jobs are running in parallel, this is the one that has been started first.<p>
+     *
      * @return the current running publish job
      */
     public CmsPublishJobRunning getCurrentPublishJob() {
@@ -388,6 +406,18 @@ public class CmsPublishManager {
         return m_publishEngine.getPublishQueue().asList();
     }
 
+    /**
+     * Returns the maximum number of publish jobs that are running in parallel.<p>
+     * 
+     * Only publish jobs that do not share resources, siblings or parent folders are running in parallel.<p>
+     *
+     * @return the maximum number of publish jobs running in parallel
+     */
+    public int getPublishParallelJobs() {
+
+        return m_publishParallelJobs;
+    }
+
     /**
      * Returns the amount of time in seconds the system will wait during shutdown for a running publish job.<p>
      *
@@ -431,6 +461,22 @@ public class CmsPublishManager {
         return m_publishEngine.getReportContents(publishJob);
     }
 
+    /**
+     * Returns the running publish jobs, in the order they have been started.<p>
+     *
+     * @return a list of {@link CmsPublishJobRunning} objects
+     */
+    public List<CmsPublishJobRunning> getRunningPublishJobs() {
+
+        List<CmsPublishThread> publishThreads = m_publishEngine.getRunningPublishJobs();
+        List<CmsPublishJobRunning> result = new ArrayList<CmsPublishJobRunning>(publishThreads.size());
+        Iterator<CmsPublishThread> it = publishThreads.iterator();
+        while (it.hasNext()) {
+            result.add(new CmsPublishJobRunning(it.next().getPublishJob()));
+        }
+        return result;
+    }
+
     /**
      * Returns the current user's publish list.<p>
      *
@@ -454,7 +500,11 @@ public class CmsPublishManager {
      */
     public void initialize(CmsObject cms) throws CmsException {
 
-        m_publishEngine.initialize(cms, m_publishQueuePersistance, m_publishQueueShutdowntime);
+        m_publishEngine.initialize(
+            cms,
+            m_publishQueuePersistance,
+            m_publishQueueShutdowntime,
+            m_publishParallelJobs);
         m_frozen = true;
     }
 
@@ -671,6 +721,19 @@ public class CmsPublishManager {
         m_publishListRemoveMode = publishListRemoveMode;
     }
 
+    /**
+     * Sets the maximum number of non-overlapping publish jobs running in parallel.<p>
+     *
+     * @param publishParallelJobs the number of parallel publish jobs to set, parsed as <code>int</code>
+     */
+    public void setPublishParallelJobs(String publishParallelJobs) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishParallelJobs = Integer.parseInt(publishParallelJobs);
+    }
+
     /**
      * Sets if the publish queue is re-initialized on startup.<p>
      *
@@ -282,6 +282,23 @@ public class CmsPublishQueue {
         return publishJob;
     }
 
+    /**
+     * Removes the given publish job from the queue to be published, 
+     * even if it is not the first waiting publish job.<p>
+     * 
+     * @param publishJob the publish job to be published
+     * 
+     * @return <code>true</code> if the publish job was still waiting in the queue
+     */
+    protected boolean next(CmsPublishJobInfoBean publishJob) {
+
+        if (contains(publishJob)) {
+            OpenCms.getMemoryMonitor().uncachePublishJob(publishJob);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Removes the given job from the list.<p>
      * 
@@ -112,6 +112,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_PUBLISH_TRHEAD_NAME_0 = "GUI_PUBLISH_TRHEAD_NAME_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_PUBLISH_ENGINE_PARALLEL_JOBS_1 = "INIT_PUBLISH_ENGINE_PARALLEL_JOBS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_PUBLISH_ENGINE_READY_0 = "INIT_PUBLISH_ENGINE_READY_0";
 
@@ -124,6 +127,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_PUBLISH_REPORT_PATH_SET_1 = "INIT_PUBLISH_REPORT_PATH_SET_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PUBLISH_ENGINE_CONFLICTING_JOB_1 = "LOG_PUBLISH_ENGINE_CONFLICTING_JOB_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PUBLISH_ENGINE_DEAD_JOB_0 = "LOG_PUBLISH_ENGINE_DEAD_JOB_0";
 
@@ -148,6 +154,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PUBLISH_JOB_FINISH_0 = "LOG_PUBLISH_JOB_FINISH_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PUBLISH_JOB_METRICS_4 = "LOG_PUBLISH_JOB_METRICS_4";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PUBLISH_JOB_REMOVE_0 = "LOG_PUBLISH_JOB_REMOVE_0";
 
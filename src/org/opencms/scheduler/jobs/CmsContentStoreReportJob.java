@@ -0,0 +1,82 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.scheduler.jobs;
+
+import org.opencms.db.CmsContentStatistics;
+import org.opencms.file.CmsObject;
+import org.opencms.main.CmsLog;
+import org.opencms.scheduler.I_CmsScheduledJob;
+
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * A schedulable OpenCms job that reports how much database space the content store would save.<p>
+ *
+ * The job reads all offline, online and historical file contents, and compares their total size with
+ * the size they would need if every distinct content was stored only once. Run it before enabling the
+ * content store with <code>db.vfs.contentstore=true</code> in <code>opencms.properties</code>, and
+ * afterwards to see how many contents are already deduplicated.<p>
+ *
+ * The job has no parameters. It reads every content in the database, so it should be scheduled
+ * when the system load is low, and it has to run as a user with the role DATABASE_MANAGER.<p>
+ *
+ * @since 8.5.0
+ */
+public class CmsContentStoreReportJob implements I_CmsScheduledJob {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsContentStoreReportJob.class);
+
+    /**
+     * @see org.opencms.scheduler.I_CmsScheduledJob#launch(org.opencms.file.CmsObject, java.util.Map)
+     */
+    public String launch(CmsObject cms, Map<String, String> parameters) throws Exception {
+
+        CmsContentStatistics statistics = cms.readContentStatistics();
+        long percent = 0;
+        if (statistics.getContentSize() > 0) {
+            percent = (100 * statistics.getSavedSize()) / statistics.getContentSize();
+        }
+        String report = Messages.get().getBundle().key(
+            Messages.LOG_CONTENT_STORE_REPORT_7,
+            new Object[] {
+                new Long(statistics.getContentCount()),
+                new Long(statistics.getContentSize()),
+                new Long(statistics.getDistinctCount()),
+                new Long(statistics.getStoredReferenceCount()),
+                new Long(statistics.getEstimatedSize()),
+                new Long(statistics.getSavedSize()),
+                new Long(percent)});
+        if (LOG.isInfoEnabled()) {
+            LOG.info(report);
+        }
+        return report;
+    }
+}
@@ -27,10 +27,12 @@
 
 package org.opencms.scheduler.jobs;
 
+import org.opencms.db.CmsHistoryPurgeChunk;
 import org.opencms.file.CmsObject;
 import org.opencms.report.CmsLogReport;
 import org.opencms.scheduler.I_CmsScheduledJob;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
 import java.util.Calendar;
 import java.util.GregorianCalendar;
@@ -55,12 +57,21 @@ import java.util.Map;
  * <dd>Number/Integer to configure the number of days the versions of deleted resources will 
  * be kept. That means that all versions wich are older than the specified number will be deleted.
  * This parameter is optional and only makes sense if the clearDeleted parameter is set to true.</dd>
+ * <dt><code>chunkSize={Number/Integer}</code></dt>
+ * <dd>Number/Integer to configure how many resources are processed in one chunk. Every chunk is 
+ * deleted in its own transaction. This parameter is optional, the default is 500.</dd>
+ * <dt><code>resumeAfter={UUID}</code></dt>
+ * <dd>The structure id to resume an interrupted run after, as written to the log after every chunk.
+ * This parameter is optional, by default all resources are processed.</dd>
  * </dl>
  * 
  * @since 7.0.0
  */
 public class CmsHistoryClearJob implements I_CmsScheduledJob {
 
+    /** Name of the parameter where to configure how many resources are processed in one chunk. */
+    public static final String PARAM_CHUNKSIZE = "chunkSize";
+
     /** Name of the parameter where to configure how many versions are kept. */
     public static final String PARAM_KEEPVERSIONS = "keepVersions";
 
@@ -70,6 +81,9 @@ public class CmsHistoryClearJob implements I_CmsScheduledJob {
     /** Name of the parameter where to configure the number of days the versions will be kept. */
     public static final String PARAM_KEEPTIMERANGE = "keepTimeRange";
 
+    /** Name of the parameter where to configure the structure id to resume an interrupted run after. */
+    public static final String PARAM_RESUMEAFTER = "resumeAfter";
+
     /**
      * @see org.opencms.scheduler.I_CmsScheduledJob#launch(org.opencms.file.CmsObject, java.util.Map)
      */
@@ -88,6 +102,20 @@ public class CmsHistoryClearJob implements I_CmsScheduledJob {
             keepTimeRange = Integer.parseInt(keepTimeRangeStr);
         }
 
+        // read the optional parameter for the chunk size
+        String chunkSizeStr = parameters.get(PARAM_CHUNKSIZE);
+        int chunkSize = CmsHistoryPurgeChunk.DEFAULT_SIZE;
+        if (!CmsStringUtil.isEmptyOrWhitespaceOnly(chunkSizeStr)) {
+            chunkSize = Integer.parseInt(chunkSizeStr);
+        }
+
+        // read the optional parameter for the structure id to resume after
+        String resumeAfterStr = parameters.get(PARAM_RESUMEAFTER);
+        CmsUUID resumeAfter = null;
+        if (!CmsStringUtil.isEmptyOrWhitespaceOnly(resumeAfterStr)) {
+            resumeAfter = new CmsUUID(resumeAfterStr.trim());
+        }
+
         // calculate the date from where to clear deleted versions
         long timeDeleted = -1;
         int keepDeletedVersions;
@@ -104,7 +132,7 @@ public class CmsHistoryClearJob implements I_CmsScheduledJob {
         CmsLogReport report = new CmsLogReport(cms.getRequestContext().getLocale(), CmsHistoryClearJob.class);
 
         // delete the versions
-        cms.deleteHistoricalVersions(keepVersions, keepDeletedVersions, timeDeleted, report);
+        cms.deleteHistoricalVersions(keepVersions, keepDeletedVersions, timeDeleted, resumeAfter, chunkSize, report);
 
         return null;
     }
@@ -43,6 +43,9 @@ import org.apache.commons.logging.Log;
  * The indexing of a single resource is wrapped into a thread
  * in order to prevent the overall indexer from hanging.<p>
  * 
+ * In case the {@link CmsIndexingThreadManager} uses a pool of worker threads, 
+ * this is not started as a thread of its own but executed as a task of the pool.<p>
+ * 
  * @since 6.0.0 
  */
 public class CmsIndexingThread extends Thread {
@@ -56,6 +59,9 @@ public class CmsIndexingThread extends Thread {
     /** The counter to output for the report. */
     private int m_count;
 
+    /** The error that occurred while creating the document. */
+    private Throwable m_error;
+
     /** The current index. */
     private CmsSearchIndex m_index;
 
@@ -89,6 +95,16 @@ public class CmsIndexingThread extends Thread {
         m_result = null;
     }
 
+    /**
+     * Returns the error that occurred while creating the document.<p>
+     * 
+     * @return the error that occurred while creating the document, or <code>null</code> if there was none
+     */
+    public Throwable getError() {
+
+        return m_error;
+    }
+
     /**
      * Returns the document created by this indexer thread.<p>
      * 
@@ -117,17 +133,20 @@ public class CmsIndexingThread extends Thread {
             m_result = createIndexDocument(m_cms, m_res, m_index, m_count, m_report);
             docOk = true;
 
-            // check if the thread was interrupted
-            if (isInterrupted() && LOG.isDebugEnabled()) {
+            // check if the thread was interrupted, this may also be a worker of the indexing thread pool
+            if (Thread.currentThread().isInterrupted() && LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_ABANDONED_THREAD_FINISHED_1, m_res.getRootPath()));
             }
 
         } catch (CmsIndexNoContentException e) {
             // Ignore exception caused by empty documents, so that the report is not messed up with error message
-            m_report.println(
-                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                I_CmsReport.FORMAT_OK);
+            if (m_report != null) {
+                m_report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            }
         } catch (Exception exc) {
+            m_error = exc;
             if (m_report != null) {
                 m_report.println(
                     org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
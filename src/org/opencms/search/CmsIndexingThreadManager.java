@@ -28,29 +28,100 @@
 package org.opencms.search;
 
 import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 
 import java.io.IOException;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.logging.Log;
 
 /**
  * Implements the management of indexing threads.<p>
  * 
+ * In case more than one indexing thread is configured, the documents are extracted 
+ * in parallel by a pool of worker threads, while the extracted documents are still 
+ * written to the index in the order the resources have been handed to this manager.<p>
+ * 
  * @since 6.0.0 
  */
 public class CmsIndexingThreadManager {
 
+    /**
+     * A document extraction that has been submitted to the worker pool and has not yet been written to the index.<p>
+     */
+    private static class CmsIndexingTask implements Runnable {
+
+        /** The future of the extraction. */
+        protected Future<?> m_future;
+
+        /** The indexer that requested the extraction. */
+        protected CmsVfsIndexer m_indexer;
+
+        /** The resource to extract. */
+        protected CmsResource m_resource;
+
+        /** The time a worker has started the extraction, or <code>0</code> while the task is queued. */
+        protected volatile long m_startTime;
+
+        /** The extraction runnable, holding the result document once finished. */
+        protected CmsIndexingThread m_thread;
+
+        /** The index writer to write the result document to. */
+        protected I_CmsIndexWriter m_writer;
+
+        /**
+         * Creates a new indexing task.<p>
+         * 
+         * @param indexer the indexer that requested the extraction
+         * @param writer the index writer to write the result document to
+         * @param resource the resource to extract
+         * @param thread the extraction runnable
+         */
+        protected CmsIndexingTask(
+            CmsVfsIndexer indexer,
+            I_CmsIndexWriter writer,
+            CmsResource resource,
+            CmsIndexingThread thread) {
+
+            m_indexer = indexer;
+            m_writer = writer;
+            m_resource = resource;
+            m_thread = thread;
+        }
+
+        /**
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+
+            m_startTime = System.currentTimeMillis();
+            m_thread.run();
+        }
+    }
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsIndexingThreadManager.class);
 
     /** Number of threads abandoned. */
     private int m_abandonedCounter;
 
+    /** The pool of worker threads, only used in case more than one indexing thread is configured. */
+    private ThreadPoolExecutor m_executor;
+
     /** The time the last error was written to the log. */
     private long m_lastLogErrorTime;
 
@@ -60,15 +131,24 @@ public class CmsIndexingThreadManager {
     /** The maximum number of modifications before a commit in the search index is triggered. */
     private int m_maxModificationsBeforeCommit;
 
+    /** The submitted extractions, in the order their documents must be written to the index. */
+    private LinkedList<CmsIndexingTask> m_pending;
+
     /** Number of thread returned. */
     private int m_returnedCounter;
 
     /** Overall number of threads started. */
     private int m_startedCounter;
 
+    /** The number of threads used to extract documents in parallel. */
+    private int m_threadCount;
+
     /** Timeout for abandoning threads. */
     private long m_timeout;
 
+    /** Number of documents written to (or deleted from) the index. */
+    private int m_writtenCounter;
+
     /**
      * Creates and starts a thread manager for indexing threads.<p>
      * 
@@ -77,8 +157,22 @@ public class CmsIndexingThreadManager {
      */
     public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit) {
 
+        this(timeout, maxModificationsBeforeCommit, 1);
+    }
+
+    /**
+     * Creates and starts a thread manager for indexing threads.<p>
+     * 
+     * @param timeout timeout after a thread is abandoned
+     * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
+     * @param threadCount the number of threads used to extract documents in parallel
+     */
+    public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit, int threadCount) {
+
         m_timeout = timeout;
         m_maxModificationsBeforeCommit = maxModificationsBeforeCommit;
+        m_threadCount = threadCount;
+        m_pending = new LinkedList<CmsIndexingTask>();
     }
 
     /**
@@ -89,12 +183,21 @@ public class CmsIndexingThreadManager {
      * value. If the timeout value is reached, the indexing thread is
      * aborted by an interrupt signal.<p>
      * 
+     * In case more than one indexing thread is configured, the extraction is handed 
+     * to the worker pool instead, and this method only waits in case too many extracted 
+     * documents are waiting to be written to the index.<p>
+     * 
      * @param indexer the VFS indexer to create the index thread for 
      * @param writer the index writer that can update the index
      * @param res the resource
      */
     public void createIndexingThread(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
 
+        if (m_threadCount > 1) {
+            submitIndexingTask(indexer, writer, res);
+            return;
+        }
+
         I_CmsReport report = indexer.getReport();
         m_startedCounter++;
         CmsIndexingThread thread = new CmsIndexingThread(
@@ -112,44 +215,29 @@ public class CmsIndexingThreadManager {
         }
         if (thread.isAlive()) {
             // the thread has not finished - so it must be marked as an abandoned thread 
-            m_abandonedCounter++;
             thread.interrupt();
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
-            }
-            if (report != null) {
-                report.println();
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
-                    I_CmsReport.FORMAT_WARNING);
-                report.println(
-                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
-                    I_CmsReport.FORMAT_WARNING);
-            }
+            abandon(report, res);
         } else {
             // the thread finished normally
             m_returnedCounter++;
         }
-        I_CmsSearchDocument doc = thread.getResult();
-        if (doc != null) {
-            // write the document to the index
-            indexer.updateResource(writer, res.getRootPath(), doc);
-        } else {
-            indexer.deleteResource(writer, new CmsPublishedResource(res));
-        }
-        if ((m_startedCounter % m_maxModificationsBeforeCommit) == 0) {
-            try {
-                writer.commit();
-            } catch (IOException e) {
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(
-                        Messages.get().getBundle().key(
-                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
-                            indexer.getIndex().getName(),
-                            indexer.getIndex().getPath()),
-                        e);
-                }
+        writeDocument(indexer, writer, res, thread.getResult());
+    }
+
+    /**
+     * Writes all documents extracted by the worker pool to the index and stops the worker pool.<p>
+     * 
+     * This must be called after all resources have been handed to this manager, 
+     * before waiting for the indexing threads to finish with {@link #isRunning()}.<p>
+     */
+    public void finishIndexing() {
+
+        try {
+            while (!m_pending.isEmpty()) {
+                writeNextDocument();
             }
+        } finally {
+            shutDown();
         }
     }
 
@@ -221,4 +309,256 @@ public class CmsIndexingThreadManager {
             }
         }
     }
+
+    /**
+     * Stops the worker pool, discarding all extractions that have not yet been written to the index.<p>
+     * 
+     * This must be called in case the indexing is aborted, so the worker threads are not kept alive.<p>
+     */
+    public void shutDown() {
+
+        m_pending.clear();
+        if (m_executor != null) {
+            m_executor.shutdownNow();
+            m_executor = null;
+        }
+    }
+
+    /**
+     * Marks the extraction of the given resource as abandoned because of a timeout.<p>
+     * 
+     * @param report the report to write the warning to, may be <code>null</code>
+     * @param res the resource that could not be extracted
+     */
+    private void abandon(I_CmsReport report, CmsResource res) {
+
+        m_abandonedCounter++;
+        if (LOG.isWarnEnabled()) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
+        }
+        if (report != null) {
+            report.println();
+            report.print(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                I_CmsReport.FORMAT_WARNING);
+            report.println(
+                Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
+                I_CmsReport.FORMAT_WARNING);
+        }
+    }
+
+    /**
+     * Returns the pool of worker threads, creating it if required.<p>
+     * 
+     * @return the pool of worker threads
+     */
+    private ThreadPoolExecutor getExecutor() {
+
+        if (m_executor == null) {
+            ThreadFactory factory = new ThreadFactory() {
+
+                /** The number of created threads. */
+                private int m_count;
+
+                /**
+                 * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+                 */
+                public synchronized Thread newThread(Runnable r) {
+
+                    m_count++;
+                    Thread thread = new Thread(r, "OpenCms: Indexing worker " + m_count);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    // abandoned workers must not prevent a shutdown of the VM
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+            m_executor = new ThreadPoolExecutor(
+                m_threadCount,
+                m_threadCount,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                factory);
+        }
+        return m_executor;
+    }
+
+    /**
+     * Hands the extraction of the given resource to the worker pool.<p>
+     * 
+     * In case too many extracted documents are waiting to be written, the oldest 
+     * ones are written to the index first, so the memory used for documents waiting 
+     * to be written stays bounded.<p>
+     * 
+     * @param indexer the VFS indexer to create the index document for 
+     * @param writer the index writer that can update the index
+     * @param res the resource
+     */
+    private void submitIndexingTask(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
+
+        m_startedCounter++;
+        CmsObject cms = indexer.getCms();
+        try {
+            // every worker gets its own context, since the request context is not thread safe
+            cms = OpenCms.initCmsObject(cms);
+        } catch (CmsException e) {
+            // should not happen, continue with the shared context
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        // the report is written in order by this manager, not by the workers
+        CmsIndexingThread thread = new CmsIndexingThread(cms, res, indexer.getIndex(), m_startedCounter, null);
+        CmsIndexingTask task = new CmsIndexingTask(indexer, writer, res, thread);
+        task.m_future = getExecutor().submit(task);
+        m_pending.add(task);
+        while (m_pending.size() > (2 * m_threadCount)) {
+            writeNextDocument();
+        }
+    }
+
+    /**
+     * Writes the given extracted document to the index, or deletes the resource 
+     * from the index in case no document was extracted.<p>
+     * 
+     * @param indexer the VFS indexer that extracted the document 
+     * @param writer the index writer that can update the index
+     * @param res the resource
+     * @param doc the extracted document, or <code>null</code>
+     */
+    private void writeDocument(
+        CmsVfsIndexer indexer,
+        I_CmsIndexWriter writer,
+        CmsResource res,
+        I_CmsSearchDocument doc) {
+
+        if (doc != null) {
+            // write the document to the index
+            indexer.updateResource(writer, res.getRootPath(), doc);
+        } else {
+            indexer.deleteResource(writer, new CmsPublishedResource(res));
+        }
+        m_writtenCounter++;
+        if ((m_writtenCounter % m_maxModificationsBeforeCommit) == 0) {
+            try {
+                writer.commit();
+            } catch (IOException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
+                            indexer.getIndex().getName(),
+                            indexer.getIndex().getPath()),
+                        e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until the extraction of the given task has finished, or its timeout is reached.<p>
+     * 
+     * The timeout is counted from the time a worker has started the extraction, 
+     * so the time the task was queued behind other extractions is not included.<p>
+     * 
+     * @param task the task to wait for
+     * 
+     * @return <code>true</code> if the extraction has finished
+     * 
+     * @throws ExecutionException if the extraction has thrown an error
+     */
+    private boolean waitForTask(CmsIndexingTask task) throws ExecutionException {
+
+        while (true) {
+            long startTime = task.m_startTime;
+            long wait = (startTime > 0) ? ((startTime + m_timeout) - System.currentTimeMillis()) : m_timeout;
+            try {
+                task.m_future.get(Math.max(wait, 0), TimeUnit.MILLISECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                startTime = task.m_startTime;
+                if ((startTime > 0) && ((System.currentTimeMillis() - startTime) >= m_timeout)) {
+                    return false;
+                }
+                // the extraction is still queued, or has been started while waiting
+            } catch (InterruptedException e) {
+                return task.m_future.isDone();
+            }
+        }
+    }
+
+    /**
+     * Waits for the oldest pending extraction of the worker pool and writes its document to the index.<p>
+     * 
+     * If the extraction does not finish within the timeout, it is abandoned and 
+     * the pool is enlarged by one thread to replace the hanging worker.<p>
+     */
+    private void writeNextDocument() {
+
+        CmsIndexingTask task = m_pending.removeFirst();
+        I_CmsReport report = task.m_indexer.getReport();
+        boolean finished;
+        Throwable error = null;
+        try {
+            finished = waitForTask(task);
+            error = task.m_thread.getError();
+        } catch (ExecutionException e) {
+            // the indexing thread catches all exceptions itself, so this is an error
+            error = e.getCause();
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.ERR_INDEX_RESOURCE_FAILED_2,
+                    task.m_resource.getRootPath(),
+                    task.m_indexer.getIndex().getName()),
+                error);
+            finished = true;
+        }
+        if (report != null) {
+            report.print(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_SUCCESSION_1,
+                    String.valueOf(m_writtenCounter + 1)),
+                I_CmsReport.FORMAT_NOTE);
+            report.print(Messages.get().container(Messages.RPT_SEARCH_INDEXING_FILE_BEGIN_0), I_CmsReport.FORMAT_NOTE);
+            report.print(org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_ARGUMENT_1,
+                report.removeSiteRoot(task.m_resource.getRootPath())));
+            report.print(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0),
+                I_CmsReport.FORMAT_DEFAULT);
+        }
+        I_CmsSearchDocument doc = null;
+        if (finished) {
+            m_returnedCounter++;
+            doc = task.m_thread.getResult();
+            if (report != null) {
+                if (error != null) {
+                    report.println(
+                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                        I_CmsReport.FORMAT_ERROR);
+                    report.println(
+                        org.opencms.report.Messages.get().container(
+                            org.opencms.report.Messages.RPT_ARGUMENT_1,
+                            error.toString()),
+                        I_CmsReport.FORMAT_ERROR);
+                } else if (doc != null) {
+                    report.println(
+                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                        I_CmsReport.FORMAT_OK);
+                } else {
+                    report.println(
+                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                        I_CmsReport.FORMAT_NOTE);
+                }
+            }
+        } else {
+            // the extraction has not finished - so it must be marked as abandoned
+            task.m_future.cancel(true);
+            abandon(report, task.m_resource);
+            // the hanging worker may never return, so add a replacement thread to the pool
+            ThreadPoolExecutor executor = getExecutor();
+            executor.setMaximumPoolSize(executor.getMaximumPoolSize() + 1);
+            executor.setCorePoolSize(executor.getCorePoolSize() + 1);
+        }
+        writeDocument(task.m_indexer, task.m_writer, task.m_resource, doc);
+    }
 }
\ No newline at end of file
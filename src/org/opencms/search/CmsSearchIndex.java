@@ -38,6 +38,7 @@ import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
+import org.opencms.flex.CmsFlexRequestContextInfo;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.main.CmsException;
@@ -66,6 +67,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.lucene.analysis.Analyzer;
@@ -90,11 +92,14 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MultiTermQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.similarities.Similarity;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.IOContext;
@@ -245,7 +250,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     private boolean m_createExcerpt;
 
     /** Map of display query filters to use. */
-    private Map<String, Filter> m_displayFilters;
+    private volatile Map<String, Filter> m_displayFilters;
 
     /** Document types of folders/channels. */
     private Map<String, List<String>> m_documenttypes;
@@ -268,9 +273,6 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      */
     private boolean m_ignoreExpiration;
 
-    /** The Lucene index searcher to use. */
-    private IndexSearcher m_indexSearcher;
-
     /** The index writer to use. */
     private I_CmsIndexWriter m_indexWriter;
 
@@ -304,6 +306,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** Controls if a resource requires view permission to be displayed in the result list. */
     private boolean m_requireViewPermission;
 
+    /** The Lucene searcher manager that hands out reference counted index searchers. */
+    private volatile SearcherManager m_searcherManager;
+
     /** The cms specific Similarity implementation. */
     private final Similarity m_sim = new CmsSearchSimilarity();
 
@@ -488,6 +493,36 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return result;
     }
 
+    /**
+     * Acquires a reference counted Lucene index searcher for this index.<p>
+     * 
+     * The searcher stays usable even if the index is refreshed concurrently. 
+     * Every searcher acquired with this method must be returned with 
+     * {@link #releaseSearcher(IndexSearcher)} once it is no longer used, preferably 
+     * in a <code>finally</code> block.<p>
+     * 
+     * @return the acquired index searcher, or <code>null</code> if no searcher is available for this index
+     */
+    public IndexSearcher acquireSearcher() {
+
+        SearcherManager manager = m_searcherManager;
+        while (manager != null) {
+            try {
+                return manager.acquire();
+            } catch (AlreadyClosedException e) {
+                // the manager has been replaced or closed concurrently, try again with the current one
+                if (manager == m_searcherManager) {
+                    break;
+                }
+                manager = m_searcherManager;
+            } catch (IOException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_1, getName()), e);
+                break;
+            }
+        }
+        return null;
+    }
+
     /**
      * Adds a parameter.<p>
      * 
@@ -678,11 +713,15 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      */
     public I_CmsSearchDocument getDocument(int docId) {
 
-        try {
-            IndexSearcher searcher = getSearcher();
-            return new CmsLuceneDocument(searcher.doc(docId));
-        } catch (IOException e) {
-            // ignore, return null and assume document was not found
+        IndexSearcher searcher = acquireSearcher();
+        if (searcher != null) {
+            try {
+                return new CmsLuceneDocument(searcher.doc(docId));
+            } catch (IOException e) {
+                // ignore, return null and assume document was not found
+            } finally {
+                releaseSearcher(searcher);
+            }
         }
         return null;
     }
@@ -715,10 +754,10 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      * 
      * @return the first document where the given term matches the selected index field
      */
-    public synchronized I_CmsSearchDocument getDocument(String field, String term) {
+    public I_CmsSearchDocument getDocument(String field, String term) {
 
         Document result = null;
-        IndexSearcher searcher = getSearcher();
+        IndexSearcher searcher = acquireSearcher();
         if (searcher != null) {
             // search for an exact match on the selected field
             Term resultTerm = new Term(field, term);
@@ -729,6 +768,8 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
                 }
             } catch (IOException e) {
                 // ignore, return null and assume document was not found
+            } finally {
+                releaseSearcher(searcher);
             }
         }
         if (result != null) {
@@ -950,12 +991,23 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
 
     /**
      * Returns the Lucene index searcher used for this search index.<p>
+     * 
+     * The returned searcher is not reference counted, so it may already be closed when it is 
+     * returned in case the index is refreshed concurrently.<p>
      *
      * @return the Lucene index searcher used for this search index
+     * 
+     * @deprecated Use {@link #acquireSearcher()} together with {@link #releaseSearcher(IndexSearcher)} 
+     *      in order to obtain a searcher that stays open while it is used
      */
+    @Deprecated
     public IndexSearcher getSearcher() {
 
-        return m_indexSearcher;
+        IndexSearcher searcher = acquireSearcher();
+        if (searcher != null) {
+            releaseSearcher(searcher);
+        }
+        return searcher;
     }
 
     /**
@@ -1219,6 +1271,24 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return m_indexWriter != null;
     }
 
+    /**
+     * Releases an index searcher acquired with {@link #acquireSearcher()}.<p>
+     * 
+     * After this call the searcher must no longer be used by the caller.<p>
+     * 
+     * @param searcher the searcher to release
+     */
+    public void releaseSearcher(IndexSearcher searcher) {
+
+        try {
+            // the searcher manager only decreases the reference count of the reader on release, 
+            // so this works even if the manager that created the searcher has been closed meanwhile
+            searcher.getIndexReader().decRef();
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_CLOSE_1, getName()), e);
+        }
+    }
+
     /**
      * Removes an index source from this search index.<p>
      * 
@@ -1242,7 +1312,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      * 
      * @throws CmsSearchException if something goes wrong
      */
-    public synchronized CmsSearchResultList search(CmsObject cms, CmsSearchParameters params) throws CmsSearchException {
+    public CmsSearchResultList search(CmsObject cms, CmsSearchParameters params) throws CmsSearchException {
 
         long timeTotal = -System.currentTimeMillis();
         long timeLucene;
@@ -1251,6 +1321,8 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_SEARCH_PARAMS_2, params, getName()));
         }
+        // the result depends on the index, which can not be tracked for the Flex cache
+        CmsFlexRequestContextInfo.setDependenciesUntracked(cms.getRequestContext());
 
         // the hits found during the search
         TopDocs hits;
@@ -1260,6 +1332,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
 
         int previousPriority = Thread.currentThread().getPriority();
 
+        // the index searcher used, acquired below and released at the end of the search
+        IndexSearcher searcher = null;
+
         try {
             // copy the user OpenCms context
             CmsObject searchCms = OpenCms.initCmsObject(cms);
@@ -1298,7 +1373,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
 
             // get an index searcher that is certainly up to date
             indexSearcherUpdate();
-            IndexSearcher searcher = getSearcher();
+            searcher = acquireSearcher();
 
             if (!params.isIgnoreQuery()) {
                 // since OpenCms 8 the query can be empty in which case only filters are used for the result
@@ -1471,6 +1546,10 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
 
             // re-set thread to previous priority
             Thread.currentThread().setPriority(previousPriority);
+            if (searcher != null) {
+                // return the searcher, the reader is closed once the last search using it has been finished
+                releaseSearcher(searcher);
+            }
         }
 
         if (LOG.isDebugEnabled()) {
@@ -2096,7 +2175,8 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
             }
             termsStr = buf.toString();
         }
-        Filter result = m_displayFilters.get((new StringBuffer(64)).append(field).append('|').append(termsStr).toString());
+        String key = (new StringBuffer(64)).append(field).append('|').append(termsStr).toString();
+        Filter result = m_displayFilters.get(key);
         if (result == null) {
             List<Term> terms = new ArrayList<Term>();
             if (termsList == null) {
@@ -2106,7 +2186,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
                 terms.add(new Term(field, termsList.get(i)));
             }
             result = new CachingWrapperFilter(new TermsFilter(terms));
-            m_displayFilters.put(field + termsStr, result);
+            m_displayFilters.put(key, result);
         }
         return result;
     }
@@ -2176,24 +2256,31 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /**
      * Closes the index searcher for this index.<p>
      * 
+     * Searches that are still running keep their searcher until they are finished.<p>
+     * 
      * @see #indexSearcherOpen(String)
      */
     protected synchronized void indexSearcherClose() {
 
-        indexSearcherClose(m_indexSearcher);
+        SearcherManager manager = m_searcherManager;
+        m_searcherManager = null;
+        indexSearcherClose(manager);
     }
 
     /**
-     * Closes the given Lucene index searcher.<p>
+     * Closes the given Lucene searcher manager.<p>
+     * 
+     * The index reader of the manager is closed as soon as all searchers 
+     * acquired from it have been released.<p>
      * 
-     * @param searcher the searcher to close
+     * @param manager the searcher manager to close
      */
-    protected synchronized void indexSearcherClose(IndexSearcher searcher) {
+    protected void indexSearcherClose(SearcherManager manager) {
 
-        // in case there is an index searcher available close it
-        if ((searcher != null) && (searcher.getIndexReader() != null)) {
+        // in case there is a searcher manager available close it
+        if (manager != null) {
             try {
-                searcher.getIndexReader().close();
+                manager.close();
             } catch (Exception e) {
                 LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_CLOSE_1, getName()), e);
             }
@@ -2213,53 +2300,63 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      */
     protected synchronized void indexSearcherOpen(String path) {
 
-        IndexSearcher oldSearcher = null;
+        SearcherManager oldManager = null;
         try {
             Directory indexDirectory = FSDirectory.open(new File(path));
             if (DirectoryReader.indexExists(indexDirectory)) {
-                IndexReader reader = DirectoryReader.open(indexDirectory);
-                if (m_indexSearcher != null) {
-                    // store old searcher instance to close it later
-                    oldSearcher = m_indexSearcher;
-                }
-                m_indexSearcher = new IndexSearcher(reader);
-                m_indexSearcher.setSimilarity(m_sim);
-                m_displayFilters = new HashMap<String, Filter>();
+                SearcherManager manager = new SearcherManager(indexDirectory, new SearcherFactory() {
+
+                    /**
+                     * @see org.apache.lucene.search.SearcherFactory#newSearcher(org.apache.lucene.index.IndexReader)
+                     */
+                    @Override
+                    public IndexSearcher newSearcher(IndexReader reader) {
+
+                        IndexSearcher searcher = new IndexSearcher(reader);
+                        searcher.setSimilarity(m_sim);
+                        return searcher;
+                    }
+                });
+                // store old searcher manager instance to close it later
+                oldManager = m_searcherManager;
+                m_displayFilters = new ConcurrentHashMap<String, Filter>();
+                m_searcherManager = manager;
             }
         } catch (IOException e) {
             LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_1, getName()), e);
         }
-        if (oldSearcher != null) {
-            // close the old searcher if required
-            indexSearcherClose(oldSearcher);
+        if (oldManager != null) {
+            // close the old searcher manager, running searches will finish on the old reader
+            indexSearcherClose(oldManager);
         }
     }
 
     /**
      * Reopens the index search reader for this index, required after the index has been changed.<p>
      * 
+     * This does not block concurrent searches: In case another thread is already 
+     * refreshing the reader, the current searcher is used until the refresh is finished.<p>
+     * 
      * @see #indexSearcherOpen(String)
      */
-    protected synchronized void indexSearcherUpdate() {
+    protected void indexSearcherUpdate() {
 
-        IndexSearcher oldSearcher = m_indexSearcher;
-        if ((oldSearcher != null) && (oldSearcher.getIndexReader() != null)) {
-            // in case there is an index searcher available close it
+        SearcherManager manager = m_searcherManager;
+        if (manager != null) {
             try {
-                if (oldSearcher.getIndexReader() instanceof DirectoryReader) {
-                    IndexReader newReader = DirectoryReader.openIfChanged((DirectoryReader)oldSearcher.getIndexReader());
-                    if (newReader != null) {
-                        m_indexSearcher = new IndexSearcher(newReader);
-                        m_indexSearcher.setSimilarity(m_sim);
-                        indexSearcherClose(oldSearcher);
-                    }
-                }
-            } catch (Exception e) {
+                manager.maybeRefresh();
+            } catch (AlreadyClosedException e) {
+                // the searcher manager has been replaced concurrently, the new one is up to date
+            } catch (IOException e) {
                 LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_REOPEN_1, getName()), e);
             }
         } else {
-            // make sure we end up with an open index searcher / reader           
-            indexSearcherOpen(getPath());
+            synchronized (this) {
+                if (m_searcherManager == null) {
+                    // make sure we end up with an open index searcher / reader 
+                    indexSearcherOpen(getPath());
+                }
+            }
         }
     }
 
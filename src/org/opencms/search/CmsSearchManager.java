@@ -613,6 +613,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** Default for the maximum number of modifications before a commit in the search index is triggered (500). */
     public static final int DEFAULT_MAX_MODIFICATIONS_BEFORE_COMMIT = 500;
 
+    /** The default number of threads used to extract the content of documents during indexing. */
+    public static final int DEFAULT_INDEXING_THREADS = 1;
+
     /** The default update frequency for offline indexes (15000 msec = 15 sec). */
     public static final int DEFAULT_OFFLINE_UPDATE_FREQNENCY = 15000;
 
@@ -676,6 +679,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** Seconds to wait for an index lock. */
     private int m_indexLockMaxWaitSeconds = 10;
 
+    /** The number of threads used to extract the content of documents during indexing. */
+    private int m_indexingThreads;
+
     /** Configured index sources. */
     private Map<String, CmsSearchIndexSource> m_indexSources;
 
@@ -715,6 +721,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         m_maxExcerptLength = DEFAULT_EXCERPT_LENGTH;
         m_offlineUpdateFrequency = DEFAULT_OFFLINE_UPDATE_FREQNENCY;
         m_maxModificationsBeforeCommit = DEFAULT_MAX_MODIFICATIONS_BEFORE_COMMIT;
+        m_indexingThreads = DEFAULT_INDEXING_THREADS;
 
         m_fieldConfigurations = new HashMap<String, CmsSearchFieldConfiguration>();
         // make sure we have a "standard" field configuration
@@ -1385,6 +1392,16 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return m_maxExcerptLength;
     }
 
+    /**
+     * Returns the number of threads used to extract the content of documents during indexing.<p>
+     *
+     * @return the number of threads used to extract the content of documents during indexing
+     */
+    public int getIndexingThreads() {
+
+        return m_indexingThreads;
+    }
+
     /**
      * Returns the maximum number of modifications before a commit in the search index is triggered.<p>
      *
@@ -2099,6 +2116,38 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the number of threads used to extract the content of documents during indexing.<p>
+     * 
+     * With only one thread, the documents are extracted one after another.<p>
+     *
+     * @param indexingThreads the number of indexing threads to set
+     */
+    public void setIndexingThreads(int indexingThreads) {
+
+        m_indexingThreads = indexingThreads;
+    }
+
+    /**
+     * Sets the number of threads used to extract the content of documents during indexing as a String.<p>
+     *
+     * @param value the number of indexing threads to set
+     */
+    public void setIndexingThreads(String value) {
+
+        try {
+            setIndexingThreads(Integer.parseInt(value));
+        } catch (Exception e) {
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PARSE_INDEXING_THREADS_FAILED_2,
+                    value,
+                    new Integer(DEFAULT_INDEXING_THREADS)),
+                e);
+            setIndexingThreads(DEFAULT_INDEXING_THREADS);
+        }
+    }
+
     /**
      * Sets the maximum number of modifications before a commit in the search index is triggered.<p>
      *
@@ -2378,7 +2427,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     protected CmsIndexingThreadManager getThreadManager() {
 
-        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit);
+        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit, m_indexingThreads);
     }
 
     /**
@@ -2689,6 +2738,8 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     I_CmsIndexer indexer = source.getIndexer().newInstance(cms, report, index);
                     // new index creation, use all resources from the index source
                     indexer.rebuildIndex(writer, threadManager, source);
+                    // write the documents extracted in parallel to the index
+                    threadManager.finishIndexing();
 
                     // wait for indexing threads to finish
                     while (threadManager.isRunning()) {
@@ -2738,6 +2789,8 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     I_CmsReport.FORMAT_HEADLINE);
 
             } finally {
+                // stop the indexing threads in case the indexing has been aborted
+                threadManager.shutDown();
                 if (writer != null) {
                     try {
                         writer.close();
@@ -2838,15 +2891,22 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     // create a new thread manager
                     CmsIndexingThreadManager threadManager = getThreadManager();
 
-                    Iterator<CmsSearchIndexUpdateData> i = updateCollections.iterator();
-                    while (i.hasNext()) {
-                        CmsSearchIndexUpdateData updateCollection = i.next();
-                        if (updateCollection.hasResourceToUpdate()) {
-                            updateCollection.getIndexer().updateResources(
-                                writer,
-                                threadManager,
-                                updateCollection.getResourcesToUpdate());
+                    try {
+                        Iterator<CmsSearchIndexUpdateData> i = updateCollections.iterator();
+                        while (i.hasNext()) {
+                            CmsSearchIndexUpdateData updateCollection = i.next();
+                            if (updateCollection.hasResourceToUpdate()) {
+                                updateCollection.getIndexer().updateResources(
+                                    writer,
+                                    threadManager,
+                                    updateCollection.getResourcesToUpdate());
+                            }
                         }
+                        // write the documents extracted in parallel to the index
+                        threadManager.finishIndexing();
+                    } finally {
+                        // stop the indexing threads in case the indexing has been aborted
+                        threadManager.shutDown();
                     }
 
                     // wait for indexing threads to finish
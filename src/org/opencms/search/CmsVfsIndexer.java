@@ -35,6 +35,7 @@ import org.opencms.file.CmsResourceFilter;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.report.I_CmsReport;
+import org.opencms.search.solr.CmsSolrIndex;
 import org.opencms.util.CmsUUID;
 
 import java.io.IOException;
@@ -144,6 +145,10 @@ public class CmsVfsIndexer implements I_CmsIndexer {
                 if (CmsProject.isInsideProject(source.getResourcesNames(), pubRes.getRootPath())) {
                     // the resource is "inside" this index source
                     addResourceToUpdateData(pubRes, result);
+                    if (pubRes.isFolder() && pubRes.getState().isChanged() && isIndexingPermissions()) {
+                        // the permissions of a changed folder are inherited by its content
+                        addFolderContentToUpdateData(pubRes, result);
+                    }
                 }
             }
         }
@@ -267,6 +272,33 @@ public class CmsVfsIndexer implements I_CmsIndexer {
         }
     }
 
+    /**
+     * Adds all files below the given published folder to the provided search index update data.<p>
+     * 
+     * @param pubRes the published folder
+     * @param updateData the search index update data to add the files to
+     */
+    protected void addFolderContentToUpdateData(CmsPublishedResource pubRes, CmsSearchIndexUpdateData updateData) {
+
+        try {
+            List<CmsResource> resources = m_cms.readResources(
+                pubRes.getRootPath(),
+                CmsResourceFilter.IGNORE_EXPIRATION.addRequireFile());
+            for (CmsResource resource : resources) {
+                updateData.addResourceToUpdate(new CmsPublishedResource(resource));
+            }
+        } catch (CmsException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_UNABLE_TO_READ_RESOURCE_2,
+                        pubRes.getRootPath(),
+                        m_index.getName()),
+                    e);
+            }
+        }
+    }
+
     /**
      * Adds a given published resource to the provided search index update data.<p>
      * 
@@ -311,6 +343,17 @@ public class CmsVfsIndexer implements I_CmsIndexer {
         }
     }
 
+    /**
+     * Checks if the documents of the index contain the read permissions of the resources, 
+     * which include the permissions inherited from the parent folders.<p>
+     * 
+     * @return <code>true</code> if the documents of the index contain the read permissions
+     */
+    protected boolean isIndexingPermissions() {
+
+        return (m_index instanceof CmsSolrIndex) && ((CmsSolrIndex)m_index).isPermissionFilter();
+    }
+
     /**
      * Checks if the published resource is inside the time window set with release and expiration date.<p>
      * 
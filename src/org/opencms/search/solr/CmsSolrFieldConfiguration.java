@@ -51,7 +51,12 @@ import org.opencms.search.fields.CmsSearchFieldConfiguration;
 import org.opencms.search.fields.CmsSearchFieldMapping;
 import org.opencms.search.fields.CmsSearchFieldMappingType;
 import org.opencms.search.fields.I_CmsSearchFieldMapping;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.CmsPermissionSetCustom;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.containerpage.CmsContainerElementBean;
 import org.opencms.xml.containerpage.CmsContainerPageBean;
@@ -128,6 +133,18 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         sfield.addMapping(map);
         m_solrFields.put(sfield.getName(), sfield);
 
+        sfield = new CmsSolrField(CmsSearchField.FIELD_ACL_INDEXED, null, null, null, 0);
+        m_solrFields.put(sfield.getName(), sfield);
+
+        sfield = new CmsSolrField(CmsSearchField.FIELD_ACL_PRINCIPALS, null, null, null, 0);
+        m_solrFields.put(sfield.getName(), sfield);
+
+        sfield = new CmsSolrField(CmsSearchField.FIELD_ACL_READ_ALLOWED, null, null, null, 0);
+        m_solrFields.put(sfield.getName(), sfield);
+
+        sfield = new CmsSolrField(CmsSearchField.FIELD_ACL_READ_DENIED, null, null, null, 0);
+        m_solrFields.put(sfield.getName(), sfield);
+
         getFields().clear();
         getFields().addAll(m_solrFields.values());
     }
@@ -155,6 +172,8 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
 
         document.addSearchField(m_solrFields.get(CmsSearchField.FIELD_VERSION), "" + resource.getVersion());
 
+        appendPermissions(document, cms, resource);
+
         return document;
     }
 
@@ -420,6 +439,62 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         return document;
     }
 
+    /**
+     * Appends the read permissions of the resource to the document.<p>
+     * 
+     * The principals are taken from the access control list of the resource, including the 
+     * inherited entries. They allow searches to filter the documents a user is allowed to read 
+     * within Solr, see {@link CmsSolrIndex#PERMISSION_FILTER}.<p>
+     * 
+     * @param document the document to append the permission fields to
+     * @param cms the current OpenCms user context
+     * @param resource the resource to index
+     * 
+     * @return the document extended by the permission fields
+     */
+    protected I_CmsSearchDocument appendPermissions(I_CmsSearchDocument document, CmsObject cms, CmsResource resource) {
+
+        try {
+            CmsObject clone = OpenCms.initCmsObject(cms);
+            clone.getRequestContext().setSiteRoot("");
+            CmsAccessControlList acl = clone.getAccessControlList(resource.getRootPath(), false);
+            List<String> principals = new ArrayList<String>();
+            List<String> allowed = new ArrayList<String>();
+            List<String> denied = new ArrayList<String>();
+            for (Map.Entry<CmsUUID, CmsPermissionSetCustom> entry : acl.getPermissionMap().entrySet()) {
+                CmsUUID principal = entry.getKey();
+                if (CmsAccessControlEntry.PRINCIPAL_OVERWRITE_ALL_ID.equals(principal)) {
+                    continue;
+                }
+                if (!CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID.equals(principal)) {
+                    principals.add(principal.toString());
+                }
+                CmsPermissionSet permissions = entry.getValue();
+                if ((permissions.getDeniedPermissions() & CmsPermissionSet.PERMISSION_READ) > 0) {
+                    // a denied permission always wins over the allowed permissions of other principals
+                    denied.add(principal.toString());
+                } else if ((permissions.getAllowedPermissions() & CmsPermissionSet.PERMISSION_READ) > 0) {
+                    allowed.add(principal.toString());
+                }
+            }
+            document.addSearchField(
+                m_solrFields.get(CmsSearchField.FIELD_ACL_PRINCIPALS),
+                CmsStringUtil.listAsString(principals, "\n"));
+            document.addSearchField(
+                m_solrFields.get(CmsSearchField.FIELD_ACL_READ_ALLOWED),
+                CmsStringUtil.listAsString(allowed, "\n"));
+            document.addSearchField(
+                m_solrFields.get(CmsSearchField.FIELD_ACL_READ_DENIED),
+                CmsStringUtil.listAsString(denied, "\n"));
+            // empty principal lists are not indexed, so the permission filter needs a marker for indexed permissions
+            document.addSearchField(m_solrFields.get(CmsSearchField.FIELD_ACL_INDEXED), Boolean.TRUE.toString());
+        } catch (CmsException e) {
+            // without permission fields the document is only checked by the permission post filter
+            LOG.warn(e.getLocalizedMessage(), e);
+        }
+        return document;
+    }
+
     /**
      * @see org.opencms.search.fields.CmsSearchFieldConfiguration#appendProperties(org.opencms.search.I_CmsSearchDocument, org.opencms.file.CmsObject, org.opencms.file.CmsResource, org.opencms.search.extractors.I_CmsExtractionResult, java.util.List, java.util.List)
      */
@@ -33,12 +33,14 @@ package org.opencms.search.solr;
 
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
 import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
+import org.opencms.flex.CmsFlexRequestContextInfo;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsIllegalArgumentException;
@@ -56,6 +58,7 @@ import org.opencms.search.I_CmsIndexWriter;
 import org.opencms.search.I_CmsSearchDocument;
 import org.opencms.search.documents.I_CmsDocumentFactory;
 import org.opencms.search.fields.CmsSearchField;
+import org.opencms.security.CmsAccessControlEntry;
 import org.opencms.security.CmsRole;
 import org.opencms.security.CmsRoleViolationException;
 import org.opencms.util.CmsRequestUtil;
@@ -68,8 +71,10 @@ import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import javax.servlet.ServletResponse;
 
@@ -117,6 +122,9 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** The name of the default Solr Online index. */
     public static final String DEFAULT_INDEX_NAME_ONLINE = "Solr Online";
 
+    /** Constant for additional parameter to enable the read permission filter query. */
+    public static final String PERMISSION_FILTER = "search.solr.permissionFilter";
+
     /** Constant for additional parameter to set the post processor class name. */
     public static final String POST_PROCESSOR = "search.solr.postProcessor";
 
@@ -168,6 +176,9 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** The embedded Solr server for this index. */
     SolrServer m_solr;
 
+    /** Signals whether the read permissions are filtered by Solr. */
+    private boolean m_permissionFilter;
+
     /** The post document manipulator. */
     private I_CmsSolrPostSearchProcessor m_postProcessor;
 
@@ -230,6 +241,8 @@ public class CmsSolrIndex extends CmsSearchIndex {
                     LOG.error(ex.getMessage(), ex);
                 }
             }
+        } else if (PERMISSION_FILTER.equals(key)) {
+            setPermissionFilter(Boolean.valueOf(value).booleanValue());
         }
         super.addConfigurationParameter(key, value);
     }
@@ -264,6 +277,9 @@ public class CmsSolrIndex extends CmsSearchIndex {
         if (getPostProcessor() != null) {
             result.put(POST_PROCESSOR, getPostProcessor().getClass().getName());
         }
+        if (isPermissionFilter()) {
+            result.put(PERMISSION_FILTER, String.valueOf(isPermissionFilter()));
+        }
         return result;
     }
 
@@ -345,6 +361,61 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return result;
     }
 
+    /**
+     * Returns the Solr filter query that restricts the result to the documents the user of 
+     * the given context is allowed to read.<p>
+     * 
+     * The filter is based on the permission fields written at index time by 
+     * {@link CmsSolrFieldConfiguration#appendPermissions(I_CmsSearchDocument, CmsObject, CmsResource)}.
+     * Documents that were indexed without these fields pass the filter and are checked 
+     * by the permission post filter as before.<p>
+     * 
+     * @param cms the current OpenCms context
+     * 
+     * @return the filter query, or <code>null</code> if the user is not restricted or the principals can not be read
+     */
+    public String getPermissionFilterQuery(CmsObject cms) {
+
+        try {
+            if (OpenCms.getRoleManager().hasRole(cms, CmsRole.VFS_MANAGER)) {
+                // the VFS manager ignores all permissions
+                return null;
+            }
+            String userName = cms.getRequestContext().getCurrentUser().getName();
+            Set<String> principals = new LinkedHashSet<String>();
+            principals.add(cms.getRequestContext().getCurrentUser().getId().toString());
+            for (CmsGroup group : cms.getGroupsOfUser(userName, false)) {
+                principals.add(group.getId().toString());
+            }
+            for (CmsRole role : OpenCms.getRoleManager().getRolesOfUser(cms, userName, "", true, false, true)) {
+                principals.add(role.forOrgUnit(null).getId().toString());
+            }
+            StringBuffer ids = new StringBuffer();
+            for (String principal : principals) {
+                if (ids.length() > 0) {
+                    ids.append(' ');
+                }
+                ids.append('"').append(principal).append('"');
+            }
+            String others = "\"" + CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID + "\"";
+            StringBuffer result = new StringBuffer();
+            // one of the principals of the user has an entry: the read permission must be allowed and not denied
+            result.append("(+").append(CmsSearchField.FIELD_ACL_PRINCIPALS).append(":(").append(ids).append(")");
+            result.append(" +").append(CmsSearchField.FIELD_ACL_READ_ALLOWED).append(":(").append(ids).append(")");
+            result.append(" -").append(CmsSearchField.FIELD_ACL_READ_DENIED).append(":(").append(ids).append("))");
+            // none of the principals of the user has an entry: the entry for all others is used
+            result.append(" OR (-").append(CmsSearchField.FIELD_ACL_PRINCIPALS).append(":(").append(ids).append(")");
+            result.append(" +").append(CmsSearchField.FIELD_ACL_READ_ALLOWED).append(":").append(others);
+            result.append(" -").append(CmsSearchField.FIELD_ACL_READ_DENIED).append(":").append(others).append(")");
+            // documents indexed without permission fields are left to the permission post filter
+            result.append(" OR (*:* -").append(CmsSearchField.FIELD_ACL_INDEXED).append(":true)");
+            return result.toString();
+        } catch (CmsException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            return null;
+        }
+    }
+
     /**
      * Returns the search post processor.<p>
      *
@@ -475,6 +546,32 @@ public class CmsSolrIndex extends CmsSearchIndex {
         search(cms, query, ignoreMaxRows, response);
     }
 
+    /**
+     * Returns <code>true</code> if the read permissions are filtered by Solr.<p>
+     * 
+     * @return <code>true</code> if the read permissions are filtered by Solr
+     */
+    public boolean isPermissionFilter() {
+
+        return m_permissionFilter;
+    }
+
+    /**
+     * Sets the flag that signals if the read permissions are filtered by Solr.<p>
+     * 
+     * If enabled, the permissions are filtered with a Solr filter query, so the result 
+     * can be paged exactly without fetching all documents of the previous pages. 
+     * The permissions are taken from the index, so if a changed folder is published, all files 
+     * below the folder are indexed again to update their inherited permissions. The 
+     * permission check of each returned document is performed nevertheless.<p>
+     * 
+     * @param permissionFilter <code>true</code> to filter the read permissions by Solr
+     */
+    public void setPermissionFilter(boolean permissionFilter) {
+
+        m_permissionFilter = permissionFilter;
+    }
+
     /**
      * Sets the search post processor.<p>
      *
@@ -738,6 +835,10 @@ public class CmsSolrIndex extends CmsSearchIndex {
      * the first found doc.</li>
      * </ul>
      *
+     * If the permission filter is enabled (see {@link #setPermissionFilter(boolean)}), the read
+     * permissions are checked by a Solr filter query instead, and only the requested page is fetched.
+     * The permission check of the returned documents is still performed as a safety net.<p>
+     *
      * <b>NOTE:</b> If latter pages than the current one are containing protected documents the
      * total hit count will be incorrect, because the permission check ends if we have
      * enough results found for the page to display. With other words latter pages than
@@ -767,6 +868,8 @@ public class CmsSolrIndex extends CmsSearchIndex {
 
         // check if the user is allowed to access this index
         checkOfflineAccess(cms);
+        // the result depends on the index, which can not be tracked for the Flex cache
+        CmsFlexRequestContextInfo.setDependenciesUntracked(cms.getRequestContext());
 
         int previousPriority = Thread.currentThread().getPriority();
         long startTime = System.currentTimeMillis();
@@ -802,9 +905,20 @@ public class CmsSolrIndex extends CmsSearchIndex {
                 page = Math.round(start / rows) + 1;
             }
 
-            // set the start to '0' and expand the rows before performing the query
-            query.setStart(new Integer(0));
-            query.setRows(new Integer((5 * rows * page) + start));
+            String permissionFilter = null;
+            if (isCheckingPermissions() && isPermissionFilter() && (rows > 0)) {
+                permissionFilter = getPermissionFilterQuery(searchCms);
+            }
+            if (permissionFilter != null) {
+                // Solr only returns readable documents, so the requested page can be fetched directly
+                query.addFilterQuery(permissionFilter);
+                query.setStart(new Integer(rows * (page - 1)));
+                query.setRows(new Integer(rows));
+            } else {
+                // set the start to '0' and expand the rows before performing the query
+                query.setStart(new Integer(0));
+                query.setRows(new Integer((5 * rows * page) + start));
+            }
 
             // perform the Solr query and remember the original Solr response
             QueryResponse queryResponse = m_solr.query(query);
@@ -836,7 +950,8 @@ public class CmsSolrIndex extends CmsSearchIndex {
 
             // process found documents
             List<CmsSearchResource> allDocs = new ArrayList<CmsSearchResource>();
-            int cnt = 0;
+            // with the permission filter the first returned document is the first of the page
+            int cnt = (permissionFilter != null) ? start : 0;
             for (int i = 0; (i < queryResponse.getResults().size()) && (cnt < end); i++) {
                 try {
                     SolrDocument doc = queryResponse.getResults().get(i);
@@ -877,7 +992,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
                 }
             }
             // the last documents were all secret so let's take the last found docs
-            if (resourceDocumentList.isEmpty() && (allDocs.size() > 0)) {
+            if ((permissionFilter == null) && resourceDocumentList.isEmpty() && (allDocs.size() > 0)) {
                 page = Math.round(allDocs.size() / rows) + 1;
                 int showCount = allDocs.size() % rows;
                 showCount = showCount == 0 ? rows : showCount;
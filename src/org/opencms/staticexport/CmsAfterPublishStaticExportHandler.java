@@ -57,7 +57,14 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletResponse;
 
@@ -511,13 +518,7 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         String rfsName = data.getRfsName();
         CmsStaticExportManager manager = OpenCms.getStaticExportManager();
 
-        String exportUrlStr;
-        if (rfsName.contains(manager.getRfsPrefix(vfsName))) {
-            LOG.info("rfsName " + rfsName + " contains rfsPrefix " + manager.getRfsPrefix(vfsName));
-            exportUrlStr = manager.getExportUrl() + rfsName;
-        } else {
-            exportUrlStr = manager.getExportUrl() + manager.getRfsPrefix(vfsName) + rfsName;
-        }
+        String exportUrlStr = getExportUrl(data);
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_SENDING_REQUEST_2, rfsName, exportUrlStr));
         }
@@ -594,9 +595,70 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         return status;
     }
 
+    /**
+     * Exports a single (template) resource specified by its export data, by rendering it inside the OpenCms server.<p>
+     * 
+     * The resource is rendered by the static export manager with a request that looks like the HTTP request 
+     * sent to the export URL by {@link #exportTemplateResource(CmsStaticExportData, StringBuffer)}.<p>
+     * 
+     * @param cms the cms context, in the root site as Export user
+     * @param data the export data
+     * @param servletContext the servlet context of the OpenCms web application
+     * 
+     * @return the status of the export, status codes are the same as http status codes
+     * 
+     * @throws Exception if rendering the resource fails
+     */
+    protected int exportTemplateResource(CmsObject cms, CmsStaticExportData data, ServletContext servletContext)
+    throws Exception {
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        String exportUrlStr = getExportUrl(data);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_SENDING_REQUEST_2, data.getRfsName(), exportUrlStr));
+        }
+
+        Map<String, String> headers = new HashMap<String, String>();
+        // add special export header
+        headers.put(CmsRequestUtil.HEADER_OPENCMS_EXPORT, CmsStringUtil.TRUE);
+        // add additional headers if available
+        if (manager.getAcceptLanguageHeader() != null) {
+            headers.put(CmsRequestUtil.HEADER_ACCEPT_LANGUAGE, manager.getAcceptLanguageHeader());
+        } else {
+            headers.put(CmsRequestUtil.HEADER_ACCEPT_LANGUAGE, manager.getDefaultAcceptLanguageHeader());
+        }
+        if (manager.getAcceptCharsetHeader() != null) {
+            headers.put(CmsRequestUtil.HEADER_ACCEPT_CHARSET, manager.getAcceptCharsetHeader());
+        } else {
+            headers.put(CmsRequestUtil.HEADER_ACCEPT_CHARSET, manager.getDefaultAcceptCharsetHeader());
+        }
+
+        CmsStaticExportLocalRequest req = new CmsStaticExportLocalRequest(
+            servletContext,
+            OpenCms.getSystemInfo().getContextPath(),
+            new URL(exportUrlStr),
+            headers,
+            data);
+        CmsStaticExportLocalResponse res = new CmsStaticExportLocalResponse();
+        // the cms context is shared by all worker threads, so use a copy of it
+        int status = manager.export(req, res, OpenCms.initCmsObject(cms), data);
+        if (LOG.isInfoEnabled()) {
+            LOG.info(Messages.get().getBundle().key(
+                Messages.LOG_REQUEST_RESULT_3,
+                data.getRfsName(),
+                exportUrlStr,
+                new Integer(status)));
+        }
+        return status;
+    }
+
     /**
      * Exports all template resources found in a list of published resources.<p>
      * 
+     * If render threads are configured in the static export manager, the template resources are rendered 
+     * inside the OpenCms server on a pool of worker threads, otherwise one after the other with HTTP requests 
+     * to the export URL.<p>
+     * 
      * @param cms the cms context, in the root site as Export user
      * @param publishedTemplateResources list of potential candidates to export
      * @param report an I_CmsReport instance to print output message, or null to write messages to the log file    
@@ -614,98 +676,188 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_BEGIN_0),
             I_CmsReport.FORMAT_HEADLINE);
 
-        StringBuffer cookies = new StringBuffer();
-        // now loop through all of them and request them from the server
-        Iterator<String> i = publishedTemplateResources.iterator();
-        while (i.hasNext()) {
-            String rfsName = i.next();
-            CmsStaticExportData data = null;
-            try {
-                data = manager.getVfsNameInternal(cms, rfsName);
-            } catch (CmsVfsResourceNotFoundException e) {
-                String rfsBaseName = rfsName;
-                int pos = rfsName.lastIndexOf('_');
-                if (pos >= 0) {
-                    rfsBaseName = rfsName.substring(0, pos);
-                }
+        final StringBuffer cookies = new StringBuffer();
+        final AtomicInteger exportCount = new AtomicInteger();
+        final AtomicInteger unchangedCount = new AtomicInteger();
+        final ServletContext servletContext = OpenCms.getSystemInfo().getServletContainerSettings().getServletContext();
+        ExecutorService executor = null;
+        if ((manager.getRenderThreads() > 0) && (servletContext != null)) {
+            executor = Executors.newFixedThreadPool(manager.getRenderThreads());
+        }
+        long start = System.currentTimeMillis();
+        try {
+            // first resolve the export data and submit the exports to the worker threads, if available
+            List<CmsStaticExportData> exportDataList = new ArrayList<CmsStaticExportData>(size);
+            List<FutureTask<Integer>> exports = new ArrayList<FutureTask<Integer>>(size);
+            Iterator<String> i = publishedTemplateResources.iterator();
+            while (i.hasNext()) {
+                String rfsName = i.next();
+                CmsStaticExportData data = null;
                 try {
-                    data = manager.getVfsNameInternal(cms, rfsBaseName);
-                } catch (CmsVfsResourceNotFoundException e2) {
-                    if (LOG.isInfoEnabled()) {
-                        LOG.info(Messages.get().getBundle().key(
-                            Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
-                            new String[] {rfsName}));
+                    data = manager.getVfsNameInternal(cms, rfsName);
+                } catch (CmsVfsResourceNotFoundException e) {
+                    String rfsBaseName = rfsName;
+                    int pos = rfsName.lastIndexOf('_');
+                    if (pos >= 0) {
+                        rfsBaseName = rfsName.substring(0, pos);
+                    }
+                    try {
+                        data = manager.getVfsNameInternal(cms, rfsBaseName);
+                    } catch (CmsVfsResourceNotFoundException e2) {
+                        if (LOG.isInfoEnabled()) {
+                            LOG.info(Messages.get().getBundle().key(
+                                Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
+                                new String[] {rfsName}));
+                        }
                     }
                 }
-            }
-            if (data != null) {
+                if (data == null) {
+                    // no valid resource found for rfs name (already deleted), skip it
+                    continue;
+                }
                 data.setRfsName(rfsName);
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        new Integer(count++),
-                        new Integer(size)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-                report.print(org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_ARGUMENT_1,
-                    rfsName));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            } else {
-                // no valid resource found for rfs name (already deleted), skip it
-                continue;
-            }
 
-            try {
-                CmsResource resource = data.getResource();
+                final List<CmsStaticExportData> pages = new ArrayList<CmsStaticExportData>();
                 try {
-                    Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
+                    Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(
+                        cms,
+                        data.getResource());
                     for (String detailPageUri : detailPages) {
                         String altRfsName = manager.getRfsName(cms, detailPageUri);
-                        CmsStaticExportData detailData = new CmsStaticExportData(
+                        pages.add(new CmsStaticExportData(
                             data.getVfsName(),
                             altRfsName,
                             data.getResource(),
-                            data.getParameters());
-                        exportTemplateResource(detailData, cookies);
+                            data.getParameters()));
                     }
                 } catch (CmsException e) {
                     LOG.error(e.getLocalizedMessage(), e);
                 }
+                // the status of the resource itself is reported, so it must be exported last 
+                pages.add(data);
+
+                final CmsObject exportCms = cms;
+                FutureTask<Integer> export = new FutureTask<Integer>(new Callable<Integer>() {
 
-                int status = exportTemplateResource(data, cookies);
-
-                // write the report
-                if (status == HttpServletResponse.SC_OK) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else if (status == HttpServletResponse.SC_SEE_OTHER) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else {
-                    report.println(
-                        org.opencms.report.Messages.get().container(
-                            org.opencms.report.Messages.RPT_ARGUMENT_1,
-                            new Integer(status)),
-                        I_CmsReport.FORMAT_OK);
+                    public Integer call() throws IOException {
+
+                        int status = -1;
+                        for (CmsStaticExportData page : pages) {
+                            status = exportTemplatePage(exportCms, page, servletContext, cookies);
+                            exportCount.incrementAndGet();
+                            if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+                                unchangedCount.incrementAndGet();
+                            }
+                        }
+                        return new Integer(status);
+                    }
+                });
+                if (executor != null) {
+                    executor.execute(export);
                 }
-            } catch (IOException e) {
-                report.println(e);
+                exportDataList.add(data);
+                exports.add(export);
+            }
+
+            // now collect the results in the original order and write the report
+            for (int j = 0; j < exports.size(); j++) {
+                report.print(org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_SUCCESSION_2,
+                    new Integer(count++),
+                    new Integer(size)), I_CmsReport.FORMAT_NOTE);
+                report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+                report.print(org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_ARGUMENT_1,
+                    exportDataList.get(j).getRfsName()));
+                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+
+                try {
+                    FutureTask<Integer> export = exports.get(j);
+                    if (executor == null) {
+                        // no worker threads available, export in the current thread
+                        export.run();
+                    }
+                    int status = export.get().intValue();
+
+                    // write the report
+                    if (status == HttpServletResponse.SC_OK) {
+                        report.println(
+                            org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                            I_CmsReport.FORMAT_OK);
+                    } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+                        report.println(
+                            org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                            I_CmsReport.FORMAT_NOTE);
+                    } else if (status == HttpServletResponse.SC_SEE_OTHER) {
+                        report.println(
+                            org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                            I_CmsReport.FORMAT_NOTE);
+                    } else {
+                        report.println(
+                            org.opencms.report.Messages.get().container(
+                                org.opencms.report.Messages.RPT_ARGUMENT_1,
+                                new Integer(status)),
+                            I_CmsReport.FORMAT_OK);
+                    }
+                } catch (ExecutionException e) {
+                    report.println(e.getCause());
+                } catch (InterruptedException e) {
+                    report.println(e);
+                }
+                if (executor == null) {
+                    //don't lock up the CPU exclusively - allow other Threads to run as well 
+                    Thread.yield();
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
             }
-            //don't lock up the CPU exclusively - allow other Threads to run as well 
-            Thread.yield();
         }
+
+        long time = Math.max(1, System.currentTimeMillis() - start);
+        String pagesPerSecond = String.valueOf(Math.round((exportCount.get() * 10000.0) / time) / 10.0);
+        report.println(Messages.get().container(
+            Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_STATS_4,
+            new Object[] {new Integer(exportCount.get()), new Long(time), pagesPerSecond, new Integer(unchangedCount.get())}));
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0),
             I_CmsReport.FORMAT_HEADLINE);
     }
 
+    /**
+     * Exports a single page of a template resource, either inside the OpenCms server or with a HTTP request.<p>
+     * 
+     * If rendering the page inside the OpenCms server fails, a HTTP request is sent to the export URL instead.<p>
+     * 
+     * @param cms the cms context, in the root site as Export user
+     * @param data the export data of the page
+     * @param servletContext the servlet context of the OpenCms web application, <code>null</code> to use HTTP requests
+     * @param cookies cookies to keep the session of the HTTP requests
+     * 
+     * @return the status of the export, status codes are the same as http status codes
+     * 
+     * @throws IOException if the http request fails
+     */
+    protected int exportTemplatePage(
+        CmsObject cms,
+        CmsStaticExportData data,
+        ServletContext servletContext,
+        StringBuffer cookies) throws IOException {
+
+        if ((servletContext != null) && (OpenCms.getStaticExportManager().getRenderThreads() > 0)) {
+            try {
+                return exportTemplateResource(cms, data, servletContext);
+            } catch (Exception e) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_RENDER_LOCAL_FAILED_1, data.getRfsName()), e);
+            }
+        }
+        // the cookies keep the session of the HTTP requests, so don't send requests in parallel
+        synchronized (cookies) {
+            return exportTemplateResource(data, cookies);
+        }
+    }
+
     /**
      * @see org.opencms.staticexport.A_CmsStaticExportHandler#getRelatedFilesToPurge(java.lang.String, java.lang.String)
      */
@@ -890,4 +1042,23 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
         return templatesFound;
     }
+
+    /**
+     * Returns the export URL used to export the given (template) resource.<p>
+     * 
+     * @param data the export data
+     * 
+     * @return the export URL used to export the resource
+     */
+    private String getExportUrl(CmsStaticExportData data) {
+
+        String vfsName = data.getVfsName();
+        String rfsName = data.getRfsName();
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        if (rfsName.contains(manager.getRfsPrefix(vfsName))) {
+            LOG.info("rfsName " + rfsName + " contains rfsPrefix " + manager.getRfsPrefix(vfsName));
+            return manager.getExportUrl() + rfsName;
+        }
+        return manager.getExportUrl() + manager.getRfsPrefix(vfsName) + rfsName;
+    }
 }
\ No newline at end of file
@@ -40,6 +40,8 @@ import org.opencms.util.CmsMacroResolver;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
 
 import org.htmlparser.Attribute;
@@ -89,6 +91,9 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /** List of attributes that may contain links for the object tag ("codebase" has to be first). */
     private static final String[] OBJECT_TAG_LINKED_ATTRIBS = new String[] {"codebase", "data", "datasrc"};
 
+    /** Processing mode "compile links". */
+    private static final int COMPILE_LINKS = 2;
+
     /** Processing mode "process links". */
     private static final int PROCESS_LINKS = 1;
 
@@ -110,6 +115,9 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /** The relative path for relative links, if not set, relative links are treated as external links. */
     private String m_relativePath;
 
+    /** The link slots found in "compile links" mode. */
+    private List<CmsLinkTemplate.Slot> m_templateSlots;
+
     /** Another OpenCms context based on the current users OpenCms context, but with the site root set to '/'. */
     private CmsObject m_rootCms;
 
@@ -178,6 +186,33 @@ public class CmsLinkProcessor extends CmsHtmlParser {
         return new String(result);
     }
 
+    /**
+     * Returns the processed link which replaces the macro of the given link.<p>
+     * 
+     * @param cms the current users OpenCms context
+     * @param link the link 
+     * @param param <code>true</code> if the link is the value of a <code>param</code> tag
+     * 
+     * @return the processed, XML escaped link 
+     */
+    protected static String getProcessedLink(CmsObject cms, CmsLink link, boolean param) {
+
+        // link management check
+        String l = link.getLink(cms);
+        if (param && (l != null)) {
+            // HACK: to distinguish link parameters the link itself has to end with '&' or '?'
+            // another solution should be a kind of macro...
+            if (!l.endsWith(CmsRequestUtil.URL_DELIMITER) && !l.endsWith(CmsRequestUtil.PARAMETER_DELIMITER)) {
+                if (l.indexOf(CmsRequestUtil.URL_DELIMITER) > 0) {
+                    l += CmsRequestUtil.PARAMETER_DELIMITER;
+                } else {
+                    l += CmsRequestUtil.URL_DELIMITER;
+                }
+            }
+        }
+        return CmsEncoder.escapeXml(l);
+    }
+
     /**
      * Unescapes all <code>&amp;amp;</code>, that is replaces them with a <code>&</code>.<p>
      * 
@@ -193,6 +228,32 @@ public class CmsLinkProcessor extends CmsHtmlParser {
 
     }
 
+    /**
+     * Compiles the given content to a link template.<p>
+     * 
+     * Rendering the template with {@link CmsLinkTemplate#render(CmsObject, CmsLinkTable)} gives the same 
+     * result as {@link #processLinks(String)}, but the content does not have to be parsed again.<p>
+     * 
+     * @param content the content to compile
+     * 
+     * @return the link template, or <code>null</code> if the content can not be compiled
+     * 
+     * @throws ParserException if something goes wrong
+     */
+    public CmsLinkTemplate compileLinks(String content) throws ParserException {
+
+        if (!CmsLinkTemplate.isCompilable(content)) {
+            return null;
+        }
+        m_mode = COMPILE_LINKS;
+        m_templateSlots = new ArrayList<CmsLinkTemplate.Slot>();
+        try {
+            return CmsLinkTemplate.create(process(content, m_encoding), m_templateSlots);
+        } finally {
+            m_templateSlots = null;
+        }
+    }
+
     /**
      * Returns the link table this link processor was initialized with.<p>
      * 
@@ -312,22 +373,19 @@ public class CmsLinkProcessor extends CmsHtmlParser {
                 // macros are replaced with links
                 link = m_linkTable.getLink(CmsMacroResolver.stripMacro(tag.getAttribute(attr)));
                 if (link != null) {
-                    // link management check
-                    String l = link.getLink(m_cms);
-                    if (TAG_PARAM.equals(tag.getTagName())) {
-                        // HACK: to distinguish link parameters the link itself has to end with '&' or '?'
-                        // another solution should be a kind of macro...
-                        if (!l.endsWith(CmsRequestUtil.URL_DELIMITER)
-                            && !l.endsWith(CmsRequestUtil.PARAMETER_DELIMITER)) {
-                            if (l.indexOf(CmsRequestUtil.URL_DELIMITER) > 0) {
-                                l += CmsRequestUtil.PARAMETER_DELIMITER;
-                            } else {
-                                l += CmsRequestUtil.URL_DELIMITER;
-                            }
-                        }
-                    }
                     // set the real target
-                    tag.setAttribute(attr, CmsEncoder.escapeXml(l));
+                    tag.setAttribute(attr, getProcessedLink(m_cms, link, TAG_PARAM.equals(tag.getTagName())));
+                }
+                break;
+            case COMPILE_LINKS:
+                // macros are replaced with placeholders for the links, which are set when rendering the template 
+                link = m_linkTable.getLink(CmsMacroResolver.stripMacro(tag.getAttribute(attr)));
+                if (link != null) {
+                    m_templateSlots.add(new CmsLinkTemplate.Slot(
+                        link.getName(),
+                        TAG_PARAM.equals(tag.getTagName()),
+                        tag.getAttributeEx(attr).getQuote()));
+                    tag.setAttribute(attr, CmsLinkTemplate.getPlaceholder(m_templateSlots.size() - 1));
                 }
                 break;
             case REPLACE_LINKS:
@@ -0,0 +1,248 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.file.CmsObject;
+import org.opencms.relations.CmsLink;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HTML content with link macros, compiled to a list of literal text chunks and link slots.<p>
+ *
+ * A link template is created by {@link CmsLinkProcessor#compileLinks(String)}. Rendering the template
+ * with a link table produces the same result as {@link CmsLinkProcessor#processLinks(String)}, but
+ * does not need to parse the HTML again.<p>
+ *
+ * Link templates are immutable and can be shared between threads.<p>
+ *
+ * @since 8.5.0
+ */
+public final class CmsLinkTemplate {
+
+    /**
+     * A link slot of the template.<p>
+     */
+    static final class Slot {
+
+        /** The name of the link in the link table. */
+        final String m_linkName;
+
+        /** True if the link is the value of a <code>param</code> tag. */
+        final boolean m_param;
+
+        /** The quote character of the attribute containing the link, or <code>0</code> if not quoted. */
+        final char m_quote;
+
+        /**
+         * Creates a new link slot.<p>
+         *
+         * @param linkName the name of the link in the link table
+         * @param param true if the link is the value of a <code>param</code> tag
+         * @param quote the quote character of the attribute containing the link, or <code>0</code> if not quoted
+         */
+        Slot(String linkName, boolean param, char quote) {
+
+            m_linkName = linkName;
+            m_param = param;
+            m_quote = quote;
+        }
+    }
+
+    /** The character ending a slot placeholder. */
+    private static final char PLACEHOLDER_END = '\uE001';
+
+    /** The character starting a slot placeholder. */
+    private static final char PLACEHOLDER_START = '\uE000';
+
+    /** The total length of the literal chunks. */
+    private final int m_length;
+
+    /** The literal chunks, there is one more chunk than slot references. */
+    private final String[] m_literals;
+
+    /** The slot references, in order of their occurrence. */
+    private final Slot[] m_slots;
+
+    /**
+     * Creates a new link template.<p>
+     *
+     * @param literals the literal chunks
+     * @param slots the slot references
+     */
+    private CmsLinkTemplate(List<String> literals, List<Slot> slots) {
+
+        m_literals = literals.toArray(new String[literals.size()]);
+        m_slots = slots.toArray(new Slot[slots.size()]);
+        int length = 0;
+        for (String literal : m_literals) {
+            length += literal.length();
+        }
+        m_length = length;
+    }
+
+    /**
+     * Creates a link template from content where the link slots have been replaced by placeholders.<p>
+     *
+     * @param content the content with placeholders
+     * @param slots the link slots, the index in this list is the index used by the placeholders
+     *
+     * @return the link template, or <code>null</code> if the placeholders could not be resolved
+     */
+    static CmsLinkTemplate create(String content, List<Slot> slots) {
+
+        List<String> literals = new ArrayList<String>();
+        List<Slot> slotRefs = new ArrayList<Slot>();
+        int pos = 0;
+        int start;
+        while ((start = content.indexOf(PLACEHOLDER_START, pos)) >= 0) {
+            int end = content.indexOf(PLACEHOLDER_END, start);
+            if (end < 0) {
+                return null;
+            }
+            int index;
+            try {
+                index = Integer.parseInt(content.substring(start + 1, end));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if ((index < 0) || (index >= slots.size())) {
+                return null;
+            }
+            literals.add(content.substring(pos, start));
+            slotRefs.add(slots.get(index));
+            pos = end + 1;
+        }
+        if (content.indexOf(PLACEHOLDER_END, pos) >= 0) {
+            return null;
+        }
+        literals.add(content.substring(pos));
+        return new CmsLinkTemplate(literals, slotRefs);
+    }
+
+    /**
+     * Returns the placeholder for the link slot with the given index.<p>
+     *
+     * @param index the slot index
+     *
+     * @return the placeholder
+     */
+    static String getPlaceholder(int index) {
+
+        return PLACEHOLDER_START + String.valueOf(index) + PLACEHOLDER_END;
+    }
+
+    /**
+     * Checks if the given content can be compiled to a link template.<p>
+     *
+     * This is not possible if the content already contains the characters used for the slot placeholders.<p>
+     *
+     * @param content the content to check
+     *
+     * @return <code>true</code> if the given content can be compiled to a link template
+     */
+    static boolean isCompilable(String content) {
+
+        return (content.indexOf(PLACEHOLDER_START) < 0) && (content.indexOf(PLACEHOLDER_END) < 0);
+    }
+
+    /**
+     * Checks if the given String contains a whitespace character.<p>
+     *
+     * @param value the String to check
+     *
+     * @return <code>true</code> if the given String contains a whitespace character
+     */
+    private static boolean containsWhitespace(String value) {
+
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isWhitespace(value.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of link slots in this template.<p>
+     *
+     * @return the number of link slots in this template
+     */
+    public int getLinkCount() {
+
+        return m_slots.length;
+    }
+
+    /**
+     * Renders this template, replacing the link slots with the processed links from the given link table.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param linkTable the link table
+     *
+     * @return the rendered content, or <code>null</code> if the template can not be rendered with the
+     *      given link table, e.g. because a link is missing
+     */
+    public String render(CmsObject cms, CmsLinkTable linkTable) {
+
+        if (m_slots.length == 0) {
+            return m_literals[0];
+        }
+        StringBuffer result = new StringBuffer(m_length + (m_slots.length * 64));
+        boolean skipQuote = false;
+        for (int i = 0; i < m_slots.length; i++) {
+            Slot slot = m_slots[i];
+            CmsLink link = linkTable.getLink(slot.m_linkName);
+            if (link == null) {
+                return null;
+            }
+            String value = CmsLinkProcessor.getProcessedLink(cms, link, slot.m_param);
+            if (value == null) {
+                return null;
+            }
+            String literal = m_literals[i];
+            if (skipQuote) {
+                literal = literal.substring(1);
+            }
+            skipQuote = false;
+            if ((slot.m_quote != '"') && containsWhitespace(value)) {
+                // the HTML parser sets double quotes for attribute values containing whitespace
+                if (slot.m_quote != 0) {
+                    literal = literal.substring(0, literal.length() - 1);
+                    skipQuote = true;
+                }
+                result.append(literal).append('"').append(value).append('"');
+            } else {
+                result.append(literal).append(value);
+            }
+        }
+        String literal = m_literals[m_slots.length];
+        result.append(skipQuote ? literal.substring(1) : literal);
+        return result.toString();
+    }
+}
@@ -0,0 +1,676 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.i18n.CmsAcceptLanguageHeaderParser;
+import org.opencms.i18n.CmsLocaleManager;
+import org.opencms.main.CmsContextInfo;
+import org.opencms.util.CmsRequestUtil;
+import org.opencms.util.CmsUUID;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.security.Principal;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Request used to render a template resource for the static export inside the OpenCms server,
+ * without sending a HTTP request to the export URL.<p>
+ *
+ * The request looks like a GET request to the export URL for the RFS name of the exported resource,
+ * with the static export request headers set. Request dispatchers are provided by the servlet context
+ * of the OpenCms web application, so that JSP templates can be included as usual.<p>
+ *
+ * @since 8.5.0
+ *
+ * @see CmsStaticExportLocalResponse
+ */
+public class CmsStaticExportLocalRequest implements HttpServletRequest {
+
+    /**
+     * Invocation handler for the session of a static export request, which only keeps the session attributes.<p>
+     */
+    private static class CmsLocalSessionHandler implements InvocationHandler {
+
+        /** The session attributes. */
+        private Map<String, Object> m_attributes = Collections.synchronizedMap(new HashMap<String, Object>());
+
+        /** The time the session was created. */
+        private long m_creationTime = System.currentTimeMillis();
+
+        /** The session id. */
+        private String m_id = new CmsUUID().toString();
+
+        /** The servlet context. */
+        private ServletContext m_servletContext;
+
+        /**
+         * Creates a new session invocation handler.<p>
+         *
+         * @param servletContext the servlet context
+         */
+        CmsLocalSessionHandler(ServletContext servletContext) {
+
+            m_servletContext = servletContext;
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) {
+
+            String name = method.getName();
+            if ("getAttribute".equals(name) || "getValue".equals(name)) {
+                return m_attributes.get(args[0]);
+            } else if ("setAttribute".equals(name) || "putValue".equals(name)) {
+                m_attributes.put((String)args[0], args[1]);
+            } else if ("removeAttribute".equals(name) || "removeValue".equals(name)) {
+                m_attributes.remove(args[0]);
+            } else if ("getAttributeNames".equals(name)) {
+                synchronized (m_attributes) {
+                    return Collections.enumeration(new HashMap<String, Object>(m_attributes).keySet());
+                }
+            } else if ("getValueNames".equals(name)) {
+                synchronized (m_attributes) {
+                    return m_attributes.keySet().toArray(new String[m_attributes.size()]);
+                }
+            } else if ("getId".equals(name)) {
+                return m_id;
+            } else if ("getCreationTime".equals(name) || "getLastAccessedTime".equals(name)) {
+                return new Long(m_creationTime);
+            } else if ("getMaxInactiveInterval".equals(name)) {
+                return new Integer(-1);
+            } else if ("getServletContext".equals(name)) {
+                return m_servletContext;
+            } else if ("isNew".equals(name)) {
+                return Boolean.TRUE;
+            } else if ("equals".equals(name)) {
+                return Boolean.valueOf(proxy == args[0]);
+            } else if ("hashCode".equals(name)) {
+                return new Integer(System.identityHashCode(proxy));
+            } else if ("toString".equals(name)) {
+                return m_id;
+            }
+            // setMaxInactiveInterval, invalidate and getSessionContext
+            return null;
+        }
+    }
+
+    /** The request attributes. */
+    private Map<String, Object> m_attributes;
+
+    /** The character encoding of the request. */
+    private String m_characterEncoding;
+
+    /** The context path of the OpenCms web application. */
+    private String m_contextPath;
+
+    /** The request headers. */
+    private Map<String, String> m_headers;
+
+    /** The request parameters. */
+    private Map<String, String[]> m_parameters;
+
+    /** The servlet context of the OpenCms web application. */
+    private ServletContext m_servletContext;
+
+    /** The session of the request, lazily created. */
+    private HttpSession m_session;
+
+    /** The requested URL. */
+    private URL m_url;
+
+    /**
+     * Creates a new static export request.<p>
+     *
+     * @param servletContext the servlet context of the OpenCms web application
+     * @param contextPath the context path of the OpenCms web application
+     * @param url the requested URL, i.e. the export URL with the RFS name of the exported resource
+     * @param headers the request headers
+     * @param data the static export data of the exported resource
+     */
+    public CmsStaticExportLocalRequest(
+        ServletContext servletContext,
+        String contextPath,
+        URL url,
+        Map<String, String> headers,
+        CmsStaticExportData data) {
+
+        m_servletContext = servletContext;
+        m_contextPath = contextPath;
+        m_url = url;
+        m_headers = new HashMap<String, String>();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            // header names are case insensitive
+            m_headers.put(header.getKey().toLowerCase(), header.getValue());
+        }
+        m_parameters = CmsRequestUtil.createParameterMap(data.getParameters());
+        m_attributes = new HashMap<String, Object>();
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getAttribute(java.lang.String)
+     */
+    public Object getAttribute(String name) {
+
+        return m_attributes.get(name);
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getAttributeNames()
+     */
+    public Enumeration<String> getAttributeNames() {
+
+        return Collections.enumeration(m_attributes.keySet());
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getAuthType()
+     */
+    public String getAuthType() {
+
+        return null;
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getCharacterEncoding()
+     */
+    public String getCharacterEncoding() {
+
+        return m_characterEncoding;
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getContentLength()
+     */
+    public int getContentLength() {
+
+        return -1;
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getContentType()
+     */
+    public String getContentType() {
+
+        return null;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getContextPath()
+     */
+    public String getContextPath() {
+
+        return m_contextPath;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getCookies()
+     */
+    public Cookie[] getCookies() {
+
+        return null;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getDateHeader(java.lang.String)
+     */
+    public long getDateHeader(String name) {
+
+        // no "If-Modified-Since" header is set, unchanged content is detected when writing the export file
+        return -1;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getHeader(java.lang.String)
+     */
+    public String getHeader(String name) {
+
+        return m_headers.get(name.toLowerCase());
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getHeaderNames()
+     */
+    public Enumeration<String> getHeaderNames() {
+
+        return Collections.enumeration(m_headers.keySet());
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getHeaders(java.lang.String)
+     */
+    public Enumeration<String> getHeaders(String name) {
+
+        String value = getHeader(name);
+        if (value == null) {
+            return Collections.enumeration(Collections.<String> emptyList());
+        }
+        return Collections.enumeration(Collections.singletonList(value));
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getInputStream()
+     */
+    public ServletInputStream getInputStream() {
+
+        return new ServletInputStream() {
+
+            /**
+             * @see java.io.InputStream#read()
+             */
+            @Override
+            public int read() {
+
+                return -1;
+            }
+        };
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getIntHeader(java.lang.String)
+     */
+    public int getIntHeader(String name) {
+
+        String value = getHeader(name);
+        return (value == null) ? -1 : Integer.parseInt(value);
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getLocalAddr()
+     */
+    public String getLocalAddr() {
+
+        return CmsContextInfo.LOCALHOST;
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getLocale()
+     */
+    public Locale getLocale() {
+
+        return getAcceptedLocales().get(0);
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getLocales()
+     */
+    public Enumeration<Locale> getLocales() {
+
+        return Collections.enumeration(getAcceptedLocales());
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getLocalName()
+     */
+    public String getLocalName() {
+
+        return m_url.getHost();
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getLocalPort()
+     */
+    public int getLocalPort() {
+
+        return getServerPort();
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getMethod()
+     */
+    public String getMethod() {
+
+        return "GET";
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getParameter(java.lang.String)
+     */
+    public String getParameter(String name) {
+
+        String[] values = m_parameters.get(name);
+        return (values != null) ? values[0] : null;
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getParameterMap()
+     */
+    public Map<String, String[]> getParameterMap() {
+
+        return m_parameters;
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getParameterNames()
+     */
+    public Enumeration<String> getParameterNames() {
+
+        return Collections.enumeration(m_parameters.keySet());
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getParameterValues(java.lang.String)
+     */
+    public String[] getParameterValues(String name) {
+
+        return m_parameters.get(name);
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getPathInfo()
+     */
+    public String getPathInfo() {
+
+        return null;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getPathTranslated()
+     */
+    public String getPathTranslated() {
+
+        return null;
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getProtocol()
+     */
+    public String getProtocol() {
+
+        return "HTTP/1.1";
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getQueryString()
+     */
+    public String getQueryString() {
+
+        return m_url.getQuery();
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getReader()
+     */
+    public BufferedReader getReader() {
+
+        return new BufferedReader(new StringReader(""));
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getRealPath(java.lang.String)
+     */
+    @Deprecated
+    public String getRealPath(String path) {
+
+        return m_servletContext.getRealPath(path);
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getRemoteAddr()
+     */
+    public String getRemoteAddr() {
+
+        return CmsContextInfo.LOCALHOST;
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getRemoteHost()
+     */
+    public String getRemoteHost() {
+
+        return CmsContextInfo.LOCALHOST;
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getRemotePort()
+     */
+    public int getRemotePort() {
+
+        return 0;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getRemoteUser()
+     */
+    public String getRemoteUser() {
+
+        return null;
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getRequestDispatcher(java.lang.String)
+     */
+    public RequestDispatcher getRequestDispatcher(String path) {
+
+        // the OpenCms request dispatchers only use absolute paths for the top level request
+        return m_servletContext.getRequestDispatcher(path);
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getRequestedSessionId()
+     */
+    public String getRequestedSessionId() {
+
+        return null;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getRequestURI()
+     */
+    public String getRequestURI() {
+
+        return m_url.getPath();
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getRequestURL()
+     */
+    public StringBuffer getRequestURL() {
+
+        StringBuffer result = new StringBuffer(m_url.toExternalForm());
+        int pos = result.indexOf("?");
+        if (pos >= 0) {
+            result.setLength(pos);
+        }
+        return result;
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getScheme()
+     */
+    public String getScheme() {
+
+        return m_url.getProtocol();
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getServerName()
+     */
+    public String getServerName() {
+
+        return m_url.getHost();
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getServerPort()
+     */
+    public int getServerPort() {
+
+        return (m_url.getPort() != -1) ? m_url.getPort() : m_url.getDefaultPort();
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getServletPath()
+     */
+    public String getServletPath() {
+
+        String path = m_url.getPath();
+        return path.startsWith(m_contextPath) ? path.substring(m_contextPath.length()) : path;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getSession()
+     */
+    public HttpSession getSession() {
+
+        return getSession(true);
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getSession(boolean)
+     */
+    public HttpSession getSession(boolean create) {
+
+        if ((m_session == null) && create) {
+            m_session = (HttpSession)Proxy.newProxyInstance(
+                HttpSession.class.getClassLoader(),
+                new Class[] {HttpSession.class},
+                new CmsLocalSessionHandler(m_servletContext));
+        }
+        return m_session;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#getUserPrincipal()
+     */
+    public Principal getUserPrincipal() {
+
+        return null;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#isRequestedSessionIdFromCookie()
+     */
+    public boolean isRequestedSessionIdFromCookie() {
+
+        return false;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#isRequestedSessionIdFromUrl()
+     */
+    @Deprecated
+    public boolean isRequestedSessionIdFromUrl() {
+
+        return false;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#isRequestedSessionIdFromURL()
+     */
+    public boolean isRequestedSessionIdFromURL() {
+
+        return false;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#isRequestedSessionIdValid()
+     */
+    public boolean isRequestedSessionIdValid() {
+
+        return false;
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#isSecure()
+     */
+    public boolean isSecure() {
+
+        return "https".equalsIgnoreCase(m_url.getProtocol());
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletRequest#isUserInRole(java.lang.String)
+     */
+    public boolean isUserInRole(String role) {
+
+        return false;
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#removeAttribute(java.lang.String)
+     */
+    public void removeAttribute(String name) {
+
+        m_attributes.remove(name);
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#setAttribute(java.lang.String, java.lang.Object)
+     */
+    public void setAttribute(String name, Object value) {
+
+        if (value == null) {
+            m_attributes.remove(name);
+        } else {
+            m_attributes.put(name, value);
+        }
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#setCharacterEncoding(java.lang.String)
+     */
+    public void setCharacterEncoding(String encoding) {
+
+        m_characterEncoding = encoding;
+    }
+
+    /**
+     * Returns the locales accepted by this request, according to the "Accept-Language" header.<p>
+     *
+     * @return the locales accepted by this request
+     */
+    private List<Locale> getAcceptedLocales() {
+
+        CmsAcceptLanguageHeaderParser parser = new CmsAcceptLanguageHeaderParser(
+            getHeader(CmsRequestUtil.HEADER_ACCEPT_LANGUAGE),
+            CmsLocaleManager.getDefaultLocale());
+        List<Locale> result = parser.getAcceptedLocales();
+        if (result.isEmpty()) {
+            result = Collections.singletonList(CmsLocaleManager.getDefaultLocale());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.main.OpenCms;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Response used to render a template resource for the static export inside the OpenCms server.<p>
+ *
+ * The static export writes the exported content to the "real" file system itself, so anything written
+ * to this response is only buffered, and all headers and cookies are ignored.<p>
+ *
+ * @since 8.5.0
+ *
+ * @see CmsStaticExportLocalRequest
+ */
+public class CmsStaticExportLocalResponse implements HttpServletResponse {
+
+    /** The buffer for the output written to this response. */
+    private ByteArrayOutputStream m_buffer = new ByteArrayOutputStream();
+
+    /** The character encoding of the response. */
+    private String m_characterEncoding;
+
+    /** The content type of the response. */
+    private String m_contentType;
+
+    /** The locale of the response. */
+    private Locale m_locale;
+
+    /** The output stream of this response, lazily created. */
+    private ServletOutputStream m_outputStream;
+
+    /** The status of this response. */
+    private int m_status = SC_OK;
+
+    /** The writer of this response, lazily created. */
+    private PrintWriter m_writer;
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#addCookie(javax.servlet.http.Cookie)
+     */
+    public void addCookie(Cookie cookie) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#addDateHeader(java.lang.String, long)
+     */
+    public void addDateHeader(String name, long date) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#addHeader(java.lang.String, java.lang.String)
+     */
+    public void addHeader(String name, String value) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#addIntHeader(java.lang.String, int)
+     */
+    public void addIntHeader(String name, int value) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#containsHeader(java.lang.String)
+     */
+    public boolean containsHeader(String name) {
+
+        return false;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#encodeRedirectUrl(java.lang.String)
+     */
+    @Deprecated
+    public String encodeRedirectUrl(String url) {
+
+        return url;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#encodeRedirectURL(java.lang.String)
+     */
+    public String encodeRedirectURL(String url) {
+
+        return url;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#encodeUrl(java.lang.String)
+     */
+    @Deprecated
+    public String encodeUrl(String url) {
+
+        return url;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#encodeURL(java.lang.String)
+     */
+    public String encodeURL(String url) {
+
+        return url;
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#flushBuffer()
+     */
+    public void flushBuffer() {
+
+        if (m_writer != null) {
+            m_writer.flush();
+        }
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#getBufferSize()
+     */
+    public int getBufferSize() {
+
+        return m_buffer.size();
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#getCharacterEncoding()
+     */
+    public String getCharacterEncoding() {
+
+        return (m_characterEncoding != null) ? m_characterEncoding : OpenCms.getSystemInfo().getDefaultEncoding();
+    }
+
+    /**
+     * Returns the output written to this response.<p>
+     *
+     * @return the output written to this response
+     */
+    public byte[] getContent() {
+
+        flushBuffer();
+        return m_buffer.toByteArray();
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#getContentType()
+     */
+    public String getContentType() {
+
+        return m_contentType;
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#getLocale()
+     */
+    public Locale getLocale() {
+
+        return m_locale;
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#getOutputStream()
+     */
+    public ServletOutputStream getOutputStream() {
+
+        if (m_outputStream == null) {
+            m_outputStream = new ServletOutputStream() {
+
+                /**
+                 * @see java.io.OutputStream#write(byte[], int, int)
+                 */
+                @Override
+                public void write(byte[] b, int off, int len) {
+
+                    m_buffer.write(b, off, len);
+                }
+
+                /**
+                 * @see java.io.OutputStream#write(int)
+                 */
+                @Override
+                public void write(int b) {
+
+                    m_buffer.write(b);
+                }
+            };
+        }
+        return m_outputStream;
+    }
+
+    /**
+     * Returns the status of this response.<p>
+     *
+     * @return the status of this response
+     */
+    public int getStatus() {
+
+        return m_status;
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#getWriter()
+     */
+    public PrintWriter getWriter() throws IOException {
+
+        if (m_writer == null) {
+            m_writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return m_writer;
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#isCommitted()
+     */
+    public boolean isCommitted() {
+
+        return false;
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#reset()
+     */
+    public void reset() {
+
+        resetBuffer();
+        m_status = SC_OK;
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#resetBuffer()
+     */
+    public void resetBuffer() {
+
+        flushBuffer();
+        m_buffer.reset();
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#sendError(int)
+     */
+    public void sendError(int status) {
+
+        m_status = status;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#sendError(int, java.lang.String)
+     */
+    public void sendError(int status, String message) {
+
+        m_status = status;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#sendRedirect(java.lang.String)
+     */
+    public void sendRedirect(String location) {
+
+        m_status = SC_MOVED_TEMPORARILY;
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#setBufferSize(int)
+     */
+    public void setBufferSize(int size) {
+
+        // ignore, the output is always buffered completely
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#setCharacterEncoding(java.lang.String)
+     */
+    public void setCharacterEncoding(String encoding) {
+
+        m_characterEncoding = encoding;
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#setContentLength(int)
+     */
+    public void setContentLength(int length) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#setContentType(java.lang.String)
+     */
+    public void setContentType(String type) {
+
+        m_contentType = type;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#setDateHeader(java.lang.String, long)
+     */
+    public void setDateHeader(String name, long date) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#setHeader(java.lang.String, java.lang.String)
+     */
+    public void setHeader(String name, String value) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#setIntHeader(java.lang.String, int)
+     */
+    public void setIntHeader(String name, int value) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#setLocale(java.util.Locale)
+     */
+    public void setLocale(Locale locale) {
+
+        m_locale = locale;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#setStatus(int)
+     */
+    public void setStatus(int status) {
+
+        m_status = status;
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#setStatus(int, java.lang.String)
+     */
+    @Deprecated
+    public void setStatus(int status, String message) {
+
+        m_status = status;
+    }
+}
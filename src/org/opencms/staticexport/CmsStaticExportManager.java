@@ -66,6 +66,7 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -226,6 +227,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Remote address. */
     private String m_remoteAddr;
 
+    /** The number of threads used to render template resources after publishing, 0 to use HTTP requests. */
+    private int m_renderThreads;
+
     /** Prefix to use for exported files. */
     private String m_rfsPrefix;
 
@@ -617,6 +621,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         int status = -1;
         List<Locale> locales = OpenCms.getLocaleManager().getDefaultLocales(exportCms, vfsName);
         boolean exported = false;
+        boolean written = false;
         boolean matched = false;
         // iterate over all rules
         Iterator<CmsStaticExportRfsRule> it = getRfsRules().iterator();
@@ -647,7 +652,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                     if (locales.contains(locale)) {
                         locRfsName = rule.getLocalizedRfsName(rfsName, "/");
                     }
-                    writeResource(req, rule.getExportPath(), locRfsName, resource, content);
+                    written |= writeResource(req, rule.getExportPath(), locRfsName, resource, content);
                 }
             }
         }
@@ -657,11 +662,17 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             byte[] content = loader.export(exportCms, file, req, wrapRes);
             if (content != null) {
                 exported = true;
-                writeResource(req, exportPath, rfsName, resource, content);
+                written |= writeResource(req, exportPath, rfsName, resource, content);
             }
         }
 
-        if (exported) {
+        if (exported
+            && !written
+            && ((req == null) || (req.getHeader(CmsRequestUtil.HEADER_OPENCMS_EXPORT) != null))) {
+            // the export files were already up to date, this is signaled as "not modified" 
+            // unless the content has been written to the response of an "on demand" request
+            status = HttpServletResponse.SC_NOT_MODIFIED;
+        } else if (exported) {
             // get the wrapper status that was set
             status = (wrapRes != null) ? wrapRes.getStatus() : -1;
             if (status < 0) {
@@ -1211,6 +1222,18 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_remoteAddr;
     }
 
+    /**
+     * Returns the number of threads used to render template resources in the "after publish" mode.<p>
+     * 
+     * If this is 0, the template resources are exported one after the other with HTTP requests to the export URL.<p>
+     * 
+     * @return the number of threads used to render template resources
+     */
+    public int getRenderThreads() {
+
+        return m_renderThreads;
+    }
+
     /**
      * Returns the static export rfs name for a given vfs resource.<p>
      * 
@@ -1716,6 +1739,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                 CmsLog.INIT.info(Messages.get().getBundle().key(
                     Messages.INIT_EXPORT_OPTIMIZATION_1,
                     getPlainExportOptimization()));
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_EXPORT_RENDER_THREADS_1,
+                    new Integer(getRenderThreads())));
                 CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_EXPORT_TESTRESOURCE_1, getTestResource()));
                 CmsLog.INIT.info(Messages.get().getBundle().key(
                     Messages.INIT_LINKSUBSTITUTION_HANDLER_1,
@@ -2182,6 +2208,20 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_remoteAddr = addr;
     }
 
+    /**
+     * Sets the number of threads used to render template resources in the "after publish" mode.<p>
+     * 
+     * @param renderThreads the number of threads, 0 to export template resources with HTTP requests
+     */
+    public void setRenderThreads(String renderThreads) {
+
+        try {
+            m_renderThreads = Math.max(0, Integer.parseInt(renderThreads.trim()));
+        } catch (NumberFormatException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+    }
+
     /**
      * Sets the prefix for exported links in the "real" file system.<p>
      * 
@@ -2771,15 +2811,19 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /**
       * Writes a resource to the given export path with the given rfs name and the given content.<p>
       * 
+      * If the export file already exists with exactly the given content, it is not written again.<p>
+      * 
       * @param req the current request
       * @param exportPath the path to export the resource
       * @param rfsName the rfs name
       * @param resource the resource
       * @param content the content
       * 
+      * @return <code>true</code> if the export file was written, <code>false</code> if its content was unchanged
+      * 
       * @throws CmsException if something goes wrong
       */
-    protected void writeResource(
+    protected boolean writeResource(
         HttpServletRequest req,
         String exportPath,
         String rfsName,
@@ -2792,6 +2836,14 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         createExportFolder(exportPath, rfsName);
         // generate export file instance and output stream
         File exportFile = new File(exportFileName);
+        if (isUnchanged(exportFile, content)) {
+            // the file content is already up to date, only update the modification date
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_STATIC_EXPORT_UNCHANGED_1, exportFileName));
+            }
+            setLastModified(req, exportFile, resource);
+            return false;
+        }
         // write new exported file content
         try {
             FileOutputStream exportStream = new FileOutputStream(exportFile);
@@ -2811,22 +2863,8 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                 Messages.get().container(Messages.ERR_OUTPUT_STREAM_1, exportFileName),
                 t);
         }
-        // update the file with the modification date from the server
-        if (req != null) {
-            Long dateLastModified = (Long)req.getAttribute(CmsRequestUtil.HEADER_OPENCMS_EXPORT);
-            if ((dateLastModified != null) && (dateLastModified.longValue() != -1)) {
-                exportFile.setLastModified((dateLastModified.longValue() / 1000) * 1000);
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug(Messages.get().getBundle().key(
-                        Messages.LOG_SET_LAST_MODIFIED_2,
-                        exportFile.getName(),
-                        new Long((dateLastModified.longValue() / 1000) * 1000)));
-                }
-            }
-        } else {
-            // otherwise take the last modification date form the OpenCms resource
-            exportFile.setLastModified((resource.getDateLastModified() / 1000) * 1000);
-        }
+        setLastModified(req, exportFile, resource);
+        return true;
     }
 
     /**
@@ -2881,4 +2919,54 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             return Collections.emptyMap();
         }
     }
+
+    /**
+     * Checks if the given export file already exists with exactly the given content.<p>
+     * 
+     * @param exportFile the export file
+     * @param content the new content of the export file
+     * 
+     * @return <code>true</code> if the export file already exists with the given content
+     */
+    private boolean isUnchanged(File exportFile, byte[] content) {
+
+        if (!exportFile.isFile() || (exportFile.length() != content.length)) {
+            return false;
+        }
+        try {
+            return Arrays.equals(CmsFileUtil.readFile(exportFile), content);
+        } catch (IOException e) {
+            // the file will be written again
+            LOG.debug(e.getLocalizedMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Sets the modification date of an export file, either from the response header of the 
+     * exported resource or from the OpenCms resource.<p>
+     * 
+     * @param req the current request
+     * @param exportFile the export file
+     * @param resource the exported resource
+     */
+    private void setLastModified(HttpServletRequest req, File exportFile, CmsResource resource) {
+
+        // update the file with the modification date from the server
+        if (req != null) {
+            Long dateLastModified = (Long)req.getAttribute(CmsRequestUtil.HEADER_OPENCMS_EXPORT);
+            if ((dateLastModified != null) && (dateLastModified.longValue() != -1)) {
+                exportFile.setLastModified((dateLastModified.longValue() / 1000) * 1000);
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(
+                        Messages.LOG_SET_LAST_MODIFIED_2,
+                        exportFile.getName(),
+                        new Long((dateLastModified.longValue() / 1000) * 1000)));
+                }
+            }
+        } else {
+            // otherwise take the last modification date form the OpenCms resource
+            exportFile.setLastModified((resource.getDateLastModified() / 1000) * 1000);
+        }
+    }
 }
@@ -82,6 +82,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_EXPORT_OPTIMIZATION_1 = "INIT_EXPORT_OPTIMIZATION_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_EXPORT_RENDER_THREADS_1 = "INIT_EXPORT_RENDER_THREADS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_EXPORT_RFS_RULE_ABSOLUTE_LINKS_1 = "INIT_EXPORT_RFS_RULE_ABSOLUTE_LINKS_1";
 
@@ -235,6 +238,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_READING_CHANGED_RESOURCES_FAILED_1 = "LOG_READING_CHANGED_RESOURCES_FAILED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_RENDER_LOCAL_FAILED_1 = "LOG_RENDER_LOCAL_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_REQUEST_RESULT_3 = "LOG_REQUEST_RESULT_3";
 
@@ -280,6 +286,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_STATIC_EXPORT_SITE_ROOT_2 = "LOG_STATIC_EXPORT_SITE_ROOT_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_STATIC_EXPORT_UNCHANGED_1 = "LOG_STATIC_EXPORT_UNCHANGED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_STATIC_EXPORTED_2 = "LOG_STATIC_EXPORTED_2";
 
@@ -337,6 +346,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0 = "RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_STATICEXPORT_TEMPLATE_RESOURCES_STATS_4 = "RPT_STATICEXPORT_TEMPLATE_RESOURCES_STATS_4";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.staticexport.messages";
 
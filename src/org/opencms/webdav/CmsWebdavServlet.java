@@ -523,7 +523,7 @@ public class CmsWebdavServlet extends HttpServlet {
 
         InputStream resourceInputStream = null;
         if (!item.isCollection()) {
-            resourceInputStream = new ByteArrayInputStream(item.getContent());
+            resourceInputStream = item.getContentStream();
         } else {
             resourceInputStream = is;
         }
@@ -564,15 +564,9 @@ public class CmsWebdavServlet extends HttpServlet {
         IOException exception = null;
         InputStream resourceInputStream = null;
 
-        // Optimization: If the binary content has already been loaded, send
-        // it directly
+        // stream the content instead of loading it into memory as a whole
         if (!item.isCollection()) {
-            byte[] buffer = item.getContent();
-            if (buffer != null) {
-                ostream.write(buffer, 0, buffer.length);
-                return;
-            }
-            resourceInputStream = new ByteArrayInputStream(item.getContent());
+            resourceInputStream = item.getContentStream();
         } else {
             resourceInputStream = is;
         }
@@ -612,7 +606,7 @@ public class CmsWebdavServlet extends HttpServlet {
 
         IOException exception = null;
 
-        InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+        InputStream resourceInputStream = item.getContentStream();
 
         Reader reader = new InputStreamReader(resourceInputStream);
         exception = copyRange(reader, writer, range.getStart(), range.getEnd());
@@ -654,7 +648,7 @@ public class CmsWebdavServlet extends HttpServlet {
 
         while ((exception == null) && (ranges.hasNext())) {
 
-            InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+            InputStream resourceInputStream = item.getContentStream();
 
             Reader reader = new InputStreamReader(resourceInputStream);
             CmsWebdavRange currentRange = ranges.next();
@@ -710,7 +704,7 @@ public class CmsWebdavServlet extends HttpServlet {
 
         IOException exception = null;
 
-        InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+        InputStream resourceInputStream = item.getContentStream();
         InputStream istream = new BufferedInputStream(resourceInputStream, m_input);
         exception = copyRange(istream, ostream, range.getStart(), range.getEnd());
 
@@ -751,7 +745,7 @@ public class CmsWebdavServlet extends HttpServlet {
 
         while ((exception == null) && (ranges.hasNext())) {
 
-            InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+            InputStream resourceInputStream = item.getContentStream();
             InputStream istream = new BufferedInputStream(resourceInputStream, m_input);
 
             CmsWebdavRange currentRange = ranges.next();
@@ -843,7 +837,15 @@ public class CmsWebdavServlet extends HttpServlet {
         }
 
         try {
-            istream.skip(start);
+            // streams may skip less bytes than requested
+            long toSkip = start;
+            while (toSkip > 0) {
+                long skipped = istream.skip(toSkip);
+                if (skipped <= 0) {
+                    return null;
+                }
+                toSkip -= skipped;
+            }
         } catch (IOException e) {
             return e;
         }
@@ -851,24 +853,18 @@ public class CmsWebdavServlet extends HttpServlet {
         IOException exception = null;
         long bytesToRead = (end - start) + 1;
 
+        // streams may return less bytes than requested before the end is reached, so only stop at the end
         byte[] buffer = new byte[m_input];
-        int len = buffer.length;
-        while ((bytesToRead > 0) && (len >= buffer.length)) {
+        while (bytesToRead > 0) {
             try {
-                len = istream.read(buffer);
-                if (bytesToRead >= len) {
-                    ostream.write(buffer, 0, len);
-                    bytesToRead -= len;
-                } else {
-                    ostream.write(buffer, 0, (int)bytesToRead);
-                    bytesToRead = 0;
+                int len = istream.read(buffer, 0, (int)Math.min(buffer.length, bytesToRead));
+                if (len == -1) {
+                    break;
                 }
+                ostream.write(buffer, 0, len);
+                bytesToRead -= len;
             } catch (IOException e) {
                 exception = e;
-                len = -1;
-            }
-
-            if (len < buffer.length) {
                 break;
             }
         }
@@ -923,7 +919,15 @@ public class CmsWebdavServlet extends HttpServlet {
     protected IOException copyRange(Reader reader, PrintWriter writer, long start, long end) {
 
         try {
-            reader.skip(start);
+            // readers may skip less characters than requested
+            long toSkip = start;
+            while (toSkip > 0) {
+                long skipped = reader.skip(toSkip);
+                if (skipped <= 0) {
+                    return null;
+                }
+                toSkip -= skipped;
+            }
         } catch (IOException e) {
             return e;
         }
@@ -931,24 +935,18 @@ public class CmsWebdavServlet extends HttpServlet {
         IOException exception = null;
         long bytesToRead = (end - start) + 1;
 
+        // readers may return less characters than requested before the end is reached, so only stop at the end
         char[] buffer = new char[m_input];
-        int len = buffer.length;
-        while ((bytesToRead > 0) && (len >= buffer.length)) {
+        while (bytesToRead > 0) {
             try {
-                len = reader.read(buffer);
-                if (bytesToRead >= len) {
-                    writer.write(buffer, 0, len);
-                    bytesToRead -= len;
-                } else {
-                    writer.write(buffer, 0, (int)bytesToRead);
-                    bytesToRead = 0;
+                int len = reader.read(buffer, 0, (int)Math.min(buffer.length, bytesToRead));
+                if (len == -1) {
+                    break;
                 }
+                writer.write(buffer, 0, len);
+                bytesToRead -= len;
             } catch (IOException e) {
                 exception = e;
-                len = -1;
-            }
-
-            if (len < buffer.length) {
                 break;
             }
         }
@@ -87,6 +87,9 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
     /** Reference for named elements in the document. */
     private Map<String, I_CmsXmlContentValue> m_bookmarks;
 
+    /** Indicates if this document is shared between requests. */
+    private boolean m_shared;
+
     /**
      * Default constructor for a XML document
      * that initializes some internal values.<p> 
@@ -614,6 +617,19 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
         return hasValue(path, locale, index);
     }
 
+    /**
+     * Returns <code>true</code> if this document is shared between requests, e.g. because it is cached.<p>
+     * 
+     * A shared document must not be modified, and its values must not store anything 
+     * that depends on the OpenCms context of a single request.<p>
+     * 
+     * @return <code>true</code> if this document is shared between requests
+     */
+    public boolean isShared() {
+
+        return m_shared;
+    }
+
     /**
      * Marshals (writes) the content of the current XML document 
      * into a byte array using the selected encoding.<p>
@@ -672,6 +688,18 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
         m_conversion = conversion;
     }
 
+    /**
+     * Marks this document as shared between requests.<p>
+     * 
+     * This must be called before the document is made available to other requests.<p>
+     * 
+     * @see #isShared()
+     */
+    public void setShared() {
+
+        m_shared = true;
+    }
+
     /**
      * @see java.lang.Object#toString()
      */
@@ -27,6 +27,7 @@
 
 package org.opencms.xml.containerpage;
 
+import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.CmsVfsCache;
 import org.opencms.file.CmsResource;
 import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
@@ -39,6 +40,8 @@ import org.opencms.xml.content.CmsXmlContent;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -69,6 +72,12 @@ public final class CmsADECache extends CmsVfsCache {
     /** Read-write lock to ensure that the cache maps aren't accessed while we iterate through them to remove invalid entries. */
     private ReadWriteLock m_lock = new ReentrantReadWriteLock(true);
 
+    /** The LRU policy for the online XML contents, limiting the estimated memory size of the cached contents. */
+    private CmsLruCache m_xmlContentLruCache;
+
+    /** Cache for online XML contents, the cached contents are shared between all requests. */
+    private ConcurrentMap<String, CmsXmlContentCacheEntry> m_xmlContentsOnline;
+
     /**
      * Initializes the cache. Only intended to be called during startup.<p>
      * 
@@ -121,6 +130,15 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Flushes the online XML content cache.<p>
+     */
+    public void flushXmlContents() {
+
+        m_xmlContentLruCache.clear();
+        m_xmlContentsOnline.clear();
+    }
+
     /**
      * Returns the cached container page under the given key and for the given project.<p>
      * 
@@ -233,6 +251,48 @@ public final class CmsADECache extends CmsVfsCache {
         return structureId.toString() + "_" + keepEncoding;
     }
 
+    /**
+     * Returns the cached online XML content under the given key.<p>
+     * 
+     * The returned XML content is shared between all requests and must not be modified.<p>
+     * 
+     * @param key the cache key, see {@link #getXmlContentCacheKey(CmsResource)}
+     * 
+     * @return the cached XML content or <code>null</code> if not found
+     */
+    public CmsXmlContent getCacheXmlContent(String key) {
+
+        CmsXmlContentCacheEntry entry = m_xmlContentsOnline.get(key);
+        if (entry == null) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_DEBUG_CACHE_MISSED_ONLINE_1, new Object[] {key}));
+            }
+            return null;
+        }
+        m_xmlContentLruCache.touch(entry);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_DEBUG_CACHE_MATCHED_ONLINE_2,
+                new Object[] {key, entry.getContent()}));
+        }
+        return entry.getContent();
+    }
+
+    /**
+     * Returns the key for caching the XML content of the given resource.<p>
+     * 
+     * The key contains the date of last modification, so a changed resource is never 
+     * served from an outdated cache entry.<p>
+     * 
+     * @param resource the XML content resource
+     * 
+     * @return the cache key for the XML content of the given resource
+     */
+    public String getXmlContentCacheKey(CmsResource resource) {
+
+        return resource.getStructureId().toString() + "_" + resource.getDateLastModified();
+    }
+
     /**
      * Caches the given container page under the given key and for the given project.<p>
      * 
@@ -297,6 +357,33 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Caches the given online XML content under the given key.<p>
+     * 
+     * The XML content is marked as shared, since it is handed out to all requests from now on.
+     * Contents that are bigger than the configured maximum entry size are not cached.<p>
+     * 
+     * @param key the cache key, see {@link #getXmlContentCacheKey(CmsResource)}
+     * @param content the XML content to cache
+     */
+    public void setCacheXmlContent(String key, CmsXmlContent content) {
+
+        content.setShared();
+        CmsXmlContentCacheEntry entry = new CmsXmlContentCacheEntry(m_xmlContentsOnline, key, content);
+        CmsXmlContentCacheEntry oldEntry = m_xmlContentsOnline.put(key, entry);
+        if (oldEntry != null) {
+            m_xmlContentLruCache.remove(oldEntry);
+        }
+        if (!m_xmlContentLruCache.add(entry)) {
+            // the content is too big
+            m_xmlContentsOnline.remove(key, entry);
+            return;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_DEBUG_CACHE_SET_ONLINE_2, new Object[] {key, content}));
+        }
+    }
+
     /**
      * Removes the container page identified by its structure id from the cache.<p>
      * 
@@ -351,6 +438,9 @@ public final class CmsADECache extends CmsVfsCache {
             m_lock.writeLock().lock();
             flushContainerPages(online);
             flushGroupContainers(online);
+            if (online) {
+                flushXmlContents();
+            }
         } finally {
             m_lock.writeLock().unlock();
         }
@@ -403,6 +493,14 @@ public final class CmsADECache extends CmsVfsCache {
         lruMapGroupContainer = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getGroupContainerOnlineSize());
         m_groupContainersOnline = Collections.synchronizedMap(lruMapGroupContainer);
         memMonitor.register(CmsADECache.class.getName() + ".groupContainersOnline", lruMapGroupContainer);
+
+        // online XML content cache, limited by the estimated memory size of the contents
+        long maxXmlContentSize = cacheSettings.getXmlContentOnlineSize();
+        m_xmlContentLruCache = new CmsLruCache(maxXmlContentSize, (maxXmlContentSize * 3) / 4, (int)Math.min(
+            maxXmlContentSize / 10,
+            Integer.MAX_VALUE));
+        m_xmlContentsOnline = new ConcurrentHashMap<String, CmsXmlContentCacheEntry>();
+        memMonitor.register(CmsADECache.class.getName() + ".xmlContentsOnline", m_xmlContentsOnline);
     }
 
     /**
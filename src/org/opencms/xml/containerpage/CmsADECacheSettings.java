@@ -52,6 +52,12 @@ public class CmsADECacheSettings {
     /** The size of the group container online cache. */
     private int m_groupContainerOnlineSize;
 
+    /** Default maximum memory size for the online XML content cache, in bytes. */
+    private static final int DEFAULT_XML_CONTENT_SIZE = 32 * 1024 * 1024;
+
+    /** The maximum memory size of the online XML content cache, in bytes. */
+    private int m_xmlContentOnlineSize;
+
     /**
      * Default constructor.<p>
      */
@@ -132,6 +138,19 @@ public class CmsADECacheSettings {
         return m_groupContainerOnlineSize;
     }
 
+    /**
+     * Returns the maximum memory size of the online XML content cache in bytes.<p>
+     * 
+     * @return the maximum memory size of the online XML content cache in bytes
+     */
+    public int getXmlContentOnlineSize() {
+
+        if (m_xmlContentOnlineSize <= 0) {
+            return DEFAULT_XML_CONTENT_SIZE;
+        }
+        return m_xmlContentOnlineSize;
+    }
+
     /**
      * Sets the size of the cache for offline group containers.<p>
      *
@@ -152,6 +171,16 @@ public class CmsADECacheSettings {
         m_groupContainerOnlineSize = getIntValue(size, DEFAULT_GROUP_CONTAINER_SIZE);
     }
 
+    /**
+     * Sets the maximum memory size of the cache for online XML contents in bytes.<p>
+     *
+     * @param size the maximum memory size of the cache for online XML contents in bytes
+     */
+    public void setXmlContentOnlineSize(String size) {
+
+        m_xmlContentOnlineSize = getIntValue(size, DEFAULT_XML_CONTENT_SIZE);
+    }
+
     /**
      * Turns a string into an int.<p>
      * 
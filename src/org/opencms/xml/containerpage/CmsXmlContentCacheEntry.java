@@ -0,0 +1,229 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml.containerpage;
+
+import org.opencms.cache.I_CmsLruCacheObject;
+import org.opencms.file.CmsFile;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.monitor.I_CmsMemoryMonitorable;
+import org.opencms.xml.content.CmsXmlContent;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentMap;
+
+import org.dom4j.Attribute;
+import org.dom4j.Document;
+import org.dom4j.Element;
+import org.dom4j.Node;
+
+/**
+ * Entry of the shared XML content cache in the {@link CmsADECache}.<p>
+ *
+ * The cache costs of an entry are the estimated memory size of the unmarshalled XML content.<p>
+ *
+ * @since 8.5.0
+ */
+final class CmsXmlContentCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonitorable {
+
+    /** Estimated memory size of an attribute, without the value. */
+    private static final int ATTRIBUTE_SIZE = 48;
+
+    /** Estimated memory size of an element, including the content value and the bookmark created for it. */
+    private static final int ELEMENT_SIZE = 256;
+
+    /** Estimated memory size of any other node, without the text. */
+    private static final int NODE_SIZE = 48;
+
+    /** The cached XML content. */
+    private final CmsXmlContent m_content;
+
+    /** The cache map in which this entry is stored. */
+    private final ConcurrentMap<String, CmsXmlContentCacheEntry> m_entries;
+
+    /** The key under which this entry is stored in the cache map. */
+    private final String m_key;
+
+    /** The estimated memory size of the XML content. */
+    private final int m_memorySize;
+
+    /** Pointer to the next entry in the LRU cache. */
+    private I_CmsLruCacheObject m_next;
+
+    /** Pointer to the previous entry in the LRU cache. */
+    private I_CmsLruCacheObject m_previous;
+
+    /**
+     * Creates a new cache entry.<p>
+     *
+     * @param entries the cache map in which the entry is stored
+     * @param key the key under which the entry is stored in the cache map
+     * @param content the XML content to cache
+     */
+    CmsXmlContentCacheEntry(ConcurrentMap<String, CmsXmlContentCacheEntry> entries, String key, CmsXmlContent content) {
+
+        m_entries = entries;
+        m_key = key;
+        m_content = content;
+        m_memorySize = estimateMemorySize(content);
+    }
+
+    /**
+     * Estimates the memory size of the given unmarshalled XML content.<p>
+     *
+     * @param content the XML content
+     *
+     * @return the estimated memory size in bytes
+     */
+    private static int estimateMemorySize(CmsXmlContent content) {
+
+        long size = 0;
+        CmsFile file = content.getFile();
+        if ((file != null) && (file.getContents() != null)) {
+            size += CmsMemoryMonitor.getMemorySize(file.getContents());
+        }
+        List<Locale> locales = content.getLocales();
+        if (!locales.isEmpty()) {
+            // the document itself is not accessible, so use the document of a locale node 
+            Document document = content.getLocaleNode(locales.get(0)).getDocument();
+            if ((document != null) && (document.getRootElement() != null)) {
+                size += estimateMemorySize(document.getRootElement());
+            }
+        }
+        return (int)Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Estimates the memory size of the given XML element, including all sub nodes.<p>
+     *
+     * @param element the XML element
+     *
+     * @return the estimated memory size in bytes
+     */
+    private static long estimateMemorySize(Element element) {
+
+        long size = ELEMENT_SIZE;
+        for (int i = 0, n = element.attributeCount(); i < n; i++) {
+            Attribute attribute = element.attribute(i);
+            size += ATTRIBUTE_SIZE + (2 * attribute.getValue().length());
+        }
+        for (int i = 0, n = element.nodeCount(); i < n; i++) {
+            Node node = element.node(i);
+            if (node instanceof Element) {
+                size += estimateMemorySize((Element)node);
+            } else {
+                String text = node.getText();
+                size += NODE_SIZE + ((text != null) ? (2 * text.length()) : 0);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+     */
+    public void addToLruCache() {
+
+        // nothing to do, the entry is added to the cache map by the ADE cache
+    }
+
+    /**
+     * Returns the cached XML content.<p>
+     *
+     * @return the cached XML content
+     */
+    public CmsXmlContent getContent() {
+
+        return m_content;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+     */
+    public int getLruCacheCosts() {
+
+        return m_memorySize;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMemoryMonitorable#getMemorySize()
+     */
+    public int getMemorySize() {
+
+        return getLruCacheCosts();
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+     */
+    public I_CmsLruCacheObject getNextLruObject() {
+
+        return m_next;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+     */
+    public I_CmsLruCacheObject getPreviousLruObject() {
+
+        return m_previous;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+     */
+    public Object getValue() {
+
+        return m_content;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+     */
+    public void removeFromLruCache() {
+
+        // only remove the mapping if it has not been replaced by a newer entry
+        m_entries.remove(m_key, this);
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    public void setNextLruObject(I_CmsLruCacheObject theNextEntry) {
+
+        m_next = theNextEntry;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    public void setPreviousLruObject(I_CmsLruCacheObject thePreviousEntry) {
+
+        m_previous = thePreviousEntry;
+    }
+}
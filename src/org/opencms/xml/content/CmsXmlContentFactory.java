@@ -31,6 +31,7 @@ import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
+import org.opencms.file.history.I_CmsHistoryResource;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.loader.CmsLoaderException;
@@ -40,6 +41,7 @@ import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
 import org.opencms.xml.CmsXmlException;
 import org.opencms.xml.CmsXmlUtils;
+import org.opencms.xml.containerpage.CmsADECache;
 
 import java.io.UnsupportedEncodingException;
 import java.util.Locale;
@@ -258,6 +260,10 @@ public final class CmsXmlContentFactory {
      * Factory method to unmarshal (read) a XML content instance from
      * a resource, using the request attributes as cache.<p>
      * 
+     * In the Online project, the current version of the XML content is also cached between requests. 
+     * In this case the returned XML content is shared and must not be modified, 
+     * see {@link org.opencms.xml.A_CmsXmlDocument#isShared()}.<p>
+     * 
      * @param cms the current OpenCms context object
      * @param resource the resource to unmarshal
      * @param req the current request
@@ -285,8 +291,24 @@ public final class CmsXmlContentFactory {
         CmsXmlContent content = (CmsXmlContent)req.getAttribute(rootPath);
 
         if (content == null) {
-            // unmarshal XML structure from the file content
-            content = unmarshal(cms, cms.readFile(resource));
+            // try the cache shared between requests, which only holds the current version of online contents
+            CmsADECache cache = null;
+            String cacheKey = null;
+            if (cms.getRequestContext().getCurrentProject().isOnlineProject()
+                && !(resource instanceof I_CmsHistoryResource)) {
+                cache = getCache();
+            }
+            if (cache != null) {
+                cacheKey = cache.getXmlContentCacheKey(resource);
+                content = cache.getCacheXmlContent(cacheKey);
+            }
+            if (content == null) {
+                // unmarshal XML structure from the file content
+                content = unmarshal(cms, cms.readFile(resource));
+                if (cache != null) {
+                    cache.setCacheXmlContent(cacheKey, content);
+                }
+            }
             // store the content as request attribute for future read requests
             req.setAttribute(rootPath, content);
         }
@@ -372,4 +394,14 @@ public final class CmsXmlContentFactory {
 
         return unmarshal(null, xmlData, encoding, resolver);
     }
+
+    /**
+     * Gets the ADE cache from the ADE manager.<p>
+     * 
+     * @return the ADE cache, or <code>null</code> if the ADE manager is not initialized 
+     */
+    private static CmsADECache getCache() {
+
+        return (OpenCms.getADEManager() != null) ? OpenCms.getADEManager().getCache() : null;
+    }
 }
\ No newline at end of file
@@ -35,6 +35,7 @@ import org.opencms.relations.CmsRelationType;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.widgets.I_CmsWidgetParameter;
+import org.opencms.xml.A_CmsXmlDocument;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlGenericWrapper;
 import org.opencms.xml.CmsXmlUtils;
@@ -582,6 +583,21 @@ public abstract class A_CmsXmlContentValue implements I_CmsXmlContentValue, I_Cm
         return result;
     }
 
+    /**
+     * Returns if a String value created with the OpenCms context of the current request may be stored in this value.<p>
+     * 
+     * This is not the case if the XML document of this value is shared between requests, 
+     * since links and paths depend on the site and the request of the OpenCms context.<p>
+     * 
+     * @return <code>true</code> if a String value created with the current OpenCms context may be stored
+     * 
+     * @see A_CmsXmlDocument#isShared()
+     */
+    protected boolean isStringValueCacheable() {
+
+        return !((m_document instanceof A_CmsXmlDocument) && ((A_CmsXmlDocument)m_document).isShared());
+    }
+
     /**
      * Moves this XML content element up or down in the XML document.<p> 
      * 
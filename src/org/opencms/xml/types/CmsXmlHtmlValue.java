@@ -35,6 +35,7 @@ import org.opencms.relations.CmsLink;
 import org.opencms.relations.CmsLinkUpdateUtil;
 import org.opencms.staticexport.CmsLinkProcessor;
 import org.opencms.staticexport.CmsLinkTable;
+import org.opencms.staticexport.CmsLinkTemplate;
 import org.opencms.util.CmsHtmlConverter;
 import org.opencms.util.CmsHtmlExtractor;
 import org.opencms.util.CmsStringUtil;
@@ -73,6 +74,12 @@ public class CmsXmlHtmlValue extends A_CmsXmlContentValue {
     /** Base type for single type instances, required for XML pages. */
     private static final I_CmsXmlSchemaType TYPE_BASE = new CmsXmlHtmlValue("base", "1", "1");
 
+    /** The link template compiled from the HTML, or <code>null</code> if not compiled yet. */
+    private CmsLinkTemplate m_linkTemplate;
+
+    /** Indicates if the link template has been compiled, even if the result was <code>null</code>. */
+    private boolean m_linkTemplateCompiled;
+
     /** The plain text value of the element node. */
     private String m_plainTextValue;
 
@@ -216,6 +223,10 @@ public class CmsXmlHtmlValue extends A_CmsXmlContentValue {
      */
     public String getStringValue(CmsObject cms) {
 
+        if (!isStringValueCacheable()) {
+            // the document is shared, the value depends on the current request
+            return createStringValue(cms, m_document);
+        }
         if (m_stringValue == null) {
             m_stringValue = createStringValue(cms, m_document);
         }
@@ -297,8 +308,10 @@ public class CmsXmlHtmlValue extends A_CmsXmlContentValue {
             }
         }
 
-        // ensure the String value is re-calculated next time
+        // ensure the String value and the link template are re-calculated next time
         m_stringValue = null;
+        m_linkTemplate = null;
+        m_linkTemplateCompiled = false;
     }
 
     /**
@@ -354,15 +367,60 @@ public class CmsXmlHtmlValue extends A_CmsXmlContentValue {
             if (!linkTable.isEmpty()) {
 
                 // link processing: replace macros with links
-                CmsLinkProcessor linkProcessor = document.getLinkProcessor(cms, linkTable);
-                try {
-                    content = linkProcessor.processLinks(content);
-                } catch (ParserException e) {
-                    // should better not happen
-                    LOG.error(Messages.get().getBundle().key(Messages.ERR_XMLCONTENT_LINK_PROCESS_FAILED_0), e);
+                String processedContent = null;
+                CmsLinkTemplate linkTemplate = getLinkTemplate(cms, document, content, linkTable);
+                if (linkTemplate != null) {
+                    processedContent = linkTemplate.render(cms, linkTable);
+                }
+                if (processedContent == null) {
+                    // the template can not be used, process the HTML
+                    CmsLinkProcessor linkProcessor = document.getLinkProcessor(cms, linkTable);
+                    try {
+                        processedContent = linkProcessor.processLinks(content);
+                    } catch (ParserException e) {
+                        // should better not happen
+                        LOG.error(Messages.get().getBundle().key(Messages.ERR_XMLCONTENT_LINK_PROCESS_FAILED_0), e);
+                    }
+                }
+                if (processedContent != null) {
+                    content = processedContent;
                 }
             }
         }
         return content;
     }
+
+    /**
+     * Returns the link template for the HTML of this value, compiling it if required.<p>
+     * 
+     * The template only depends on the stored HTML and the names of the links, so it is compiled once 
+     * and kept together with the XML document, while the links are resolved each time the String value 
+     * is created.<p>
+     * 
+     * @param cms an initialized instance of a CmsObject
+     * @param document the XML document this value belongs to
+     * @param content the HTML with link macros
+     * @param linkTable the link table of this value
+     * 
+     * @return the link template, or <code>null</code> if the HTML could not be compiled
+     */
+    private CmsLinkTemplate getLinkTemplate(
+        CmsObject cms,
+        I_CmsXmlDocument document,
+        String content,
+        CmsLinkTable linkTable) {
+
+        if (!m_linkTemplateCompiled) {
+            CmsLinkTemplate linkTemplate = null;
+            try {
+                linkTemplate = document.getLinkProcessor(cms, linkTable).compileLinks(content);
+            } catch (ParserException e) {
+                // should better not happen
+                LOG.error(Messages.get().getBundle().key(Messages.ERR_XMLCONTENT_LINK_PROCESS_FAILED_0), e);
+            }
+            m_linkTemplate = linkTemplate;
+            m_linkTemplateCompiled = true;
+        }
+        return m_linkTemplate;
+    }
 }
\ No newline at end of file
@@ -191,6 +191,10 @@ public class CmsXmlVarLinkValue extends A_CmsXmlContentValue {
      */
     public String getStringValue(CmsObject cms) throws CmsRuntimeException {
 
+        if (!isStringValueCacheable()) {
+            // the document is shared, the value depends on the current request
+            return createStringValue(cms);
+        }
         if (m_stringValue == null) {
             m_stringValue = createStringValue(cms);
         }
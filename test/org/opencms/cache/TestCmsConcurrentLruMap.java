@@ -0,0 +1,196 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsCollectionsGenericWrapper;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for the concurrent LRU map, including a throughput comparison with the synchronized LRU map.<p>
+ */
+public class TestCmsConcurrentLruMap extends OpenCmsTestCase {
+
+    /** Number of distinct keys used by the benchmark. */
+    private static final int BENCHMARK_KEYS = 10000;
+
+    /** Number of cache reads per benchmark thread. */
+    private static final int BENCHMARK_READS = 200000;
+
+    /** Size of the caches used by the benchmark. */
+    private static final int BENCHMARK_SIZE = 8192;
+
+    /**
+     * Compares the read throughput of the synchronized LRU map and the concurrent LRU map.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentReadThroughput() throws Exception {
+
+        int[] threadCounts = {1, 4, 16};
+        for (int threads : threadCounts) {
+            Map<String, String> lruMap = CmsCollectionsGenericWrapper.createLRUMap(BENCHMARK_SIZE);
+            Map<String, String> synchronizedMap = Collections.synchronizedMap(lruMap);
+            long synchronizedThroughput = runBenchmark(synchronizedMap, threads);
+
+            Map<String, String> concurrentMap = new CmsConcurrentLruMap<String, String>(BENCHMARK_SIZE);
+            long concurrentThroughput = runBenchmark(concurrentMap, threads);
+
+            echo("Cache reads/second with "
+                + threads
+                + " threads: synchronized LRUMap "
+                + synchronizedThroughput
+                + ", CmsConcurrentLruMap "
+                + concurrentThroughput);
+        }
+    }
+
+    /**
+     * Tests that the map does not grow beyond its maximum size.<p>
+     */
+    public void testEviction() {
+
+        CmsConcurrentLruMap<String, String> map = new CmsConcurrentLruMap<String, String>(100, 1);
+        for (int i = 0; i < 1000; i++) {
+            map.put("key" + i, "value" + i);
+        }
+        assertTrue(map.size() <= 100);
+        assertEquals(900, map.getEvictionCount());
+        // the most recently added entries are kept
+        assertEquals("value999", map.get("key999"));
+        assertNull(map.get("key0"));
+    }
+
+    /**
+     * Tests that recently read entries are not evicted.<p>
+     */
+    public void testLruOrder() {
+
+        CmsConcurrentLruMap<String, String> map = new CmsConcurrentLruMap<String, String>(10, 1);
+        for (int i = 0; i < 10; i++) {
+            map.put("key" + i, "value" + i);
+        }
+        // touch the first entry so that it becomes the most recently used one
+        assertEquals("value0", map.get("key0"));
+        map.put("key10", "value10");
+        assertEquals("value0", map.get("key0"));
+        assertNull(map.get("key1"));
+    }
+
+    /**
+     * Tests the handling of <code>null</code> keys and values.<p>
+     */
+    public void testNullValues() {
+
+        CmsConcurrentLruMap<String, String> map = new CmsConcurrentLruMap<String, String>(10);
+        map.put("key", "value");
+        assertEquals("value", map.put("key", null));
+        assertFalse(map.containsKey("key"));
+        assertNull(map.put(null, "value"));
+        assertNull(map.get(null));
+        assertEquals(0, map.size());
+    }
+
+    /**
+     * Tests the hit and miss statistics.<p>
+     */
+    public void testStatistics() {
+
+        CmsConcurrentLruMap<String, String> map = new CmsConcurrentLruMap<String, String>(10);
+        map.put("key", "value");
+        map.get("key");
+        map.get("key");
+        map.get("other");
+        assertEquals(2, map.getHitCount());
+        assertEquals(1, map.getMissCount());
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get("key"));
+        assertEquals(2, map.getMissCount());
+    }
+
+    /**
+     * Reads from the given map with the given number of threads and returns the reads per second.<p>
+     * 
+     * @param map the map to read from
+     * @param threads the number of threads
+     * 
+     * @return the number of reads per second
+     * 
+     * @throws InterruptedException if the test thread is interrupted
+     */
+    private long runBenchmark(final Map<String, String> map, int threads) throws InterruptedException {
+
+        final String[] keys = new String[BENCHMARK_KEYS];
+        for (int i = 0; i < BENCHMARK_KEYS; i++) {
+            keys[i] = "/sites/default/folder" + (i % 100) + "/resource" + i + ".html";
+            map.put(keys[i], keys[i]);
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicLong hits = new AtomicLong();
+        for (int t = 0; t < threads; t++) {
+            final int offset = t * 7919;
+            Thread thread = new Thread(new Runnable() {
+
+                public void run() {
+
+                    try {
+                        start.await();
+                        long found = 0;
+                        for (int i = 0; i < BENCHMARK_READS; i++) {
+                            String key = keys[(offset + (i * 31)) % BENCHMARK_KEYS];
+                            if (map.get(key) != null) {
+                                found++;
+                            } else {
+                                // simulate reading the value from the database
+                                map.put(key, key);
+                            }
+                        }
+                        hits.addAndGet(found);
+                    } catch (InterruptedException e) {
+                        // finish this thread
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+            thread.start();
+        }
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        long duration = Math.max(1L, System.nanoTime() - startTime);
+        assertTrue(hits.get() > 0);
+        return (((long)threads * BENCHMARK_READS) * 1000000000L) / duration;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cluster;
+
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.util.CmsUUID;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the {@link CmsClusterEvent}.<p>
+ *
+ * @since 8.5.0
+ */
+public class TestCmsClusterEvent extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsClusterEvent(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsClusterEvent.class.getName());
+
+        suite.addTest(new TestCmsClusterEvent("testData"));
+        suite.addTest(new TestCmsClusterEvent("testFlushEventTypes"));
+        suite.addTest(new TestCmsClusterEvent("testRejectedData"));
+
+        return suite;
+    }
+
+    /**
+     * Tests that only plain string and integer data is transferred.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testData() throws Exception {
+
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put("action", new Integer(1));
+        data.put("path", "/sites/default/a=b\nc\u00e4.html");
+        data.put("id", new CmsUUID());
+        data.put("list", new ArrayList<String>());
+        CmsClusterEvent clusterEvent = CmsClusterEvent.create("node", new CmsEvent(
+            I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR,
+            data));
+        assertEquals(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR, clusterEvent.getType());
+
+        CmsEvent event = clusterEvent.toCmsEvent();
+        assertEquals(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR, event.getType());
+        assertEquals(2, event.getData().size());
+        assertEquals(new Integer(1), event.getData().get("action"));
+        assertEquals("/sites/default/a=b\nc\u00e4.html", event.getData().get("path"));
+
+        // equal data gives equal keys, independent of the order of the map
+        Map<String, Object> reordered = new HashMap<String, Object>();
+        reordered.put("path", "/sites/default/a=b\nc\u00e4.html");
+        reordered.put("action", new Integer(1));
+        assertEquals(clusterEvent.getDeduplicationKey(), CmsClusterEvent.create("other", new CmsEvent(
+            I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR,
+            reordered)).getDeduplicationKey());
+
+        // the data of events replaced by a flush event is dropped
+        CmsEvent publish = CmsClusterEvent.create(
+            "node",
+            new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, data)).toCmsEvent();
+        assertEquals(I_CmsEventListener.EVENT_CLEAR_CACHES, publish.getType());
+        assertTrue(publish.getData().isEmpty());
+    }
+
+    /**
+     * Tests which events are replaced by flush events.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFlushEventTypes() throws Exception {
+
+        int[] unchanged = {
+            I_CmsEventListener.EVENT_ALIASES_MODIFIED,
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES,
+            I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+            I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES,
+            I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR,
+            I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY};
+        for (int i = 0; i < unchanged.length; i++) {
+            assertTrue(CmsClusterEvent.isFlushEvent(unchanged[i]));
+            assertEquals(unchanged[i], CmsClusterEvent.getFlushEventType(unchanged[i]));
+        }
+        assertEquals(
+            I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES,
+            CmsClusterEvent.getFlushEventType(I_CmsEventListener.EVENT_USER_MODIFIED));
+        assertEquals(
+            I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES,
+            CmsClusterEvent.getFlushEventType(I_CmsEventListener.EVENT_GROUP_MODIFIED));
+        assertEquals(
+            I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES,
+            CmsClusterEvent.getFlushEventType(I_CmsEventListener.EVENT_RESOURCE_MODIFIED));
+        assertEquals(
+            I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES,
+            CmsClusterEvent.getFlushEventType(I_CmsEventListener.EVENT_PROPERTY_MODIFIED));
+        assertEquals(
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            CmsClusterEvent.getFlushEventType(I_CmsEventListener.EVENT_PUBLISH_PROJECT));
+        assertEquals(
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            CmsClusterEvent.getFlushEventType(I_CmsEventListener.EVENT_PROJECT_MODIFIED));
+        assertFalse(CmsClusterEvent.isFlushEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT));
+        assertFalse(CmsClusterEvent.isFlushEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED));
+    }
+
+    /**
+     * Tests that received events with other types or malformed data are rejected.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRejectedData() throws Exception {
+
+        // events which are not flush events are never fired on the receiving node
+        CmsClusterEvent publish = new CmsClusterEvent(
+            new CmsUUID(),
+            "node",
+            System.currentTimeMillis(),
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+            null);
+        assertNull(publish.toCmsEvent());
+
+        // serialized Java objects are not read
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(new HashMap<String, Object>());
+        out.close();
+        assertNull(new CmsClusterEvent(
+            new CmsUUID(),
+            "node",
+            System.currentTimeMillis(),
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            bytes.toByteArray()).toCmsEvent());
+
+        // unknown value types and malformed integers
+        assertNull(new CmsClusterEvent(
+            new CmsUUID(),
+            "node",
+            System.currentTimeMillis(),
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            "key=xvalue\n".getBytes("UTF-8")).toCmsEvent());
+        assertNull(new CmsClusterEvent(
+            new CmsUUID(),
+            "node",
+            System.currentTimeMillis(),
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            "key=iabc\n".getBytes("UTF-8")).toCmsEvent());
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.cluster;
+
+import org.opencms.db.CmsDriverManager;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.flex.CmsFlexCache;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the replication of events between two cluster event managers using the database transport.<p>
+ * 
+ * @since 8.5.0
+ */
+public class TestCmsClusterEventManager extends OpenCmsTestCase {
+
+    /**
+     * Event listener that records all events.<p>
+     */
+    private static class RecordingListener implements I_CmsEventListener {
+
+        /** The recorded events. */
+        private List<CmsEvent> m_events = Collections.synchronizedList(new ArrayList<CmsEvent>());
+
+        /**
+         * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+         */
+        public void cmsEvent(CmsEvent event) {
+
+            m_events.add(event);
+        }
+
+        /**
+         * Returns the recorded events and forgets them.<p>
+         * 
+         * @return the recorded events
+         */
+        public List<CmsEvent> getEvents() {
+
+            List<CmsEvent> result = new ArrayList<CmsEvent>(m_events);
+            m_events.clear();
+            return result;
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsClusterEventManager(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsClusterEventManager.class.getName());
+
+        suite.addTest(new TestCmsClusterEventManager("testReplication"));
+        suite.addTest(new TestCmsClusterEventManager("testDeduplication"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Creates a cluster event manager without a background thread.<p>
+     * 
+     * @param nodeId the node id
+     * 
+     * @return the cluster event manager
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private static CmsClusterEventManager createNode(String nodeId) throws Exception {
+
+        CmsClusterEventManager node = new CmsClusterEventManager();
+        node.addConfigurationParameter(CmsClusterEventManager.PARAM_NODE_ID, nodeId);
+        node.addConfigurationParameter(CmsClusterEventManager.PARAM_INTERVAL, "0");
+        node.initConfiguration();
+        // initialize the transport, so that only events fired after this are received
+        node.synchronize();
+        return node;
+    }
+
+    /**
+     * Tests that duplicate events are sent only once per batch.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testDeduplication() throws Exception {
+
+        echo("Testing the de-duplication of cluster events");
+        CmsObject cms = getCmsObject();
+        CmsResource resource = cms.readResource("/folder1/subfolder11/");
+
+        CmsClusterEventManager node1 = createNode("dedup1");
+        CmsClusterEventManager node2 = createNode("dedup2");
+        RecordingListener listener = new RecordingListener();
+        node2.addCmsEventListener(listener);
+
+        for (int i = 0; i < 10; i++) {
+            node1.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+            Map<String, Object> data = new HashMap<String, Object>();
+            data.put(I_CmsEventListener.KEY_RESOURCE, resource);
+            data.put(I_CmsEventListener.KEY_CHANGE, new Integer(CmsDriverManager.CHANGED_RESOURCE));
+            node1.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, data);
+        }
+        assertEquals(20, node1.getQueueSize());
+
+        node1.synchronize();
+        assertEquals(0, node1.getQueueSize());
+        node2.synchronize();
+        List<CmsEvent> events = listener.getEvents();
+        assertEquals(2, events.size());
+        assertEquals(I_CmsEventListener.EVENT_CLEAR_CACHES, events.get(0).getType());
+        assertEquals(I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES, events.get(1).getType());
+
+        // the events are only received once
+        node2.synchronize();
+        assertTrue(listener.getEvents().isEmpty());
+
+        node1.shutDown();
+        node2.shutDown();
+    }
+
+    /**
+     * Tests that the events fired on one node are fired on the other node.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testReplication() throws Exception {
+
+        echo("Testing the replication of events between two cluster nodes");
+        CmsObject cms = getCmsObject();
+        CmsResource resource = cms.readFile("/folder2/index.html");
+
+        CmsClusterEventManager node1 = createNode("node1");
+        CmsClusterEventManager node2 = createNode("node2");
+        RecordingListener listener1 = new RecordingListener();
+        RecordingListener listener2 = new RecordingListener();
+        node1.addCmsEventListener(listener1);
+        node2.addCmsEventListener(listener2);
+
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put(I_CmsEventListener.KEY_RESOURCE, resource);
+        data.put(I_CmsEventListener.KEY_CHANGE, new Integer(CmsDriverManager.CHANGED_CONTENT));
+        node1.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, data);
+        // locking is not replicated
+        Map<String, Object> lockData = new HashMap<String, Object>();
+        lockData.put(I_CmsEventListener.KEY_RESOURCE, resource);
+        lockData.put(I_CmsEventListener.KEY_CHANGE, new Integer(CmsDriverManager.NOTHING_CHANGED));
+        node1.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, lockData);
+        // not a replicated event type
+        node1.fireEvent(I_CmsEventListener.EVENT_LOGIN_USER);
+        assertEquals(3, listener1.getEvents().size());
+        assertEquals(1, node1.getQueueSize());
+
+        node1.synchronize();
+        node2.synchronize();
+
+        // only the offline caches are flushed on the other node
+        List<CmsEvent> events = listener2.getEvents();
+        assertEquals(1, events.size());
+        CmsEvent event = events.get(0);
+        assertEquals(I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES, event.getType());
+        assertTrue(event.getData().isEmpty());
+
+        // received events are not sent back
+        assertEquals(0, node2.getQueueSize());
+        node1.synchronize();
+        assertTrue(listener1.getEvents().isEmpty());
+
+        // the other direction
+        node2.fireEvent(I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES);
+        node2.synchronize();
+        node1.synchronize();
+        events = listener1.getEvents();
+        assertEquals(1, events.size());
+        assertEquals(I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES, events.get(0).getType());
+        assertTrue(listener2.getEvents().size() == 1);
+
+        // publishing flushes all caches on the other node, without running the publish listeners there
+        Map<String, Object> publishData = new HashMap<String, Object>();
+        publishData.put(I_CmsEventListener.KEY_PUBLISHID, new CmsUUID().toString());
+        node1.fireEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, publishData);
+        // user changes flush the principal caches, the flex cache events keep their data
+        node1.fireEvent(I_CmsEventListener.EVENT_USER_MODIFIED);
+        node1.fireEvent(
+            I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR,
+            Collections.<String, Object> singletonMap("action", new Integer(CmsFlexCache.CLEAR_ENTRIES)));
+        node1.synchronize();
+        node2.synchronize();
+        events = listener2.getEvents();
+        assertEquals(3, events.size());
+        assertEquals(I_CmsEventListener.EVENT_CLEAR_CACHES, events.get(0).getType());
+        assertTrue(events.get(0).getData().isEmpty());
+        assertEquals(I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES, events.get(1).getType());
+        assertEquals(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR, events.get(2).getType());
+        assertEquals(new Integer(CmsFlexCache.CLEAR_ENTRIES), events.get(2).getData().get("action"));
+
+        node1.shutDown();
+        node2.shutDown();
+    }
+}
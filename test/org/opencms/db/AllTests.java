@@ -61,9 +61,15 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         // $JUnit-BEGIN$
         suite.addTest(TestQueryProperties.suite());
+        suite.addTest(TestDbConnectionCache.suite());
+        suite.addTest(TestContentStore.suite());
+        suite.addTest(TestContentStreamConnection.suite());
+        suite.addTest(TestSqlReplica.suite());
+        suite.addTest(TestSqlBatch.suite());
         suite.addTest(TestPublishHistory.suite());
         suite.addTest(TestSubscriptionManager.suite());
         suite.addTest(TestAliases.suite());
+        suite.addTest(TestRewriteAliasMatcher.suite());
         suite.addTest(TestUrlNameMapping.suite());
         // $JUnit-END$
         return suite;
@@ -130,6 +130,29 @@ public class TestAliases extends OpenCmsTestCase {
         assertTrue("At least 3 aliases", aliasManager.getAliasesForSite(cms, "").size() >= 3);
     }
 
+    /**
+     * Tests that the cached aliases are updated when publishing deletes the aliases of a deleted resource.<p>
+     * 
+     * @throws Exception if something goes wrong 
+     */
+    public void testPublishDeletedAlias() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        CmsAliasManager aliasManager = OpenCms.getAliasManager();
+        CmsResource foo = cms.createResource("/system/foo5", CmsResourceTypePlain.getStaticTypeId());
+        CmsAlias alias = new CmsAlias(foo.getStructureId(), "", "/xyzzy5", CmsAliasMode.page);
+        aliasManager.saveAliases(cms, foo.getStructureId(), Collections.singletonList(alias));
+        OpenCms.getPublishManager().publishResource(cms, "/system/foo5");
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertEquals(1, aliasManager.getAliasesForPath(cms, "", "/xyzzy5").size());
+
+        cms.lockResource("/system/foo5");
+        cms.deleteResource("/system/foo5", CmsResource.DELETE_PRESERVE_SIBLINGS);
+        OpenCms.getPublishManager().publishResource(cms, "/system/foo5");
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertTrue(aliasManager.getAliasesForPath(cms, "", "/xyzzy5").isEmpty());
+    }
+
     /**
      * Tests reading/writing rewrite aliases.<p>
      * 
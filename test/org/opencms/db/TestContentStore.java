@@ -0,0 +1,257 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsContentStore;
+import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the content references of the {@link CmsContentStore} and the {@link CmsContentStatistics}.<p>
+ */
+public class TestContentStore extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestContentStore(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestContentStore.class.getName());
+
+        suite.addTest(new TestContentStore("testConcurrentStore"));
+        suite.addTest(new TestContentStore("testReferences"));
+        suite.addTest(new TestContentStore("testStatistics"));
+
+        return suite;
+    }
+
+    /**
+     * Creates a content of the given size.<p>
+     *
+     * @param size the size of the content
+     * @param value the byte value to fill the content with
+     *
+     * @return the content
+     */
+    private static byte[] createContent(int size, byte value) {
+
+        byte[] result = new byte[size];
+        Arrays.fill(result, value);
+        return result;
+    }
+
+    /**
+     * Creates a connection on which the content store finds no stored content and fails to insert it,
+     * as if the same content had been inserted concurrently.<p>
+     *
+     * @param calls the list to record the calls on the connection and its statements
+     * @param autoCommit the auto commit state of the connection
+     *
+     * @return the connection
+     */
+    private static Connection createConcurrentConnection(final List<String> calls, final boolean autoCommit) {
+
+        final Savepoint savepoint = (Savepoint)createProxy(Savepoint.class, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+
+                return null;
+            }
+        });
+        return (Connection)createProxy(Connection.class, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+
+                String methodName = method.getName();
+                if ("getAutoCommit".equals(methodName)) {
+                    return Boolean.valueOf(autoCommit);
+                }
+                if ("setSavepoint".equals(methodName)) {
+                    calls.add("setSavepoint");
+                    return savepoint;
+                }
+                if ("rollback".equals(methodName)) {
+                    calls.add("rollback:" + ((args != null) && (args[0] == savepoint)));
+                    return null;
+                }
+                if ("prepareStatement".equals(methodName)) {
+                    final String sql = (String)args[0];
+                    return createProxy(PreparedStatement.class, new InvocationHandler() {
+
+                        public Object invoke(Object stmtProxy, Method stmtMethod, Object[] stmtArgs)
+                        throws SQLException {
+
+                            if (!"executeUpdate".equals(stmtMethod.getName())) {
+                                return null;
+                            }
+                            if (sql.startsWith("INSERT")) {
+                                calls.add("insert");
+                                throw new SQLException("duplicate key");
+                            }
+                            calls.add("increment");
+                            // the content is only found after the failed insert
+                            return new Integer(calls.contains("insert") ? 1 : 0);
+                        }
+                    });
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Creates a dynamic proxy for the given interface.<p>
+     *
+     * @param type the interface
+     * @param handler the invocation handler
+     *
+     * @return the proxy
+     */
+    private static Object createProxy(Class<?> type, InvocationHandler handler) {
+
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class[] {type}, handler);
+    }
+
+    /**
+     * Tests storing a content which is inserted concurrently by another transaction.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testConcurrentStore() throws Exception {
+
+        CmsContentStore store = new CmsContentStore(new CmsSqlManager());
+        CmsDbContext dbc = new CmsDbContext();
+        byte[] content = createContent(CmsContentStore.MIN_CONTENT_SIZE, (byte)'a');
+        byte[] reference = CmsContentStore.createReference(CmsContentStore.hash(content));
+
+        // within a transaction, the failed insert is rolled back to a savepoint before the retry
+        List<String> calls = new ArrayList<String>();
+        byte[] result = store.store(dbc, createConcurrentConnection(calls, false), content);
+        assertTrue(Arrays.equals(reference, result));
+        assertEquals(Arrays.asList("increment", "setSavepoint", "insert", "rollback:true", "increment"), calls);
+
+        // without a transaction, no savepoint is needed
+        calls = new ArrayList<String>();
+        result = store.store(dbc, createConcurrentConnection(calls, true), content);
+        assertTrue(Arrays.equals(reference, result));
+        assertEquals(Arrays.asList("increment", "insert", "increment"), calls);
+
+        // adding a reference only increments the counter, plain contents are not referenced
+        calls = new ArrayList<String>();
+        Connection conn = createConcurrentConnection(calls, true);
+        assertFalse(store.addReference(dbc, conn, content));
+        assertTrue(calls.isEmpty());
+        calls.add("insert");
+        assertTrue(store.addReference(dbc, conn, reference));
+        assertEquals(Arrays.asList("insert", "increment"), calls);
+    }
+
+    /**
+     * Tests creating and recognizing content references.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testReferences() throws Exception {
+
+        byte[] content = createContent(CmsContentStore.MIN_CONTENT_SIZE, (byte)'a');
+        String hash = CmsContentStore.getStorageHash(content);
+        assertEquals(CmsContentStore.HASH_LENGTH, hash.length());
+        assertEquals(hash, CmsContentStore.hash(content));
+
+        byte[] reference = CmsContentStore.createReference(hash);
+        assertEquals(CmsContentStore.REFERENCE_LENGTH, reference.length);
+        assertTrue(CmsContentStore.isReference(reference));
+        assertEquals(hash, CmsContentStore.getHash(reference));
+
+        // plain contents are never mistaken for a reference
+        assertFalse(CmsContentStore.isReference(content));
+        assertFalse(CmsContentStore.isReference(createContent(CmsContentStore.REFERENCE_LENGTH, (byte)'a')));
+        assertNull(CmsContentStore.getHash(content));
+
+        // small contents are stored inline, unless they look like a reference
+        assertNull(CmsContentStore.getStorageHash(createContent(10, (byte)'a')));
+        byte[] lookalike = new byte[CmsContentStore.REFERENCE_LENGTH];
+        System.arraycopy(reference, 0, lookalike, 0, 10);
+        assertNotNull(CmsContentStore.getStorageHash(lookalike));
+    }
+
+    /**
+     * Tests the estimation of the savings.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testStatistics() throws Exception {
+
+        CmsContentStore store = new CmsContentStore(null);
+        CmsContentStatistics statistics = new CmsContentStatistics(CmsContentStore.REFERENCE_LENGTH);
+        byte[] large = createContent(10000, (byte)'a');
+        byte[] small = createContent(100, (byte)'b');
+        // three versions of the same large content and two small contents
+        for (int i = 0; i < 3; i++) {
+            store.addStatistics(null, null, new ByteArrayInputStream(large), statistics);
+        }
+        store.addStatistics(null, null, new ByteArrayInputStream(small), statistics);
+        store.addStatistics(null, null, new ByteArrayInputStream(small), statistics);
+
+        assertEquals(5, statistics.getContentCount());
+        assertEquals(30200, statistics.getContentSize());
+        assertEquals(1, statistics.getDistinctCount());
+        assertEquals(3, statistics.getReferenceCount());
+        assertEquals(0, statistics.getStoredReferenceCount());
+        assertEquals(200 + 10000 + (3 * CmsContentStore.REFERENCE_LENGTH), statistics.getEstimatedSize());
+        assertEquals(30200 - statistics.getEstimatedSize(), statistics.getSavedSize());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsContentInputStream;
+import org.opencms.db.generic.CmsContentStore;
+import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests that content streams keep their database connection of the real pool,
+ * even if the database context that opened them has a connection cache and is cleared.<p>
+ */
+public class TestContentStreamConnection extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestContentStreamConnection(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestContentStreamConnection.class.getName());
+
+        suite.addTest(new TestContentStreamConnection("testStreamAfterContextClear"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests reading a content stream after the database context with a connection cache has been cleared.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testStreamAfterContextClear() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading a content stream after the database context has been cleared");
+
+        byte[] content = new byte[CmsContentStore.MIN_CONTENT_SIZE * 64];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte)('a' + (i % 26));
+        }
+        String resourcename = "/streamconnection.txt";
+        cms.createResource(resourcename, CmsResourceTypePlain.getStaticTypeId(), content, null);
+        CmsResource resource = cms.readResource(resourcename);
+
+        String poolName = CmsDbPool.OPENCMS_URL_PREFIX + OpenCms.getSqlManager().getDefaultDbPoolName();
+        CmsSqlManager sqlManager = new CmsSqlManager();
+        sqlManager.init(I_CmsVfsDriver.DRIVER_TYPE_ID, poolName);
+        int activeConnections = OpenCms.getSqlManager().getActiveConnections(poolName);
+
+        CmsDbContext dbc = new CmsDbContext();
+        dbc.setConnectionCache(new CmsDbConnectionCache());
+        Connection cached = sqlManager.getConnection(dbc);
+
+        // open the stream the same way the VFS driver does
+        Connection conn = sqlManager.getStreamConnection(dbc);
+        PreparedStatement stmt = sqlManager.getPreparedStatement(
+            conn,
+            cms.getRequestContext().getCurrentProject().getUuid(),
+            "C_OFFLINE_FILES_CONTENT");
+        stmt.setString(1, resource.getResourceId().toString());
+        ResultSet res = stmt.executeQuery();
+        assertTrue(res.next());
+        InputStream in = new CmsContentInputStream(sqlManager.getBinaryStream(
+            res,
+            sqlManager.readQuery("C_RESOURCES_FILE_CONTENT")), sqlManager, dbc, conn, stmt, res);
+        in = new CmsContentStore(sqlManager).resolve(dbc, in);
+        assertEquals(activeConnections + 2, OpenCms.getSqlManager().getActiveConnections(poolName));
+
+        // clearing the context closes the cached connection, but not the one of the stream
+        dbc.clear();
+        assertTrue(cached.isClosed());
+        assertEquals(activeConnections + 1, OpenCms.getSqlManager().getActiveConnections(poolName));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        assertTrue(Arrays.equals(content, out.toByteArray()));
+        assertEquals(activeConnections, OpenCms.getSqlManager().getActiveConnections(poolName));
+    }
+}
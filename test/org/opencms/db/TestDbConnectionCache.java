@@ -0,0 +1,158 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the {@link CmsDbConnectionCache}.<p>
+ */
+public class TestDbConnectionCache extends OpenCmsTestCase {
+
+    /**
+     * A SQL manager which hands out dummy connections and keeps track of them.<p>
+     */
+    private static class CmsDummySqlManager extends CmsSqlManager {
+
+        /** The open state of the connections created by this manager. */
+        List<boolean[]> m_open = new ArrayList<boolean[]>();
+
+        /**
+         * @see org.opencms.db.CmsSqlManager#getConnectionByUrl(java.lang.String)
+         */
+        @Override
+        public Connection getConnectionByUrl(String dbPoolUrl) {
+
+            final boolean[] open = new boolean[] {true};
+            m_open.add(open);
+            return (Connection)Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class[] {Connection.class},
+                new InvocationHandler() {
+
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+
+                        if ("close".equals(method.getName())) {
+                            open[0] = false;
+                            return null;
+                        }
+                        if ("isClosed".equals(method.getName())) {
+                            return Boolean.valueOf(!open[0]);
+                        }
+                        return null;
+                    }
+                });
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestDbConnectionCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestDbConnectionCache.class.getName());
+
+        suite.addTest(new TestDbConnectionCache("testConnectionReuse"));
+        suite.addTest(new TestDbConnectionCache("testDbContextClear"));
+
+        return suite;
+    }
+
+    /**
+     * Tests that connections are reused per pool and only returned to the pool on release.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testConnectionReuse() throws Exception {
+
+        CmsDummySqlManager sqlManager = new CmsDummySqlManager();
+        CmsDbConnectionCache cache = new CmsDbConnectionCache();
+
+        Connection con1 = cache.getConnection(sqlManager, "pool1");
+        con1.close();
+        assertFalse(con1.isClosed());
+        Connection con2 = cache.getConnection(sqlManager, "pool1");
+        assertSame(con1, con2);
+        Connection con3 = cache.getConnection(sqlManager, "pool2");
+        assertNotSame(con1, con3);
+        assertEquals(2, sqlManager.m_open.size());
+        assertEquals(2, cache.getBorrowCount());
+        assertEquals(1, cache.getReuseCount());
+
+        cache.release();
+        assertFalse(sqlManager.m_open.get(0)[0]);
+        assertFalse(sqlManager.m_open.get(1)[0]);
+
+        // after the release, a new connection must be borrowed
+        Connection con4 = cache.getConnection(sqlManager, "pool1");
+        assertNotSame(con1, con4);
+        assertEquals(3, cache.getBorrowCount());
+        cache.release();
+    }
+
+    /**
+     * Tests that clearing a database context returns its connections to the pool.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testDbContextClear() throws Exception {
+
+        CmsDummySqlManager sqlManager = new CmsDummySqlManager();
+        CmsDbContext dbc = new CmsDbContext();
+        dbc.setConnectionCache(new CmsDbConnectionCache());
+        dbc.getConnectionCache().getConnection(sqlManager, "pool1");
+        assertTrue(sqlManager.m_open.get(0)[0]);
+
+        dbc.clear();
+        assertFalse(sqlManager.m_open.get(0)[0]);
+        assertNull(dbc.getConnectionCache());
+    }
+}
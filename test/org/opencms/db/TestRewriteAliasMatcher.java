@@ -0,0 +1,185 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.gwt.shared.alias.CmsAliasMode;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the {@link CmsRewriteAliasMatcher}.<p>
+ */
+public class TestRewriteAliasMatcher extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestRewriteAliasMatcher(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestRewriteAliasMatcher.class.getName());
+
+        suite.addTest(new TestRewriteAliasMatcher("testLiteralPrefix"));
+        suite.addTest(new TestRewriteAliasMatcher("testMatch"));
+        suite.addTest(new TestRewriteAliasMatcher("testMatchOrder"));
+        suite.addTest(new TestRewriteAliasMatcher("testInvalidPattern"));
+
+        return suite;
+    }
+
+    /**
+     * Creates a rewrite alias.<p>
+     *
+     * @param pattern the pattern string
+     * @param replacement the replacement string
+     *
+     * @return the rewrite alias
+     */
+    private static CmsRewriteAlias createAlias(String pattern, String replacement) {
+
+        return new CmsRewriteAlias(new CmsUUID(), "/sites/default", pattern, replacement, CmsAliasMode.redirect);
+    }
+
+    /**
+     * Tests that invalid patterns are ignored.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testInvalidPattern() throws Exception {
+
+        List<CmsRewriteAlias> aliases = new ArrayList<CmsRewriteAlias>();
+        aliases.add(createAlias("/foo/(.*", "/invalid"));
+        aliases.add(createAlias("/foo/(.*)", "/bar/$1"));
+        // the replacement refers to a group which does not exist
+        aliases.add(createAlias("/baz/.*", "/qux/$1"));
+        CmsRewriteAliasMatcher matcher = new CmsRewriteAliasMatcher(aliases);
+
+        assertEquals("/bar/a", matcher.match("/foo/a").getNewPath());
+        assertNull(matcher.match("/baz/a"));
+    }
+
+    /**
+     * Tests the literal prefixes of regular expressions.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testLiteralPrefix() throws Exception {
+
+        assertEquals("/foo/", CmsRewriteAliasMatcher.getLiteralPrefix("/foo/(.*)"));
+        assertEquals("/foo/", CmsRewriteAliasMatcher.getLiteralPrefix("^/foo/.*$"));
+        assertEquals("/foo/bar", CmsRewriteAliasMatcher.getLiteralPrefix("/foo/bar"));
+        assertEquals("/foo/bar.html", CmsRewriteAliasMatcher.getLiteralPrefix("/foo/bar\\.html"));
+        // quantified characters are not part of the prefix
+        assertEquals("/fo", CmsRewriteAliasMatcher.getLiteralPrefix("/foo?/bar"));
+        assertEquals("/fo", CmsRewriteAliasMatcher.getLiteralPrefix("/foo*"));
+        assertEquals("/fo", CmsRewriteAliasMatcher.getLiteralPrefix("/foo+"));
+        assertEquals("/fo", CmsRewriteAliasMatcher.getLiteralPrefix("/foo{2}"));
+        assertEquals("/foo", CmsRewriteAliasMatcher.getLiteralPrefix("/foo\\.?html"));
+        // character classes, groups and alternatives
+        assertEquals("/foo/", CmsRewriteAliasMatcher.getLiteralPrefix("/foo/\\d+"));
+        assertEquals("/foo/", CmsRewriteAliasMatcher.getLiteralPrefix("/foo/[a-z]+"));
+        assertEquals("", CmsRewriteAliasMatcher.getLiteralPrefix("(?i)/foo/.*"));
+        assertEquals("", CmsRewriteAliasMatcher.getLiteralPrefix("/foo/.*|/bar/.*"));
+        assertEquals("", CmsRewriteAliasMatcher.getLiteralPrefix(".*"));
+        assertEquals("", CmsRewriteAliasMatcher.getLiteralPrefix("\\Q/foo\\E.*"));
+        assertEquals("", CmsRewriteAliasMatcher.getLiteralPrefix(""));
+    }
+
+    /**
+     * Tests matching paths and the rewritten paths.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMatch() throws Exception {
+
+        List<CmsRewriteAlias> aliases = new ArrayList<CmsRewriteAlias>();
+        aliases.add(createAlias("/foo/(.*)", "/bar/$1"));
+        aliases.add(createAlias("/news/(\\d+)\\.html", "/news.jsp?id=$1"));
+        aliases.add(createAlias("(?i)/case/(.*)", "/lower/$1"));
+        aliases.add(createAlias("/a|/b", "/ab"));
+        CmsRewriteAliasMatcher matcher = new CmsRewriteAliasMatcher(aliases);
+
+        CmsRewriteAliasMatcher.RewriteResult result = matcher.match("/foo/x/y.html");
+        assertEquals("/bar/x/y.html", result.getNewPath());
+        assertSame(aliases.get(0), result.getAlias());
+        assertEquals("/bar/", matcher.match("/foo/").getNewPath());
+        assertEquals("/news.jsp?id=42", matcher.match("/news/42.html").getNewPath());
+        assertEquals("/lower/x", matcher.match("/CASE/x").getNewPath());
+        assertEquals("/ab", matcher.match("/a").getNewPath());
+        assertEquals("/ab", matcher.match("/b").getNewPath());
+
+        // the whole path must match
+        assertNull(matcher.match("/news/42.htm"));
+        assertNull(matcher.match("/prefix/foo/x"));
+        assertNull(matcher.match("/fo"));
+        assertNull(matcher.match(""));
+        assertNull(new CmsRewriteAliasMatcher(Collections.<CmsRewriteAlias> emptyList()).match("/foo/x"));
+    }
+
+    /**
+     * Tests that the first matching alias is used, independent of the length of the literal prefixes.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMatchOrder() throws Exception {
+
+        List<CmsRewriteAlias> aliases = new ArrayList<CmsRewriteAlias>();
+        aliases.add(createAlias("/foo/bar/(.*)", "/first/$1"));
+        aliases.add(createAlias(".*/bar/(.*)", "/second/$1"));
+        aliases.add(createAlias("/foo/(.*)", "/third/$1"));
+        CmsRewriteAliasMatcher matcher = new CmsRewriteAliasMatcher(aliases);
+
+        assertEquals("/first/x", matcher.match("/foo/bar/x").getNewPath());
+        assertEquals("/second/x", matcher.match("/baz/bar/x").getNewPath());
+        assertEquals("/third/baz/x", matcher.match("/foo/baz/x").getNewPath());
+
+        Collections.reverse(aliases);
+        matcher = new CmsRewriteAliasMatcher(aliases);
+        assertEquals("/third/bar/x", matcher.match("/foo/bar/x").getNewPath());
+        assertEquals("/second/x", matcher.match("/baz/bar/x").getNewPath());
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsSqlBatch;
+import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.file.CmsDataAccessException;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the {@link CmsSqlBatch}.<p>
+ *
+ * @since 8.5.0
+ */
+public class TestSqlBatch extends OpenCmsTestCase {
+
+    /**
+     * A SQL manager which hands out dummy connections and records the calls made on them.<p>
+     *
+     * Executed statements are recorded as "SQL:parameters", statements with a parameter "fail" fail.<p>
+     */
+    private static class CmsDummySqlManager extends CmsSqlManager {
+
+        /** The calls made on the connections and statements, in order. */
+        List<String> m_calls = new ArrayList<String>();
+
+        /** The number of connections handed out. */
+        int m_connections;
+
+        /** The number of connections which are still open. */
+        int m_open;
+
+        /**
+         * @see org.opencms.db.CmsSqlManager#getConnectionByUrl(java.lang.String)
+         */
+        @Override
+        public Connection getConnectionByUrl(String dbPoolUrl) {
+
+            m_connections++;
+            m_open++;
+            final String name = "con" + m_connections;
+            final boolean[] autoCommit = new boolean[] {true};
+            return (Connection)Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class[] {Connection.class},
+                new InvocationHandler() {
+
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+
+                        String methodName = method.getName();
+                        if ("prepareStatement".equals(methodName)) {
+                            return createStatement((String)args[0], autoCommit);
+                        }
+                        if ("getAutoCommit".equals(methodName)) {
+                            return Boolean.valueOf(autoCommit[0]);
+                        }
+                        if ("setAutoCommit".equals(methodName)) {
+                            autoCommit[0] = ((Boolean)args[0]).booleanValue();
+                            m_calls.add(name + ".setAutoCommit:" + autoCommit[0]);
+                            return null;
+                        }
+                        if ("commit".equals(methodName) || "rollback".equals(methodName)) {
+                            m_calls.add(name + "." + methodName);
+                            return null;
+                        }
+                        if ("close".equals(methodName)) {
+                            m_open--;
+                            return null;
+                        }
+                        if ("isClosed".equals(methodName)) {
+                            return Boolean.FALSE;
+                        }
+                        return null;
+                    }
+                });
+        }
+
+        /**
+         * Creates a dummy statement.<p>
+         *
+         * @param sql the SQL of the statement
+         * @param autoCommit the auto commit state of the connection
+         *
+         * @return the statement
+         */
+        PreparedStatement createStatement(final String sql, final boolean[] autoCommit) {
+
+            final List<String> params = new ArrayList<String>();
+            final List<String> rows = new ArrayList<String>();
+            return (PreparedStatement)Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class[] {PreparedStatement.class},
+                new InvocationHandler() {
+
+                    public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+
+                        String methodName = method.getName();
+                        if (methodName.startsWith("set")) {
+                            params.add(String.valueOf(args[1]));
+                            return null;
+                        }
+                        if ("addBatch".equals(methodName)) {
+                            rows.add(sql + ":" + params);
+                            params.clear();
+                            return null;
+                        }
+                        if ("executeBatch".equals(methodName)) {
+                            m_calls.add("executeBatch:" + rows.size());
+                            for (String row : rows) {
+                                if (row.contains("fail")) {
+                                    throw new SQLException(row);
+                                }
+                                m_calls.add(row);
+                            }
+                            return new int[rows.size()];
+                        }
+                        if ("executeUpdate".equals(methodName)) {
+                            String row = sql + ":" + params;
+                            if (row.contains("fail")) {
+                                throw new SQLException(row);
+                            }
+                            m_calls.add((autoCommit[0] ? "single " : "") + row);
+                            return new Integer(1);
+                        }
+                        return null;
+                    }
+                });
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestSqlBatch(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestSqlBatch.class.getName());
+
+        suite.addTest(new TestSqlBatch("testFailure"));
+        suite.addTest(new TestSqlBatch("testOrder"));
+        suite.addTest(new TestSqlBatch("testReadBack"));
+
+        return suite;
+    }
+
+    /**
+     * Tests that a failed batch is rolled back and its statements are executed one by one.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFailure() throws Exception {
+
+        CmsDummySqlManager sqlManager = new CmsDummySqlManager();
+        CmsDbContext dbc = new CmsDbContext();
+        CmsSqlBatch batch = new CmsSqlBatch(sqlManager);
+        batch.add("A", new Object[] {"1"});
+        batch.add("A", new Object[] {"fail"});
+        batch.add("B", new Object[] {"2"});
+
+        try {
+            batch.flush(dbc);
+            fail("The failing statement must be reported");
+        } catch (CmsDataAccessException e) {
+            // expected
+        }
+        assertEquals(0, batch.size());
+        assertEquals(
+            Arrays.asList(
+                "con1.setAutoCommit:false",
+                "executeBatch:2",
+                "A:[1]",
+                "con1.rollback",
+                "con1.setAutoCommit:true",
+                "single A:[1]",
+                "single B:[2]"),
+            sqlManager.m_calls);
+        assertEquals(0, sqlManager.m_open);
+    }
+
+    /**
+     * Tests that the statements are executed in the order they have been added, in one transaction.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testOrder() throws Exception {
+
+        CmsDummySqlManager sqlManager = new CmsDummySqlManager();
+        CmsDbContext dbc = new CmsDbContext();
+        // the connection of the cache must not be used for the transaction
+        dbc.setConnectionCache(new CmsDbConnectionCache());
+        dbc.getConnectionCache().getConnection(sqlManager, "pool");
+
+        CmsSqlBatch batch = new CmsSqlBatch(sqlManager);
+        batch.add("A", new Object[] {"1", new Integer(1)});
+        batch.add("A", new Object[] {"2", new Long(2)});
+        batch.add("B", new Object[] {"3"});
+        batch.add("A", new Object[] {"4"});
+        assertEquals(4, batch.size());
+        batch.flush(dbc);
+
+        assertEquals(0, batch.size());
+        assertEquals(
+            Arrays.asList(
+                "con2.setAutoCommit:false",
+                "executeBatch:2",
+                "A:[1, 1]",
+                "A:[2, 2]",
+                "executeBatch:1",
+                "B:[3]",
+                "executeBatch:1",
+                "A:[4]",
+                "con2.commit",
+                "con2.setAutoCommit:true"),
+            sqlManager.m_calls);
+        // only the connection of the cache is still open
+        assertEquals(1, sqlManager.m_open);
+        dbc.clear();
+        assertEquals(0, sqlManager.m_open);
+    }
+
+    /**
+     * Tests that read back statements are executed when the batch is flushed explicitly, 
+     * not when a connection is handed out.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testReadBack() throws Exception {
+
+        CmsDummySqlManager sqlManager = new CmsDummySqlManager();
+        CmsDbContext dbc = new CmsDbContext();
+        CmsSqlBatch batch = new CmsSqlBatch(sqlManager);
+        dbc.setAttribute(CmsSqlBatch.ATTR_SQL_BATCH, batch);
+
+        batch.add("HISTORY", new Object[] {"1"});
+        batch.add("ONLINE", new Object[] {"2"}, true);
+        batch.add("ONLINE", new Object[] {"3"}, true);
+        assertTrue(batch.hasReadBack());
+        assertTrue(sqlManager.m_calls.isEmpty());
+
+        // handing out a connection leaves the batch untouched
+        Connection conn = sqlManager.getConnection(dbc);
+        sqlManager.closeAll(dbc, conn, null, null);
+        assertTrue(batch.hasReadBack());
+        assertEquals(3, batch.size());
+        assertTrue(sqlManager.m_calls.isEmpty());
+
+        // flushing executes the online statements, but not the deferred history statement,
+        // on an own connection
+        sqlManager.flushBatch(dbc);
+        assertFalse(batch.hasReadBack());
+        assertEquals(1, batch.size());
+        assertEquals(
+            Arrays.asList(
+                "con2.setAutoCommit:false",
+                "executeBatch:2",
+                "ONLINE:[2]",
+                "ONLINE:[3]",
+                "con2.commit",
+                "con2.setAutoCommit:true"),
+            sqlManager.m_calls);
+
+        // without queued online statements, no statement is executed
+        sqlManager.m_calls.clear();
+        sqlManager.flushBatch(dbc);
+        assertTrue(sqlManager.m_calls.isEmpty());
+
+        dbc.removeAttribute(CmsSqlBatch.ATTR_SQL_BATCH);
+        batch.flush(dbc);
+        assertEquals("HISTORY:[1]", sqlManager.m_calls.get(2));
+        assertEquals(0, batch.size());
+        assertEquals(0, sqlManager.m_open);
+    }
+}
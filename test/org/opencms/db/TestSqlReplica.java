@@ -0,0 +1,221 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.db.generic.CmsSqlReplica;
+import org.opencms.file.CmsProject;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the routing of online reads to a replica pool with the {@link CmsSqlReplica}.<p>
+ */
+public class TestSqlReplica extends OpenCmsTestCase {
+
+    /**
+     * A SQL manager with a replica which hands out dummy connections and records the pool URLs used.<p>
+     */
+    private static class CmsDummySqlManager extends CmsSqlManager {
+
+        /** The pool URLs of the connections handed out. */
+        List<String> m_poolUrls = new ArrayList<String>();
+
+        /**
+         * Creates a new dummy SQL manager.<p>
+         *
+         * @param replica the replica to use
+         */
+        CmsDummySqlManager(CmsSqlReplica replica) {
+
+            init(0, "primary");
+            m_replica = replica;
+        }
+
+        /**
+         * @see org.opencms.db.CmsSqlManager#getConnectionByUrl(java.lang.String)
+         */
+        @Override
+        public Connection getConnectionByUrl(String dbPoolUrl) {
+
+            m_poolUrls.add(dbPoolUrl);
+            return (Connection)Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class[] {Connection.class},
+                new InvocationHandler() {
+
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+
+                        return null;
+                    }
+                });
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestSqlReplica(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestSqlReplica.class.getName());
+
+        suite.addTest(new TestSqlReplica("testOnlineWriteDetection"));
+        suite.addTest(new TestSqlReplica("testParallelPublishSuspendsReplica"));
+        suite.addTest(new TestSqlReplica("testPublishSuspendsReplica"));
+        suite.addTest(new TestSqlReplica("testReadRouting"));
+
+        return suite;
+    }
+
+    /**
+     * Tests the detection of queries writing to the online tables.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testOnlineWriteDetection() throws Exception {
+
+        CmsSqlReplica replica = new CmsSqlReplica("opencms:replica", 1000);
+        assertTrue(replica.isOnlineWrite("UPDATE CMS_ONLINE_STRUCTURE SET STRUCTURE_STATE=?"));
+        assertTrue(replica.isOnlineWrite(" DELETE FROM CMS_ONLINE_PROPERTIES WHERE PROPERTY_MAPPING_ID=?"));
+        assertFalse(replica.isOnlineWrite("select RESOURCE_PATH from CMS_ONLINE_STRUCTURE"));
+        assertFalse(replica.isOnlineWrite("UPDATE CMS_OFFLINE_STRUCTURE SET STRUCTURE_STATE=?"));
+
+        CmsDbContext dbc = new CmsDbContext();
+        assertTrue(replica.isReadable(dbc, CmsProject.ONLINE_PROJECT_ID));
+        CmsDummySqlManager sqlManager = new CmsDummySqlManager(replica);
+        sqlManager.getPreparedStatementForSql(
+            sqlManager.getConnectionByUrl("primary"),
+            "UPDATE CMS_ONLINE_STRUCTURE SET STRUCTURE_STATE=?");
+        // the replica is not used until the replica lag has passed
+        assertFalse(replica.isReadable(dbc, CmsProject.ONLINE_PROJECT_ID));
+    }
+
+    /**
+     * Tests that the replica is not used until all of several parallel publish jobs have finished.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testParallelPublishSuspendsReplica() throws Exception {
+
+        CmsSqlReplica replica = new CmsSqlReplica("opencms:replica", 0);
+        CmsDbContext dbc = new CmsDbContext();
+
+        // an after publish event without a preceding before publish event must not be counted
+        replica.cmsEvent(new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, new HashMap<String, Object>()));
+        assertTrue(replica.isReadable(dbc, CmsProject.ONLINE_PROJECT_ID));
+
+        replica.cmsEvent(new CmsEvent(
+            I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT,
+            new HashMap<String, Object>()));
+        replica.cmsEvent(new CmsEvent(
+            I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT,
+            new HashMap<String, Object>()));
+        replica.cmsEvent(new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, new HashMap<String, Object>()));
+        // the second job is still running
+        assertFalse(replica.isReadable(dbc, CmsProject.ONLINE_PROJECT_ID));
+        replica.cmsEvent(new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, new HashMap<String, Object>()));
+        assertTrue(replica.isReadable(dbc, CmsProject.ONLINE_PROJECT_ID));
+    }
+
+    /**
+     * Tests that the replica is not used while a publish job is running and shortly after.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testPublishSuspendsReplica() throws Exception {
+
+        CmsSqlReplica replica = new CmsSqlReplica("opencms:replica", 200);
+        CmsDbContext dbc = new CmsDbContext();
+        assertTrue(replica.isReadable(dbc, CmsProject.ONLINE_PROJECT_ID));
+
+        replica.cmsEvent(new CmsEvent(
+            I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT,
+            new HashMap<String, Object>()));
+        assertFalse(replica.isReadable(dbc, CmsProject.ONLINE_PROJECT_ID));
+        replica.cmsEvent(new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, new HashMap<String, Object>()));
+        assertFalse(replica.isReadable(dbc, CmsProject.ONLINE_PROJECT_ID));
+
+        Thread.sleep(400);
+        assertTrue(replica.isReadable(dbc, CmsProject.ONLINE_PROJECT_ID));
+    }
+
+    /**
+     * Tests which reads are sent to the replica pool.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testReadRouting() throws Exception {
+
+        CmsSqlReplica replica = new CmsSqlReplica("opencms:replica", 1000);
+        CmsDummySqlManager sqlManager = new CmsDummySqlManager(replica);
+        CmsDbContext dbc = new CmsDbContext();
+
+        // offline reads use the primary pool
+        sqlManager.getReadConnection(dbc, new CmsUUID());
+        assertTrue(sqlManager.m_poolUrls.get(0).endsWith("primary"));
+
+        // online reads use the replica
+        sqlManager.getReadConnection(dbc, CmsProject.ONLINE_PROJECT_ID);
+        assertEquals(replica.getPoolUrl(), sqlManager.m_poolUrls.get(1));
+
+        // after the context has used the primary pool, online reads use it as well
+        sqlManager.getConnection(dbc);
+        sqlManager.getReadConnection(dbc, CmsProject.ONLINE_PROJECT_ID);
+        assertTrue(sqlManager.m_poolUrls.get(3).endsWith("primary"));
+
+        // other contexts still use the replica
+        sqlManager.getReadConnection(new CmsDbContext(), CmsProject.ONLINE_PROJECT_ID);
+        assertEquals(replica.getPoolUrl(), sqlManager.m_poolUrls.get(4));
+    }
+}
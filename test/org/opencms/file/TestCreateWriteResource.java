@@ -44,7 +44,10 @@ import org.opencms.test.OpenCmsTestResourceFilter;
 import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.extensions.TestSetup;
 import junit.framework.Test;
@@ -86,6 +89,7 @@ public class TestCreateWriteResource extends OpenCmsTestCase {
         suite.addTest(new TestCreateWriteResource("testCreateResource"));
         suite.addTest(new TestCreateWriteResource("testCreateResourceJsp"));
         suite.addTest(new TestCreateWriteResource("testCreateResourceAgain"));
+        suite.addTest(new TestCreateWriteResource("testCreateResourceConcurrently"));
         suite.addTest(new TestCreateWriteResource("testCreateFolder"));
         suite.addTest(new TestCreateWriteResource("testCreateFolderAgain"));
         suite.addTest(new TestCreateWriteResource("testCreateDotnameResources"));
@@ -378,6 +382,85 @@ public class TestCreateWriteResource extends OpenCmsTestCase {
         assertState(cms, resourcename, CmsResource.STATE_UNCHANGED);
     }
 
+    /**
+     * Test creating resources from several threads in parallel.<p>
+     * 
+     * All threads try to create the same resources in a shared folder, and each thread 
+     * creates additional resources in a folder of its own.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testCreateResourceConcurrently() throws Throwable {
+
+        final CmsObject cms = getCmsObject();
+        echo("Testing creating resources from several threads in parallel");
+
+        final int threadCount = 8;
+        final int resourceCount = 10;
+        final String sharedFolder = "/testCreateResourceConcurrently/";
+        cms.createResource(sharedFolder, CmsResourceTypeFolder.getStaticTypeId());
+
+        final AtomicInteger[] created = new AtomicInteger[resourceCount];
+        for (int i = 0; i < resourceCount; i++) {
+            created[i] = new AtomicInteger();
+        }
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < threadCount; t++) {
+            final String ownFolder = sharedFolder + "thread" + t + "/";
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        CmsObject threadCms = OpenCms.initCmsObject(cms);
+                        start.await();
+                        threadCms.createResource(ownFolder, CmsResourceTypeFolder.getStaticTypeId());
+                        for (int i = 0; i < resourceCount; i++) {
+                            threadCms.createResource(
+                                ownFolder + "file" + i + ".txt",
+                                CmsResourceTypePlain.getStaticTypeId());
+                            try {
+                                threadCms.createResource(
+                                    sharedFolder + "shared" + i + ".txt",
+                                    CmsResourceTypePlain.getStaticTypeId());
+                                created[i].incrementAndGet();
+                            } catch (CmsVfsResourceAlreadyExistsException e) {
+                                // expected, another thread was faster
+                            }
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!errors.isEmpty()) {
+            throw errors.get(0);
+        }
+
+        // each shared resource must have been created exactly once
+        for (int i = 0; i < resourceCount; i++) {
+            assertEquals(1, created[i].get());
+        }
+        List<CmsResource> sharedResources = cms.getFilesInFolder(sharedFolder, CmsResourceFilter.ALL);
+        assertEquals(resourceCount, sharedResources.size());
+        for (int t = 0; t < threadCount; t++) {
+            List<CmsResource> ownResources = cms.getFilesInFolder(
+                sharedFolder + "thread" + t + "/",
+                CmsResourceFilter.ALL);
+            assertEquals(resourceCount, ownResources.size());
+        }
+    }
+
     /**
      * Test the create resource method for jsp files without permissions.<p>
      * 
@@ -40,6 +40,7 @@ import org.opencms.report.CmsShellReport;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.test.OpenCmsTestResourceConfigurableFilter;
+import org.opencms.util.CmsUUID;
 
 import java.io.UnsupportedEncodingException;
 import java.util.List;
@@ -96,6 +97,7 @@ public class TestHistory extends OpenCmsTestCase {
         suite.addTest(new TestHistory("testFileVersions"));
         suite.addTest(new TestHistory("testVersioningLimit"));
         suite.addTest(new TestHistory("testSiblingsV7HistoryIssue"));
+        suite.addTest(new TestHistory("testDeleteHistoricalVersionsInChunks"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -310,6 +312,66 @@ public class TestHistory extends OpenCmsTestCase {
         }
     }
 
+    /**
+     * Tests deleting historical versions in chunks, and resuming an interrupted deletion.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testDeleteHistoricalVersionsInChunks() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing deleting historical versions in chunks");
+
+        String filename1 = "/testChunk1.txt";
+        String filename2 = "/testChunk2.txt";
+        int counter = 3;
+
+        cms.createResource(filename1, CmsResourceTypePlain.getStaticTypeId(), "chunk 1".getBytes(), null);
+        cms.createResource(filename2, CmsResourceTypePlain.getStaticTypeId(), "chunk 2".getBytes(), null);
+        for (int i = 1; i <= counter; i++) {
+            CmsFile file = cms.readFile(filename1);
+            file.setContents(("chunk 1 version " + i).getBytes());
+            cms.lockResource(filename1);
+            cms.writeFile(file);
+            cms.unlockResource(filename1);
+            file = cms.readFile(filename2);
+            file.setContents(("chunk 2 version " + i).getBytes());
+            cms.lockResource(filename2);
+            cms.writeFile(file);
+            cms.unlockResource(filename2);
+            OpenCms.getPublishManager().publishProject(cms);
+            OpenCms.getPublishManager().waitWhileRunning();
+        }
+        assertEquals(counter, cms.readAllAvailableVersions(filename1).size());
+        assertEquals(counter, cms.readAllAvailableVersions(filename2).size());
+
+        // the chunks are ordered by structure id
+        String first = filename1;
+        String second = filename2;
+        CmsUUID firstId = cms.readResource(filename1).getStructureId();
+        if (cms.readResource(filename2).getStructureId().toString().compareTo(firstId.toString()) < 0) {
+            first = filename2;
+            second = filename1;
+            firstId = cms.readResource(filename2).getStructureId();
+        }
+
+        // resume after the first file, so only the second file is processed
+        CmsShellReport report = new CmsShellReport(cms.getRequestContext().getLocale());
+        cms.deleteHistoricalVersions(1, -1, -1, firstId, 2, report);
+        assertEquals(counter, cms.readAllAvailableVersions(first).size());
+        assertEquals(1, cms.readAllAvailableVersions(second).size());
+
+        // process all resources in chunks of one resource
+        cms.deleteHistoricalVersions(1, -1, -1, null, 1, report);
+        assertEquals(1, cms.readAllAvailableVersions(first).size());
+        assertEquals(1, cms.readAllAvailableVersions(second).size());
+
+        // the remaining version can still be read
+        I_CmsHistoryResource histRes = (I_CmsHistoryResource)cms.readAllAvailableVersions(first).get(0);
+        String expected = first.equals(filename1) ? "chunk 1 version 3" : "chunk 2 version 3";
+        assertEquals(expected, new String(cms.readFile((CmsHistoryFile)histRes).getContents()));
+    }
+
     /**
      * Creates a file, modifies and publishes it n-times, create a sibling, 
      * publishes both and compares the histories.<p>
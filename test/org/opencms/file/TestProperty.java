@@ -27,6 +27,7 @@
 
 package org.opencms.file;
 
+import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.main.CmsRuntimeException;
 import org.opencms.main.OpenCms;
@@ -90,6 +91,7 @@ public class TestProperty extends OpenCmsTestCase {
         suite.addTest(new TestProperty("testDefaultPropertyCreation"));
         suite.addTest(new TestProperty("testCaseSensitiveProperties"));
         suite.addTest(new TestProperty("testReadResourcesWithProperty"));
+        suite.addTest(new TestProperty("testInheritedProperties"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -700,6 +702,55 @@ public class TestProperty extends OpenCmsTestCase {
             descProperty.isIdentical(resultProperty));
     }
 
+    /**
+     * Tests reading the properties of a resource including the properties inherited from the parent folders.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testInheritedProperties() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading inherited properties");
+
+        String top = "/inherit/";
+        String middle = "/inherit/middle/";
+        String bottom = "/inherit/middle/bottom/";
+        String file = "/inherit/middle/bottom/test.txt";
+        String sibling = "/inherit/middle/bottom/test2.txt";
+        cms.createResource(top, CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource(middle, CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource(bottom, CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource(file, CmsResourceTypePlain.getStaticTypeId());
+        cms.createResource(sibling, CmsResourceTypePlain.getStaticTypeId());
+
+        cms.writePropertyObject(top, new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "top", null));
+        cms.writePropertyObject(top, new CmsProperty(CmsPropertyDefinition.PROPERTY_KEYWORDS, "top", null));
+        cms.writePropertyObject(middle, new CmsProperty(CmsPropertyDefinition.PROPERTY_DESCRIPTION, "middle", null));
+        cms.writePropertyObject(bottom, new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "bottom", null));
+        cms.writePropertyObject(file, new CmsProperty(CmsPropertyDefinition.PROPERTY_KEYWORDS, "file", null));
+
+        List<CmsProperty> properties = cms.readPropertyObjects(file, true);
+        CmsProperty title = CmsProperty.get(CmsPropertyDefinition.PROPERTY_TITLE, properties);
+        assertEquals("bottom", title.getValue());
+        assertEquals(cms.getRequestContext().addSiteRoot(bottom), title.getOrigin());
+        assertEquals("middle", CmsProperty.get(CmsPropertyDefinition.PROPERTY_DESCRIPTION, properties).getValue());
+        assertEquals("file", CmsProperty.get(CmsPropertyDefinition.PROPERTY_KEYWORDS, properties).getValue());
+
+        // the sibling must not see the properties of the file, but all inherited ones
+        properties = cms.readPropertyObjects(sibling, true);
+        assertEquals("bottom", CmsProperty.get(CmsPropertyDefinition.PROPERTY_TITLE, properties).getValue());
+        assertEquals("middle", CmsProperty.get(CmsPropertyDefinition.PROPERTY_DESCRIPTION, properties).getValue());
+        assertEquals("top", CmsProperty.get(CmsPropertyDefinition.PROPERTY_KEYWORDS, properties).getValue());
+
+        // changing a property of a parent folder must be visible for resources below it
+        cms.writePropertyObject(middle, new CmsProperty(CmsPropertyDefinition.PROPERTY_DESCRIPTION, "changed", null));
+        properties = cms.readPropertyObjects(file, true);
+        assertEquals("changed", CmsProperty.get(CmsPropertyDefinition.PROPERTY_DESCRIPTION, properties).getValue());
+        assertEquals(
+            "changed",
+            cms.readPropertyObject(sibling, CmsPropertyDefinition.PROPERTY_DESCRIPTION, true).getValue());
+    }
+
     /**
      * Tests the NULL_PROPERTY.<p>
      * 
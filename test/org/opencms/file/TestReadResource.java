@@ -31,8 +31,11 @@ import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsUUID;
 
+import java.util.Arrays;
+
 import junit.extensions.TestSetup;
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -74,6 +77,7 @@ public class TestReadResource extends OpenCmsTestCase {
         suite.addTest(new TestReadResource("testReadWithResourceID"));
         suite.addTest(new TestReadResource("testReadWithWrongResourceID"));
         suite.addTest(new TestReadResource("testReadFileWithResourceID"));
+        suite.addTest(new TestReadResource("testReadFileContentStream"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -373,4 +377,38 @@ public class TestReadResource extends OpenCmsTestCase {
 
     }
 
+    /**
+     * Test reading the content of a file as stream.<p>
+     *
+     * @throws Throwable if something is wrong
+     */
+    public void testReadFileContentStream() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading the content of a file as stream");
+
+        String path = "/folder1/image1.gif";
+        CmsResource resource = cms.readResource(path);
+        byte[] expected = cms.readFile(resource).getContents();
+
+        // offline project
+        byte[] streamed = CmsFileUtil.readFully(cms.readFileContentStream(resource), true);
+        assertTrue(Arrays.equals(expected, streamed));
+        assertEquals(resource.getLength(), streamed.length);
+
+        // online project
+        CmsObject onlineCms = getCmsObject();
+        onlineCms.getRequestContext().setCurrentProject(onlineCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        CmsResource onlineResource = onlineCms.readResource(path);
+        streamed = CmsFileUtil.readFully(onlineCms.readFileContentStream(onlineResource), true);
+        assertTrue(Arrays.equals(onlineCms.readFile(onlineResource).getContents(), streamed));
+
+        // folders have no content
+        try {
+            cms.readFileContentStream(cms.readResource("/folder1/"));
+            fail("folder content could be read");
+        } catch (CmsException e) {
+            // expected
+        }
+    }
 }
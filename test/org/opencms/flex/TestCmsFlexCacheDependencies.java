@@ -0,0 +1,150 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests for the CmsFlexCacheDependencies.<p>
+ */
+public class TestCmsFlexCacheDependencies extends OpenCmsTestCase {
+
+    /**
+     * Tests which published resources affect the dependencies.<p>
+     */
+    public void testIsAffectedBy() {
+
+        CmsFlexCacheDependencies dependencies = new CmsFlexCacheDependencies();
+        dependencies.addPath("/sites/default/news/article.html");
+        dependencies.addFolder("/sites/default/events");
+        Set<CmsUUID> noIds = Collections.emptySet();
+        List<String> noFolders = Collections.emptyList();
+
+        // a resource that has been read
+        assertTrue(dependencies.isAffectedBy(paths("/sites/default/news/article.html"), noIds, noIds, noFolders));
+        // an unrelated resource
+        assertFalse(dependencies.isAffectedBy(paths("/sites/default/news/other.html"), noIds, noIds, noFolders));
+        // a new resource in a folder whose contents have been read
+        assertTrue(dependencies.isAffectedBy(paths("/sites/default/events/new.html"), noIds, noIds, noFolders));
+        assertFalse(dependencies.isAffectedBy(paths("/sites/default/eventsarchive/new.html"), noIds, noIds, noFolders));
+        // a parent folder of a resource that has been read
+        assertTrue(dependencies.isAffectedBy(
+            paths("/sites/default/news/"),
+            noIds,
+            noIds,
+            Collections.singletonList("/sites/default/news/")));
+
+        CmsFlexCacheDependencies other = new CmsFlexCacheDependencies();
+        other.setUntracked();
+        dependencies.merge(other);
+        assertFalse(dependencies.isTracked());
+        assertTrue(dependencies.isAffectedBy(paths("/sites/default/news/other.html"), noIds, noIds, noFolders));
+    }
+
+    /**
+     * Tests that a changed sibling affects the dependencies of a resource.<p>
+     */
+    public void testSiblings() {
+
+        CmsUUID resourceId = new CmsUUID();
+        CmsResource resource = new CmsResource(
+            new CmsUUID(),
+            resourceId,
+            "/sites/default/news/article.html",
+            CmsResourceTypePlain.getStaticTypeId(),
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            2,
+            0,
+            0,
+            0);
+        CmsFlexCacheDependencies dependencies = new CmsFlexCacheDependencies();
+        dependencies.addResource(resource);
+        Set<CmsUUID> noIds = Collections.emptySet();
+        List<String> noFolders = Collections.emptyList();
+
+        // the resource itself
+        assertTrue(dependencies.isAffectedBy(
+            paths("/sites/default/other/unrelated.html"),
+            Collections.singleton(resource.getStructureId()),
+            noIds,
+            noFolders));
+        // a sibling in another folder, sharing the content
+        assertTrue(dependencies.isAffectedBy(
+            paths("/sites/default/archive/article.html"),
+            Collections.singleton(new CmsUUID()),
+            Collections.singleton(resourceId),
+            noFolders));
+        // an unrelated resource
+        assertFalse(dependencies.isAffectedBy(
+            paths("/sites/default/archive/other.html"),
+            Collections.singleton(new CmsUUID()),
+            Collections.singleton(new CmsUUID()),
+            noFolders));
+
+        // the resource ids are kept when merging the dependencies of an included element
+        CmsFlexCacheDependencies parent = new CmsFlexCacheDependencies();
+        parent.merge(dependencies);
+        assertTrue(parent.isAffectedBy(
+            paths("/sites/default/archive/article.html"),
+            noIds,
+            Collections.singleton(resourceId),
+            noFolders));
+    }
+
+    /**
+     * Creates a set of paths.<p>
+     * 
+     * @param paths the paths
+     * 
+     * @return the set of paths
+     */
+    private Set<String> paths(String... paths) {
+
+        Set<String> result = new HashSet<String>();
+        Collections.addAll(result, paths);
+        return result;
+    }
+}
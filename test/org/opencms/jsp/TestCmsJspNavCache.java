@@ -0,0 +1,319 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.jsp;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the {@link CmsJspNavCache}.<p>
+ */
+public class TestCmsJspNavCache extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsJspNavCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsJspNavCache.class.getName());
+
+        suite.addTest(new TestCmsJspNavCache("testChildren"));
+        suite.addTest(new TestCmsJspNavCache("testClear"));
+        suite.addTest(new TestCmsJspNavCache("testFileChange"));
+        suite.addTest(new TestCmsJspNavCache("testFolderChange"));
+        suite.addTest(new TestCmsJspNavCache("testMissingFolder"));
+        suite.addTest(new TestCmsJspNavCache("testPropertyChange"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Returns the NavText of the navigation element with the given file name.<p>
+     *
+     * @param navigation the navigation elements
+     * @param fileName the file name
+     *
+     * @return the NavText, or <code>null</code> if there is no element with the given file name
+     */
+    private static String getNavText(List<CmsJspNavElement> navigation, String fileName) {
+
+        for (CmsJspNavElement element : navigation) {
+            if (element.getFileName().equals(fileName)) {
+                return element.getNavText();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the root paths of the given cached children.<p>
+     *
+     * @param children the cached children
+     *
+     * @return the root paths
+     */
+    private static List<String> getRootPaths(List<CmsJspNavCache.ChildResource> children) {
+
+        List<String> result = new ArrayList<String>(children.size());
+        for (CmsJspNavCache.ChildResource child : children) {
+            result.add(child.getRootPath());
+        }
+        return result;
+    }
+
+    /**
+     * Tests that the cached children and properties match the VFS.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testChildren() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the cached children of a folder");
+
+        String folder = cms.getRequestContext().addSiteRoot("/folder1/");
+        CmsJspNavCache cache = new CmsJspNavCache(cms, "test");
+        List<CmsJspNavCache.ChildResource> children = cache.getChildren(folder);
+
+        List<CmsResource> resources = cms.getResourcesInFolder("/folder1/", CmsResourceFilter.ALL);
+        assertEquals(resources.size(), children.size());
+        for (CmsResource resource : resources) {
+            assertTrue(getRootPaths(children).contains(resource.getRootPath()));
+        }
+        for (CmsJspNavCache.ChildResource child : children) {
+            String sitePath = cms.getRequestContext().removeSiteRoot(child.getRootPath());
+            assertEquals(
+                CmsProperty.toMap(cms.readPropertyObjects(sitePath, false)),
+                child.getPropertiesMap());
+            // the returned resources are copies of the cached ones
+            assertNotSame(child.getResource(), child.getResource());
+            assertEquals(child.getRootPath(), child.getResource().getRootPath());
+        }
+
+        // a path without trailing slash uses the same entry
+        assertSame(children, cache.getChildren(folder.substring(0, folder.length() - 1)));
+    }
+
+    /**
+     * Tests clearing the cache.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testClear() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing clearing the navigation cache");
+
+        String folder = cms.getRequestContext().addSiteRoot("/folder1/");
+        CmsJspNavCache cache = new CmsJspNavCache(cms, "test");
+        List<CmsJspNavCache.ChildResource> children = cache.getChildren(folder);
+        assertSame(children, cache.getChildren(folder));
+
+        cache.clear();
+        List<CmsJspNavCache.ChildResource> reread = cache.getChildren(folder);
+        assertNotSame(children, reread);
+        assertEquals(getRootPaths(children), getRootPaths(reread));
+    }
+
+    /**
+     * Tests that a changed file only invalidates its parent folder.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFileChange() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing invalidation after a file has changed");
+
+        String folder = cms.getRequestContext().addSiteRoot("/folder1/");
+        String subFolder = cms.getRequestContext().addSiteRoot("/folder1/subfolder11/");
+        CmsJspNavCache cache = new CmsJspNavCache(cms, "test");
+        List<CmsJspNavCache.ChildResource> children = cache.getChildren(folder);
+        List<CmsJspNavCache.ChildResource> subChildren = cache.getChildren(subFolder);
+
+        CmsResource file = cms.createResource(
+            "/folder1/navcache.txt",
+            CmsResourceTypePlain.getStaticTypeId(),
+            "test".getBytes(),
+            null);
+        cms.writePropertyObject("/folder1/navcache.txt", new CmsProperty(
+            CmsPropertyDefinition.PROPERTY_NAVTEXT,
+            "Navigation",
+            null));
+
+        // the cache is not updated before the change is reported
+        assertSame(children, cache.getChildren(folder));
+        cache.update(file);
+
+        List<CmsJspNavCache.ChildResource> updated = cache.getChildren(folder);
+        assertEquals(children.size() + 1, updated.size());
+        for (CmsJspNavCache.ChildResource child : updated) {
+            if (child.getRootPath().equals(file.getRootPath())) {
+                assertEquals("Navigation", child.getPropertiesMap().get(CmsPropertyDefinition.PROPERTY_NAVTEXT));
+            }
+        }
+        assertTrue(getRootPaths(updated).contains(file.getRootPath()));
+        assertSame(subChildren, cache.getChildren(subFolder));
+
+        cms.deleteResource("/folder1/navcache.txt", CmsResource.DELETE_PRESERVE_SIBLINGS);
+        cache.remove(file);
+        // deleted resources are still returned, the navigation builder filters them
+        assertNotSame(updated, cache.getChildren(folder));
+    }
+
+    /**
+     * Tests that a changed folder also invalidates the cached data of its sub folders.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFolderChange() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing invalidation after a folder has changed");
+
+        String folder = cms.getRequestContext().addSiteRoot("/folder1/");
+        String subFolder = cms.getRequestContext().addSiteRoot("/folder1/subfolder11/");
+        String subSubFolder = cms.getRequestContext().addSiteRoot("/folder1/subfolder11/subsubfolder111/");
+        String otherFolder = cms.getRequestContext().addSiteRoot("/folder1/subfolder12/");
+        CmsJspNavCache cache = new CmsJspNavCache(cms, "test");
+        List<CmsJspNavCache.ChildResource> children = cache.getChildren(folder);
+        List<CmsJspNavCache.ChildResource> subChildren = cache.getChildren(subFolder);
+        List<CmsJspNavCache.ChildResource> subSubChildren = cache.getChildren(subSubFolder);
+        List<CmsJspNavCache.ChildResource> otherChildren = cache.getChildren(otherFolder);
+
+        cache.update(cms.readResource("/folder1/subfolder11/"));
+
+        assertNotSame(children, cache.getChildren(folder));
+        assertNotSame(subChildren, cache.getChildren(subFolder));
+        assertNotSame(subSubChildren, cache.getChildren(subSubFolder));
+        assertSame(otherChildren, cache.getChildren(otherFolder));
+    }
+
+    /**
+     * Tests reading the children of a folder which does not exist yet.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMissingFolder() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the children of a missing folder");
+
+        String folder = cms.getRequestContext().addSiteRoot("/navcachefolder/");
+        CmsJspNavCache cache = new CmsJspNavCache(cms, "test");
+        assertTrue(cache.getChildren(folder).isEmpty());
+
+        cms.createResource("/navcachefolder/", CmsResourceTypeFolder.getStaticTypeId());
+        CmsResource file = cms.createResource(
+            "/navcachefolder/index.txt",
+            CmsResourceTypePlain.getStaticTypeId(),
+            "test".getBytes(),
+            null);
+        cache.update(file);
+
+        List<CmsJspNavCache.ChildResource> children = cache.getChildren(folder);
+        assertEquals(1, children.size());
+        assertEquals(file.getRootPath(), children.get(0).getRootPath());
+    }
+
+    /**
+     * Tests that the navigation returns a NavText written with a single property.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testPropertyChange() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the navigation after a single property has been written");
+
+        // the navigation must be served from the cache of the ADE manager, which is updated by events
+        assertNotNull(OpenCms.getADEManager().getNavigationCache(false));
+        List<CmsProperty> properties = new ArrayList<CmsProperty>();
+        properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVTEXT, "Before", null));
+        properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVPOS, "100", null));
+        cms.createResource(
+            "/folder1/navproperty.txt",
+            CmsResourceTypePlain.getStaticTypeId(),
+            "test".getBytes(),
+            properties);
+
+        CmsJspNavBuilder navBuilder = new CmsJspNavBuilder(cms);
+        assertEquals("Before", getNavText(navBuilder.getNavigationForFolder("/folder1/"), "navproperty.txt"));
+
+        cms.writePropertyObject("/folder1/navproperty.txt", new CmsProperty(
+            CmsPropertyDefinition.PROPERTY_NAVTEXT,
+            "After",
+            null));
+        assertEquals("After", getNavText(navBuilder.getNavigationForFolder("/folder1/"), "navproperty.txt"));
+    }
+}
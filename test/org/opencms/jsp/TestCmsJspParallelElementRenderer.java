@@ -0,0 +1,321 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.jsp;
+
+import org.opencms.jsp.CmsJspParallelElementRenderer.CmsRenderedElement;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+import org.opencms.xml.containerpage.CmsContainerElementBean;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Tests for rendering the elements of a container in parallel.<p>
+ */
+public class TestCmsJspParallelElementRenderer extends OpenCmsTestCase {
+
+    /**
+     * Element with a configurable rendering, which also records how often it has been rendered.<p>
+     */
+    private static class CmsTestElement extends CmsRenderedElement {
+
+        /** The content of the element. */
+        String m_content;
+
+        /** The time in milliseconds to wait before rendering. */
+        long m_delay;
+
+        /** The error thrown when rendering, or <code>null</code>. */
+        Exception m_error;
+
+        /** Latch released when rendering has finished. */
+        CountDownLatch m_finished = new CountDownLatch(1);
+
+        /** The error caught when accessing the page request after the wait, or <code>null</code>. */
+        Exception m_requestError;
+
+        /** The number of times the element has been rendered. */
+        AtomicInteger m_renderCount = new AtomicInteger();
+
+        /** Latch to wait for before rendering, or <code>null</code>. */
+        CountDownLatch m_wait;
+
+        /**
+         * Creates a new test element.<p>
+         * 
+         * @param content the content of the element
+         * @param attributes the request attributes of the element
+         */
+        CmsTestElement(String content, Map<String, Object> attributes) {
+
+            super(
+                null,
+                new CmsContainerElementBean(new CmsUUID(), null, null, false),
+                "/system/modules/test/formatter.jsp",
+                Locale.ENGLISH,
+                attributes,
+                createRequest(),
+                createResponse());
+            m_content = content;
+        }
+
+        /**
+         * @see org.opencms.jsp.CmsJspParallelElementRenderer.CmsRenderedElement#render(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
+         */
+        @Override
+        protected String render(HttpServletRequest req, HttpServletResponse res) throws Exception {
+
+            m_renderCount.incrementAndGet();
+            try {
+                if (m_wait != null) {
+                    // wait even if the element is cancelled, like a formatter ignoring the interrupt would
+                    long end = System.currentTimeMillis() + 10000;
+                    while ((m_wait.getCount() > 0) && (System.currentTimeMillis() < end)) {
+                        try {
+                            m_wait.await(end - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                        } catch (InterruptedException e) {
+                            // ignore
+                        }
+                    }
+                }
+                if (m_delay > 0) {
+                    Thread.sleep(m_delay);
+                }
+                if (m_error != null) {
+                    throw m_error;
+                }
+                try {
+                    return m_content + ":" + req.getParameter("param") + ":" + req.getAttribute("attribute");
+                } catch (IllegalStateException e) {
+                    m_requestError = e;
+                    throw e;
+                }
+            } finally {
+                m_finished.countDown();
+            }
+        }
+    }
+
+    /**
+     * Creates a page request returning "value" for all parameters and attributes.<p>
+     * 
+     * @return the page request
+     */
+    static HttpServletRequest createRequest() {
+
+        return (HttpServletRequest)Proxy.newProxyInstance(
+            HttpServletRequest.class.getClassLoader(),
+            new Class[] {HttpServletRequest.class},
+            new InvocationHandler() {
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    if ("getParameter".equals(method.getName()) || "getAttribute".equals(method.getName())) {
+                        return "value";
+                    }
+                    return null;
+                }
+            });
+    }
+
+    /**
+     * Creates a page response.<p>
+     * 
+     * @return the page response
+     */
+    static HttpServletResponse createResponse() {
+
+        return (HttpServletResponse)Proxy.newProxyInstance(
+            HttpServletResponse.class.getClassLoader(),
+            new Class[] {HttpServletResponse.class},
+            new InvocationHandler() {
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    return null;
+                }
+            });
+    }
+
+    /**
+     * Tests that an element which fails is not rendered again, and that elements are rendered 
+     * in the request thread if no worker thread is available.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testFallback() throws Exception {
+
+        ExecutorService executor = new ThreadPoolExecutor(
+            1,
+            1,
+            0,
+            TimeUnit.MILLISECONDS,
+            new SynchronousQueue<Runnable>());
+        try {
+            CmsJspParallelElementRenderer renderer = new CmsJspParallelElementRenderer(null, executor, 5000);
+
+            // the only worker thread is busy with the first element, so the second one is rejected
+            CmsTestElement busy = new CmsTestElement("busy", new HashMap<String, Object>());
+            busy.m_wait = new CountDownLatch(1);
+            assertNotNull(renderer.submit(busy));
+            CmsTestElement rejected = new CmsTestElement("rejected", new HashMap<String, Object>());
+            assertNull(renderer.submit(rejected));
+            assertEquals(1, renderer.getElements().size());
+            assertEquals(0, rejected.m_renderCount.get());
+            busy.m_wait.countDown();
+            assertEquals("busy:value:value", renderer.getResult(busy));
+
+            // a failed element reports its error and is not rendered again
+            CmsTestElement failed = new CmsTestElement("failed", new HashMap<String, Object>());
+            failed.m_error = new IllegalArgumentException("failed");
+            assertNotNull(renderer.submit(failed));
+            try {
+                renderer.getResult(failed);
+                fail("the failed element must report its error");
+            } catch (IllegalArgumentException e) {
+                assertSame(failed.m_error, e);
+            }
+            assertEquals(1, failed.m_renderCount.get());
+            renderer.finish();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that the rendered elements are returned in the order of submission, 
+     * and that every element uses its own request attributes.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testOrdering() throws Exception {
+
+        int count = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        try {
+            CmsJspParallelElementRenderer renderer = new CmsJspParallelElementRenderer(null, executor, 5000);
+            // all elements wait for each other, so they are rendered in parallel
+            CountDownLatch started = new CountDownLatch(count);
+            List<CmsTestElement> elements = new ArrayList<CmsTestElement>();
+            List<String> markers = new ArrayList<String>();
+            for (int i = 0; i < count; i++) {
+                Map<String, Object> attributes = new HashMap<String, Object>();
+                attributes.put("attribute", "attribute" + i);
+                CmsTestElement element = new CmsTestElement("element" + i, attributes);
+                element.m_wait = started;
+                // the first elements take longest, so they finish last
+                element.m_delay = (count - i) * 50;
+                String marker = renderer.submit(element);
+                assertNotNull(marker);
+                assertFalse(markers.contains(marker));
+                markers.add(marker);
+                elements.add(element);
+                started.countDown();
+            }
+
+            assertEquals(count, renderer.getElements().size());
+            for (int i = 0; i < count; i++) {
+                CmsRenderedElement element = renderer.getElements().get(i);
+                assertSame(elements.get(i), element);
+                assertEquals(markers.get(i), element.getMarker());
+                assertEquals("element" + i + ":value:attribute" + i, renderer.getResult(element));
+                assertEquals(1, elements.get(i).m_renderCount.get());
+            }
+            renderer.finish();
+            for (CmsRenderedElement element : renderer.getElements()) {
+                assertTrue(element.isDetached());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that an element which does not finish in time is detached from the page request 
+     * and not rendered again.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testTimeout() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CmsJspParallelElementRenderer renderer = new CmsJspParallelElementRenderer(null, executor, 200);
+            CmsTestElement slow = new CmsTestElement("slow", new HashMap<String, Object>());
+            slow.m_wait = new CountDownLatch(1);
+            CmsTestElement fast = new CmsTestElement("fast", new HashMap<String, Object>());
+            assertNotNull(renderer.submit(slow));
+            assertNotNull(renderer.submit(fast));
+
+            long start = System.currentTimeMillis();
+            try {
+                renderer.getResult(slow);
+                fail("the slow element must time out");
+            } catch (TimeoutException e) {
+                // expected
+            }
+            assertTrue((System.currentTimeMillis() - start) < 5000);
+            assertTrue(slow.isDetached());
+            assertEquals("fast:value:value", renderer.getResult(fast));
+            assertFalse(fast.isDetached());
+
+            // the worker continues, but can no longer access the page request
+            slow.m_wait.countDown();
+            assertTrue(slow.m_finished.await(5000, TimeUnit.MILLISECONDS));
+            assertNotNull(slow.m_requestError);
+            try {
+                slow.getRequest().getParameter("param");
+                fail("the request of a detached element must not be usable");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            assertEquals(1, slow.m_renderCount.get());
+            renderer.finish();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -57,7 +57,9 @@ public final class AllTests {
         TestSuite suite = new TestSuite("Tests for package " + AllTests.class.getPackage().getName());
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
+        suite.addTest(new TestSuite(TestCmsImagePregenerator.class));
         suite.addTest(new TestSuite(TestCmsImageScaler.class));
+        suite.addTest(new TestSuite(TestCmsImageScalingService.class));
         suite.addTest(new TestSuite(TestCmsDefaultFileNameGenerator.class));
         //$JUnit-END$
         return suite;
@@ -0,0 +1,265 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.cache.CmsVfsNameBasedDiskCache;
+import org.opencms.db.CmsResourceState;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeImage;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the presets, the recorded variants and the queueing of the {@link CmsImagePregenerator}.<p>
+ */
+public class TestCmsImagePregenerator extends OpenCmsTestCase {
+
+    /** The gallery folder used by the tests. */
+    private static final String GALLERY = "/sites/default/.galleries/";
+
+    /** The disk cache used by the tests. */
+    private CmsVfsNameBasedDiskCache m_cache;
+
+    /** The RFS folder of the disk cache used by the tests. */
+    private File m_folder;
+
+    /** The scaling service used by the tests. */
+    private CmsImageScalingService m_service;
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsImagePregenerator(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests adding presets and selecting them by the folder of the image.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testPresets() throws Exception {
+
+        CmsImagePregenerator pregenerator = new CmsImagePregenerator(m_service, 1000, 0, 0);
+        assertTrue(pregenerator.addPreset(GALLERY + "=w:200,h:150"));
+        assertTrue(pregenerator.addPreset(GALLERY + "=w:1000,h:1000"));
+        // invalid presets
+        assertFalse(pregenerator.addPreset("w:200,h:150"));
+        assertFalse(pregenerator.addPreset(GALLERY + "=nothing"));
+        // presets larger than the maximum scale size are rejected like the requests
+        assertFalse(pregenerator.addPreset(GALLERY + "=w:1001,h:150"));
+        assertFalse(pregenerator.addPreset(GALLERY + "=w:200,h:2000"));
+
+        assertEquals(
+            Collections.singletonMap(GALLERY, Arrays.asList("w:200,h:150", "w:1000,h:1000")),
+            pregenerator.getPresets());
+        assertEquals(
+            Arrays.asList("w:200,h:150", "w:1000,h:1000"),
+            new ArrayList<String>(pregenerator.getVariants(createImage(GALLERY + "a/img.jpg", false))));
+        assertTrue(pregenerator.getVariants(createImage("/sites/default/img.jpg", false)).isEmpty());
+        pregenerator.shutdown();
+    }
+
+    /**
+     * Tests that only variants served from the image cache are recorded.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testRecordVariant() throws Exception {
+
+        CmsImagePregenerator pregenerator = new CmsImagePregenerator(m_service, 1000, 0, 0);
+        CmsResource image = createImage("/sites/default/img.jpg", false);
+
+        // a variant requested for the first time is not in the cache yet
+        CmsImageScaler scaler = new CmsImageScaler("w:100,h:50");
+        pregenerator.recordVariant(image, scaler);
+        assertTrue(pregenerator.getVariants(image).isEmpty());
+        // requests without scaling are never recorded
+        cache(image, new CmsImageScaler());
+        pregenerator.recordVariant(image, new CmsImageScaler());
+        assertTrue(pregenerator.getVariants(image).isEmpty());
+
+        cache(image, scaler);
+        pregenerator.recordVariant(image, scaler);
+        pregenerator.recordVariant(image, scaler);
+        assertEquals(Collections.singleton(scaler.toString()), pregenerator.getVariants(image));
+
+        // the number of variants per image is limited
+        for (int i = 1; i <= CmsImagePregenerator.MAX_RECORDED_VARIANTS; i++) {
+            CmsImageScaler other = new CmsImageScaler("w:" + i + ",h:50");
+            cache(image, other);
+            pregenerator.recordVariant(image, other);
+        }
+        Set<String> variants = pregenerator.getVariants(image);
+        assertEquals(CmsImagePregenerator.MAX_RECORDED_VARIANTS, variants.size());
+        assertTrue(variants.contains(scaler.toString()));
+        String rejected = "w:" + CmsImagePregenerator.MAX_RECORDED_VARIANTS + ",h:50";
+        assertFalse(variants.contains(new CmsImageScaler(rejected).toString()));
+        pregenerator.shutdown();
+    }
+
+    /**
+     * Tests that only published images with variants are queued for the pre-generation.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testSchedule() throws Exception {
+
+        final List<CmsUUID> pregenerated = Collections.synchronizedList(new ArrayList<CmsUUID>());
+        final CountDownLatch done = new CountDownLatch(1);
+        CmsImagePregenerator pregenerator = new CmsImagePregenerator(m_service, 1000, 0, 0) {
+
+            /**
+             * @see org.opencms.loader.CmsImagePregenerator#pregenerate(org.opencms.util.CmsUUID)
+             */
+            @Override
+            protected void pregenerate(CmsUUID structureId) {
+
+                pregenerated.add(structureId);
+                done.countDown();
+            }
+        };
+        pregenerator.addPreset(GALLERY + "=w:200,h:150");
+
+        CmsResource image = createImage(GALLERY + "img.jpg", false);
+        List<CmsResource> published = new ArrayList<CmsResource>();
+        // an image without variants, a deleted image and a resource which is no image are skipped
+        published.add(createImage("/sites/default/img.jpg", false));
+        published.add(createImage(GALLERY + "deleted.jpg", true));
+        published.add(createResource(
+            GALLERY + "img.txt",
+            CmsResourceTypeImage.getStaticTypeId() + 1,
+            CmsResource.STATE_CHANGED));
+        // the images are pre-generated one after another, so the skipped resources would be handled before
+        published.add(image);
+        pregenerator.schedule(published);
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pregenerator.shutdown();
+        assertEquals(Collections.singletonList(image.getStructureId()), pregenerated);
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        m_folder = new File(System.getProperty("java.io.tmpdir"), "opencms-imagepregeneration-" + System.nanoTime());
+        m_cache = new CmsVfsNameBasedDiskCache(m_folder.getParent() + File.separator, m_folder.getName());
+        m_service = new CmsImageScalingService(m_cache, 1, 10, 10000);
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        m_service.shutdown();
+        CmsFileUtil.purgeDirectory(m_folder);
+        super.tearDown();
+    }
+
+    /**
+     * Writes the cache file of the given image variant.<p>
+     *
+     * @param image the image resource
+     * @param scaler the image scaler of the variant
+     *
+     * @throws Exception in case writing the cache file fails
+     */
+    private void cache(CmsResource image, CmsImageScaler scaler) throws Exception {
+
+        String parameters = scaler.isValid() ? scaler.toString() : null;
+        m_cache.saveCacheFile(m_cache.getCacheName(image, parameters), "scaled".getBytes());
+    }
+
+    /**
+     * Creates an image resource.<p>
+     *
+     * @param rootPath the root path of the image
+     * @param deleted if the image is deleted
+     *
+     * @return the image resource
+     */
+    private CmsResource createImage(String rootPath, boolean deleted) {
+
+        return createResource(
+            rootPath,
+            CmsResourceTypeImage.getStaticTypeId(),
+            deleted ? CmsResource.STATE_DELETED : CmsResource.STATE_CHANGED);
+    }
+
+    /**
+     * Creates a file resource.<p>
+     *
+     * @param rootPath the root path of the resource
+     * @param type the resource type id
+     * @param state the state of the resource
+     *
+     * @return the resource
+     */
+    private CmsResource createResource(String rootPath, int type, CmsResourceState state) {
+
+        long timestamp = System.currentTimeMillis();
+        return new CmsResource(
+            new CmsUUID(),
+            new CmsUUID(),
+            rootPath,
+            type,
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            state,
+            timestamp,
+            CmsUUID.getNullUUID(),
+            timestamp,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            100,
+            timestamp,
+            0);
+    }
+}
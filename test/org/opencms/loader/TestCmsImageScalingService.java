@@ -0,0 +1,227 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.cache.CmsVfsNameBasedDiskCache;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the coalescing and queue limits of the {@link CmsImageScalingService}.<p>
+ */
+public class TestCmsImageScalingService extends OpenCmsTestCase {
+
+    /**
+     * A producer for cache file contents which counts its calls and blocks until released.<p>
+     */
+    private static class CmsBlockingProducer implements Callable<byte[]> {
+
+        /** The number of calls of this producer. */
+        AtomicInteger m_calls = new AtomicInteger();
+
+        /** The latch releasing the producer. */
+        CountDownLatch m_release = new CountDownLatch(1);
+
+        /**
+         * @see java.util.concurrent.Callable#call()
+         */
+        public byte[] call() throws Exception {
+
+            m_calls.incrementAndGet();
+            m_release.await();
+            return "scaled".getBytes();
+        }
+    }
+
+    /** The RFS folder of the disk cache used by the tests. */
+    private File m_folder;
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsImageScalingService(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that concurrent requests for the same cache file create the file only once.<p>
+     * 
+     * @throws Exception in case the test fails
+     */
+    public void testCoalescing() throws Exception {
+
+        final CmsImageScalingService service = createService(2, 10);
+        final CmsBlockingProducer producer = new CmsBlockingProducer();
+        final String cacheName = m_folder.getAbsolutePath() + File.separator + "img_01_1_2.jpg";
+        final List<File> results = new ArrayList<File>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 5; i++) {
+            Thread thread = new Thread() {
+
+                /**
+                 * @see java.lang.Thread#run()
+                 */
+                @Override
+                public void run() {
+
+                    try {
+                        File file = service.getCacheFile(cacheName, producer, true, false);
+                        synchronized (results) {
+                            results.add(file);
+                        }
+                    } catch (Exception e) {
+                        // the result is missing, which fails the test
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        // wait until all requests except the first are waiting for the first one
+        long timeout = System.currentTimeMillis() + 10000;
+        while ((service.getCoalescedCount() < 4) && (System.currentTimeMillis() < timeout)) {
+            Thread.sleep(10);
+        }
+        producer.m_release.countDown();
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+        service.shutdown();
+
+        assertEquals(1, producer.m_calls.get());
+        assertEquals(4, service.getCoalescedCount());
+        assertEquals(5, results.size());
+        for (File file : results) {
+            assertEquals(cacheName, file.getAbsolutePath());
+        }
+        assertEquals("scaled", new String(CmsFileUtil.readFile(results.get(0))));
+        // no temporary files must be left
+        assertEquals(1, m_folder.listFiles().length);
+    }
+
+    /**
+     * Tests the behavior of the service if the scaling queue is full.<p>
+     * 
+     * @throws Exception in case the test fails
+     */
+    public void testQueueLimit() throws Exception {
+
+        final CmsImageScalingService service = createService(1, 1);
+        final CmsBlockingProducer producer = new CmsBlockingProducer();
+        final String folder = m_folder.getAbsolutePath() + File.separator;
+        // the first task is run by the only thread, the second task is queued
+        for (int i = 1; i <= 2; i++) {
+            final String cacheName = folder + "img_" + i + ".jpg";
+            new Thread() {
+
+                /**
+                 * @see java.lang.Thread#run()
+                 */
+                @Override
+                public void run() {
+
+                    try {
+                        service.getCacheFile(cacheName, producer, true, false);
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
+            }.start();
+        }
+        long timeout = System.currentTimeMillis() + 10000;
+        while ((service.m_pending.size() < 2) && (System.currentTimeMillis() < timeout)) {
+            Thread.sleep(10);
+        }
+        // give the second request the time to queue its task
+        Thread.sleep(100);
+
+        CmsBlockingProducer other = new CmsBlockingProducer();
+        other.m_release.countDown();
+        try {
+            service.getCacheFile(folder + "img_3.jpg", other, true, false);
+            fail("The scaling request must be rejected if the queue is full");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        assertEquals(0, other.m_calls.get());
+        assertEquals(2, service.m_pending.size());
+
+        // if the caller runs the task, the file is created in the current thread 
+        File file = service.getCacheFile(folder + "img_3.jpg", other, true, true);
+        assertEquals(1, other.m_calls.get());
+        assertTrue(file.exists());
+
+        producer.m_release.countDown();
+        service.shutdown();
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        m_folder = new File(System.getProperty("java.io.tmpdir"), "opencms-imagescaling-" + System.nanoTime());
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        CmsFileUtil.purgeDirectory(m_folder);
+        super.tearDown();
+    }
+
+    /**
+     * Creates a scaling service with a disk cache in the test folder.<p>
+     * 
+     * @param threads the number of scaling threads
+     * @param queueSize the size of the scaling queue
+     * 
+     * @return the scaling service
+     */
+    private CmsImageScalingService createService(int threads, int queueSize) {
+
+        CmsVfsNameBasedDiskCache cache = new CmsVfsNameBasedDiskCache(m_folder.getParent() + File.separator, m_folder.getName());
+        return new CmsImageScalingService(cache, threads, queueSize, 10000);
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.lock;
+
+import org.opencms.file.CmsProject;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the lock index used by the lock manager, including a comparison of the lookup times 
+ * with a full scan of all locks.<p>
+ */
+public class TestCmsLockIndex extends OpenCmsTestCase {
+
+    /** Number of lookups per benchmark run. */
+    private static final int BENCHMARK_LOOKUPS = 100;
+
+    /**
+     * Compares the lookup times of the lock index with a full scan of all locks for different numbers of locks.<p>
+     */
+    public void testLookupTimes() {
+
+        int[] lockCounts = {100, 10000, 100000};
+        CmsProject project = createProject();
+        CmsUUID userId = new CmsUUID();
+        for (int lockCount : lockCounts) {
+            Map<String, CmsLock> locks = new HashMap<String, CmsLock>();
+            CmsLockIndex index = new CmsLockIndex();
+            for (int i = 0; i < lockCount; i++) {
+                String path = "/sites/default/folder" + (i % 100) + "/sub" + (i / 100) + "/file" + i + ".html";
+                CmsLock lock = new CmsLock(path, userId, project, CmsLockType.EXCLUSIVE);
+                locks.put(path, lock);
+                index.put(path, lock);
+            }
+            String folder = "/sites/default/folder7/sub0/";
+            String file = folder + "file7.html";
+
+            long start = System.nanoTime();
+            int found = 0;
+            for (int i = 0; i < BENCHMARK_LOOKUPS; i++) {
+                for (CmsLock lock : new ArrayList<CmsLock>(locks.values())) {
+                    if (lock.getResourceName().startsWith(folder)
+                        || (lock.getResourceName().endsWith("/") && file.startsWith(lock.getResourceName()))) {
+                        found++;
+                    }
+                }
+            }
+            long scanTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int indexFound = 0;
+            for (int i = 0; i < BENCHMARK_LOOKUPS; i++) {
+                indexFound += index.getLocksByPrefix(folder).size();
+                indexFound += index.getParentFolderLocks(file).size();
+            }
+            long indexTime = System.nanoTime() - start;
+            assertEquals(found, indexFound);
+
+            echo("Lock lookup time with "
+                + lockCount
+                + " locks: full scan "
+                + ((scanTime / BENCHMARK_LOOKUPS) / 1000)
+                + " us, lock index "
+                + ((indexTime / BENCHMARK_LOOKUPS) / 1000)
+                + " us");
+        }
+    }
+
+    /**
+     * Tests the parent folder lookup.<p>
+     */
+    public void testParentFolderLocks() {
+
+        CmsLockIndex index = createIndex();
+        List<String> paths = getPaths(index.getParentFolderLocks("/sites/default/folder/sub/file.html"));
+        assertEquals(2, paths.size());
+        assertEquals("/sites/default/folder/", paths.get(0));
+        assertEquals("/sites/default/folder/sub/", paths.get(1));
+
+        paths = getPaths(index.getParentFolderLocks("/sites/default/folder/"));
+        assertEquals(1, paths.size());
+        assertEquals("/sites/default/folder/", paths.get(0));
+
+        // a file with the same name as a locked folder does not inherit its lock
+        assertTrue(index.getParentFolderLocks("/sites/default/folder").isEmpty());
+    }
+
+    /**
+     * Tests the prefix lookup.<p>
+     */
+    public void testPrefixLocks() {
+
+        CmsLockIndex index = createIndex();
+        List<String> paths = getPaths(index.getLocksByPrefix("/sites/default/folder/"));
+        assertEquals(4, paths.size());
+        assertEquals("/sites/default/folder/", paths.get(0));
+        assertEquals("/sites/default/folder/file.html", paths.get(1));
+        assertEquals("/sites/default/folder/sub/", paths.get(2));
+        assertEquals("/sites/default/folder/sub/file.html", paths.get(3));
+
+        // prefixes which are not folders match like String.startsWith()
+        paths = getPaths(index.getLocksByPrefix("/sites/default/fold"));
+        assertEquals(6, paths.size());
+        assertEquals("/sites/default/folder2.html", paths.get(5));
+        assertEquals(6, index.getLocksByPrefix("/").size());
+        assertEquals(6, index.getLocksByPrefix("").size());
+        assertTrue(index.getLocksByPrefix("/sites/other/").isEmpty());
+
+        index.remove("/sites/default/folder/sub/file.html");
+        index.remove("/sites/default/folder/sub/");
+        assertEquals(2, index.getLocksByPrefix("/sites/default/folder/").size());
+        assertEquals(4, index.size());
+    }
+
+    /**
+     * Tests the user and project indexes.<p>
+     */
+    public void testUserAndProjectIndex() {
+
+        CmsProject project = createProject();
+        CmsProject otherProject = createProject();
+        CmsUUID userId = new CmsUUID();
+        CmsUUID otherUserId = new CmsUUID();
+        CmsLockIndex index = new CmsLockIndex();
+        CmsLock lock = new CmsLock("/a.html", userId, project, CmsLockType.EXCLUSIVE);
+        index.put("/a.html", lock);
+        index.put("/b.html", new CmsLock("/b.html", otherUserId, otherProject, CmsLockType.EXCLUSIVE));
+        assertEquals(1, index.getLocksByUser(userId).size());
+        assertEquals(1, index.getLocksByProject(otherProject.getUuid()).size());
+
+        // a system lock of another user is related to the existing lock 
+        lock.setRelatedLock(new CmsLock("/a.html", otherUserId, otherProject, CmsLockType.PUBLISH));
+        index.put("/a.html", lock);
+        assertEquals(2, index.getLocksByUser(otherUserId).size());
+        assertEquals(2, index.getLocksByProject(otherProject.getUuid()).size());
+
+        index.remove("/a.html");
+        assertTrue(index.getLocksByUser(userId).isEmpty());
+        assertEquals(1, index.getLocksByUser(otherUserId).size());
+        assertTrue(index.getLocksByProject(project.getUuid()).isEmpty());
+
+        index.clear();
+        assertTrue(index.getLocksByUser(otherUserId).isEmpty());
+        assertTrue(index.isEmpty());
+    }
+
+    /**
+     * Creates a lock index with some locks.<p>
+     * 
+     * @return the lock index
+     */
+    private CmsLockIndex createIndex() {
+
+        CmsProject project = createProject();
+        CmsUUID userId = new CmsUUID();
+        String[] paths = {
+            "/sites/default/folder/",
+            "/sites/default/folder/file.html",
+            "/sites/default/folder/sub/",
+            "/sites/default/folder/sub/file.html",
+            "/sites/default/folder",
+            "/sites/default/folder2.html"};
+        CmsLockIndex index = new CmsLockIndex();
+        for (String path : paths) {
+            index.put(path, new CmsLock(path, userId, project, CmsLockType.EXCLUSIVE));
+        }
+        return index;
+    }
+
+    /**
+     * Creates a project for the test locks.<p>
+     * 
+     * @return the project
+     */
+    private CmsProject createProject() {
+
+        CmsUUID projectId = new CmsUUID();
+        return new CmsProject(
+            projectId,
+            projectId.toString(),
+            "",
+            CmsUUID.getNullUUID(),
+            CmsUUID.getNullUUID(),
+            CmsUUID.getNullUUID(),
+            0,
+            0,
+            CmsProject.PROJECT_TYPE_NORMAL);
+    }
+
+    /**
+     * Returns the sorted resource names of the given locks.<p>
+     * 
+     * @param locks the locks
+     * 
+     * @return the sorted resource names
+     */
+    private List<String> getPaths(List<CmsLock> locks) {
+
+        List<String> paths = new ArrayList<String>();
+        for (CmsLock lock : locks) {
+            paths.add(lock.getResourceName());
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+}
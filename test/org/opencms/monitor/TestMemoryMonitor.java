@@ -27,12 +27,19 @@
 
 package org.opencms.monitor;
 
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.main.CmsContextInfo;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
 import org.opencms.scheduler.CmsScheduledJobInfo;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 
+import java.util.List;
+
 import junit.extensions.TestSetup;
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -66,6 +73,7 @@ public class TestMemoryMonitor extends OpenCmsTestCase {
         TestSuite suite = new TestSuite();
         suite.setName(TestMemoryMonitor.class.getName());
 
+        suite.addTest(new TestMemoryMonitor("testResourceCacheInvalidation"));
         suite.addTest(new TestMemoryMonitor("testMemoryMonitor"));
 
         TestSetup wrapper = new TestSetup(suite) {
@@ -128,4 +136,53 @@ public class TestMemoryMonitor extends OpenCmsTestCase {
 
         assertEquals(5, OpenCms.getMemoryMonitor().getLogCount());
     }
+
+    /**
+     * Tests that changing a resource only removes the cache entries depending on it.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testResourceCacheInvalidation() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that changing a resource only removes the cache entries depending on it");
+
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+        String changedFolder = "/folder1/subfolder11/";
+        String unrelatedFolder = "/folder1/subfolder12/";
+        String changedFile = changedFolder + "cacheInvalidation.txt";
+        cms.createResource(changedFile, CmsResourceTypePlain.getStaticTypeId(), "test".getBytes(), null);
+
+        // fill the caches
+        cms.readResources(changedFolder, CmsResourceFilter.ALL, false);
+        cms.readResources(unrelatedFolder, CmsResourceFilter.ALL, false);
+        cms.readResource("/folder2/index.html");
+
+        long listHits = monitor.getCacheHitCount(CacheType.RESOURCE_LIST);
+        long listMisses = monitor.getCacheMissCount(CacheType.RESOURCE_LIST);
+        long resourceMisses = monitor.getCacheMissCount(CacheType.RESOURCE);
+
+        // change a resource
+        long dateLastModified = System.currentTimeMillis() - 100000;
+        cms.setDateLastModified(changedFile, dateLastModified, false);
+
+        // the entries of unrelated resources are still cached
+        cms.readResources(unrelatedFolder, CmsResourceFilter.ALL, false);
+        cms.readResource("/folder2/index.html");
+        assertTrue(monitor.getCacheHitCount(CacheType.RESOURCE_LIST) > listHits);
+        assertEquals(listMisses, monitor.getCacheMissCount(CacheType.RESOURCE_LIST));
+        assertEquals(resourceMisses, monitor.getCacheMissCount(CacheType.RESOURCE));
+
+        // the list of the changed folder is read again and contains the change
+        List<CmsResource> resources = cms.readResources(changedFolder, CmsResourceFilter.ALL, false);
+        assertEquals(listMisses + 1, monitor.getCacheMissCount(CacheType.RESOURCE_LIST));
+        boolean found = false;
+        for (CmsResource resource : resources) {
+            if (resource.getRootPath().equals(cms.getRequestContext().addSiteRoot(changedFile))) {
+                assertEquals(dateLastModified, resource.getDateLastModified());
+                found = true;
+            }
+        }
+        assertTrue(found);
+    }
 }
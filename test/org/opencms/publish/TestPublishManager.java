@@ -30,6 +30,7 @@ package org.opencms.publish;
 import org.opencms.db.CmsLoginMessage;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.lock.CmsLockException;
 import org.opencms.lock.CmsLockType;
 import org.opencms.main.CmsContextInfo;
@@ -40,6 +41,7 @@ import org.opencms.security.I_CmsPrincipal;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -81,6 +83,7 @@ public class TestPublishManager extends OpenCmsTestCase {
         suite.addTest(new TestPublishManager("testListener"));
         suite.addTest(new TestPublishManager("testInitialization1"));
         suite.addTest(new TestPublishManager("testInitialization2"));
+        suite.addTest(new TestPublishManager("testPublishJobScope"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -438,6 +441,58 @@ public class TestPublishManager extends OpenCmsTestCase {
         OpenCms.getPublishManager().waitWhileRunning();
     }
 
+    /**
+     * Tests the detection of publish jobs that must not run in parallel.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishJobScope() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the detection of overlapping publish jobs");
+
+        String source = "/folder2/subfolder21/image1.gif";
+        String folder = "/folder1/scope/";
+        String fileInFolder = folder + "image1.gif";
+        String otherFile = "/folder2/scope_image1.gif";
+        String sibling = "/folder1/scope_sibling.gif";
+
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        cms.copyResource(source, fileInFolder, CmsResource.COPY_AS_NEW);
+        cms.copyResource(source, otherFile, CmsResource.COPY_AS_NEW);
+        cms.copyResource(otherFile, sibling, CmsResource.COPY_AS_SIBLING);
+
+        CmsPublishManager publishManager = OpenCms.getPublishManager();
+        CmsPublishJobScope folderScope = new CmsPublishJobScope(publishManager.getPublishList(
+            cms,
+            Collections.singletonList(cms.readResource(folder)),
+            false,
+            false));
+        CmsPublishJobScope fileInFolderScope = new CmsPublishJobScope(publishManager.getPublishList(
+            cms,
+            cms.readResource(fileInFolder),
+            false));
+        CmsPublishJobScope otherFileScope = new CmsPublishJobScope(publishManager.getPublishList(
+            cms,
+            cms.readResource(otherFile),
+            false));
+        CmsPublishJobScope siblingScope = new CmsPublishJobScope(publishManager.getPublishList(
+            cms,
+            cms.readResource(sibling),
+            false));
+
+        // a parent folder overlaps with its sub resources
+        assertTrue(folderScope.overlaps(fileInFolderScope));
+        assertTrue(fileInFolderScope.overlaps(folderScope));
+        // siblings overlap
+        assertTrue(otherFileScope.overlaps(siblingScope));
+        assertTrue(siblingScope.overlaps(otherFileScope));
+        // unrelated resources do not overlap
+        assertFalse(fileInFolderScope.overlaps(otherFileScope));
+        assertFalse(siblingScope.overlaps(fileInFolderScope));
+        assertFalse(folderScope.overlaps(siblingScope));
+    }
+
     /**
      * Tests the publish report stored in the database.<p>
      * 
@@ -65,6 +65,7 @@ public final class AllTests {
         suite.addTest(TestCmsSearchInDocuments.suite());
         suite.addTest(TestCmsSearchAdvancedFeatures.suite());
         suite.addTest(TestCmsSearchSpecialFeatures.suite());
+        suite.addTest(TestCmsIndexingThreadManager.suite());
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,361 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.CmsException;
+import org.opencms.report.CmsStringBufferReport;
+import org.opencms.search.documents.CmsDocumentPlainText;
+import org.opencms.search.documents.I_CmsDocumentFactory;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.apache.lucene.document.Document;
+
+/**
+ * Tests the parallel document extraction of the {@link CmsIndexingThreadManager}.<p>
+ *
+ * @since 8.5.0
+ */
+public class TestCmsIndexingThreadManager extends OpenCmsTestCase {
+
+    /**
+     * Document factory that creates empty documents, delayed or failing depending on the resource name.<p>
+     */
+    static class TestDocumentFactory extends CmsDocumentPlainText {
+
+        /**
+         * Creates a new test document factory.<p>
+         */
+        TestDocumentFactory() {
+
+            super("test");
+        }
+
+        /**
+         * @see org.opencms.search.documents.A_CmsVfsDocument#createDocument(org.opencms.file.CmsObject, org.opencms.file.CmsResource, org.opencms.search.CmsSearchIndex)
+         */
+        @Override
+        public I_CmsSearchDocument createDocument(CmsObject cms, CmsResource resource, CmsSearchIndex index)
+        throws CmsException {
+
+            String name = resource.getName();
+            if (name.startsWith("fail")) {
+                throw new CmsIndexException(Messages.get().container(
+                    Messages.ERR_INDEX_RESOURCE_FAILED_2,
+                    resource.getRootPath(),
+                    "test"));
+            }
+            if (name.startsWith("skip")) {
+                return null;
+            }
+            try {
+                // the delay is the number after the first underscore
+                Thread.sleep(Long.parseLong(name.substring(name.indexOf('_') + 1, name.indexOf('.'))));
+            } catch (InterruptedException e) {
+                // an abandoned extraction
+                return null;
+            }
+            return new CmsLuceneDocument(new Document());
+        }
+    }
+
+    /**
+     * Search index that uses the test document factory for all resources.<p>
+     */
+    static class TestIndex extends CmsSearchIndex {
+
+        /**
+         * @see org.opencms.search.CmsSearchIndex#getDocumentFactory(org.opencms.file.CmsResource)
+         */
+        @Override
+        public I_CmsDocumentFactory getDocumentFactory(CmsResource res) {
+
+            return new TestDocumentFactory();
+        }
+
+        /**
+         * @see org.opencms.search.CmsSearchIndex#excludeFromIndex(org.opencms.file.CmsObject, org.opencms.file.CmsResource)
+         */
+        @Override
+        protected boolean excludeFromIndex(CmsObject cms, CmsResource resource) {
+
+            return false;
+        }
+    }
+
+    /**
+     * Index writer that records the written and deleted paths.<p>
+     */
+    static class TestIndexWriter implements I_CmsIndexWriter {
+
+        /** The deleted paths. */
+        List<String> m_deleted = Collections.synchronizedList(new ArrayList<String>());
+
+        /** The written paths, in the order they have been written. */
+        List<String> m_written = Collections.synchronizedList(new ArrayList<String>());
+
+        /**
+         * @see org.opencms.search.I_CmsIndexWriter#close()
+         */
+        public void close() {
+
+            // noop
+        }
+
+        /**
+         * @see org.opencms.search.I_CmsIndexWriter#commit()
+         */
+        public void commit() {
+
+            // noop
+        }
+
+        /**
+         * @see org.opencms.search.I_CmsIndexWriter#deleteDocument(org.opencms.db.CmsPublishedResource)
+         */
+        public void deleteDocument(CmsPublishedResource resource) {
+
+            m_deleted.add(resource.getRootPath());
+        }
+
+        /**
+         * @see org.opencms.search.I_CmsIndexWriter#optimize()
+         */
+        public void optimize() {
+
+            // noop
+        }
+
+        /**
+         * @see org.opencms.search.I_CmsIndexWriter#updateDocument(java.lang.String, org.opencms.search.I_CmsSearchDocument)
+         */
+        public void updateDocument(String rootPath, I_CmsSearchDocument document) {
+
+            m_written.add(rootPath);
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsIndexingThreadManager(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsIndexingThreadManager.class.getName());
+
+        suite.addTest(new TestCmsIndexingThreadManager("testFailedExtraction"));
+        suite.addTest(new TestCmsIndexingThreadManager("testOrder"));
+        suite.addTest(new TestCmsIndexingThreadManager("testShutDown"));
+        suite.addTest(new TestCmsIndexingThreadManager("testTimeout"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Creates a resource that is not read from the VFS.<p>
+     *
+     * @param name the name of the resource
+     *
+     * @return the resource
+     */
+    private static CmsResource createResource(String name) {
+
+        return new CmsResource(
+            new CmsUUID(),
+            new CmsUUID(),
+            "/sites/default/threads/" + name,
+            CmsResourceTypePlain.getStaticTypeId(),
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+
+    /**
+     * Tests that a failed extraction is reported with its error and deleted from the index.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFailedExtraction() throws Exception {
+
+        echo("Testing a failed extraction with parallel indexing threads");
+
+        CmsStringBufferReport report = new CmsStringBufferReport(Locale.ENGLISH);
+        CmsVfsIndexer indexer = (CmsVfsIndexer)new CmsVfsIndexer().newInstance(getCmsObject(), report, new TestIndex());
+        TestIndexWriter writer = new TestIndexWriter();
+        CmsIndexingThreadManager manager = new CmsIndexingThreadManager(10000, 100, 2);
+
+        manager.createIndexingThread(indexer, writer, createResource("ok_10.txt"));
+        manager.createIndexingThread(indexer, writer, createResource("fail.txt"));
+        manager.createIndexingThread(indexer, writer, createResource("skip.txt"));
+        manager.finishIndexing();
+
+        assertEquals(Collections.singletonList("/sites/default/threads/ok_10.txt"), writer.m_written);
+        assertEquals(2, writer.m_deleted.size());
+        assertTrue(writer.m_deleted.contains("/sites/default/threads/fail.txt"));
+        assertTrue(writer.m_deleted.contains("/sites/default/threads/skip.txt"));
+        String output = report.toString();
+        assertTrue(output.contains(CmsIndexException.class.getName()));
+        assertTrue(output.contains("/sites/default/threads/fail.txt"));
+    }
+
+    /**
+     * Tests that the documents are written in the order the resources were handed to the manager.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testOrder() throws Exception {
+
+        echo("Testing the order of documents extracted by parallel indexing threads");
+
+        CmsVfsIndexer indexer = (CmsVfsIndexer)new CmsVfsIndexer().newInstance(getCmsObject(), null, new TestIndex());
+        TestIndexWriter writer = new TestIndexWriter();
+        CmsIndexingThreadManager manager = new CmsIndexingThreadManager(10000, 3, 4);
+
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 20; i++) {
+            // the earlier documents take longer to extract
+            CmsResource resource = createResource("doc" + i + "_" + ((20 - i) * 5) + ".txt");
+            expected.add(resource.getRootPath());
+            manager.createIndexingThread(indexer, writer, resource);
+        }
+        manager.finishIndexing();
+        assertFalse(manager.isRunning());
+
+        assertEquals(expected, writer.m_written);
+        assertTrue(writer.m_deleted.isEmpty());
+    }
+
+    /**
+     * Tests that the pending extractions are discarded if the indexing is aborted.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testShutDown() throws Exception {
+
+        echo("Testing shutting down the parallel indexing threads");
+
+        CmsVfsIndexer indexer = (CmsVfsIndexer)new CmsVfsIndexer().newInstance(getCmsObject(), null, new TestIndex());
+        TestIndexWriter writer = new TestIndexWriter();
+        CmsIndexingThreadManager manager = new CmsIndexingThreadManager(10000, 100, 2);
+
+        manager.createIndexingThread(indexer, writer, createResource("slow1_5000.txt"));
+        manager.createIndexingThread(indexer, writer, createResource("slow2_5000.txt"));
+        long start = System.currentTimeMillis();
+        manager.shutDown();
+        // nothing is left to write, and the workers have been interrupted
+        manager.finishIndexing();
+        assertTrue((System.currentTimeMillis() - start) < 5000);
+        assertTrue(writer.m_written.isEmpty());
+        assertTrue(writer.m_deleted.isEmpty());
+    }
+
+    /**
+     * Tests that the timeout is counted for each document from the start of its extraction.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testTimeout() throws Exception {
+
+        echo("Testing the timeout of parallel indexing threads");
+
+        CmsStringBufferReport report = new CmsStringBufferReport(Locale.ENGLISH);
+        CmsVfsIndexer indexer = (CmsVfsIndexer)new CmsVfsIndexer().newInstance(getCmsObject(), report, new TestIndex());
+        TestIndexWriter writer = new TestIndexWriter();
+        long timeout = 1000;
+        CmsIndexingThreadManager manager = new CmsIndexingThreadManager(timeout, 100, 2);
+
+        long start = System.currentTimeMillis();
+        // both hanging extractions are started at once and must be abandoned after one timeout
+        manager.createIndexingThread(indexer, writer, createResource("hang1_60000.txt"));
+        manager.createIndexingThread(indexer, writer, createResource("hang2_60000.txt"));
+        // queued behind the hanging extractions, but finished within its own timeout
+        manager.createIndexingThread(indexer, writer, createResource("queued_500.txt"));
+        manager.finishIndexing();
+        long duration = System.currentTimeMillis() - start;
+
+        assertEquals(Collections.singletonList("/sites/default/threads/queued_500.txt"), writer.m_written);
+        assertEquals(2, writer.m_deleted.size());
+        assertTrue("Duration " + duration, duration < (2 * timeout));
+        assertTrue(report.toString().contains("hang1_60000.txt"));
+        assertTrue(report.toString().contains("hang2_60000.txt"));
+    }
+}
@@ -39,6 +39,8 @@ import org.opencms.report.I_CmsReport;
 import org.opencms.search.fields.CmsSearchField;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.test.OpenCmsThreadedTestCase;
+import org.opencms.test.OpenCmsThreadedTestCaseSuite;
 import org.opencms.util.CmsDateUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.xml.content.CmsXmlContent;
@@ -75,6 +77,9 @@ public class TestCmsSearch extends OpenCmsTestCase {
         super(arg0);
     }
 
+    /** Number of searches every thread executes in the concurrent search test. */
+    private static final int CONCURRENT_SEARCH_ITERATIONS = 200;
+
     /**
      * Prints the given list of search results to STDOUT.<p>
      * 
@@ -157,6 +162,7 @@ public class TestCmsSearch extends OpenCmsTestCase {
         suite.addTest(new TestCmsSearch("testCmsSearchUppercaseFolderName"));
         suite.addTest(new TestCmsSearch("testCmsSearchDocumentTypes"));
         suite.addTest(new TestCmsSearch("testCmsSearchXmlContent"));
+        suite.addTest(new TestCmsSearch("testConcurrentSearchThroughput"));
         suite.addTest(new TestCmsSearch("testIndexGeneration"));
         suite.addTest(new TestCmsSearch("testQueryEncoding"));
         suite.addTest(new TestCmsSearch("testSearchIssueWithSpecialFoldernames"));
@@ -422,6 +428,74 @@ public class TestCmsSearch extends OpenCmsTestCase {
         // assertEquals("/sites/default/xmlcontent/article_0004.html", ((CmsSearchResult)results.get(1)).getPath());
     }
 
+    /**
+     * Executes a number of searches, intended to be called concurrently from several threads.<p>
+     * 
+     * @param cms the OpenCms user context to use
+     * @param count the number of the thread
+     * 
+     * @throws Exception if something goes wrong or an unexpected search result is found
+     */
+    public void doConcurrentSearch(CmsObject cms, Integer count) throws Exception {
+
+        CmsSearch cmsSearchBean = new CmsSearch();
+        cmsSearchBean.init(cms);
+        cmsSearchBean.setIndex(INDEX_OFFLINE);
+        cmsSearchBean.setQuery(">>SearchEgg1<<");
+        for (int i = 0; i < CONCURRENT_SEARCH_ITERATIONS; i++) {
+            List<CmsSearchResult> results = cmsSearchBean.getSearchResult();
+            if ((results == null) || (results.size() != 1)) {
+                throw new Exception("Thread " + count + ": unexpected search result in iteration " + i);
+            }
+            if (!"/sites/default/xmlcontent/article_0001.html".equals(results.get(0).getPath())) {
+                throw new Exception("Thread " + count + ": unexpected search result path " + results.get(0).getPath());
+            }
+        }
+    }
+
+    /**
+     * Measures the search throughput of the index with an increasing number of concurrent threads.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testConcurrentSearchThroughput() throws Throwable {
+
+        echo("Testing concurrent search throughput");
+
+        int[] threadCounts = new int[] {1, 4, 16};
+        for (int t = 0; t < threadCounts.length; t++) {
+            int count = threadCounts[t];
+            Object[] parameters = new Object[] {
+                OpenCmsThreadedTestCaseSuite.PARAM_CMSOBJECT,
+                OpenCmsThreadedTestCaseSuite.PARAM_COUNTER};
+            OpenCmsThreadedTestCaseSuite suite = new OpenCmsThreadedTestCaseSuite(
+                count,
+                this,
+                "doConcurrentSearch",
+                parameters);
+            suite.setAllowedRuntime(120000);
+            OpenCmsThreadedTestCase[] threads = suite.run();
+            if (suite.getThrowable() != null) {
+                throw suite.getThrowable();
+            }
+            for (int i = 0; i < count; i++) {
+                if (threads[i].getThrowable() != null) {
+                    throw threads[i].getThrowable();
+                }
+            }
+            long searches = (long)count * CONCURRENT_SEARCH_ITERATIONS;
+            long runtime = Math.max(1, suite.getRuntime());
+            echo(count
+                + " thread(s): "
+                + searches
+                + " searches in "
+                + runtime
+                + " ms, "
+                + ((searches * 1000) / runtime)
+                + " searches/second");
+        }
+    }
+
     /** 
      * Check if we have an analyzer entry for the pseudo-locale 'all'. 
      *  
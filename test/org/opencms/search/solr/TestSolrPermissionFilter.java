@@ -0,0 +1,269 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.solr;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.search.CmsSearchIndex;
+import org.opencms.search.CmsSearchResource;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests filtering the Solr results by the indexed read permissions.<p>
+ *
+ * @since 8.5.0
+ */
+public class TestSolrPermissionFilter extends OpenCmsTestCase {
+
+    /** The folder containing the test files. */
+    private static final String FOLDER = "/permfilter/";
+
+    /** The password of the test user. */
+    private static final String PASSWORD = "secret";
+
+    /** The query for the test files. */
+    private static final String QUERY = "fq=parent-folders:\"/sites/default"
+        + FOLDER
+        + "\"&fq=type:plain&sort=path asc";
+
+    /** The name of the test user. */
+    private static final String USER = "solrPermissionUser";
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestSolrPermissionFilter(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestSolrPermissionFilter.class.getName());
+
+        suite.addTest(new TestSolrPermissionFilter("testAllowedAndDenied"));
+        suite.addTest(new TestSolrPermissionFilter("testInherited"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/", "/../org/opencms/search/solr");
+                // disable all lucene indexes
+                for (String indexName : OpenCms.getSearchManager().getIndexNames()) {
+                    if (!indexName.equalsIgnoreCase(AllTests.SOLR_ONLINE)) {
+                        CmsSearchIndex index = OpenCms.getSearchManager().getIndex(indexName);
+                        if (index != null) {
+                            index.setEnabled(false);
+                        }
+                    }
+                }
+                OpenCms.getSearchManager().getIndexSolr(AllTests.SOLR_ONLINE).setPermissionFilter(true);
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests files with allowed and denied read permissions.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testAllowedAndDenied() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the permission filter for allowed and denied files");
+
+        cms.createUser(USER, PASSWORD, "", null);
+        cms.createResource(FOLDER, CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource(FOLDER + "allowed.txt", CmsResourceTypePlain.getStaticTypeId(), "allowed".getBytes(), null);
+        cms.createResource(FOLDER + "denied.txt", CmsResourceTypePlain.getStaticTypeId(), "denied".getBytes(), null);
+        cms.chacc(FOLDER + "denied.txt", I_CmsPrincipal.PRINCIPAL_USER, USER, "-r");
+        publish(cms, null);
+
+        List<String> expected = new ArrayList<String>();
+        expected.add("/sites/default" + FOLDER + "allowed.txt");
+        assertEquals(expected, searchWithFilterOnly(cms));
+        assertEquals(expected, searchAsUser(cms));
+
+        // the administrator ignores the permissions
+        assertEquals(2, search(cms, QUERY).size());
+    }
+
+    /**
+     * Tests files with permissions inherited from a folder whose permissions are changed later.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testInherited() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the permission filter for inherited permissions");
+
+        String folder = FOLDER + "inherit/";
+        String file = folder + "inherited.txt";
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource(file, CmsResourceTypePlain.getStaticTypeId(), "inherited".getBytes(), null);
+        publish(cms, null);
+
+        List<String> expected = new ArrayList<String>();
+        expected.add("/sites/default" + FOLDER + "allowed.txt");
+        expected.add("/sites/default" + file);
+        assertEquals(expected, searchWithFilterOnly(cms));
+        assertEquals(expected, searchAsUser(cms));
+
+        // only the folder is published, the file below must be indexed again nevertheless
+        cms.lockResource(folder);
+        cms.chacc(folder, I_CmsPrincipal.PRINCIPAL_USER, USER, "-r+i");
+        publish(cms, folder);
+        expected.remove("/sites/default" + file);
+        assertEquals(expected, searchWithFilterOnly(cms));
+        assertEquals(expected, searchAsUser(cms));
+
+        cms.lockResource(folder);
+        cms.rmacc(folder, I_CmsPrincipal.PRINCIPAL_USER, USER);
+        publish(cms, folder);
+        expected.add("/sites/default" + file);
+        assertEquals(expected, searchWithFilterOnly(cms));
+        assertEquals(expected, searchAsUser(cms));
+    }
+
+    /**
+     * Publishes the given resource, or the whole project, and waits until the index is updated.<p>
+     *
+     * @param cms the current OpenCms user context
+     * @param resourcename the resource to publish, or <code>null</code> to publish the project
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void publish(CmsObject cms, String resourcename) throws Exception {
+
+        if (resourcename == null) {
+            cms.unlockProject(cms.getRequestContext().getCurrentProject().getUuid());
+            OpenCms.getPublishManager().publishProject(cms);
+        } else {
+            cms.unlockResource(resourcename);
+            OpenCms.getPublishManager().publishResource(cms, resourcename);
+        }
+        OpenCms.getPublishManager().waitWhileRunning();
+    }
+
+    /**
+     * Searches the online index and returns the root paths of the results.<p>
+     *
+     * @param cms the OpenCms user context to search with
+     * @param query the query
+     *
+     * @return the root paths of the results
+     *
+     * @throws Exception if something goes wrong
+     */
+    private List<String> search(CmsObject cms, String query) throws Exception {
+
+        CmsObject searchCms = OpenCms.initCmsObject(cms);
+        searchCms.getRequestContext().setCurrentProject(searchCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        CmsSolrResultList results = OpenCms.getSearchManager().getIndexSolr(AllTests.SOLR_ONLINE).search(
+            searchCms,
+            query);
+        List<String> result = new ArrayList<String>();
+        for (CmsSearchResource resource : results) {
+            result.add(resource.getRootPath());
+        }
+        // with the permission filter no document must be removed by the permission check
+        assertEquals(result.size(), results.getNumFound());
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Searches as the test user, with the permission filter and the permission check.<p>
+     *
+     * @param cms the current OpenCms user context
+     *
+     * @return the root paths of the results
+     *
+     * @throws Exception if something goes wrong
+     */
+    private List<String> searchAsUser(CmsObject cms) throws Exception {
+
+        CmsObject userCms = OpenCms.initCmsObject(cms);
+        userCms.loginUser(USER, PASSWORD);
+        userCms.getRequestContext().setSiteRoot("/sites/default/");
+        return search(userCms, QUERY);
+    }
+
+    /**
+     * Searches as administrator with the permission filter of the test user, so only the
+     * indexed permissions decide which documents are found.<p>
+     *
+     * @param cms the current OpenCms user context
+     *
+     * @return the root paths of the results
+     *
+     * @throws Exception if something goes wrong
+     */
+    private List<String> searchWithFilterOnly(CmsObject cms) throws Exception {
+
+        CmsObject userCms = OpenCms.initCmsObject(cms);
+        userCms.loginUser(USER, PASSWORD);
+        String filter = OpenCms.getSearchManager().getIndexSolr(AllTests.SOLR_ONLINE).getPermissionFilterQuery(userCms);
+        assertNotNull(filter);
+        return search(cms, QUERY + "&fq=" + filter);
+    }
+}
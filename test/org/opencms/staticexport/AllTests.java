@@ -63,6 +63,8 @@ public final class AllTests {
         suite.addTest(TestExportFile.suite());
         suite.addTest(TestSecure.suite());
         suite.addTest(TestCmsExternalLinksValidator.suite());
+        suite.addTest(new TestSuite(TestCmsLinkTemplate.class));
+        suite.addTest(new TestSuite(TestCmsStaticExportLocalRender.class));
         //$JUnit-END$
         return suite;
     }
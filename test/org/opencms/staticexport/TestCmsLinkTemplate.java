@@ -0,0 +1,135 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.relations.CmsLink;
+import org.opencms.relations.CmsRelationType;
+import org.opencms.test.OpenCmsTestCase;
+
+/**
+ * Tests for the link templates compiled by the link processor, including a comparison of the 
+ * rendering time with the link processing of the HTML.<p>
+ */
+public class TestCmsLinkTemplate extends OpenCmsTestCase {
+
+    /** Number of renderings per benchmark run. */
+    private static final int BENCHMARK_RUNS = 2000;
+
+    /** The encoding used for the tests. */
+    private static final String ENCODING = "UTF-8";
+
+    /**
+     * Compares the time needed to render a link template with the time needed to process the links of the HTML.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testRenderingTime() throws Exception {
+
+        CmsLinkTable linkTable = new CmsLinkTable();
+        StringBuffer html = new StringBuffer();
+        for (int i = 0; i < 50; i++) {
+            CmsLink link = linkTable.addLink(
+                CmsRelationType.HYPERLINK,
+                "/sites/default/news/article" + i + ".html",
+                true);
+            html.append("<p>Some <b>rich</b> text with a <a href=\"%(").append(link.getName()).append(
+                ")\">link</a> in paragraph ").append(i).append(".</p>\n");
+        }
+        String content = html.toString();
+        CmsLinkTemplate template = new CmsLinkProcessor(null, linkTable, ENCODING, null).compileLinks(content);
+        assertEquals(50, template.getLinkCount());
+
+        long start = System.nanoTime();
+        String processed = null;
+        for (int i = 0; i < BENCHMARK_RUNS; i++) {
+            processed = new CmsLinkProcessor(null, linkTable, ENCODING, null).processLinks(content);
+        }
+        long processTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        String rendered = null;
+        for (int i = 0; i < BENCHMARK_RUNS; i++) {
+            rendered = template.render(null, linkTable);
+        }
+        long renderTime = System.nanoTime() - start;
+        assertEquals(processed, rendered);
+
+        echo("Link processing time for "
+            + content.length()
+            + " characters with 50 links: processLinks "
+            + ((processTime / BENCHMARK_RUNS) / 1000)
+            + " us, link template "
+            + ((renderTime / BENCHMARK_RUNS) / 1000)
+            + " us");
+    }
+
+    /**
+     * Tests that rendering a link template gives the same result as processing the links.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testSameResult() throws Exception {
+
+        CmsLinkTable linkTable = new CmsLinkTable();
+        linkTable.addLink(CmsRelationType.HYPERLINK, "/sites/default/index.html", true);
+        linkTable.addLink(CmsRelationType.EMBEDDED_IMAGE, "/sites/default/image.png", true);
+        linkTable.addLink(CmsRelationType.HYPERLINK, "http://www.opencms.org/a b?x=1&y=2", false);
+        linkTable.addLink(CmsRelationType.EMBEDDED_OBJECT, "/sites/default/movie.swf", true);
+        linkTable.addLink(CmsRelationType.EMBEDDED_OBJECT, "/sites/default/flash.swf?a=b", true);
+
+        String[] contents = {
+            "<p>No links at all</p>",
+            "<p><a href=\"%(link0)\">Index</a> and <img src=\"%(link1)\" alt=\"\" /></p>",
+            "<a href='%(link0)'>single</a><a href=%(link0)>unquoted</a><a href=\"%(link9)\">unknown</a>",
+            "<a href=\"%(link2)\">space</a><a href='%(link2)'>space</a><a href=%(link2) title=x>space</a>",
+            "<object data=\"%(link3)\"><param name=\"movie\" value=\"%(link4)\" /></object>",
+            "<embed src=\"%(link3)\" /><map><area href=\"%(link0)\" /></map>",
+            "<p>Text with &amp; entities &lt;and&gt; <!-- comments --> <unknown-tag attr=\"%(link0)\"></p>",
+            "<ul><li><a href=\"%(link0)\">unclosed<li><a href=\"%(link1)\">tags</ul>"};
+
+        for (String content : contents) {
+            String processed = new CmsLinkProcessor(null, linkTable, ENCODING, null).processLinks(content);
+            CmsLinkTemplate template = new CmsLinkProcessor(null, linkTable, ENCODING, null).compileLinks(content);
+            assertNotNull(template);
+            assertEquals(processed, template.render(null, linkTable));
+        }
+    }
+
+    /**
+     * Tests that content which contains the placeholder characters is not compiled.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testUncompilableContent() throws Exception {
+
+        CmsLinkTable linkTable = new CmsLinkTable();
+        linkTable.addLink(CmsRelationType.HYPERLINK, "/sites/default/index.html", true);
+        String content = "<p>\uE0000\uE001<a href=\"%(link0)\">Index</a></p>";
+        assertNull(new CmsLinkProcessor(null, linkTable, ENCODING, null).compileLinks(content));
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsRequestUtil;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Tests for the request and response used to render template resources inside the OpenCms server
+ * during the static export.<p>
+ */
+public class TestCmsStaticExportLocalRender extends OpenCmsTestCase {
+
+    /** The encoding used for the tests. */
+    private static final String ENCODING = "UTF-8";
+
+    /**
+     * Tests that request dispatchers are provided by the servlet context, also from worker threads.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testDispatchFromWorkerThreads() throws Exception {
+
+        final List<String> dispatched = Collections.synchronizedList(new ArrayList<String>());
+        final ServletContext servletContext = createServletContext(dispatched);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<RequestDispatcher>> results = new ArrayList<Future<RequestDispatcher>>();
+            for (int i = 0; i < 20; i++) {
+                final String path = "/system/modules/test/template" + i + ".jsp";
+                results.add(executor.submit(new Callable<RequestDispatcher>() {
+
+                    public RequestDispatcher call() throws Exception {
+
+                        CmsStaticExportLocalRequest req = createRequest(servletContext, "", null);
+                        return req.getRequestDispatcher(path);
+                    }
+                }));
+            }
+            for (Future<RequestDispatcher> result : results) {
+                assertNotNull(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(20, dispatched.size());
+        for (int i = 0; i < 20; i++) {
+            assertTrue(dispatched.contains("/system/modules/test/template" + i + ".jsp"));
+        }
+    }
+
+    /**
+     * Tests the headers, parameters and paths of the request.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testRequest() throws Exception {
+
+        ServletContext servletContext = createServletContext(new ArrayList<String>());
+        CmsStaticExportLocalRequest req = createRequest(servletContext, "a=1&b=2&b=3", "a=1&b=2&b=3");
+
+        assertEquals("GET", req.getMethod());
+        assertEquals("/opencms", req.getContextPath());
+        assertEquals("/opencms/export/sites/default/index.html", req.getRequestURI());
+        assertEquals(
+            "http://localhost:8080/opencms/export/sites/default/index.html",
+            req.getRequestURL().toString());
+        assertEquals("/export/sites/default/index.html", req.getServletPath());
+        assertEquals("a=1&b=2&b=3", req.getQueryString());
+
+        // header names are case insensitive
+        assertEquals(ENCODING, req.getHeader(CmsRequestUtil.HEADER_ACCEPT_CHARSET));
+        assertEquals(ENCODING, req.getHeader(CmsRequestUtil.HEADER_ACCEPT_CHARSET.toUpperCase()));
+        assertEquals("true", req.getHeader(CmsRequestUtil.HEADER_OPENCMS_EXPORT.toLowerCase()));
+        assertNull(req.getHeader("Cookie"));
+        assertEquals(-1, req.getIntHeader("Content-Length"));
+
+        assertEquals("1", req.getParameter("a"));
+        assertEquals(2, req.getParameterValues("b").length);
+        assertNull(req.getParameter("c"));
+
+        req.setAttribute("attr", "value");
+        assertEquals("value", req.getAttribute("attr"));
+        req.removeAttribute("attr");
+        assertNull(req.getAttribute("attr"));
+    }
+
+    /**
+     * Tests the output, status and reset of the response.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testResponse() throws Exception {
+
+        CmsStaticExportLocalResponse res = new CmsStaticExportLocalResponse();
+        res.setCharacterEncoding(ENCODING);
+        assertEquals(HttpServletResponse.SC_OK, res.getStatus());
+
+        res.getWriter().print("writer \u00e4");
+        assertEquals("writer \u00e4", new String(res.getContent(), ENCODING));
+        res.resetBuffer();
+        assertEquals(0, res.getContent().length);
+
+        CmsStaticExportLocalResponse streamRes = new CmsStaticExportLocalResponse();
+        streamRes.getOutputStream().write("stream".getBytes(ENCODING));
+        assertEquals("stream", new String(streamRes.getContent(), ENCODING));
+
+        res.sendError(HttpServletResponse.SC_NOT_FOUND, "not found");
+        assertEquals(HttpServletResponse.SC_NOT_FOUND, res.getStatus());
+        res.getWriter().print("error");
+        res.reset();
+        assertEquals(HttpServletResponse.SC_OK, res.getStatus());
+        assertEquals(0, res.getContent().length);
+
+        res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, res.getStatus());
+    }
+
+    /**
+     * Tests the session of the request.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testSession() throws Exception {
+
+        ServletContext servletContext = createServletContext(new ArrayList<String>());
+        CmsStaticExportLocalRequest req = createRequest(servletContext, null, null);
+
+        assertNull(req.getSession(false));
+        HttpSession session = req.getSession();
+        assertNotNull(session);
+        assertSame(session, req.getSession(false));
+        assertSame(servletContext, session.getServletContext());
+
+        session.setAttribute("attr", "value");
+        assertEquals("value", session.getAttribute("attr"));
+        assertTrue(Collections.list(session.getAttributeNames()).contains("attr"));
+        session.removeAttribute("attr");
+        assertNull(session.getAttribute("attr"));
+
+        // each request has its own session
+        assertNotSame(session, createRequest(servletContext, null, null).getSession());
+    }
+
+    /**
+     * Creates a static export request for the given servlet context.<p>
+     * 
+     * @param servletContext the servlet context
+     * @param query the query of the requested URL, or <code>null</code>
+     * @param parameters the parameters of the export data, or <code>null</code>
+     * 
+     * @return the static export request
+     * 
+     * @throws Exception if something goes wrong
+     */
+    protected CmsStaticExportLocalRequest createRequest(ServletContext servletContext, String query, String parameters)
+    throws Exception {
+
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put(CmsRequestUtil.HEADER_OPENCMS_EXPORT, "true");
+        headers.put(CmsRequestUtil.HEADER_ACCEPT_CHARSET, ENCODING);
+        String url = "http://localhost:8080/opencms/export/sites/default/index.html";
+        if (query != null) {
+            url += "?" + query;
+        }
+        CmsStaticExportData data = new CmsStaticExportData(
+            "/sites/default/index.html",
+            "/sites/default/index.html",
+            null,
+            parameters);
+        return new CmsStaticExportLocalRequest(servletContext, "/opencms", new URL(url), headers, data);
+    }
+
+    /**
+     * Creates a servlet context which records the paths of the requested dispatchers.<p>
+     * 
+     * @param dispatched the list to record the dispatched paths in
+     * 
+     * @return the servlet context
+     */
+    protected ServletContext createServletContext(final List<String> dispatched) {
+
+        final RequestDispatcher dispatcher = (RequestDispatcher)Proxy.newProxyInstance(
+            RequestDispatcher.class.getClassLoader(),
+            new Class[] {RequestDispatcher.class},
+            new InvocationHandler() {
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    return null;
+                }
+            });
+        return (ServletContext)Proxy.newProxyInstance(
+            ServletContext.class.getClassLoader(),
+            new Class[] {ServletContext.class},
+            new InvocationHandler() {
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    if ("getRequestDispatcher".equals(method.getName())) {
+                        dispatched.add((String)args[0]);
+                        return dispatcher;
+                    }
+                    return null;
+                }
+            });
+    }
+}
@@ -27,7 +27,11 @@
 
 package org.opencms.staticexport;
 
+import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
 import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.main.OpenCms;
 import org.opencms.test.OpenCmsTestCase;
@@ -36,6 +40,21 @@ import org.opencms.util.CmsFileUtil;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
 
 import junit.extensions.TestSetup;
 import junit.framework.Test;
@@ -69,6 +88,8 @@ public class TestExportFile extends OpenCmsTestCase {
         suite.setName(TestExportFile.class.getName());
 
         suite.addTest(new TestExportFile("testStaticexportFile"));
+        suite.addTest(new TestExportFile("testStaticexportUnchangedFile"));
+        suite.addTest(new TestExportFile("testStaticexportLocalRenderFallback"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -130,4 +151,161 @@ public class TestExportFile extends OpenCmsTestCase {
 
         this.assertContent(cms, resourcename, exportContent);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that template pages are rendered inside the server on worker threads, and that 
+     * HTTP requests are only used if rendering inside the server fails or is not available.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testStaticexportLocalRenderFallback() throws Throwable {
+
+        echo("Testing the fallback from rendering inside the server to HTTP requests");
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        final CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
+        String rootPath = getCmsObject().getRequestContext().addSiteRoot("/file1.txt");
+        final CmsStaticExportData data = manager.getVfsNameInternal(cms, manager.getRfsName(cms, rootPath));
+        final CmsStaticExportData failData = new CmsStaticExportData(
+            data.getVfsName(),
+            data.getRfsName() + "_fail",
+            data.getResource(),
+            data.getParameters());
+
+        final List<String> fallbacks = Collections.synchronizedList(new ArrayList<String>());
+        final CmsAfterPublishStaticExportHandler handler = new CmsAfterPublishStaticExportHandler() {
+
+            @Override
+            protected int exportTemplateResource(
+                CmsObject exportCms,
+                CmsStaticExportData exportData,
+                ServletContext servletContext) throws Exception {
+
+                if (exportData == failData) {
+                    throw new ServletException("rendering inside the server failed");
+                }
+                return super.exportTemplateResource(exportCms, exportData, servletContext);
+            }
+
+            @Override
+            protected int exportTemplateResource(CmsStaticExportData exportData, StringBuffer cookies) {
+
+                fallbacks.add(exportData.getRfsName());
+                return HttpServletResponse.SC_ACCEPTED;
+            }
+        };
+        final ServletContext servletContext = (ServletContext)Proxy.newProxyInstance(
+            ServletContext.class.getClassLoader(),
+            new Class[] {ServletContext.class},
+            new InvocationHandler() {
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    return null;
+                }
+            });
+        final StringBuffer cookies = new StringBuffer();
+
+        int renderThreads = manager.getRenderThreads();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            manager.setRenderThreads("4");
+
+            // render the page inside the server on the worker threads
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<Integer>() {
+
+                    public Integer call() throws Exception {
+
+                        return new Integer(handler.exportTemplatePage(cms, data, servletContext, cookies));
+                    }
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertTrue(result.get().intValue() != HttpServletResponse.SC_ACCEPTED);
+            }
+            assertTrue(fallbacks.isEmpty());
+
+            // if rendering fails, a HTTP request is sent instead
+            assertEquals(
+                HttpServletResponse.SC_ACCEPTED,
+                handler.exportTemplatePage(cms, failData, servletContext, cookies));
+            assertEquals(Collections.singletonList(failData.getRfsName()), fallbacks);
+            fallbacks.clear();
+
+            // without a servlet context, only HTTP requests are used
+            assertEquals(HttpServletResponse.SC_ACCEPTED, handler.exportTemplatePage(cms, data, null, cookies));
+            assertEquals(Collections.singletonList(data.getRfsName()), fallbacks);
+            fallbacks.clear();
+
+            // without render threads, only HTTP requests are used
+            manager.setRenderThreads("0");
+            assertEquals(
+                HttpServletResponse.SC_ACCEPTED,
+                handler.exportTemplatePage(cms, data, servletContext, cookies));
+            assertEquals(Collections.singletonList(data.getRfsName()), fallbacks);
+        } finally {
+            executor.shutdownNow();
+            manager.setRenderThreads(String.valueOf(renderThreads));
+        }
+    }
+
+    /**
+     * Tests that an exported file is not written again if its content has not changed,
+     * but that its modification date is still updated.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testStaticexportUnchangedFile() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that unchanged files are not exported again");
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        String resourcename = "/file1.txt";
+        String rootPath = cms.getRequestContext().addSiteRoot(resourcename);
+        String exportPath = manager.getExportPath(rootPath);
+        File f = new File(CmsFileUtil.normalizePath(exportPath + rootPath));
+        assertTrue(f.exists());
+        byte[] content = CmsFileUtil.readFile(f);
+        long mark = 1000000000L;
+
+        // writing the same content again must not write the file, but must update the modification date
+        assertTrue(f.setLastModified(mark));
+        CmsResource resource = cms.readResource(resourcename);
+        assertFalse(manager.writeResource(null, exportPath, rootPath, resource, content));
+        assertEquals((resource.getDateLastModified() / 1000) * 1000, f.lastModified());
+        assertTrue(Arrays.equals(content, CmsFileUtil.readFile(f)));
+
+        // writing a different content must write the file
+        byte[] changed = "this is a directly written content".getBytes();
+        assertTrue(f.setLastModified(mark));
+        assertTrue(manager.writeResource(null, exportPath, rootPath, resource, changed));
+        assertEquals((resource.getDateLastModified() / 1000) * 1000, f.lastModified());
+        assertTrue(Arrays.equals(changed, CmsFileUtil.readFile(f)));
+        assertTrue(manager.writeResource(null, exportPath, rootPath, resource, content));
+
+        // change only a property of the resource, and publish it again
+        assertTrue(f.setLastModified(mark));
+        cms.lockResource(resourcename);
+        cms.writePropertyObject(resourcename, new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "unchanged", null));
+        cms.unlockResource(resourcename);
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+        // the content is the same, but the modification date must reflect the new publish
+        assertFalse(mark == f.lastModified());
+        assertTrue(Arrays.equals(content, CmsFileUtil.readFile(f)));
+
+        // now change the content, the file must be written again
+        String newContent = "this is a changed test content";
+        cms.lockResource(resourcename);
+        CmsFile file = cms.readFile(resourcename);
+        file.setContents(newContent.getBytes());
+        cms.writeFile(file);
+        cms.unlockResource(resourcename);
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertTrue(Arrays.equals(newContent.getBytes(), CmsFileUtil.readFile(f)));
+    }
+}
@@ -3574,7 +3574,10 @@ public class OpenCmsTestCase extends TestCase {
 
         try {
             System.out.println();
-            m_shell.printPrompt();
+            if (m_shell != null) {
+                // the shell is not available in tests without an OpenCms instance
+                m_shell.printPrompt();
+            }
             System.out.println(message);
         } catch (Throwable t) {
             throw new RuntimeException(t);
@@ -29,6 +29,7 @@ package org.opencms.xml.content;
 
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
 import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
@@ -46,6 +47,7 @@ import org.opencms.relations.CmsRelationType;
 import org.opencms.staticexport.CmsLinkTable;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.test.OpenCmsTestServletRequest;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.widgets.CmsCheckboxWidget;
 import org.opencms.widgets.CmsHtmlWidget;
@@ -62,9 +64,11 @@ import org.opencms.xml.types.I_CmsXmlContentValue;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import junit.extensions.TestSetup;
 import junit.framework.Test;
@@ -166,6 +170,7 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         suite.addTest(new TestCmsXmlContentWithVfs("testMacros"));
         suite.addTest(new TestCmsXmlContentWithVfs("testAddFileReference"));
         suite.addTest(new TestCmsXmlContentWithVfs("testXmlContentCreate"));
+        suite.addTest(new TestCmsXmlContentWithVfs("testSharedOnlineContent"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -1916,6 +1921,61 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         assertEquals("Der Autor ist JETZT", messagesDEde.key("label.newauthor"));
     }
 
+    /**
+     * Tests that online XML contents are shared between requests until they are published again.<p>
+     * 
+     * @throws Exception in case something goes wrong
+     */
+    public void testSharedOnlineContent() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the XML content cache shared between requests");
+
+        String filename = "/xmlcontent_shared.html";
+        CmsResource res = cms.createResource(filename, OpenCmsTestCase.ARTICLE_TYPEID);
+        CmsFile file = cms.readFile(res);
+        CmsXmlContent xmlcontent = CmsXmlContentFactory.unmarshal(cms, file);
+        xmlcontent.getValue("Author", Locale.ENGLISH).setStringValue(cms, "Author 1");
+        file.setContents(xmlcontent.marshal());
+        cms.writeFile(file);
+
+        // offline contents are not shared
+        res = cms.readResource(filename);
+        CmsXmlContent offline1 = CmsXmlContentFactory.unmarshal(cms, res, createRequest());
+        CmsXmlContent offline2 = CmsXmlContentFactory.unmarshal(cms, res, createRequest());
+        assertNotSame(offline1, offline2);
+        assertFalse(offline1.isShared());
+
+        OpenCms.getPublishManager().publishResource(cms, filename);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsObject onlineCms = OpenCms.initCmsObject(cms);
+        onlineCms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+
+        // online contents are shared
+        res = onlineCms.readResource(filename);
+        CmsXmlContent online1 = CmsXmlContentFactory.unmarshal(onlineCms, res, createRequest());
+        CmsXmlContent online2 = CmsXmlContentFactory.unmarshal(onlineCms, res, createRequest());
+        assertSame(online1, online2);
+        assertTrue(online1.isShared());
+        assertEquals("Author 1", online1.getStringValue(onlineCms, "Author", Locale.ENGLISH));
+
+        // a new version is read after publishing
+        cms.lockResource(filename);
+        file = cms.readFile(filename);
+        xmlcontent = CmsXmlContentFactory.unmarshal(cms, file);
+        xmlcontent.getValue("Author", Locale.ENGLISH).setStringValue(cms, "Author 2");
+        file.setContents(xmlcontent.marshal());
+        cms.writeFile(file);
+        OpenCms.getPublishManager().publishResource(cms, filename);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        res = onlineCms.readResource(filename);
+        CmsXmlContent online3 = CmsXmlContentFactory.unmarshal(onlineCms, res, createRequest());
+        assertNotSame(online1, online3);
+        assertEquals("Author 2", online3.getStringValue(onlineCms, "Author", Locale.ENGLISH));
+    }
+
     /**
      * Test the validation of the value elements.<p>
      * 
@@ -2433,4 +2493,30 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         file.setContents(xmlcontent.marshal());
         cms.writeFile(file);
     }
+
+    /**
+     * Creates a test request which supports request attributes.<p>
+     * 
+     * @return the test request
+     */
+    private OpenCmsTestServletRequest createRequest() {
+
+        return new OpenCmsTestServletRequest() {
+
+            /** The request attributes. */
+            private Map<String, Object> m_attributes = new HashMap<String, Object>();
+
+            @Override
+            public Object getAttribute(String name) {
+
+                return m_attributes.get(name);
+            }
+
+            @Override
+            public void setAttribute(String name, Object value) {
+
+                m_attributes.put(name, value);
+            }
+        };
+    }
 }
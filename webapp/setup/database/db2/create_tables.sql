@@ -526,6 +526,14 @@ CREATE TABLE CMS_CONTENTS (
     CONSTRAINT PK_CONTENTS PRIMARY KEY(RESOURCE_ID, PUBLISH_TAG_FROM)
 );
 
+CREATE TABLE CMS_CONTENT_STORE (
+    CONTENT_HASH VARCHAR(64) NOT NULL,
+    FILE_CONTENT BLOB(50M) NOT NULL,
+    CONTENT_SIZE INT NOT NULL,
+    REF_COUNT INT NOT NULL,
+    CONSTRAINT PK_CONTENT_STORE PRIMARY KEY(CONTENT_HASH)
+);
+
 CREATE INDEX CMS_CONTENTS_01
     ON CMS_CONTENTS (RESOURCE_ID, PUBLISH_TAG_TO);
     
@@ -711,5 +719,7 @@ CREATE INDEX CMS_USERPUBLIST_IDX_01 ON CMS_USER_PUBLISH_LIST (USER_ID);
 CREATE INDEX CMS_USERPUBLIST_IDX_02 ON CMS_USER_PUBLISH_LIST (STRUCTURE_ID);
 
 CREATE TABLE CMS_REWRITES (ID VARCHAR(36) NOT NULL, ALIAS_MODE INTEGER NOT NULL, PATTERN VARCHAR(254) NOT NULL, REPLACEMENT VARCHAR(254) NOT NULL, SITE_ROOT VARCHAR(64) NOT NULL, PRIMARY KEY (ID));
-CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT); 
-   
+CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT);
+
+CREATE TABLE CMS_CLUSTER_EVENTS (EVENT_ID VARCHAR(36) NOT NULL, NODE_ID VARCHAR(64) NOT NULL, EVENT_TIME BIGINT NOT NULL, EVENT_TYPE INTEGER NOT NULL, EVENT_DATA BLOB(1M), PRIMARY KEY (EVENT_ID));
+CREATE INDEX CMS_CLUSTER_EVENTS_IDX_01 ON CMS_CLUSTER_EVENTS (EVENT_TIME);
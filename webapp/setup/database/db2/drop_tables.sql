@@ -19,6 +19,7 @@ DROP TABLE CMS_ONLINE_PROPERTYDEF;
 DROP TABLE CMS_ONLINE_RESOURCES;
 DROP TABLE CMS_ONLINE_STRUCTURE;
 DROP TABLE CMS_CONTENTS;
+DROP TABLE CMS_CONTENT_STORE;
 DROP TABLE CMS_PROJECTRESOURCES;
 DROP TABLE CMS_PROJECTS;
 DROP TABLE CMS_USERS;
@@ -40,4 +41,5 @@ DROP TABLE CMS_ALIASES ;
 
 
 DROP TABLE CMS_REWRITES;
-DROP TABLE CMS_USER_PUBLISH_LIST;
\ No newline at end of file
+DROP TABLE CMS_USER_PUBLISH_LIST;
+DROP TABLE CMS_CLUSTER_EVENTS;
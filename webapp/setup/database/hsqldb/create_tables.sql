@@ -503,6 +503,14 @@ CREATE CACHED TABLE CMS_CONTENTS (
     UNIQUE (RESOURCE_ID, PUBLISH_TAG_TO)
 );
 
+CREATE CACHED TABLE CMS_CONTENT_STORE (
+    CONTENT_HASH VARCHAR(64) NOT NULL,
+    FILE_CONTENT BLOB NOT NULL,
+    CONTENT_SIZE INT NOT NULL,
+    REF_COUNT INT NOT NULL,
+    PRIMARY KEY(CONTENT_HASH)
+);
+
 CREATE INDEX CMS_CONTENTS_01_IDX 
     ON CMS_CONTENTS (RESOURCE_ID);
 
@@ -694,3 +702,6 @@ CREATE INDEX CMS_USERPUB_02_IDX ON CMS_USER_PUBLISH_LIST (STRUCTURE_ID);
 
 CREATE CACHED TABLE CMS_REWRITES (ID VARCHAR(36) NOT NULL, ALIAS_MODE INTEGER NOT NULL, PATTERN VARCHAR(255) NOT NULL, REPLACEMENT VARCHAR(255) NOT NULL, SITE_ROOT VARCHAR(64) NOT NULL, PRIMARY KEY (ID));
 CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT);
+
+CREATE CACHED TABLE CMS_CLUSTER_EVENTS (EVENT_ID VARCHAR(36) NOT NULL, NODE_ID VARCHAR(64) NOT NULL, EVENT_TIME BIGINT NOT NULL, EVENT_TYPE INTEGER NOT NULL, EVENT_DATA BLOB, PRIMARY KEY (EVENT_ID));
+CREATE INDEX CMS_CLUSTER_EVENTS_IDX_01 ON CMS_CLUSTER_EVENTS (EVENT_TIME);
@@ -7,6 +7,7 @@ DROP INDEX CMS_ALIASES_IDX_1;
 DROP INDEX CMS_REWRITES_IDX_01;
 
 DROP TABLE CMS_CONTENTS;
+DROP TABLE CMS_CONTENT_STORE;
 DROP TABLE CMS_GROUPUSERS;
 DROP TABLE CMS_HISTORY_PRINCIPALS;
 DROP TABLE CMS_HISTORY_PROJECTRESOURCES;
@@ -46,3 +47,5 @@ DROP TABLE CMS_COUNTERS ;
 DROP TABLE CMS_ALIASES ; 
 DROP TABLE CMS_REWRITES;
 DROP TABLE CMS_USER_PUBLISH_LIST;
+DROP INDEX CMS_CLUSTER_EVENTS_IDX_01;
+DROP TABLE CMS_CLUSTER_EVENTS;
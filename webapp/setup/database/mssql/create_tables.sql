@@ -505,6 +505,14 @@ CREATE TABLE CMS_CONTENTS (
     UNIQUE (RESOURCE_ID, PUBLISH_TAG_TO)
 );
 
+CREATE TABLE CMS_CONTENT_STORE (
+    CONTENT_HASH NVARCHAR(64) NOT NULL,
+    FILE_CONTENT IMAGE NOT NULL,
+    CONTENT_SIZE INT NOT NULL,
+    REF_COUNT INT NOT NULL,
+    PRIMARY KEY(CONTENT_HASH)
+);
+
 CREATE NONCLUSTERED INDEX CMS_CONTENTS_01_IDX 
     ON CMS_CONTENTS (RESOURCE_ID);
 
@@ -694,4 +702,5 @@ CREATE NONCLUSTERED INDEX CMS_USERPUBLIST_IDX_02 ON CMS_USER_PUBLISH_LIST(STRUCT
 CREATE TABLE CMS_REWRITES (ID NVARCHAR(36) NOT NULL, ALIAS_MODE INT NOT NULL, PATTERN NVARCHAR(255) NOT NULL, REPLACEMENT VARCHAR(255) NOT NULL, SITE_ROOT NVARCHAR(64) NOT NULL, PRIMARY KEY (ID));
 CREATE NONCLUSTERED INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT);
 
-
+CREATE TABLE CMS_CLUSTER_EVENTS (EVENT_ID NVARCHAR(36) NOT NULL, NODE_ID NVARCHAR(64) NOT NULL, EVENT_TIME BIGINT NOT NULL, EVENT_TYPE INT NOT NULL, EVENT_DATA IMAGE, PRIMARY KEY (EVENT_ID));
+CREATE NONCLUSTERED INDEX CMS_CLUSTER_EVENTS_IDX_01 ON CMS_CLUSTER_EVENTS (EVENT_TIME);
@@ -1,6 +1,7 @@
 USE ${database};
 
 DROP TABLE CMS_CONTENTS;
+DROP TABLE CMS_CONTENT_STORE;
 DROP TABLE CMS_GROUPUSERS;
 DROP TABLE CMS_HISTORY_PRINCIPALS;
 DROP TABLE CMS_HISTORY_PROJECTRESOURCES;
@@ -42,4 +43,5 @@ DROP TABLE CMS_ALIASES ;
 
 
 DROP TABLE CMS_REWRITES;
-DROP TABLE CMS_USER_PUBLISH_LIST;
\ No newline at end of file
+DROP TABLE CMS_USER_PUBLISH_LIST;
+DROP TABLE CMS_CLUSTER_EVENTS;
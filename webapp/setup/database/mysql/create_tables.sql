@@ -395,6 +395,14 @@ CREATE TABLE CMS_CONTENTS (
     INDEX ONLINE_IDX (RESOURCE_ID, ONLINE_FLAG)
 ) ENGINE = MYISAM CHARACTER SET UTF8;
 
+CREATE TABLE CMS_CONTENT_STORE (
+    CONTENT_HASH VARCHAR(64) BINARY NOT NULL,
+    FILE_CONTENT LONGBLOB NOT NULL,
+    CONTENT_SIZE INT NOT NULL,
+    REF_COUNT INT NOT NULL,
+    PRIMARY KEY(CONTENT_HASH)
+) ENGINE = MYISAM CHARACTER SET UTF8;
+
 CREATE TABLE CMS_ONLINE_RESOURCE_RELATIONS (
     RELATION_SOURCE_ID VARCHAR(36) BINARY NOT NULL,
     RELATION_SOURCE_PATH TEXT BINARY NOT NULL,
@@ -524,4 +532,7 @@ CREATE TABLE CMS_REWRITES
   )
 ENGINE = MYISAM CHARACTER SET UTF8;
 
-CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT); 
\ No newline at end of file
+CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT);
+
+CREATE TABLE CMS_CLUSTER_EVENTS (EVENT_ID VARCHAR(36) BINARY NOT NULL, NODE_ID VARCHAR(64) BINARY NOT NULL, EVENT_TIME BIGINT NOT NULL, EVENT_TYPE INT NOT NULL, EVENT_DATA BLOB, PRIMARY KEY (EVENT_ID)) ENGINE = MYISAM CHARACTER SET UTF8;
+CREATE INDEX CMS_CLUSTER_EVENTS_IDX_01 ON CMS_CLUSTER_EVENTS (EVENT_TIME);
@@ -155,4 +155,6 @@ DROP TABLE CMS_ALIASES ;
 
 
 DROP TABLE CMS_REWRITES;
-DROP TABLE CMS_USER_PUBLISH_LIST;
\ No newline at end of file
+DROP TABLE CMS_USER_PUBLISH_LIST;
+DROP INDEX CMS_CLUSTER_EVENTS_IDX_01;
+DROP TABLE CMS_CLUSTER_EVENTS;
@@ -78,6 +78,7 @@ DROP INDEX CMS_CONTENTS_03_IDX;
 DROP INDEX CMS_CONTENTS_04_IDX;
 DROP INDEX CMS_CONTENTS_05_IDX;
 DROP TABLE CMS_CONTENTS;
+DROP TABLE CMS_CONTENT_STORE;
 DROP INDEX CMS_PROJECTRESOURCES_01_IDX;
 DROP TABLE CMS_PROJECTRESOURCES;
 DROP INDEX CMS_PROJECTS_01_IDX;
@@ -153,4 +154,6 @@ DROP TABLE CMS_ALIASES ;
 
 
 
-DROP TABLE CMS_REWRITES;
\ No newline at end of file
+DROP TABLE CMS_REWRITES;
+DROP INDEX CMS_CLUSTER_EVENTS_IDX_01;
+DROP TABLE CMS_CLUSTER_EVENTS;